@@ -0,0 +1,135 @@
+package logica;
+
+import persistencia.RegistroIdempotencia;
+import excepciones.DatosInvalidosException;
+import excepciones.EventPlannerException;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ControlIdempotencia - Hace que repetir una solicitud con la misma clave
+ * de idempotencia no repita la operacion.
+ *
+ * La primera solicitud con una clave se ejecuta y su resultado se guarda en
+ * el RegistroIdempotencia; los reintentos con la misma clave devuelven ese
+ * resultado en O(1), sin cobrar de nuevo ni tocar los repositorios. Si el
+ * reintento llega mientras la primera todavia se esta ejecutando, espera a
+ * que termine en lugar de ejecutarla otra vez.
+ *
+ * Cada clave queda atada a la solicitud que la uso (su huella): usarla para
+ * otra operacion u otros datos es un error. Las solicitudes que fallan no
+ * se guardan, asi que se pueden reintentar con la misma clave.
+ *
+ * El registro se guarda en datos/pagos.idempotencia, junto a los pagos.
+ * Tamaño y duracion: -Deventplanner.idempotencia.maximo (100000 claves) y
+ * -Deventplanner.idempotencia.horas (24).
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+class ControlIdempotencia {
+
+    /**
+     * Operacion protegida por una clave. Si devuelve null no se guarda
+     * nada y un reintento la vuelve a ejecutar.
+     */
+    interface Accion<T> {
+        T ejecutar() throws EventPlannerException;
+    }
+
+    private static final String RUTA = "datos/pagos.idempotencia";
+    private static final int MAXIMO_POR_DEFECTO = 100_000;
+    private static final long HORAS_POR_DEFECTO = 24;
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private final RegistroIdempotencia registro;
+
+    /** Solicitudes en ejecucion por clave */
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> enCurso;
+
+    /**
+     * Abre el registro; si el archivo no se puede leer, las claves solo se
+     * recuerdan en memoria
+     */
+    ControlIdempotencia() {
+        int maximo = Integer.getInteger("eventplanner.idempotencia.maximo", MAXIMO_POR_DEFECTO);
+        long duracionMs = TimeUnit.HOURS.toMillis(Long.getLong("eventplanner.idempotencia.horas", HORAS_POR_DEFECTO));
+        RegistroIdempotencia abierto;
+        try {
+            abierto = new RegistroIdempotencia(RUTA, maximo, duracionMs);
+        } catch (IOException e) {
+            System.err.println("[ControlIdempotencia] No se pudo leer " + RUTA + ", claves solo en memoria: " + e.getMessage());
+            try {
+                abierto = new RegistroIdempotencia(null, maximo, duracionMs);
+            } catch (IOException imposible) {
+                throw new IllegalStateException(imposible);
+            }
+        }
+        this.registro = abierto;
+        this.enCurso = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Ejecuta una operacion una sola vez por clave
+     *
+     * @param clave Clave de idempotencia del cliente
+     * @param huella Operacion y parametros de la solicitud
+     * @param accion Operacion a ejecutar si la clave es nueva
+     * @return Resultado original de la clave
+     * @throws DatosInvalidosException Si la clave esta vacia o es muy larga
+     * @throws EventPlannerException Si la clave ya se uso con otra solicitud,
+     *         o la excepcion de la operacion
+     */
+    @SuppressWarnings("unchecked")
+    <T> T ejecutar(String clave, String huella, Accion<T> accion) throws EventPlannerException {
+        if (clave == null || clave.isBlank()) {
+            throw new DatosInvalidosException("claveIdempotencia", "no puede estar vacia");
+        }
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new DatosInvalidosException("claveIdempotencia", "no puede superar " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+        while (true) {
+            RegistroIdempotencia.Entrada guardada = registro.buscar(clave);
+            if (guardada != null) {
+                return (T) resultadoDe(guardada, clave, huella);
+            }
+            CompletableFuture<Void> propia = new CompletableFuture<>();
+            CompletableFuture<Void> otra = enCurso.putIfAbsent(clave, propia);
+            if (otra != null) {
+                // Otro hilo esta ejecutando la misma clave: se espera y se vuelve a mirar
+                otra.join();
+                continue;
+            }
+            try {
+                guardada = registro.buscar(clave);
+                if (guardada != null) {
+                    return (T) resultadoDe(guardada, clave, huella);
+                }
+                T resultado = accion.ejecutar();
+                if (resultado == null) {
+                    return null;
+                }
+                try {
+                    registro.guardar(clave, huella, resultado);
+                } catch (IOException e) {
+                    // La operacion ya se hizo; la clave queda al menos en memoria
+                    System.err.println("[ControlIdempotencia] No se pudo guardar la clave " + clave + ": " + e.getMessage());
+                }
+                return resultado;
+            } finally {
+                enCurso.remove(clave, propia);
+                propia.complete(null);
+            }
+        }
+    }
+
+    private static Object resultadoDe(RegistroIdempotencia.Entrada guardada, String clave, String huella)
+            throws EventPlannerException {
+        if (!guardada.getHuella().equals(huella)) {
+            throw new EventPlannerException("La clave de idempotencia " + clave + " ya se uso con otra solicitud");
+        }
+        return guardada.getResultado();
+    }
+}
@@ -1,19 +1,19 @@
 /**
  * DashBoard - Clase para gestionar y mostrar el panel de control del sistema de gestión de eventos.
  * Proporciona una vista general de métricas, eventos activos, alertas y reportes. 
+ * Las métricas recorren las vistas de solo lectura del gestor sin copiar listas.
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.2
  */
 package logica;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
 
 import modelos.EstadoEvento;
 import modelos.Evento;
-import modelos.Organizador;
-import modelos.Participante;
 
 public class DashBoard {
     
@@ -23,7 +23,7 @@ public class DashBoard {
 
     /*Constructor */
     public DashBoard(GestorEventos gestorEventos) {
-        this.gestor = new GestorEventos();
+        this.gestor = gestorEventos;
         this.generadorReportes = new GenerarReportes(gestorEventos);
     }
         /**
@@ -62,9 +62,9 @@ public class DashBoard {
              * @return String con las métricas generales
              */
             public String mostrarMetricasGenerales(){
-                ArrayList<Evento> todosEventos = gestor.obtenerTodosEventos();
-                ArrayList<Participante> todosParticipantes = gestor.obtenerTodosParticipantes();
-                ArrayList<Organizador> todosOrganizadores = gestor.obtenerTodosOrganizadores();
+                List<Evento> todosEventos = gestor.verEventos();
+                int totalParticipantes = gestor.contarParticipantes();
+                int totalOrganizadores = gestor.contarOrganizadores();
                 
                 var eventosPublicados = 0;
                 var eventosEnCurso = 0;
@@ -85,7 +85,7 @@ public class DashBoard {
                     } else if (evento.getEstado() == EstadoEvento.EN_CURSO) {
                         eventosEnCurso++;
                     }
-                    totalRegistrados += evento.getParticipantesRegistrados().size();
+                    totalRegistrados += evento.contarRegistrados();
                 }
                 
                 var promedioAsistencia = generadorReportes.calcularPromedioAsistencia();
@@ -103,7 +103,7 @@ public class DashBoard {
                 // Segunda fila de métricas
                 metricas.append(String.format("========================================================================\n"));
                 metricas.append(String.format("   Participantes       Organizadores         Promedio Asistencia        \n"));
-                metricas.append(String.format("       %6d                  %6d                   %.2f%%                \n", todosParticipantes.size(), todosOrganizadores.size(), promedioAsistencia));
+                metricas.append(String.format("       %6d                  %6d                   %.2f%%                \n", totalParticipantes, totalOrganizadores, promedioAsistencia));
                 metricas.append(String.format("========================================================================\n"));
                 
                 // Mostrar total de registrados en eventos para usar la variable y evitar el warning
@@ -132,8 +132,8 @@ public class DashBoard {
                     if (!eventosEnCurso.isEmpty()) {
                         eventos.append("\n EN CURSO AHORA:\n");
                         for (Evento evento : eventosEnCurso) {
-                            var registrados = evento.getParticipantesRegistrados().size();
-                            var asistentes = evento.getParticipantesAsistentes().size();
+                            var registrados = evento.contarRegistrados();
+                            var asistentes = evento.contarAsistentes();
                             eventos.append(String.format("   • %s [%s]\n", evento.getNombre(), evento.getTipo().getDescripcion()));
                             eventos.append(String.format("     Registrados: %d | Asistentes: %d | Cupos: %d\n",registrados, asistentes, evento.getCuposDisponibles()));
                         }
@@ -152,7 +152,7 @@ public class DashBoard {
                                 eventos.append(String.format("     Fecha: %s | Tipo: %s\n",
                                 evento.getFechaInicio().format(FORMATO_FECHA),
                                 evento.getTipo().getDescripcion()));
-                                eventos.append(String.format("     Registrados: %d/%d | Ubicación: %s\n",evento.getParticipantesRegistrados().size(),evento.getCapacidadMaxima(),evento.getUbicacion()));
+                                eventos.append(String.format("     Registrados: %d/%d | Ubicación: %s\n",evento.contarRegistrados(),evento.getCapacidadMaxima(),evento.getUbicacion()));
                                 contador++;
                                 if (contador >= 5) break; // Mostrar máximo 5
                             }
@@ -174,14 +174,14 @@ public class DashBoard {
                         alertas.append(" ALERTAS Y NOTIFICACIONES\n");
                         alertas.append("============================================================\n");
                         
-                        ArrayList<Evento> todosEventos = gestor.obtenerTodosEventos();
+                        List<Evento> todosEventos = gestor.verEventos();
                         var hayAlertas = false;
                         
                         // Alertas de eventos próximos a llenarse
                         for (Evento evento : todosEventos) {
                             if (evento.getEstado() == EstadoEvento.PUBLICADO) {
                                 int cuposDisponibles = evento.getCuposDisponibles();
-                                double porcentajeOcupacion = (evento.getParticipantesRegistrados().size() * 100.0) / evento.getCapacidadMaxima();
+                                double porcentajeOcupacion = (evento.contarRegistrados() * 100.0) / evento.getCapacidadMaxima();
                                 
                                 if (cuposDisponibles == 0) {
                                     alertas.append(String.format("    LLENO: \"%s\" ha alcanzado su capacidad máxima\n", 
@@ -217,7 +217,7 @@ public class DashBoard {
                         // Alertas de baja asistencia
                         for (Evento evento : todosEventos) {
                             if (evento.getEstado() == EstadoEvento.PUBLICADO) {
-                                var registrados = evento.getParticipantesRegistrados().size();
+                                var registrados = evento.contarRegistrados();
                                 if (registrados < 5 && 
                                     evento.getFechaInicio().isBefore(ahora.plusDays(3))) {
                                     alertas.append(String.format("    BAJA INSCRIPCIÓN: \"%s\" solo tiene %d registrados\n", evento.getNombre(), registrados));
@@ -253,13 +253,13 @@ public class DashBoard {
                                 Evento evento = todosEventos.get(i);
                                 
                                 // Solo mostrar eventos que han tenido asistentes
-                                if (!evento.getParticipantesAsistentes().isEmpty()) {
+                                if (evento.contarAsistentes() > 0) {
                                     contador++;
                                     var medalla = contador == 1 ? "Oro" : contador == 2 ? "Plata" : contador == 3 ? "Bronce" : "  ";
                                     
                                     top.append(String.format("\n%s %d. %s\n", medalla, contador, evento.getNombre()));
                                     top.append(String.format("      Tipo: %s | Estado: %s\n",evento.getTipo().getDescripcion(),evento.getEstado().getDescripcion()));
-                                    top.append(String.format("      Registrados: %d | Asistentes: %d\n",evento.getParticipantesRegistrados().size(),evento.getParticipantesAsistentes().size()));
+                                    top.append(String.format("      Registrados: %d | Asistentes: %d\n",evento.contarRegistrados(),evento.contarAsistentes()));
                                     top.append(String.format("      Asistencia: %.2f%%\n",evento.calcularPorcentajeAsistencia()));
                                 }
                             }
@@ -283,8 +283,8 @@ public class DashBoard {
                                 vista.append("╚══════════════════════════════════════════════════════════╝\n\n");
                                 
                                 // Contadores rápidos
-                                var totalEventos = gestor.obtenerTodosEventos().size();
-                                var totalParticipantes = gestor.obtenerTodosParticipantes().size();
+                                var totalEventos = gestor.contarEventos();
+                                var totalParticipantes = gestor.contarParticipantes();
                                 var eventosActivos = gestor.buscarEventosPorEstado(EstadoEvento.PUBLICADO).size()+gestor.buscarEventosPorEstado(EstadoEvento.EN_CURSO).size();
                                 
                                 vista.append(String.format(" Eventos Totales: %d\n", totalEventos));
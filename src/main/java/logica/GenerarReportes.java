@@ -2,9 +2,14 @@
  * Clase GeneradorReportes
  * Responsabilidad: Generar reportes y análisis estadísticos del sistema
  * Capa: Lógica de Negocio
+ * Los reportes historicos incluyen los eventos y pagos del archivo historico.
+ * Los reportes de asistencia cruzan los conjuntos de participantes de cada
+ * evento (ConjuntoBits) sin copiar listas de IDs.
+ * Los eventos y pagos se recorren sobre las vistas de solo lectura de los
+ * gestores, sin copiar los repositorios en cada reporte.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 2.0
+ * @version 2.4
  */
 package logica;
 
@@ -14,6 +19,7 @@ import java.time.LocalDateTime;
 import java.time.format.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class GenerarReportes {
@@ -48,7 +54,7 @@ public class GenerarReportes {
      * @return Número total de eventos
      */
     public int obtenerTotalEventos() {
-        return gestor.obtenerTodosEventos().size();
+        return gestor.contarEventosHistoricos();
     }
     
     /**
@@ -56,7 +62,7 @@ public class GenerarReportes {
      * @return Número total de participantes
      */
     public int obtenerTotalParticipantes() {
-        return gestor.obtenerTodosParticipantes().size();
+        return gestor.contarParticipantes();
     }
     
     /**
@@ -64,7 +70,7 @@ public class GenerarReportes {
      * @return Número total de organizadores
      */
     public int obtenerTotalOrganizadores() {
-        return gestor.obtenerTodosOrganizadores().size();
+        return gestor.contarOrganizadores();
     }
     
     /**
@@ -72,19 +78,10 @@ public class GenerarReportes {
      * @return Ingresos totales en pesos
      */
     public double calcularIngresosTotales() {
-        double total = 0.0;
+        if (gestorPagos == null) return 0.0;
         
-        if (gestorPagos != null) {
-            ArrayList<Pago> pagos = gestorPagos.obtenerTodosPagos();
-            
-            for (Pago pago : pagos) {
-                if (pago.getEstado() == EstadoPago.APROBADO) {
-                    total += pago.getMontoBase();
-                }
-            }
-        }
-        
-        return total;
+        return gestorPagos.sumarPagosHistoricos(
+            pago -> pago.getEstado() == EstadoPago.APROBADO, Pago::getMontoBase);
     }
     
     /**
@@ -94,16 +91,7 @@ public class GenerarReportes {
     public int obtenerTotalTicketsVendidos() {
         if (gestorPagos == null) return 0;
         
-        int total = 0;
-        ArrayList<Pago> pagos = gestorPagos.obtenerTodosPagos();
-        
-        for (Pago pago : pagos) {
-            if (pago.getEstado() == EstadoPago.APROBADO) {
-                total++;
-            }
-        }
-        
-        return total;
+        return gestorPagos.contarPagosHistoricos(pago -> pago.getEstado() == EstadoPago.APROBADO);
     }
     
     /**
@@ -111,15 +99,15 @@ public class GenerarReportes {
      * @return Evento más popular o null si no hay eventos
      */
     public Evento obtenerEventoMasPopular() {
-        ArrayList<Evento> eventos = gestor.obtenerTodosEventos();
+        List<Evento> eventos = gestor.verEventosHistoricos();
         
         if (eventos.isEmpty()) return null;
         
         Evento masPopular = eventos.get(0);
         
         for (Evento evento : eventos) {
-            if (evento.getParticipantesRegistrados().size() > 
-                masPopular.getParticipantesRegistrados().size()) {
+            if (evento.contarRegistrados() > 
+                masPopular.contarRegistrados()) {
                 masPopular = evento;
             }
         }
@@ -134,20 +122,17 @@ public class GenerarReportes {
     public Evento obtenerEventoMasRentable() {
         if (gestorPagos == null) return null;
         
-        ArrayList<Evento> eventos = gestor.obtenerTodosEventos();
+        List<Evento> eventos = gestor.verEventosHistoricos();
         if (eventos.isEmpty()) return null;
         
         Map<String, Double> ingresosPorEvento = new HashMap<>();
         
         // Calcular ingresos por evento
-        ArrayList<Pago> pagos = gestorPagos.obtenerTodosPagos();
-        for (Pago pago : pagos) {
+        gestorPagos.recorrerPagosHistoricos(pago -> {
             if (pago.getEstado() == EstadoPago.APROBADO) {
-                String eventoId = pago.getEventoId();
-                double ingresoActual = ingresosPorEvento.getOrDefault(eventoId, 0.0);
-                ingresosPorEvento.put(eventoId, ingresoActual + pago.getMontoBase());
+                ingresosPorEvento.merge(pago.getEventoId(), pago.getMontoBase(), Double::sum);
             }
-        }
+        });
         
         // Encontrar el evento con mayores ingresos
         String eventoIdMasRentable = null;
@@ -180,9 +165,7 @@ public class GenerarReportes {
         ArrayList<Evento> proximos = new ArrayList<>();
         LocalDateTime ahora = LocalDateTime.now();
         
-        ArrayList<Evento> eventos = gestor.obtenerTodosEventos();
-        
-        for (Evento evento : eventos) {
+        for (Evento evento : gestor.verEventos()) {
             if (evento.getEstado() == EstadoEvento.PUBLICADO && 
                 evento.getFechaInicio().isAfter(ahora)) {
                 proximos.add(evento);
@@ -213,7 +196,7 @@ public class GenerarReportes {
         }
         
         // Contar eventos
-        ArrayList<Evento> eventos = gestor.obtenerTodosEventos();
+        List<Evento> eventos = gestor.verEventosHistoricos();
         for (Evento evento : eventos) {
             EstadoEvento estado = evento.getEstado();
             conteo.put(estado, conteo.get(estado) + 1);
@@ -237,13 +220,11 @@ public class GenerarReportes {
         }
         
         // Contar pagos
-        ArrayList<Pago> pagos = gestorPagos.obtenerTodosPagos();
-        for (Pago pago : pagos) {
+        gestorPagos.recorrerPagosHistoricos(pago -> {
             if (pago.getEstado() == EstadoPago.APROBADO) {
-                MetodoPago metodo = pago.getMetodoPago();
-                conteo.put(metodo, conteo.get(metodo) + 1);
+                conteo.merge(pago.getMetodoPago(), 1, Integer::sum);
             }
-        }
+        });
         
         return conteo;
     }
@@ -253,13 +234,13 @@ public class GenerarReportes {
      * @return Promedio de participantes
      */
     public double calcularPromedioParticipantesPorEvento() {
-        ArrayList<Evento> eventos = gestor.obtenerTodosEventos();
+        List<Evento> eventos = gestor.verEventosHistoricos();
         
         if (eventos.isEmpty()) return 0.0;
         
         int totalParticipantes = 0;
         for (Evento evento : eventos) {
-            totalParticipantes += evento.getParticipantesRegistrados().size();
+            totalParticipantes += evento.contarRegistrados();
         }
         
         return (double) totalParticipantes / eventos.size();
@@ -270,7 +251,7 @@ public class GenerarReportes {
      * @return Porcentaje de ocupación promedio
      */
     public double calcularTasaOcupacionPromedio() {
-        ArrayList<Evento> eventos = gestor.obtenerTodosEventos();
+        List<Evento> eventos = gestor.verEventosHistoricos();
         
         if (eventos.isEmpty()) return 0.0;
         
@@ -279,7 +260,7 @@ public class GenerarReportes {
         
         for (Evento evento : eventos) {
             if (evento.getCapacidadMaxima() > 0) {
-                double ocupacion = (double) evento.getParticipantesRegistrados().size() 
+                double ocupacion = (double) evento.contarRegistrados() 
                                   / evento.getCapacidadMaxima() * 100;
                 sumaOcupacion += ocupacion;
                 eventosContados++;
@@ -303,8 +284,9 @@ public class GenerarReportes {
         try {
             Evento evento = gestor.buscarEvento(eventoId);
             
-            int totalRegistrados = evento.getParticipantesRegistrados().size();
-            int totalAsistentes = evento.getParticipantesAsistentes().size();
+            int totalRegistrados = evento.contarRegistrados();
+            int totalAsistentes = evento.contarAsistentes();
+            int totalAusentes = evento.obtenerAusentes().tamano();
             double porcentajeAsistencia = evento.calcularPorcentajeAsistencia();
             int cuposDisponibles = evento.getCuposDisponibles();
             
@@ -326,6 +308,7 @@ public class GenerarReportes {
             reporte.append(String.format("Capacidad Maxima: %d personas \n", evento.getCapacidadMaxima()));
             reporte.append(String.format("Registrados: %d personas \n", totalRegistrados));
             reporte.append(String.format("Asistieron: %d personas \n", totalAsistentes));
+            reporte.append(String.format("No asistieron: %d personas \n", totalAusentes));
             reporte.append(String.format("Cupos Disponibles: %d \n", cuposDisponibles));
             reporte.append(String.format("Porcentaje de Asistencia: %.2f%% \n\n", porcentajeAsistencia));
             
@@ -358,15 +341,96 @@ public class GenerarReportes {
         }
     }
     
+    /**
+     * Obtiene los participantes registrados en un evento que no hicieron check-in
+     * @param eventoId ID del evento
+     * @return IDs de los participantes ausentes
+     * @throws EventPlannerException si el evento no se encuentra
+     */
+    public ArrayList<String> obtenerAusentes(String eventoId) throws EventPlannerException {
+        return DiccionarioIds.ids(gestor.buscarEvento(eventoId).obtenerAusentes());
+    }
+    
+    /**
+     * Obtiene los participantes registrados en todos los eventos indicados
+     * @param eventoIds IDs de los eventos
+     * @return IDs de los participantes en comun (vacio si no hay eventos)
+     * @throws EventPlannerException si algun evento no se encuentra
+     */
+    public ArrayList<String> obtenerParticipantesEnComun(List<String> eventoIds) throws EventPlannerException {
+        return DiccionarioIds.ids(intersectar(eventoIds, true));
+    }
+    
+    /**
+     * Genera un reporte de asistencia cruzada entre varios eventos:
+     * cuantos participantes se registraron en todos, cuantos asistieron a
+     * todos y cuantos faltaron al menos a uno de ellos
+     * @param eventoIds IDs de los eventos a cruzar
+     * @return String con el reporte formateado
+     * @throws EventPlannerException si algun evento no se encuentra
+     */
+    public String generarReporteAsistenciaCruzada(List<String> eventoIds) throws EventPlannerException {
+        if (eventoIds == null || eventoIds.size() < 2) {
+            throw new EventPlannerException("Se necesitan al menos dos eventos para cruzar la asistencia");
+        }
+        ConjuntoBits registradosEnTodos = intersectar(eventoIds, true);
+        ConjuntoBits asistieronATodos = intersectar(eventoIds, false);
+        ConjuntoBits faltaronAAlguno = registradosEnTodos.diferencia(asistieronATodos);
+        
+        StringBuilder reporte = new StringBuilder();
+        reporte.append("=======================================================\n");
+        reporte.append("          REPORTE DE ASISTENCIA CRUZADA                \n");
+        reporte.append("=======================================================\n\n");
+        reporte.append(" EVENTOS\n");
+        reporte.append("=======================================================\n");
+        for (String eventoId : eventoIds) {
+            Evento evento = gestor.buscarEvento(eventoId);
+            reporte.append(String.format("  %s: %d registrados, %d asistentes\n",
+                    evento.getNombre(), evento.contarRegistrados(), evento.contarAsistentes()));
+        }
+        reporte.append("\n PARTICIPANTES EN COMUN\n");
+        reporte.append("=======================================================\n");
+        reporte.append(String.format("Registrados en todos: %d personas\n", registradosEnTodos.tamano()));
+        reporte.append(String.format("Asistieron a todos: %d personas\n", asistieronATodos.tamano()));
+        reporte.append(String.format("Faltaron al menos a uno: %d personas\n", faltaronAAlguno.tamano()));
+        if (!registradosEnTodos.estaVacio()) {
+            reporte.append(String.format("Fidelidad: %.2f%%\n",
+                    asistieronATodos.tamano() * 100.0 / registradosEnTodos.tamano()));
+        }
+        reporte.append("\n");
+        return reporte.toString();
+    }
+    
+    /**
+     * Interseccion de los registrados (o asistentes) de varios eventos,
+     * empezando por el conjunto mas chico
+     */
+    private ConjuntoBits intersectar(List<String> eventoIds, boolean registrados) throws EventPlannerException {
+        ArrayList<ConjuntoBits> conjuntos = new ArrayList<>();
+        for (String eventoId : eventoIds) {
+            Evento evento = gestor.buscarEvento(eventoId);
+            conjuntos.add(registrados ? evento.getRegistrados() : evento.getAsistentes());
+        }
+        if (conjuntos.isEmpty()) {
+            return new ConjuntoBits();
+        }
+        conjuntos.sort((a, b) -> Integer.compare(a.tamano(), b.tamano()));
+        ConjuntoBits resultado = conjuntos.get(0);
+        for (int i = 1; i < conjuntos.size() && !resultado.estaVacio(); i++) {
+            resultado = resultado.interseccion(conjuntos.get(i));
+        }
+        return resultado;
+    }
+    
     /**
      * Genera estadísticas generales del sistema de eventos
      * @return String con las estadísticas formateadas
      * @throws EventPlannerException si hay un error al obtener los datos
      */
     public String generarEstadisticasGenerales() throws EventPlannerException {
-        ArrayList<Evento> todosEventos = gestor.obtenerTodosEventos();
-        ArrayList<Organizador> todosOrganizadores = gestor.obtenerTodosOrganizadores();
-        ArrayList<Participante> todosParticipantes = gestor.obtenerTodosParticipantes();
+        List<Evento> todosEventos = gestor.verEventosHistoricos();
+        int totalOrganizadores = gestor.contarOrganizadores();
+        int totalParticipantes = gestor.contarParticipantes();
 
         var eventosPublicados = 0;
         var eventosEnCurso = 0;
@@ -390,8 +454,8 @@ public class GenerarReportes {
                 }
             }
             eventosPorTipo.put(evento.getTipo(), eventosPorTipo.get(evento.getTipo()) + 1);
-            totalRegistrados += evento.getParticipantesRegistrados().size();
-            totalAsistentes += evento.getParticipantesAsistentes().size();
+            totalRegistrados += evento.contarRegistrados();
+            totalAsistentes += evento.contarAsistentes();
         }
         
         var promedioAsistencia = calcularPromedioAsistencia();
@@ -404,8 +468,8 @@ public class GenerarReportes {
         estadisticas.append(" RESUMEN GENERAL\n");
         estadisticas.append("=======================================================\n");
         estadisticas.append(String.format("Total de Eventos: %d\n", todosEventos.size()));
-        estadisticas.append(String.format("Total de Participantes: %d\n", todosParticipantes.size()));
-        estadisticas.append(String.format("Total de Organizadores: %d\n\n", todosOrganizadores.size()));
+        estadisticas.append(String.format("Total de Participantes: %d\n", totalParticipantes));
+        estadisticas.append(String.format("Total de Organizadores: %d\n\n", totalOrganizadores));
         
         estadisticas.append(" EVENTOS POR ESTADO\n");
         estadisticas.append("=======================================================\n");
@@ -449,14 +513,14 @@ public class GenerarReportes {
             
             comparacion.append(String.format(" Evento 1: %s\n", evento1.getNombre()));
             comparacion.append(String.format("   Tipo: %s\n", evento1.getTipo().getDescripcion()));
-            comparacion.append(String.format("   Registrados: %d\n", evento1.getParticipantesRegistrados().size()));
-            comparacion.append(String.format("   Asistentes: %d\n", evento1.getParticipantesAsistentes().size()));
+            comparacion.append(String.format("   Registrados: %d\n", evento1.contarRegistrados()));
+            comparacion.append(String.format("   Asistentes: %d\n", evento1.contarAsistentes()));
             comparacion.append(String.format("   Asistencia: %.2f%%\n\n", evento1.calcularPorcentajeAsistencia()));
             
             comparacion.append(String.format(" Evento 2: %s\n", evento2.getNombre()));
             comparacion.append(String.format("   Tipo: %s\n", evento2.getTipo().getDescripcion()));
-            comparacion.append(String.format("   Registrados: %d\n", evento2.getParticipantesRegistrados().size()));
-            comparacion.append(String.format("   Asistentes: %d\n", evento2.getParticipantesAsistentes().size()));
+            comparacion.append(String.format("   Registrados: %d\n", evento2.contarRegistrados()));
+            comparacion.append(String.format("   Asistentes: %d\n", evento2.contarAsistentes()));
             comparacion.append(String.format("   Asistencia: %.2f%%\n\n", evento2.calcularPorcentajeAsistencia()));
             
             comparacion.append(" GANADOR\n");
@@ -487,7 +551,7 @@ public class GenerarReportes {
      * @return String con el análisis de tendencias formateado
      */
     public String analizarTendencias() {
-        ArrayList<Evento> todosEventos = gestor.obtenerTodosEventos();
+        List<Evento> todosEventos = gestor.verEventosHistoricos();
         
         Map<TipoEvento, Integer> registradosPorTipo = new HashMap<>();
         Map<TipoEvento, Integer> eventosPorTipo = new HashMap<>();
@@ -501,7 +565,7 @@ public class GenerarReportes {
             TipoEvento tipo = evento.getTipo();
             eventosPorTipo.put(tipo, eventosPorTipo.get(tipo) + 1);
             registradosPorTipo.put(tipo, registradosPorTipo.get(tipo) + 
-                                evento.getParticipantesRegistrados().size());
+                                evento.contarRegistrados());
         }
         
         TipoEvento tipoMasPopular = null;
@@ -550,7 +614,12 @@ public class GenerarReportes {
      * @throws EventPlannerException si hay error
      */
     public String generarReportePorOrganizador(String organizadorId) throws EventPlannerException {
-        ArrayList<Evento> eventosOrganizador = gestor.obtenerEventosDeOrganizador(organizadorId);
+        ArrayList<Evento> eventosOrganizador = new ArrayList<>();
+        for (Evento evento : gestor.verEventosHistoricos()) {
+            if (evento.getOrganizadorId().equals(organizadorId)) {
+                eventosOrganizador.add(evento);
+            }
+        }
         
         var totalRegistrados = 0;
         var totalAsistentes = 0;
@@ -558,8 +627,8 @@ public class GenerarReportes {
         var eventosFinalizados = 0;
         
         for (Evento evento : eventosOrganizador) {
-            totalRegistrados += evento.getParticipantesRegistrados().size();
-            totalAsistentes += evento.getParticipantesAsistentes().size();
+            totalRegistrados += evento.contarRegistrados();
+            totalAsistentes += evento.contarAsistentes();
             
             if (evento.getEstado() == EstadoEvento.PUBLICADO || 
                 evento.getEstado() == EstadoEvento.EN_CURSO) {
@@ -590,8 +659,8 @@ public class GenerarReportes {
                 reporte.append(String.format("• %s (%s)\n", 
                     evento.getNombre(), evento.getEstado().getDescripcion()));
                 reporte.append(String.format("  Registrados: %d | Asistentes: %d | Asistencia: %.2f%%\n\n",
-                    evento.getParticipantesRegistrados().size(),
-                    evento.getParticipantesAsistentes().size(),
+                    evento.contarRegistrados(),
+                    evento.contarAsistentes(),
                     evento.calcularPorcentajeAsistencia()));
             }
         }
@@ -604,12 +673,12 @@ public class GenerarReportes {
      * @return double con el promedio de asistencia
      */
     public double calcularPromedioAsistencia() {
-        ArrayList<Evento> todosEventos = gestor.obtenerTodosEventos();
+        List<Evento> todosEventos = gestor.verEventosHistoricos();
         double sumaAsistencias = 0;
         var eventosConAsistencia = 0;
         
         for (Evento evento : todosEventos) {
-            if (!evento.getParticipantesAsistentes().isEmpty()) {
+            if (evento.contarAsistentes() > 0) {
                 sumaAsistencias += evento.calcularPorcentajeAsistencia();
                 eventosConAsistencia++;
             }
@@ -623,7 +692,7 @@ public class GenerarReportes {
      * @return Evento con mejor porcentaje de asistencia
      */
     public Evento obtenerEventoMasExitoso() {
-        ArrayList<Evento> todosEventos = gestor.obtenerTodosEventos();
+        List<Evento> todosEventos = gestor.verEventosHistoricos();
         Evento eventoMasExitoso = null;
         double mejorAsistencia = 0;
         
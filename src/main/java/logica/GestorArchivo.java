@@ -0,0 +1,160 @@
+package logica;
+
+import modelos.EstadoEvento;
+import modelos.Evento;
+import modelos.Pago;
+import modelos.Ticket;
+import persistencia.ArchivoHistorico;
+import persistencia.ContextoRepositorios;
+import persistencia.EventoRepositorio;
+import persistencia.PagoRepositorio;
+import persistencia.TicketRepositorio;
+import excepciones.EventPlannerException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Gestor del archivo historico.
+ * Mueve los eventos FINALIZADO y CANCELADO que terminaron hace mas de
+ * -Deventplanner.archivo.dias dias (30 por defecto), con sus tickets y
+ * pagos, de los repositorios en memoria al ArchivoHistorico comprimido.
+ * Los reportes siguen viendolos a traves de GestorEventos y GestorPagos.
+ * Implementa patrón Singleton.
+ *
+ * Primero se escribe el archivo y despues se eliminan de los repositorios;
+ * si el proceso muere en medio, la siguiente ejecucion termina de
+ * eliminarlos sin volver a archivarlos.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class GestorArchivo {
+
+    /** Dias desde el fin del evento antes de archivarlo */
+    private static final int DIAS_ANTIGUEDAD = Integer.getInteger("eventplanner.archivo.dias", 30);
+
+    private static GestorArchivo instancia;
+
+    private final EventoRepositorio eventoRepo;
+    private final TicketRepositorio ticketRepo;
+    private final PagoRepositorio pagoRepo;
+    private final ArchivoHistorico historico;
+
+    /**
+     * Constructor privado (Singleton)
+     */
+    private GestorArchivo() {
+        ContextoRepositorios contexto = ContextoRepositorios.getInstance();
+        this.eventoRepo = contexto.getEventos();
+        this.ticketRepo = contexto.getTickets();
+        this.pagoRepo = contexto.getPagos();
+        this.historico = contexto.getHistorico();
+    }
+
+    /**
+     * Obtiene la instancia única del gestor (Singleton)
+     *
+     * @return Instancia del GestorArchivo
+     */
+    public static synchronized GestorArchivo getInstance() {
+        if (instancia == null) {
+            instancia = new GestorArchivo();
+        }
+        return instancia;
+    }
+
+    /**
+     * Archiva los eventos terminados con la antigüedad configurada
+     *
+     * @return Cantidad de eventos que salieron de memoria
+     * @throws EventPlannerException Si no se pudo escribir el archivo
+     */
+    public int archivarEventosTerminados() throws EventPlannerException {
+        return archivarEventosTerminadosAntesDe(LocalDateTime.now().minusDays(DIAS_ANTIGUEDAD));
+    }
+
+    /**
+     * Archiva los eventos FINALIZADO o CANCELADO cuya fecha de fin es
+     * anterior a la fecha limite
+     *
+     * @param limite Fecha limite de fin
+     * @return Cantidad de eventos que salieron de memoria
+     * @throws EventPlannerException Si no se pudo escribir el archivo
+     */
+    public synchronized int archivarEventosTerminadosAntesDe(LocalDateTime limite) throws EventPlannerException {
+        ArrayList<Evento> candidatos = new ArrayList<>();
+        for (EstadoEvento estado : new EstadoEvento[] {EstadoEvento.FINALIZADO, EstadoEvento.CANCELADO}) {
+            for (Evento evento : eventoRepo.buscarPorEstado(estado)) {
+                if (evento.getFechaFin() != null && evento.getFechaFin().isBefore(limite)) {
+                    candidatos.add(evento);
+                }
+            }
+        }
+        if (candidatos.isEmpty()) {
+            return 0;
+        }
+
+        // El almacen mapeado no elimina tickets: ahi se quedan y no se archivan
+        boolean archivarTickets = ticketRepo.permiteEliminar();
+        ArrayList<String> idsEventos = new ArrayList<>();
+        ArrayList<Ticket> tickets = new ArrayList<>();
+        ArrayList<Pago> pagos = new ArrayList<>();
+        for (Evento evento : candidatos) {
+            idsEventos.add(evento.getId());
+            if (archivarTickets) {
+                tickets.addAll(ticketRepo.buscarPorEvento(evento.getId()));
+            }
+            pagos.addAll(pagoRepo.buscarPorEvento(evento.getId()));
+        }
+
+        try {
+            historico.archivar(candidatos, tickets, pagos);
+
+            ArrayList<String> idsPagos = new ArrayList<>();
+            for (Pago pago : pagos) {
+                idsPagos.add(pago.getId());
+            }
+            pagoRepo.eliminarVarios(idsPagos);
+            if (archivarTickets) {
+                ArrayList<String> idsTickets = new ArrayList<>();
+                for (Ticket ticket : tickets) {
+                    idsTickets.add(ticket.getId());
+                }
+                ticketRepo.eliminarVarios(idsTickets);
+            }
+            // El evento sale al final: mientras siga en memoria se puede reintentar
+            eventoRepo.eliminarVarios(idsEventos);
+        } catch (IOException e) {
+            throw new EventPlannerException("Error al archivar eventos terminados: " + e.getMessage());
+        }
+        System.out.println("[GestorArchivo] " + candidatos.size() + " eventos archivados");
+        return candidatos.size();
+    }
+
+    /**
+     * Ejecuta el archivado en un hilo de fondo (por ejemplo al terminar la carga inicial)
+     *
+     * @return Futuro con la cantidad de eventos archivados (0 si hubo error)
+     */
+    public CompletableFuture<Integer> archivarEnSegundoPlano() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return archivarEventosTerminados();
+            } catch (EventPlannerException e) {
+                System.err.println("[GestorArchivo] " + e.getMessage());
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * Cantidad de eventos en el archivo historico
+     *
+     * @return Eventos archivados
+     */
+    public int contarEventosArchivados() {
+        return historico.contarEventos();
+    }
+}
@@ -3,6 +3,7 @@ package logica;
 import modelos.Usuario;
 import modelos.RolUsuario;
 import modelos.EstadoUsuario;
+import persistencia.ContextoRepositorios;
 import persistencia.UsuarioRepositorio;
 import excepciones.*;
 import java.io.IOException;
@@ -25,7 +26,7 @@ public class GestorAutenticacion {
      * Constructor privado (Singleton)
      */
     private GestorAutenticacion() {
-        this.usuarioRepo = new UsuarioRepositorio();
+        this.usuarioRepo = ContextoRepositorios.getInstance().getUsuarios();
         this.usuarioActual = null;
     }
     
@@ -34,7 +35,7 @@ public class GestorAutenticacion {
      * 
      * @return Instancia del GestorAutenticacion
      */
-    public static GestorAutenticacion getInstance() {
+    public static synchronized GestorAutenticacion getInstance() {
         if (instancia == null) {
             instancia = new GestorAutenticacion();
         }
@@ -104,8 +105,7 @@ public class GestorAutenticacion {
         
         // Login exitoso
         this.usuarioActual = usuario;
-        usuario.registrarAcceso();
-        usuarioRepo.actualizar(usuario);
+        usuarioRepo.registrarAcceso(usuario);
         
         System.out.println("[Auth] Login exitoso: " + usuario.getNombreCompleto());
         System.out.println("[Auth] Rol: " + usuario.getRol().getNombre());
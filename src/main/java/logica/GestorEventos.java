@@ -2,9 +2,17 @@
  * GestorEventos - Coordinar todas las operaciones del sistema.
  * Esta es la clase principal que coordina los repositorios y aplica
  * las reglas de negocio del sistema Event Planner
+ * Los eventos archivados (GestorArchivo) se pueden seguir consultando.
+ * Las consultas de solo lectura recorren las instantaneas de los
+ * repositorios (verEventos, verEventosHistoricos) en lugar de copiarlos.
+ * Las listas de eventos, participantes y organizadores tambien se pueden
+ * pedir por paginas en orden de creacion (obtenerPagina*).
+ * Las inscripciones y cancelaciones modifican el evento y el participante
+ * bloqueando primero el evento y despues el participante, el mismo orden
+ * que usa MotorCompras.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.5
  */
 package logica;
 
@@ -12,6 +20,8 @@ import persistencia.*;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import excepciones.*;
 import modelos.*;
@@ -25,7 +35,7 @@ public class GestorEventos {
      * Obtiene la única instancia de GestorEventos
      * @return Instancia única de GestorEventos
      */
-    public static GestorEventos getInstance() {
+    public static synchronized GestorEventos getInstance() {
         if (instance == null) {
             instance = new GestorEventos();
         }
@@ -36,17 +46,28 @@ public class GestorEventos {
     private final EventoRepositorio eventoRepo;
     private final OrganizadorRepositorio organizadorRepo;
     private final ParticipanteRepositorio participanteRepo;
+    private final ArchivoHistorico historico;
+
+    /** Eventos archivados ya leidos; el archivo solo crece, asi que valen mientras no cambie la cantidad */
+    private List<Evento> archivadosEnCache;
+    private int archivadosContados = -1;
+
+    /** Union de activos y archivados, valida mientras no cambie la instantanea de activos */
+    private List<Evento> historicosEnCache;
+    private List<Evento> activosDeHistoricos;
 // Validador de datos
 
 
     /**
-     * Constructor por defecto
-     * Inicializa todos los repositorios y el validador
+     * Constructor privado para Singleton.
+     * Usa los repositorios compartidos del ContextoRepositorios.
      */
-    public GestorEventos(){
-        this.eventoRepo= new EventoRepositorio();
-        this.organizadorRepo= new OrganizadorRepositorio();
-        this.participanteRepo = new ParticipanteRepositorio();
+    private GestorEventos(){
+        ContextoRepositorios contexto = ContextoRepositorios.getInstance();
+        this.eventoRepo= contexto.getEventos();
+        this.organizadorRepo= contexto.getOrganizadores();
+        this.participanteRepo = contexto.getParticipantes();
+        this.historico = contexto.getHistorico();
     }
 
     /**
@@ -100,6 +121,25 @@ public class GestorEventos {
                     return eventoRepo.buscarPorId(eventoId);
                 } catch (DatosInvalidosException e) {
                     throw new EventoNoEncontradoException(eventoId);
+                } catch (EventoNoEncontradoException e) {
+                    // Los eventos archivados se siguen pudiendo consultar (solo lectura)
+                    Evento archivado = buscarEventoArchivado(eventoId);
+                    if (archivado == null) {
+                        throw e;
+                    }
+                    return archivado;
+                }
+            }
+
+            private Evento buscarEventoArchivado(String eventoId) {
+                if (!historico.contiene(eventoId)) {
+                    return null;
+                }
+                try {
+                    return historico.buscarEvento(eventoId);
+                } catch (IOException e) {
+                    System.err.println("[Gestor] Error al leer el archivo historico: " + e.getMessage());
+                    return null;
                 }
             }
                 /**
@@ -111,6 +151,95 @@ public class GestorEventos {
                     return eventoRepo.obtenerTodos();
                 }
 
+                /**
+                 * Obtiene una pagina de eventos en orden de creacion
+                 * 
+                 * @param continuacion Token de la pagina anterior (null = primera pagina)
+                 * @param tamano Cantidad maxima de eventos
+                 * @param masRecientesPrimero true para empezar por los mas nuevos
+                 * @return Pagina de eventos
+                 */
+                public Pagina<Evento> obtenerPaginaEventos(String continuacion, int tamano, boolean masRecientesPrimero){
+                    return eventoRepo.buscarPagina(continuacion, tamano, masRecientesPrimero);
+                }
+
+                /**
+                 * Obtiene todos los eventos, incluidos los archivados,
+                 * para los reportes historicos
+                 * 
+                 * @return Lista de eventos activos y archivados
+                 */
+                public ArrayList<Evento> obtenerEventosHistoricos(){
+                    return new ArrayList<>(verEventosHistoricos());
+                }
+
+                /**
+                 * Vista de solo lectura de los eventos activos, sin copiar la lista
+                 * 
+                 * @return Instantanea del repositorio de eventos
+                 */
+                public List<Evento> verEventos(){
+                    return eventoRepo.instantanea();
+                }
+
+                /**
+                 * Vista de solo lectura de los eventos activos y archivados.
+                 * Sin eventos archivados es la misma instantanea del repositorio.
+                 * Los archivados se leen una vez y la union se reutiliza hasta
+                 * que cambian los eventos activos o crece el archivo.
+                 * 
+                 * @return Lista de solo lectura
+                 */
+                public synchronized List<Evento> verEventosHistoricos(){
+                    List<Evento> activos = eventoRepo.instantanea();
+                    int archivados = historico.contarEventos();
+                    if (archivados == 0) {
+                        return activos;
+                    }
+                    if (archivados != archivadosContados) {
+                        ArrayList<Evento> leidos = new ArrayList<>(archivados);
+                        try {
+                            historico.recorrerEventos(leidos::add);
+                        } catch (IOException e) {
+                            System.err.println("[Gestor] Error al leer el archivo historico: " + e.getMessage());
+                        }
+                        archivadosEnCache = leidos;
+                        archivadosContados = archivados;
+                        historicosEnCache = null;
+                    }
+                    if (historicosEnCache == null || activos != activosDeHistoricos) {
+                        ArrayList<Evento> union = new ArrayList<>(activos.size() + archivadosEnCache.size());
+                        union.addAll(activos);
+                        for (Evento evento : archivadosEnCache) {
+                            // Si el archivado se interrumpio, el evento sigue en memoria
+                            if (!eventoRepo.existe(evento.getId())) {
+                                union.add(evento);
+                            }
+                        }
+                        historicosEnCache = Collections.unmodifiableList(union);
+                        activosDeHistoricos = activos;
+                    }
+                    return historicosEnCache;
+                }
+
+                /**
+                 * Cantidad de eventos activos
+                 * 
+                 * @return Total de eventos activos
+                 */
+                public int contarEventos(){
+                    return eventoRepo.contarRegistros();
+                }
+
+                /**
+                 * Cantidad de eventos activos y archivados
+                 * 
+                 * @return Total de eventos
+                 */
+                public int contarEventosHistoricos(){
+                    return verEventosHistoricos().size();
+                }
+
                 /**
                  * Busca eventos por estado
                  * 
@@ -231,29 +360,48 @@ public class GestorEventos {
                          * @throws EventPlannerException si hay error en la inscripción
                          */
                             public void inscribirParticipante(String participanteId, String eventoId)throws EventPlannerException{
+                                UnidadDeTrabajo unidad = new UnidadDeTrabajo();
+                                inscribirParticipante(participanteId, eventoId, unidad);
                                 try {
-                                    Participante participante = participanteRepo.buscarPorId(participanteId);
-                                    Evento evento = buscarEvento(eventoId);
-                                    if(evento.getEstado() != EstadoEvento.PUBLICADO && evento.getEstado()!= EstadoEvento.EN_CURSO){
-                                        throw new EventPlannerException("Solo se puede inscribir a eventos publicados en curso");
-                                    }
-                                    if(!evento.tieneCupoDisponible()){
-                                            throw new CapacidadExcedidaException(evento.getNombre(),evento.getCapacidadMaxima());
-                                    }
-                                    if(participante.getEventosRegistrados().contains(eventoId)){
-                                        throw new ParticipanteYaRegistradoException(participante.getNombre(),"Ya esta registrado en este evento");
-                                    }
-                                    var registrado = evento.registrarParticipante(participanteId);
-                                    if(!registrado){
-                                        throw new EventPlannerException("No se pudo registrar el participante al evento");
-                                    }
-                                    participante.registrarseEvento(eventoId);
-                                    eventoRepo.actualizar(evento);
-                                    participanteRepo.actualizar(participante);
+                                    unidad.confirmar();
                                 } catch (IOException e) {
                                     throw new EventPlannerException("Error al inscribir participante: "+e.getMessage(),e);
                                 }
                             }
+                        /**
+                         * Inscribe un participante a un evento dentro de una unidad de trabajo.
+                         * Valida y registra los cambios del evento y del participante, pero
+                         * no escribe nada hasta que el llamador confirme la unidad.
+                         * 
+                         * @param participanteId ID del participante
+                         * @param eventoId ID del evento
+                         * @param unidad Unidad de trabajo donde se registran los cambios
+                         * @throws EventPlannerException si hay error en la inscripción
+                         */
+                            public void inscribirParticipante(String participanteId, String eventoId, UnidadDeTrabajo unidad)throws EventPlannerException{
+                                Participante participante = participanteRepo.buscarPorId(participanteId);
+                                Evento evento = buscarEvento(eventoId);
+                                if(evento.getEstado() != EstadoEvento.PUBLICADO && evento.getEstado()!= EstadoEvento.EN_CURSO){
+                                    throw new EventPlannerException("Solo se puede inscribir a eventos publicados en curso");
+                                }
+                                if(!evento.tieneCupoDisponible()){
+                                        throw new CapacidadExcedidaException(evento.getNombre(),evento.getCapacidadMaxima());
+                                }
+                                if(participante.getEventosRegistrados().contains(eventoId)){
+                                    throw new ParticipanteYaRegistradoException(participante.getNombre(),"Ya esta registrado en este evento");
+                                }
+                                synchronized(evento){
+                                    synchronized(participante){
+                                        var registrado = evento.registrarParticipante(participanteId);
+                                        if(!registrado){
+                                            throw new EventPlannerException("No se pudo registrar el participante al evento");
+                                        }
+                                        participante.registrarseEvento(eventoId);
+                                    }
+                                }
+                                unidad.actualizar(eventoRepo, evento);
+                                unidad.actualizar(participanteRepo, participante);
+                            }
                             /**
                              * Cancela la inscripción de un participante a un evento
                              * 
@@ -273,8 +421,12 @@ public class GestorEventos {
                                             throw new EventPlannerException("No se pudo cancelar la inscripcion a este evento ",evento.getEstado().getDescripcion());
                                         }
                                         // Cancelar inscripcion
-                                        participante.cancelarRegistro(eventoId);
-                                        evento.getParticipantesRegistrados().remove(participanteId);
+                                        synchronized(evento){
+                                            synchronized(participante){
+                                                participante.cancelarRegistro(eventoId);
+                                                evento.cancelarRegistro(participanteId);
+                                            }
+                                        }
                                           // Actualizar repositorios
                                         participanteRepo.actualizar(participante);
                                         eventoRepo.actualizar(evento);
@@ -316,6 +468,22 @@ public class GestorEventos {
                                         public ArrayList<Participante> obtenerTodosParticipantes(){
                                             return participanteRepo.obtenerTodos();
                                         }
+
+                                        public int contarParticipantes(){
+                                            return participanteRepo.contarRegistros();
+                                        }
+
+                                        /**
+                                         * Obtiene una pagina de participantes en orden de registro
+                                         * 
+                                         * @param continuacion Token de la pagina anterior (null = primera pagina)
+                                         * @param tamano Cantidad maxima de participantes
+                                         * @param masRecientesPrimero true para empezar por los mas nuevos
+                                         * @return Pagina de participantes
+                                         */
+                                        public Pagina<Participante> obtenerPaginaParticipantes(String continuacion, int tamano, boolean masRecientesPrimero){
+                                            return participanteRepo.buscarPagina(continuacion, tamano, masRecientesPrimero);
+                                        }
                                             /**
                                              * Busca un participante por email
                                              * 
@@ -341,8 +509,8 @@ public class GestorEventos {
                                             public ArrayList<Participante> buscarParticipantesPorNombre(String nombre) 
                                                 throws EventPlannerException {
                                                 
-                                                ArrayList<Participante> todosParticipantes = 
-                                                    participanteRepo.obtenerTodos();
+                                                List<Participante> todosParticipantes = 
+                                                    participanteRepo.instantanea();
                                                 
                                                 ArrayList<Participante> resultados = new ArrayList<>();
                                                 String nombreBuscado = nombre.toLowerCase();
@@ -411,7 +579,7 @@ public class GestorEventos {
                                                     throws EventPlannerException {
                                                     
                                                     try {
-                                                        ArrayList<Organizador> todos = organizadorRepo.obtenerTodos();
+                                                        List<Organizador> todos = organizadorRepo.instantanea();
                                                         ArrayList<Organizador> resultados = new ArrayList<>();
                                                         String nombreBuscado = nombre.toLowerCase();
                                                         
@@ -445,6 +613,22 @@ public class GestorEventos {
                                             public ArrayList<Organizador>obtenerTodosOrganizadores(){
                                                 return organizadorRepo.obtenerTodos();
                                             }
+
+                                            public int contarOrganizadores(){
+                                                return organizadorRepo.contarRegistros();
+                                            }
+
+                                            /**
+                                             * Obtiene una pagina de organizadores en orden de registro
+                                             * 
+                                             * @param continuacion Token de la pagina anterior (null = primera pagina)
+                                             * @param tamano Cantidad maxima de organizadores
+                                             * @param masRecientesPrimero true para empezar por los mas nuevos
+                                             * @return Pagina de organizadores
+                                             */
+                                            public Pagina<Organizador> obtenerPaginaOrganizadores(String continuacion, int tamano, boolean masRecientesPrimero){
+                                                return organizadorRepo.buscarPagina(continuacion, tamano, masRecientesPrimero);
+                                            }
                                                 /**
                                                  * Obtiene los eventos creados por un organizador especifico
                                                  * 
@@ -454,8 +638,7 @@ public class GestorEventos {
                                                  */
                                             public ArrayList<Evento> obtenerEventosDeOrganizador(String organizadorId)throws EventPlannerException{
                                                     ArrayList<Evento> eventosOrganizador= new ArrayList<>();
-                                                    ArrayList<Evento> todosEventos = eventoRepo.obtenerTodos();
-                                                    for(Evento evento: todosEventos){
+                                                    for(Evento evento: eventoRepo.instantanea()){
                                                         if(evento.getOrganizadorId().equals(organizadorId)){
                                                             eventosOrganizador.add(evento);
                                                         }
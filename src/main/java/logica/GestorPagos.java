@@ -1,26 +1,52 @@
 /**
  * GestorPagos - Gestiona todas las operaciones relacionadas con pagos y tickets
  * Maneja la compra de tickets, procesamiento de pagos y reportes financieros
+ * Los tickets y pagos de eventos archivados se leen del ArchivoHistorico.
+ * Las listas largas se pueden pedir por paginas (obtenerPagina*): se pasa
+ * la continuacion de la pagina anterior para pedir la siguiente.
+ * Las compras pasan por MotorCompras, que reserva el cupo de forma atomica
+ * y permite muchos compradores a la vez sin sobrevender.
+ * Tambien se puede apartar el cupo antes de pagar (reservarTicket) y
+ * confirmar o liberar la reserva despues; si no, vence sola.
+ * comprarTicketAsync no espera al pago: devuelve un CompletableFuture y
+ * el pago se autoriza en los hilos de pago de MotorCompras.
+ * comprarTicketsGrupo compra muchos tickets de un evento con un solo cobro
+ * y una sola confirmacion, y reporta los fallos por participante.
+ * comprarTicket y reembolsarTicket aceptan una clave de idempotencia: si
+ * el cliente reintenta con la misma clave recibe el resultado original
+ * sin cobrar ni reembolsar otra vez (ver ControlIdempotencia).
  * 
  * @author Ayner Jose Castro Benavides
- * @version 2.0 - Con Persistencia
+ * @version 2.9 - Con Persistencia
  */
 package logica;
 
 import modelos.*;
 import excepciones.*;
 import persistencia.*;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 public class GestorPagos {
     
     // ==================== REPOSITORIOS ====================
     private final TicketRepositorio ticketRepo;
     private final PagoRepositorio pagoRepo;
+    private final ArchivoHistorico historico;
     
     private final GestorEventos gestorEventos;
+    private final MotorCompras motorCompras;
+    private final GestorReservas gestorReservas;
+    private final ControlIdempotencia idempotencia;
     
     // Configuración de precios por tipo de evento
     private final Map<TipoEvento, Map<TipoTicket, Double>> preciosPersonalizados;
@@ -32,7 +58,7 @@ public class GestorPagos {
     /**
      * Obtiene la instancia única del GestorPagos
      */
-    public static GestorPagos getInstance() {
+    public static synchronized GestorPagos getInstance() {
         if (instancia == null) {
             instancia = new GestorPagos();
         }
@@ -46,8 +72,12 @@ public class GestorPagos {
      */
     private GestorPagos() {
         this.gestorEventos = GestorEventos.getInstance();
-        this.ticketRepo = new TicketRepositorio();
-        this.pagoRepo = new PagoRepositorio();
+        this.motorCompras = MotorCompras.getInstance();
+        this.gestorReservas = GestorReservas.getInstance();
+        this.idempotencia = new ControlIdempotencia();
+        this.ticketRepo = ContextoRepositorios.getInstance().getTickets();
+        this.pagoRepo = ContextoRepositorios.getInstance().getPagos();
+        this.historico = ContextoRepositorios.getInstance().getHistorico();
         this.preciosPersonalizados = new HashMap<>();
         inicializarPreciosBase();
         
@@ -70,7 +100,8 @@ public class GestorPagos {
     // ==================== MÉTODOS DE COMPRA ====================
     
     /**
-     * Compra un ticket para un evento
+     * Compra un ticket para un evento.
+     * Es seguro llamarlo desde varios hilos: la capacidad nunca se supera.
      */
     public Ticket comprarTicket(String eventoId, String participanteId, 
                                 TipoTicket tipoTicket, MetodoPago metodoPago) 
@@ -79,60 +110,166 @@ public class GestorPagos {
         // Validar que el evento existe
         Evento evento = gestorEventos.buscarEvento(eventoId);
         
-        // Validar que el participante existe
-        Participante participante = null;
-        for (Participante p : gestorEventos.obtenerTodosParticipantes()) {
-            if (p.getId().equals(participanteId)) {
-                participante = p;
-                break;
-            }
-        }
-        
-        if (participante == null) {
-            throw new ParticipanteNoEncontradoException(participanteId);
-        }
-        
-        // Verificar que el evento tenga cupos
-        if (!evento.tieneCupoDisponible()) {
-            throw new CapacidadExcedidaException(evento.getNombre(), evento.getCapacidadMaxima());
-        }
-        
-        // Verificar que no esté ya inscrito
-        if (participante.getEventosRegistrados().contains(eventoId)) {
-            throw new ParticipanteYaRegistradoException(participante.getNombre(), evento.getNombre());
-        }
+        // Validar que el participante existe (busqueda O(1) por indice)
+        Participante participante = gestorEventos.buscarParticipante(participanteId);
         
         // Calcular precio (con descuento VIP si aplica)
         double precio = calcularPrecio(evento.getTipo(), tipoTicket, participante.isVip());
         
-        // Crear ticket
-        Ticket ticket = new Ticket(eventoId, participanteId, tipoTicket, precio);
+        // Reserva de cupo, pago y confirmacion en un solo registro
+        Ticket ticket = motorCompras.comprar(evento, participante, tipoTicket, precio, metodoPago);
+        System.out.println("[GestorPagos]  Ticket y pago guardados: " + ticket.getId());
         
-        // Crear pago
-        Pago pago = new Pago(ticket.getId(), participanteId, eventoId, precio, metodoPago);
+        return ticket;
+    }
+    
+    /**
+     * Compra un ticket con clave de idempotencia.
+     * El primer llamado con la clave compra; los reintentos con la misma
+     * clave devuelven el ticket original en O(1) sin volver a cobrar ni
+     * tocar los repositorios. Una compra que falla no consume la clave.
+     *
+     * @param eventoId Evento a comprar
+     * @param participanteId Comprador
+     * @param tipoTicket Tipo de ticket
+     * @param metodoPago Metodo de pago
+     * @param claveIdempotencia Clave unica de la solicitud, generada por el cliente
+     * @return Ticket de la compra original
+     * @throws EventPlannerException Si la compra falla, o la clave ya se
+     *         uso para otra compra
+     */
+    public Ticket comprarTicket(String eventoId, String participanteId, TipoTicket tipoTicket,
+                                MetodoPago metodoPago, String claveIdempotencia)
+            throws EventPlannerException {
+        String huella = "COMPRA|" + eventoId + "|" + participanteId + "|" + tipoTicket + "|" + metodoPago;
+        return idempotencia.ejecutar(claveIdempotencia, huella,
+            () -> comprarTicket(eventoId, participanteId, tipoTicket, metodoPago));
+    }
+    
+    /**
+     * Compra un ticket sin bloquear al que llama.
+     * El futuro se completa con el ticket, o con la misma excepcion que
+     * lanzaria comprarTicket (evento inexistente, sin cupo, pago rechazado...).
+     *
+     * @param eventoId Evento a comprar
+     * @param participanteId Comprador
+     * @param tipoTicket Tipo de ticket
+     * @param metodoPago Metodo de pago
+     * @return Futuro con el ticket confirmado
+     */
+    public CompletableFuture<Ticket> comprarTicketAsync(String eventoId, String participanteId,
+                                                        TipoTicket tipoTicket, MetodoPago metodoPago) {
+        Evento evento;
+        Participante participante;
+        try {
+            evento = gestorEventos.buscarEvento(eventoId);
+            participante = gestorEventos.buscarParticipante(participanteId);
+        } catch (EventPlannerException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        double precio = calcularPrecio(evento.getTipo(), tipoTicket, participante.isVip());
         
-        // Procesar pago (simulado)
-        boolean pagoExitoso = pago.procesarPago();
+        return motorCompras.comprarAsync(evento, participante, tipoTicket, precio, metodoPago)
+            .whenComplete((ticket, error) -> {
+                if (ticket != null) {
+                    System.out.println("[GestorPagos]  Ticket y pago guardados: " + ticket.getId());
+                }
+            });
+    }
+    
+    /**
+     * Compra un ticket para cada participante de la lista (compras
+     * corporativas de muchos cupos). Valida la capacidad una sola vez, cobra
+     * un solo pago conjunto (cada ticket queda con su pago vinculado) y
+     * guarda todo en una sola confirmacion.
+     * Los participantes que no pueden comprar quedan en los fallos del
+     * resultado con su motivo; los IDs repetidos cuentan una sola vez.
+     *
+     * @param eventoId Evento a comprar
+     * @param participanteIds Participantes, en orden de prioridad para los cupos
+     * @param tipoTicket Tipo de ticket de todos
+     * @param metodoPago Metodo de pago del cobro conjunto
+     * @return Tickets comprados y fallos por participante
+     * @throws EventPlannerException Si el evento no existe o no admite inscripciones
+     */
+    public ResultadoCompraGrupal comprarTicketsGrupo(String eventoId, List<String> participanteIds,
+                                                    TipoTicket tipoTicket, MetodoPago metodoPago)
+            throws EventPlannerException {
+        Evento evento = gestorEventos.buscarEvento(eventoId);
+        ResultadoCompraGrupal resultado = new ResultadoCompraGrupal(eventoId);
         
-        if (!pagoExitoso) {
-            throw new PagoRechazadoException(metodoPago.getDescripcion(), 
-                "Transacción no autorizada. Intente con otro método de pago.");
+        ArrayList<Participante> participantes = new ArrayList<>(participanteIds.size());
+        for (String participanteId : new LinkedHashSet<>(participanteIds)) {
+            try {
+                participantes.add(gestorEventos.buscarParticipante(participanteId));
+            } catch (EventPlannerException e) {
+                resultado.agregarFallo(participanteId, e);
+            }
         }
         
+        motorCompras.comprarGrupo(evento, participantes, tipoTicket,
+            participante -> calcularPrecio(evento.getTipo(), tipoTicket, participante.isVip()),
+            metodoPago, resultado);
+        System.out.println("[GestorPagos]  " + resultado);
+        return resultado;
+    }
+    
+    /**
+     * Aparta un cupo mientras el participante paga.
+     * Los cupos disponibles del evento bajan en el acto y vuelven solos si
+     * la reserva vence sin confirmarse.
+     *
+     * @param eventoId Evento a reservar
+     * @param participanteId Participante que reserva
+     * @return Reserva activa (la misma si ya tenia una abierta)
+     * @throws EventPlannerException Si no hay cupo o no se puede inscribir
+     */
+    public ReservaCupo reservarTicket(String eventoId, String participanteId) throws EventPlannerException {
+        Evento evento = gestorEventos.buscarEvento(eventoId);
+        Participante participante = gestorEventos.buscarParticipante(participanteId);
+        return gestorReservas.reservar(evento, participante);
+    }
     
+    /**
+     * Compra el ticket de una reserva activa con su cupo apartado.
+     * Si el pago se rechaza la reserva sigue activa hasta que venza, para
+     * reintentar con otro metodo de pago.
+     *
+     * @param reservaId ID de la reserva
+     * @param tipoTicket Tipo de ticket
+     * @param metodoPago Metodo de pago
+     * @return Ticket confirmado
+     * @throws EventPlannerException Si la reserva vencio, el pago se rechazo o no se pudo guardar
+     */
+    public Ticket confirmarReserva(String reservaId, TipoTicket tipoTicket, MetodoPago metodoPago)
+            throws EventPlannerException {
+        ReservaCupo reserva = gestorReservas.tomar(reservaId);
+        boolean confirmada = false;
         try {
-            ticketRepo.agregar(ticket);
-            pagoRepo.agregar(pago);
-            System.out.println("[GestorPagos]  Ticket y pago guardados: " + ticket.getId());
-        } catch (Exception e) {
-            System.err.println("[GestorPagos] Error al guardar: " + e.getMessage());
-            throw new EventPlannerException("Error al guardar ticket: " + e.getMessage());
+            Evento evento = gestorEventos.buscarEvento(reserva.getEventoId());
+            Participante participante = gestorEventos.buscarParticipante(reserva.getParticipanteId());
+            double precio = calcularPrecio(evento.getTipo(), tipoTicket, participante.isVip());
+            
+            Ticket ticket = motorCompras.comprarReservado(evento, participante, tipoTicket, precio, metodoPago);
+            gestorReservas.completar(reserva);
+            confirmada = true;
+            System.out.println("[GestorPagos]  Reserva confirmada: " + reservaId + " -> " + ticket.getId());
+            return ticket;
+        } finally {
+            if (!confirmada) {
+                gestorReservas.devolver(reserva);
+            }
         }
-        
-        // Inscribir al participante en el evento
-        gestorEventos.inscribirParticipante(participanteId, eventoId);
-        
-        return ticket;
+    }
+    
+    /**
+     * Libera una reserva activa y devuelve su cupo al evento
+     *
+     * @param reservaId ID de la reserva
+     * @return true si se libero, false si ya no estaba activa
+     */
+    public boolean liberarReserva(String reservaId) {
+        return gestorReservas.liberar(reservaId);
     }
     
     /**
@@ -172,14 +309,25 @@ public class GestorPagos {
      * Obtiene todos los tickets de un evento
      */
     public ArrayList<Ticket> obtenerTicketsDeEvento(String eventoId) {
-        return ticketRepo.buscarPorEvento(eventoId);
+        return ticketsDeEvento(eventoId);
+    }
+    
+    /**
+     * Cuenta los tickets vendidos de un evento sin construir la lista
+     */
+    public int contarTicketsDeEvento(String eventoId) {
+        int cantidad = ticketRepo.contarPorEvento(eventoId);
+        if (cantidad == 0 && historico.contiene(eventoId)) {
+            return ticketsDeEvento(eventoId).size();
+        }
+        return cantidad;
     }
     
     /**
      * Obtiene todos los pagos de un evento
      */
     public ArrayList<Pago> obtenerPagosDeEvento(String eventoId) {
-        return pagoRepo.buscarPorEvento(eventoId);
+        return pagosDeEvento(eventoId);
     }
     
     /**
@@ -189,6 +337,14 @@ public class GestorPagos {
         return pagoRepo.buscarPorParticipante(participanteId);
     }
     
+    /**
+     * Obtiene los pagos creados en un periodo (consulta por rango de ID,
+     * sin recorrer todos los pagos)
+     */
+    public ArrayList<Pago> obtenerPagosCreadosEntre(LocalDateTime desde, LocalDateTime hasta) {
+        return pagoRepo.buscarCreadosEntre("PAY", desde, hasta);
+    }
+    
     // ==================== CÁLCULOS FINANCIEROS ====================
     
     /**
@@ -196,7 +352,7 @@ public class GestorPagos {
      */
     public double calcularIngresosEvento(String eventoId) {
         double total = 0.0;
-        for (Pago pago : pagoRepo.buscarPorEvento(eventoId)) {
+        for (Pago pago : pagosDeEvento(eventoId)) {
             if (pago.getEstado() == EstadoPago.APROBADO) {
                 total += pago.getMontoBase();
             }
@@ -209,7 +365,7 @@ public class GestorPagos {
      */
     public double calcularIngresosNetosOrganizador(String eventoId) {
         double total = 0.0;
-        for (Pago pago : pagoRepo.buscarPorEvento(eventoId)) {
+        for (Pago pago : pagosDeEvento(eventoId)) {
             if (pago.getEstado() == EstadoPago.APROBADO) {
                 total += pago.calcularGananciaOrganizador();
             }
@@ -221,13 +377,8 @@ public class GestorPagos {
      * Calcula las ganancias de la plataforma
      */
     public double calcularGananciasPlataforma() {
-        double total = 0.0;
-        for (Pago pago : pagoRepo.obtenerTodos()) {
-            if (pago.getEstado() == EstadoPago.APROBADO) {
-                total += pago.calcularGananciaPlataforma();
-            }
-        }
-        return total;
+        return sumarPagosHistoricos(pago -> pago.getEstado() == EstadoPago.APROBADO,
+                Pago::calcularGananciaPlataforma);
     }
     
     /**
@@ -235,7 +386,7 @@ public class GestorPagos {
      */
     public double calcularGananciasPlataformaEvento(String eventoId) {
         double total = 0.0;
-        for (Pago pago : pagoRepo.buscarPorEvento(eventoId)) {
+        for (Pago pago : pagosDeEvento(eventoId)) {
             if (pago.getEstado() == EstadoPago.APROBADO) {
                 total += pago.calcularGananciaPlataforma();
             }
@@ -247,13 +398,7 @@ public class GestorPagos {
      * Calcula los ingresos totales del sistema (para Dashboard)
      */
     public double calcularIngresosTotales() {
-        double total = 0.0;
-        for (Pago pago : pagoRepo.obtenerTodos()) {
-            if (pago.getEstado() == EstadoPago.APROBADO) {
-                total += pago.getMontoBase();
-            }
-        }
-        return total;
+        return sumarPagosHistoricos(pago -> pago.getEstado() == EstadoPago.APROBADO, Pago::getMontoBase);
     }
     
     // ==================== ESTADÍSTICAS ====================
@@ -268,7 +413,7 @@ public class GestorPagos {
             estadisticas.put(tipo, 0);
         }
         
-        for (Ticket ticket : ticketRepo.buscarPorEvento(eventoId)) {
+        for (Ticket ticket : ticketsDeEvento(eventoId)) {
             TipoTicket tipo = ticket.getTipo();
             estadisticas.put(tipo, estadisticas.get(tipo) + 1);
         }
@@ -288,16 +433,28 @@ public class GestorPagos {
         }
         
         // Contar pagos
-        for (Pago pago : pagoRepo.obtenerTodos()) {
+        recorrerPagosHistoricos(pago -> {
             if (pago.getEstado() == EstadoPago.APROBADO) {
-                MetodoPago metodo = pago.getMetodoPago();
-                conteo.put(metodo, conteo.get(metodo) + 1);
+                conteo.merge(pago.getMetodoPago(), 1, Integer::sum);
             }
-        }
+        });
         
         return conteo;
     }
     
+    /**
+     * Marca un ticket como usado al ingresar al evento
+     *
+     * @return true si estaba vigente, false si ya habia sido usado
+     */
+    public boolean marcarTicketComoUsado(String ticketId) throws EventPlannerException {
+        try {
+            return ticketRepo.marcarComoUsado(ticketId);
+        } catch (Exception e) {
+            throw new EventPlannerException("No se pudo marcar el ticket " + ticketId + ": " + e.getMessage());
+        }
+    }
+    
     // ==================== REEMBOLSOS ====================
     
     /**
@@ -312,7 +469,7 @@ public class GestorPagos {
         
         // Buscar el pago asociado
         try {
-            Pago pago = pagoRepo.buscarPorTicket(ticketId);
+            Pago pago = pagoRepo.buscarPorTicket(ticket.getEventoId(), ticketId);
             boolean reembolsado = pago.reembolsar();
             
             if (reembolsado) {
@@ -325,6 +482,24 @@ public class GestorPagos {
         }
     }
     
+    /**
+     * Reembolsa un ticket con clave de idempotencia.
+     * Los reintentos con la misma clave devuelven el resultado del
+     * reembolso original sin volver a procesarlo. Si no se pudo
+     * reembolsar (false) la clave no se guarda.
+     *
+     * @param ticketId Ticket a reembolsar
+     * @param claveIdempotencia Clave unica de la solicitud, generada por el cliente
+     * @return true si el ticket quedo reembolsado
+     * @throws EventPlannerException Si el ticket no existe o ya se uso, o la
+     *         clave ya se uso para otra solicitud
+     */
+    public boolean reembolsarTicket(String ticketId, String claveIdempotencia) throws EventPlannerException {
+        Boolean reembolsado = idempotencia.ejecutar(claveIdempotencia, "REEMBOLSO|" + ticketId,
+            () -> reembolsarTicket(ticketId) ? Boolean.TRUE : null);
+        return reembolsado != null;
+    }
+    
     // ==================== CONFIGURACIÓN ====================
     
     /**
@@ -343,4 +518,159 @@ public class GestorPagos {
     public ArrayList<Pago> obtenerTodosPagos() {
         return pagoRepo.obtenerTodos();
     }
+    
+    /**
+     * Vista de solo lectura de los tickets, sin copiar la lista
+     */
+    public List<Ticket> verTickets() {
+        return ticketRepo.instantanea();
+    }
+    
+    /**
+     * Vista de solo lectura de los pagos, sin copiar la lista
+     */
+    public List<Pago> verPagos() {
+        return pagoRepo.instantanea();
+    }
+    
+    // ==================== PAGINACION ====================
+    
+    /**
+     * Obtiene una pagina de tickets en orden de creacion
+     * 
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de tickets
+     * @param masRecientesPrimero true para empezar por los mas nuevos
+     * @return Pagina de tickets
+     */
+    public Pagina<Ticket> obtenerPaginaTickets(String continuacion, int tamano, boolean masRecientesPrimero) {
+        return ticketRepo.buscarPagina(continuacion, tamano, masRecientesPrimero);
+    }
+    
+    /**
+     * Obtiene una pagina de pagos en orden de creacion
+     * 
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de pagos
+     * @param masRecientesPrimero true para empezar por los mas nuevos
+     * @return Pagina de pagos
+     */
+    public Pagina<Pago> obtenerPaginaPagos(String continuacion, int tamano, boolean masRecientesPrimero) {
+        return pagoRepo.buscarPagina(continuacion, tamano, masRecientesPrimero);
+    }
+    
+    /**
+     * Obtiene una pagina de los tickets de un participante
+     * 
+     * @param participanteId ID del participante
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de tickets
+     * @param masRecientesPrimero true para empezar por los mas nuevos
+     * @return Pagina de tickets
+     */
+    public Pagina<Ticket> obtenerPaginaTicketsDeParticipante(String participanteId, String continuacion,
+            int tamano, boolean masRecientesPrimero) {
+        return ticketRepo.buscarPaginaPorParticipante(participanteId, continuacion, tamano, masRecientesPrimero);
+    }
+    
+    /**
+     * Obtiene una pagina de los pagos de un participante
+     * 
+     * @param participanteId ID del participante
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de pagos
+     * @param masRecientesPrimero true para empezar por los mas nuevos
+     * @return Pagina de pagos
+     */
+    public Pagina<Pago> obtenerPaginaPagosDeParticipante(String participanteId, String continuacion,
+            int tamano, boolean masRecientesPrimero) {
+        return pagoRepo.buscarPaginaPorParticipante(participanteId, continuacion, tamano, masRecientesPrimero);
+    }
+    
+    // ==================== ARCHIVO HISTORICO ====================
+    
+    /**
+     * Obtiene todos los pagos, incluidos los de eventos archivados,
+     * para los reportes historicos
+     */
+    public ArrayList<Pago> obtenerPagosHistoricos() {
+        ArrayList<Pago> pagos = new ArrayList<>();
+        recorrerPagosHistoricos(pagos::add);
+        return pagos;
+    }
+    
+    /**
+     * Recorre los pagos activos y archivados sin armar una lista:
+     * los activos desde la instantanea del repositorio y los archivados
+     * un segmento a la vez
+     */
+    public void recorrerPagosHistoricos(Consumer<Pago> accion) {
+        pagoRepo.forEach(accion);
+        try {
+            historico.recorrerPagos(pago -> {
+                // Si el archivado se interrumpio, el pago sigue en memoria
+                if (!pagoRepo.existe(pago.getId())) {
+                    accion.accept(pago);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("[GestorPagos] Error al leer el archivo historico: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Cuenta los pagos activos y archivados que cumplen una condicion
+     */
+    public int contarPagosHistoricos(Predicate<Pago> condicion) {
+        int[] total = {0};
+        recorrerPagosHistoricos(pago -> {
+            if (condicion.test(pago)) {
+                total[0]++;
+            }
+        });
+        return total[0];
+    }
+    
+    /**
+     * Suma un valor de los pagos activos y archivados que cumplen una condicion
+     */
+    public double sumarPagosHistoricos(Predicate<Pago> condicion, ToDoubleFunction<Pago> valor) {
+        double[] total = {0.0};
+        recorrerPagosHistoricos(pago -> {
+            if (condicion.test(pago)) {
+                total[0] += valor.applyAsDouble(pago);
+            }
+        });
+        return total[0];
+    }
+    
+    /**
+     * Tickets de un evento, activos o archivados
+     */
+    private ArrayList<Ticket> ticketsDeEvento(String eventoId) {
+        ArrayList<Ticket> tickets = ticketRepo.buscarPorEvento(eventoId);
+        if (tickets.isEmpty() && historico.contiene(eventoId)) {
+            try {
+                return historico.buscarTicketsPorEvento(eventoId);
+            } catch (IOException e) {
+                System.err.println("[GestorPagos] Error al leer el archivo historico: " + e.getMessage());
+            }
+        }
+        return tickets;
+    }
+    
+    /**
+     * Pagos de un evento, activos o archivados
+     */
+    private ArrayList<Pago> pagosDeEvento(String eventoId) {
+        ArrayList<Pago> pagos = pagoRepo.buscarPorEvento(eventoId);
+        if (pagos.isEmpty() && historico.contiene(eventoId)) {
+            try {
+                return historico.buscarPagosPorEvento(eventoId);
+            } catch (IOException e) {
+                System.err.println("[GestorPagos] Error al leer el archivo historico: " + e.getMessage());
+            }
+        }
+        return pagos;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package logica;
+
+import modelos.DiccionarioIds;
+import modelos.EstadoEvento;
+import modelos.EstadoReserva;
+import modelos.Evento;
+import modelos.Participante;
+import modelos.ReservaCupo;
+import persistencia.ContextoRepositorios;
+import persistencia.EventoRepositorio;
+import excepciones.CapacidadExcedidaException;
+import excepciones.EventPlannerException;
+import excepciones.EventoNoEncontradoException;
+import excepciones.ParticipanteYaRegistradoException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gestor de reservas de cupo: aparta un cupo mientras el participante
+ * paga y lo devuelve solo si la reserva vence.
+ * Implementa patrón Singleton.
+ *
+ * Flujo: reservar() toma el cupo con el contador atomico del evento
+ * (Evento.reservarCupo), asi que los cupos disponibles bajan en el acto.
+ * Despues la reserva se confirma (GestorPagos.confirmarReserva compra el
+ * ticket con ese cupo) o se libera. Si no pasa ninguna de las dos antes de
+ * la duracion configurada, la RuedaTemporizadores la vence y devuelve el
+ * cupo. Cada reserva cuesta O(1) al crearla y al vencerla.
+ *
+ * Los cambios de estado de una reserva son compareAndSet, de modo que el
+ * vencimiento y la confirmacion nunca se aplican los dos. Las reservas
+ * confirmadas o liberadas no se retiran de la rueda: su vencimiento
+ * simplemente no hace nada.
+ *
+ * La duracion por defecto se lee de -Deventplanner.reserva.segundos.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class GestorReservas {
+
+    private static GestorReservas instancia;
+
+    /** Duracion de una reserva si no se configura otra: 10 minutos */
+    private static final long SEGUNDOS_POR_DEFECTO = 600;
+
+    private final EventoRepositorio eventoRepo;
+    private final RuedaTemporizadores rueda;
+
+    /** Reservas abiertas (activas o confirmandose) por ID */
+    private final ConcurrentHashMap<String, ReservaCupo> reservas;
+
+    /** Reserva abierta de cada par evento/participante */
+    private final ConcurrentHashMap<Long, ReservaCupo> reservasPorCompra;
+
+    private volatile long duracionMs;
+
+    /**
+     * Constructor privado (Singleton)
+     */
+    private GestorReservas() {
+        this.eventoRepo = ContextoRepositorios.getInstance().getEventos();
+        // 100 ms por tick y 1024 ranuras: una vuelta cada ~100 segundos
+        this.rueda = new RuedaTemporizadores("eventplanner-reservas", 100, TimeUnit.MILLISECONDS, 1024);
+        this.reservas = new ConcurrentHashMap<>();
+        this.reservasPorCompra = new ConcurrentHashMap<>();
+        this.duracionMs = TimeUnit.SECONDS.toMillis(Long.getLong("eventplanner.reserva.segundos", SEGUNDOS_POR_DEFECTO));
+    }
+
+    /**
+     * Obtiene la instancia única del gestor (Singleton)
+     *
+     * @return Instancia del GestorReservas
+     */
+    public static synchronized GestorReservas getInstance() {
+        if (instancia == null) {
+            instancia = new GestorReservas();
+        }
+        return instancia;
+    }
+
+    /**
+     * Cambia la duracion de las reservas nuevas
+     *
+     * @param duracion Duracion
+     * @param unidad Unidad de la duracion
+     */
+    public void setDuracionReserva(long duracion, TimeUnit unidad) {
+        if (duracion <= 0) {
+            throw new IllegalArgumentException("La duracion de la reserva debe ser positiva");
+        }
+        this.duracionMs = unidad.toMillis(duracion);
+    }
+
+    public long getDuracionReservaMs() {
+        return duracionMs;
+    }
+
+    /**
+     * Aparta un cupo para un participante.
+     * Si ya tiene una reserva abierta para el evento, devuelve esa misma.
+     *
+     * @param evento Evento a reservar
+     * @param participante Participante que reserva
+     * @return Reserva activa
+     * @throws CapacidadExcedidaException Si no quedan cupos
+     * @throws ParticipanteYaRegistradoException Si ya esta inscrito
+     * @throws EventPlannerException Si el evento no admite inscripciones
+     */
+    public ReservaCupo reservar(Evento evento, Participante participante) throws EventPlannerException {
+        if (evento.getEstado() != EstadoEvento.PUBLICADO && evento.getEstado() != EstadoEvento.EN_CURSO) {
+            throw new EventPlannerException("Solo se puede inscribir a eventos publicados en curso");
+        }
+        if (evento.estaRegistrado(participante.getId())) {
+            throw new ParticipanteYaRegistradoException(participante.getNombre(), evento.getNombre());
+        }
+
+        long compra = claveCompra(evento.getId(), participante.getId());
+        ReservaCupo existente = reservasPorCompra.get(compra);
+        if (existente != null && estaAbierta(existente)) {
+            return existente;
+        }
+        if (!evento.reservarCupo()) {
+            throw new CapacidadExcedidaException(evento.getNombre(), evento.getCapacidadMaxima());
+        }
+
+        ReservaCupo reserva = new ReservaCupo(evento.getId(), participante.getId(), duracionMs);
+        existente = reservasPorCompra.putIfAbsent(compra, reserva);
+        while (existente != null) {
+            if (estaAbierta(existente)) {
+                // Otra solicitud del mismo participante gano la carrera
+                evento.liberarCupo();
+                return existente;
+            }
+            // La anterior ya se cerro pero todavia no salio del mapa
+            if (reservasPorCompra.replace(compra, existente, reserva)) {
+                break;
+            }
+            existente = reservasPorCompra.putIfAbsent(compra, reserva);
+        }
+        reservas.put(reserva.getId(), reserva);
+        rueda.programar(() -> vencer(reserva), duracionMs, TimeUnit.MILLISECONDS);
+        return reserva;
+    }
+
+    /**
+     * Toma una reserva activa para confirmarla. Mientras se confirma no
+     * puede vencer; al terminar se llama completar() o devolver().
+     *
+     * @param reservaId ID de la reserva
+     * @return Reserva en estado CONFIRMANDO
+     * @throws EventPlannerException Si no existe, vencio o ya se esta usando
+     */
+    public ReservaCupo tomar(String reservaId) throws EventPlannerException {
+        ReservaCupo reserva = reservas.get(reservaId);
+        if (reserva == null || !reserva.cambiarEstado(EstadoReserva.ACTIVA, EstadoReserva.CONFIRMANDO)) {
+            throw new EventPlannerException("La reserva " + reservaId + " vencio o ya no esta disponible");
+        }
+        return reserva;
+    }
+
+    /**
+     * Marca como confirmada una reserva tomada; su cupo ya es una inscripcion
+     *
+     * @param reserva Reserva obtenida con tomar()
+     */
+    public void completar(ReservaCupo reserva) {
+        if (reserva.cambiarEstado(EstadoReserva.CONFIRMANDO, EstadoReserva.CONFIRMADA)) {
+            cerrar(reserva);
+        }
+    }
+
+    /**
+     * Devuelve a activa una reserva tomada cuya confirmacion fallo, para
+     * reintentar con otro medio de pago. Si mientras tanto paso su tiempo,
+     * se vence en el acto.
+     *
+     * @param reserva Reserva obtenida con tomar()
+     */
+    public void devolver(ReservaCupo reserva) {
+        if (reserva.cambiarEstado(EstadoReserva.CONFIRMANDO, EstadoReserva.ACTIVA) && reserva.estaVencida()) {
+            vencer(reserva);
+        }
+    }
+
+    /**
+     * Libera una reserva activa y devuelve su cupo
+     *
+     * @param reservaId ID de la reserva
+     * @return true si se libero, false si no estaba activa
+     */
+    public boolean liberar(String reservaId) {
+        ReservaCupo reserva = reservas.get(reservaId);
+        if (reserva == null || !reserva.cambiarEstado(EstadoReserva.ACTIVA, EstadoReserva.LIBERADA)) {
+            return false;
+        }
+        devolverCupo(reserva);
+        cerrar(reserva);
+        return true;
+    }
+
+    /**
+     * Busca una reserva abierta
+     *
+     * @param reservaId ID de la reserva
+     * @return Reserva, o null si no existe o ya se cerro
+     */
+    public ReservaCupo buscarReserva(String reservaId) {
+        return reservas.get(reservaId);
+    }
+
+    /**
+     * Cantidad de reservas abiertas en todo el sistema
+     *
+     * @return Reservas activas o confirmandose
+     */
+    public int contarReservasAbiertas() {
+        return reservas.size();
+    }
+
+    /**
+     * Vence una reserva activa (tarea de la rueda)
+     */
+    private void vencer(ReservaCupo reserva) {
+        if (reserva.cambiarEstado(EstadoReserva.ACTIVA, EstadoReserva.EXPIRADA)) {
+            devolverCupo(reserva);
+            cerrar(reserva);
+        }
+    }
+
+    private static boolean estaAbierta(ReservaCupo reserva) {
+        EstadoReserva estado = reserva.getEstado();
+        return estado == EstadoReserva.ACTIVA || estado == EstadoReserva.CONFIRMANDO;
+    }
+
+    private void devolverCupo(ReservaCupo reserva) {
+        try {
+            eventoRepo.buscarPorId(reserva.getEventoId()).liberarCupo();
+        } catch (EventoNoEncontradoException e) {
+            // El evento se elimino o archivo: ya no hay cupo que devolver
+        }
+    }
+
+    private void cerrar(ReservaCupo reserva) {
+        reservas.remove(reserva.getId());
+        reservasPorCompra.remove(claveCompra(reserva.getEventoId(), reserva.getParticipanteId()), reserva);
+    }
+
+    /**
+     * Clave unica del par evento/participante. Se multiplica por una
+     * constante impar (no cambia la unicidad) porque el hashCode de
+     * (evento << 32 | participante) es evento ^ participante, y con
+     * muchos pares casi todas las claves caen en las mismas cubetas.
+     * MotorCompras usa la misma clave para sus compras en curso.
+     */
+    static long claveCompra(String eventoId, String participanteId) {
+        long par = ((long) DiccionarioIds.clave(eventoId) << 32) | (DiccionarioIds.clave(participanteId) & 0xFFFFFFFFL);
+        return par * 0x9E3779B97F4A7C15L;
+    }
+}
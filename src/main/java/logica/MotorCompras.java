@@ -0,0 +1,524 @@
+package logica;
+
+import modelos.EstadoEvento;
+import modelos.Evento;
+import modelos.MetodoPago;
+import modelos.Pago;
+import modelos.Participante;
+import modelos.Ticket;
+import modelos.TipoTicket;
+import persistencia.ContextoRepositorios;
+import persistencia.EventoRepositorio;
+import persistencia.PagoRepositorio;
+import persistencia.ParticipanteRepositorio;
+import persistencia.TicketRepositorio;
+import persistencia.UnidadDeTrabajo;
+import excepciones.CapacidadExcedidaException;
+import excepciones.EventPlannerException;
+import excepciones.PagoRechazadoException;
+import excepciones.ParticipanteYaRegistradoException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Motor de compras de tickets para muchos compradores a la vez.
+ * Implementa patrón Singleton.
+ *
+ * Cada compra sigue tres pasos:
+ * 1. Reserva un cupo con el contador atomico del evento
+ *    (Evento.reservarCupo). Si no queda cupo se rechaza sin pagar. Las
+ *    compras de eventos distintos usan contadores distintos y no se
+ *    esperan entre si.
+ * 2. Autoriza el pago con la PasarelaPago fuera de cualquier bloqueo, en
+ *    un ejecutor de pagos con concurrencia limitada: hilos virtuales si
+ *    la JVM los tiene (Java 21+), si no un grupo fijo de hilos. Como
+ *    maximo hay -Deventplanner.pagos.concurrencia autorizaciones a la
+ *    vez (64 por defecto); las demas esperan su turno.
+ * 3. Inscribe al participante con el cupo reservado y confirma ticket,
+ *    pago, evento y participante en una UnidadDeTrabajo. Este paso se
+ *    sincroniza sobre el evento (y dentro, sobre el participante), asi
+ *    que solo se esperan las compras del mismo evento.
+ *
+ * Si algo falla despues de reservar, el cupo se devuelve. Con
+ * comprarReservado() el paso 1 ya lo hizo GestorReservas: el cupo es de
+ * la reserva y no se devuelve aqui si la compra falla. Un mismo
+ * participante no puede tener dos compras en curso para el mismo evento,
+ * de modo que un doble clic no cobra dos veces.
+ *
+ * comprarAsync() hace el paso 1 en el hilo que llama y devuelve un
+ * CompletableFuture que se completa en el hilo de pago, asi la interfaz
+ * no se bloquea y se pueden tener muchos pagos en curso. comprar() es la
+ * misma compra esperando el resultado.
+ *
+ * comprarGrupo() compra muchos tickets de un evento en una sola pasada:
+ * toma todos los cupos con un solo compareAndSet, autoriza un unico pago
+ * conjunto por la suma de los participantes que pueden inscribirse (cada
+ * ticket guarda su pago, con su propia referencia y la del cobro conjunto)
+ * y confirma todo en una sola UnidadDeTrabajo. Si despues de cobrar alguno
+ * no se puede inscribir, o la confirmacion falla, lo que no termino en
+ * ticket se devuelve por la pasarela.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.6
+ */
+public class MotorCompras {
+
+    private static MotorCompras instancia;
+
+    private final EventoRepositorio eventoRepo;
+    private final ParticipanteRepositorio participanteRepo;
+    private final TicketRepositorio ticketRepo;
+    private final PagoRepositorio pagoRepo;
+
+    /** Pares evento/participante con una compra en curso */
+    private final Set<Long> comprasEnCurso;
+
+    private final ExecutorService ejecutorPagos;
+    private final Semaphore autorizacionesLibres;
+    private final boolean hilosVirtuales;
+    private volatile PasarelaPago pasarela;
+
+    /**
+     * Constructor privado (Singleton)
+     */
+    private MotorCompras() {
+        ContextoRepositorios contexto = ContextoRepositorios.getInstance();
+        this.eventoRepo = contexto.getEventos();
+        this.participanteRepo = contexto.getParticipantes();
+        this.ticketRepo = contexto.getTickets();
+        this.pagoRepo = contexto.getPagos();
+        this.comprasEnCurso = ConcurrentHashMap.newKeySet();
+
+        int concurrencia = Math.max(1, Integer.getInteger("eventplanner.pagos.concurrencia", 64));
+        ExecutorService virtual = crearEjecutorVirtual();
+        this.hilosVirtuales = virtual != null;
+        this.ejecutorPagos = virtual != null ? virtual : crearEjecutorFijo(concurrencia);
+        this.autorizacionesLibres = new Semaphore(concurrencia);
+        this.pasarela = new PasarelaSimulada();
+    }
+
+    /**
+     * Obtiene la instancia única del motor (Singleton)
+     *
+     * @return Instancia del MotorCompras
+     */
+    public static synchronized MotorCompras getInstance() {
+        if (instancia == null) {
+            instancia = new MotorCompras();
+        }
+        return instancia;
+    }
+
+    /**
+     * Compra un ticket sin superar la capacidad del evento
+     *
+     * @param evento Evento a comprar
+     * @param participante Comprador
+     * @param tipoTicket Tipo de ticket
+     * @param precio Precio ya calculado
+     * @param metodoPago Metodo de pago
+     * @return Ticket confirmado
+     * @throws CapacidadExcedidaException Si no quedan cupos
+     * @throws ParticipanteYaRegistradoException Si ya esta inscrito o tiene otra compra en curso
+     * @throws PagoRechazadoException Si el pago no se aprobo
+     * @throws EventPlannerException Si el evento no admite inscripciones o no se pudo guardar
+     */
+    public Ticket comprar(Evento evento, Participante participante, TipoTicket tipoTicket,
+                          double precio, MetodoPago metodoPago) throws EventPlannerException {
+        return esperar(iniciar(evento, participante, tipoTicket, precio, metodoPago, false));
+    }
+
+    /**
+     * Compra un ticket sin esperar al pago.
+     * Los errores de la compra (sin cupo, pago rechazado, ya inscrito...)
+     * completan el futuro con la excepcion correspondiente. El futuro se
+     * completa en un hilo de pago: la interfaz grafica debe volver a su
+     * hilo (Platform.runLater) para mostrar el resultado.
+     *
+     * @param evento Evento a comprar
+     * @param participante Comprador
+     * @param tipoTicket Tipo de ticket
+     * @param precio Precio ya calculado
+     * @param metodoPago Metodo de pago
+     * @return Futuro con el ticket confirmado
+     */
+    public CompletableFuture<Ticket> comprarAsync(Evento evento, Participante participante, TipoTicket tipoTicket,
+                                                  double precio, MetodoPago metodoPago) {
+        return iniciar(evento, participante, tipoTicket, precio, metodoPago, false);
+    }
+
+    /**
+     * Compra un ticket con un cupo ya apartado por una reserva.
+     * Si la compra falla el cupo sigue reservado; lo devuelve la reserva.
+     *
+     * @param evento Evento a comprar
+     * @param participante Comprador
+     * @param tipoTicket Tipo de ticket
+     * @param precio Precio ya calculado
+     * @param metodoPago Metodo de pago
+     * @return Ticket confirmado
+     * @throws ParticipanteYaRegistradoException Si ya esta inscrito o tiene otra compra en curso
+     * @throws PagoRechazadoException Si el pago no se aprobo
+     * @throws EventPlannerException Si el evento no admite inscripciones o no se pudo guardar
+     */
+    public Ticket comprarReservado(Evento evento, Participante participante, TipoTicket tipoTicket,
+                                   double precio, MetodoPago metodoPago) throws EventPlannerException {
+        return esperar(iniciar(evento, participante, tipoTicket, precio, metodoPago, true));
+    }
+
+    /**
+     * Paso 1 en el hilo que llama; pasos 2 y 3 en el ejecutor de pagos
+     */
+    private CompletableFuture<Ticket> iniciar(Evento evento, Participante participante, TipoTicket tipoTicket,
+                                              double precio, MetodoPago metodoPago, boolean cupoReservado) {
+        long compra = GestorReservas.claveCompra(evento.getId(), participante.getId());
+        try {
+            reservar(evento, participante, compra, cupoReservado);
+        } catch (EventPlannerException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Ticket ticket = new Ticket(evento.getId(), participante.getId(), tipoTicket, precio);
+        Pago pago = new Pago(ticket.getId(), participante.getId(), evento.getId(), precio, metodoPago);
+        CompletableFuture<Ticket> resultado;
+        try {
+            resultado = CompletableFuture.supplyAsync(() -> pagarYConfirmar(evento, participante, ticket, pago), ejecutorPagos);
+        } catch (RejectedExecutionException e) {
+            resultado = CompletableFuture.failedFuture(new EventPlannerException("No se pudo procesar el pago: " + e.getMessage()));
+        }
+        return resultado.whenComplete((confirmado, error) -> {
+            if (error != null && !cupoReservado) {
+                evento.liberarCupo();
+            }
+            comprasEnCurso.remove(compra);
+        });
+    }
+
+    /**
+     * Marca la compra en curso y toma el cupo (si no viene de una reserva)
+     */
+    private void reservar(Evento evento, Participante participante, long compra, boolean cupoReservado)
+            throws EventPlannerException {
+        if (evento.getEstado() != EstadoEvento.PUBLICADO && evento.getEstado() != EstadoEvento.EN_CURSO) {
+            throw new EventPlannerException("Solo se puede inscribir a eventos publicados en curso");
+        }
+        if (!comprasEnCurso.add(compra)) {
+            throw new ParticipanteYaRegistradoException(participante.getNombre(), evento.getNombre());
+        }
+        boolean listo = false;
+        try {
+            if (evento.estaRegistrado(participante.getId())) {
+                throw new ParticipanteYaRegistradoException(participante.getNombre(), evento.getNombre());
+            }
+            if (!cupoReservado && !evento.reservarCupo()) {
+                throw new CapacidadExcedidaException(evento.getNombre(), evento.getCapacidadMaxima());
+            }
+            listo = true;
+        } finally {
+            if (!listo) {
+                comprasEnCurso.remove(compra);
+            }
+        }
+    }
+
+    /**
+     * Autoriza el pago (sin bloqueos) y confirma la compra
+     */
+    private Ticket pagarYConfirmar(Evento evento, Participante participante, Ticket ticket, Pago pago) {
+        boolean aprobado;
+        autorizacionesLibres.acquireUninterruptibly();
+        try {
+            aprobado = pasarela.autorizar(pago);
+        } finally {
+            autorizacionesLibres.release();
+        }
+        try {
+            if (!aprobado) {
+                throw new PagoRechazadoException(pago.getMetodoPago().getDescripcion(),
+                    "Transacción no autorizada. Intente con otro método de pago.");
+            }
+            confirmar(evento, participante, ticket, pago);
+            return ticket;
+        } catch (EventPlannerException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Inscribe con el cupo reservado y guarda todo en una sola confirmacion.
+     * Si falla, el cupo queda reservado para que iniciar() lo libere.
+     */
+    private void confirmar(Evento evento, Participante participante, Ticket ticket, Pago pago)
+            throws EventPlannerException {
+        synchronized (evento) {
+            synchronized (participante) {
+                if (!evento.confirmarReserva(participante.getId())) {
+                    throw new ParticipanteYaRegistradoException(participante.getNombre(), evento.getNombre());
+                }
+                participante.registrarseEvento(evento.getId());
+
+                UnidadDeTrabajo unidad = new UnidadDeTrabajo();
+                unidad.agregar(ticketRepo, ticket);
+                unidad.agregar(pagoRepo, pago);
+                unidad.actualizar(eventoRepo, evento);
+                unidad.actualizar(participanteRepo, participante);
+                try {
+                    unidad.confirmar();
+                } catch (IOException e) {
+                    evento.deshacerReserva(participante.getId());
+                    participante.cancelarRegistro(evento.getId());
+                    System.err.println("[MotorCompras] Error al guardar: " + e.getMessage());
+                    throw new EventPlannerException("Error al guardar ticket: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Compra un ticket para cada participante de un grupo, con un solo
+     * cobro y una sola confirmacion.
+     * Los participantes que no pueden comprar (ya inscritos, repetidos en
+     * la lista, sin cupo suficiente) quedan en los fallos del resultado y
+     * el resto compra igual. Si el pago conjunto se rechaza, la pasarela
+     * falla o no se puede guardar, fallan todos y los cupos se devuelven (y
+     * lo cobrado, por la pasarela).
+     *
+     * @param evento Evento a comprar
+     * @param participantes Compradores, en orden de prioridad para los cupos
+     * @param tipoTicket Tipo de ticket de todos
+     * @param precio Precio de cada participante
+     * @param metodoPago Metodo de pago del cobro conjunto
+     * @param resultado Resultado donde se anotan compras y fallos
+     * @return El mismo resultado
+     * @throws EventPlannerException Si el evento no admite inscripciones
+     */
+    public ResultadoCompraGrupal comprarGrupo(Evento evento, List<Participante> participantes, TipoTicket tipoTicket,
+                                              ToDoubleFunction<Participante> precio, MetodoPago metodoPago,
+                                              ResultadoCompraGrupal resultado) throws EventPlannerException {
+        if (evento.getEstado() != EstadoEvento.PUBLICADO && evento.getEstado() != EstadoEvento.EN_CURSO) {
+            throw new EventPlannerException("Solo se puede inscribir a eventos publicados en curso");
+        }
+
+        ArrayList<Participante> aptos = new ArrayList<>(participantes.size());
+        long[] compras = new long[participantes.size()];
+        for (Participante participante : participantes) {
+            long compra = GestorReservas.claveCompra(evento.getId(), participante.getId());
+            if (evento.estaRegistrado(participante.getId()) || !comprasEnCurso.add(compra)) {
+                resultado.agregarFallo(participante.getId(),
+                    new ParticipanteYaRegistradoException(participante.getNombre(), evento.getNombre()));
+                continue;
+            }
+            compras[aptos.size()] = compra;
+            aptos.add(participante);
+        }
+
+        try {
+            int cupos = evento.reservarCupos(aptos.size());
+            for (int i = cupos; i < aptos.size(); i++) {
+                resultado.agregarFallo(aptos.get(i).getId(),
+                    new CapacidadExcedidaException(evento.getNombre(), evento.getCapacidadMaxima()));
+            }
+            if (cupos > 0) {
+                pagarYConfirmarGrupo(evento, aptos.subList(0, cupos), tipoTicket, precio, metodoPago, resultado);
+            }
+            return resultado;
+        } finally {
+            for (int i = 0; i < aptos.size(); i++) {
+                comprasEnCurso.remove(compras[i]);
+            }
+        }
+    }
+
+    /**
+     * Cobra el grupo con una sola autorizacion y lo confirma. Devuelve al
+     * evento los cupos que no terminen en inscripcion, y por la pasarela
+     * el monto de los que se cobraron y no se inscribieron.
+     */
+    private void pagarYConfirmarGrupo(Evento evento, List<Participante> compradores, TipoTicket tipoTicket,
+                                      ToDoubleFunction<Participante> precio, MetodoPago metodoPago,
+                                      ResultadoCompraGrupal resultado) {
+        ArrayList<Ticket> tickets = new ArrayList<>(compradores.size());
+        ArrayList<Pago> pagos = new ArrayList<>(compradores.size());
+        double total = 0;
+        for (Participante participante : compradores) {
+            double monto = precio.applyAsDouble(participante);
+            Ticket ticket = new Ticket(evento.getId(), participante.getId(), tipoTicket, monto);
+            tickets.add(ticket);
+            pagos.add(new Pago(ticket.getId(), participante.getId(), evento.getId(), monto, metodoPago));
+            total += monto;
+        }
+
+        // Pago conjunto solo para la pasarela; no se guarda
+        Pago conjunto = new Pago(tickets.get(0).getId(), compradores.get(0).getId(), evento.getId(), total, metodoPago);
+        boolean aprobado;
+        autorizacionesLibres.acquireUninterruptibly();
+        try {
+            aprobado = pasarela.autorizar(conjunto);
+        } catch (RuntimeException e) {
+            // Un error de la pasarela cuenta como rechazo: los cupos vuelven al evento
+            System.err.println("[MotorCompras] Error de la pasarela en compra grupal: " + e.getMessage());
+            aprobado = false;
+        } finally {
+            autorizacionesLibres.release();
+        }
+        if (!aprobado) {
+            evento.liberarCupos(compradores.size());
+            PagoRechazadoException rechazo = new PagoRechazadoException(metodoPago.getDescripcion(),
+                "Transacción no autorizada. Intente con otro método de pago.");
+            for (Participante participante : compradores) {
+                resultado.agregarFallo(participante.getId(), rechazo);
+            }
+            return;
+        }
+        for (Pago pago : pagos) {
+            pago.vincularA(conjunto);
+        }
+
+        UnidadDeTrabajo unidad = new UnidadDeTrabajo();
+        ArrayList<Participante> inscritos = new ArrayList<>(compradores.size());
+        // Cobrado que no termina en ticket: se devuelve al final, fuera del bloqueo
+        double noUsado = 0;
+        synchronized (evento) {
+            for (int i = 0; i < compradores.size(); i++) {
+                Participante participante = compradores.get(i);
+                synchronized (participante) {
+                    if (!evento.confirmarReserva(participante.getId())) {
+                        evento.liberarCupo();
+                        noUsado += pagos.get(i).getMontoBase();
+                        resultado.agregarFallo(participante.getId(),
+                            new ParticipanteYaRegistradoException(participante.getNombre(), evento.getNombre()));
+                        continue;
+                    }
+                    participante.registrarseEvento(evento.getId());
+                }
+                inscritos.add(participante);
+                unidad.agregar(ticketRepo, tickets.get(i));
+                unidad.agregar(pagoRepo, pagos.get(i));
+                unidad.actualizar(participanteRepo, participante);
+                resultado.agregarCompra(tickets.get(i), pagos.get(i));
+            }
+            if (!inscritos.isEmpty()) {
+                unidad.actualizar(eventoRepo, evento);
+                try {
+                    unidad.confirmar();
+                } catch (IOException e) {
+                    for (Participante participante : inscritos) {
+                        synchronized (participante) {
+                            evento.deshacerReserva(participante.getId());
+                            participante.cancelarRegistro(evento.getId());
+                        }
+                    }
+                    evento.liberarCupos(inscritos.size());
+                    noUsado = total;
+                    System.err.println("[MotorCompras] Error al guardar compra grupal: " + e.getMessage());
+                    resultado.fallarCompras(new EventPlannerException("Error al guardar tickets: " + e.getMessage()));
+                }
+            }
+        }
+        if (noUsado > 0) {
+            resultado.agregarDevolucion(devolver(conjunto, noUsado));
+        }
+    }
+
+    /**
+     * Devuelve por la pasarela parte de un pago aprobado que no termino en
+     * ticket
+     *
+     * @return Monto devuelto (0 si la pasarela no acepto la devolucion o fallo)
+     */
+    private double devolver(Pago cobrado, double monto) {
+        boolean devuelto;
+        autorizacionesLibres.acquireUninterruptibly();
+        try {
+            devuelto = pasarela.reembolsar(cobrado, monto);
+        } catch (RuntimeException e) {
+            // La compra ya esta confirmada: el error no se propaga al que compro
+            System.err.println("[MotorCompras] Error de la pasarela al devolver: " + e.getMessage());
+            devuelto = false;
+        } finally {
+            autorizacionesLibres.release();
+        }
+        if (!devuelto) {
+            System.err.println("[MotorCompras] No se pudo devolver $" + monto + " del pago "
+                + cobrado.getNumeroReferencia() + ": requiere revision manual");
+            return 0;
+        }
+        System.out.println("[MotorCompras] Devuelto $" + monto + " del pago " + cobrado.getNumeroReferencia());
+        return monto;
+    }
+
+    /**
+     * Espera el resultado de una compra y devuelve su excepcion original
+     */
+    private static Ticket esperar(CompletableFuture<Ticket> compra) throws EventPlannerException {
+        try {
+            return compra.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof EventPlannerException) {
+                throw (EventPlannerException) causa;
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cambia la pasarela de pago (por ejemplo, una simulada con latencia)
+     *
+     * @param pasarela Pasarela a usar en las compras siguientes
+     */
+    public void setPasarela(PasarelaPago pasarela) {
+        this.pasarela = Objects.requireNonNull(pasarela, "pasarela");
+    }
+
+    public PasarelaPago getPasarela() {
+        return pasarela;
+    }
+
+    /**
+     * Indica si los pagos corren en hilos virtuales (Java 21+)
+     *
+     * @return true con hilos virtuales, false con el grupo fijo de hilos
+     */
+    public boolean usaHilosVirtuales() {
+        return hilosVirtuales;
+    }
+
+    /**
+     * Un hilo virtual por pago, si la JVM lo permite.
+     * Se busca por reflexion para seguir compilando con Java 17.
+     */
+    private static ExecutorService crearEjecutorVirtual() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService crearEjecutorFijo(int hilos) {
+        AtomicInteger numero = new AtomicInteger();
+        return Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "eventplanner-pagos-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+}
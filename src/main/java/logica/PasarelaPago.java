@@ -0,0 +1,35 @@
+package logica;
+
+import modelos.Pago;
+
+/**
+ * PasarelaPago - Autoriza pagos contra un procesador externo.
+ * MotorCompras la llama fuera de cualquier bloqueo y desde los hilos de
+ * pago, asi que una implementacion puede bloquear mientras espera la
+ * respuesta, pero debe ser segura para varios hilos.
+ * Si una compra ya autorizada no se puede confirmar (o se confirma solo
+ * en parte), MotorCompras devuelve lo no usado con reembolsar().
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public interface PasarelaPago {
+
+    /**
+     * Autoriza un pago y lo marca con Pago.aprobar() o Pago.rechazar()
+     *
+     * @param pago Pago pendiente
+     * @return true si se aprobo
+     */
+    boolean autorizar(Pago pago);
+
+    /**
+     * Devuelve todo o parte de un pago que esta pasarela ya aprobo
+     *
+     * @param pago Pago aprobado
+     * @param monto Monto base a devolver (la comision del metodo se
+     *        devuelve en la misma proporcion)
+     * @return true si la devolucion se acepto
+     */
+    boolean reembolsar(Pago pago, double monto);
+}
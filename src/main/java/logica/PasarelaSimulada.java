@@ -0,0 +1,112 @@
+package logica;
+
+import modelos.Pago;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PasarelaSimulada - Pasarela de prueba con latencia y tasa de rechazo
+ * configurables, para ensayar la aplicacion sin un procesador real.
+ *
+ * Cada autorizacion espera la latencia base mas una variacion aleatoria
+ * y rechaza el pago con la probabilidad indicada. Usa ThreadLocalRandom,
+ * sin crear un Random por llamada ni compartir uno entre hilos.
+ *
+ * Por defecto no tiene latencia y rechaza el 5% de los pagos, igual que
+ * Pago.procesarPago(). Los valores por defecto se pueden cambiar con
+ * -Deventplanner.pasarela.latenciaMs, -Deventplanner.pasarela.variacionMs
+ * y -Deventplanner.pasarela.rechazo (entre 0 y 1). Las devoluciones
+ * tienen la misma latencia y siempre se aceptan.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class PasarelaSimulada implements PasarelaPago {
+
+    private final long latenciaMs;
+    private final long variacionMs;
+    private final double tasaRechazo;
+
+    /**
+     * Crea la pasarela con los valores por defecto (o los de las propiedades del sistema)
+     */
+    public PasarelaSimulada() {
+        this(Long.getLong("eventplanner.pasarela.latenciaMs", 0),
+             Long.getLong("eventplanner.pasarela.variacionMs", 0),
+             Double.parseDouble(System.getProperty("eventplanner.pasarela.rechazo", "0.05")));
+    }
+
+    /**
+     * Crea la pasarela
+     *
+     * @param latenciaMs Espera minima de cada autorizacion
+     * @param variacionMs Espera extra aleatoria maxima
+     * @param tasaRechazo Probabilidad de rechazo, entre 0 y 1
+     */
+    public PasarelaSimulada(long latenciaMs, long variacionMs, double tasaRechazo) {
+        if (latenciaMs < 0 || variacionMs < 0) {
+            throw new IllegalArgumentException("La latencia no puede ser negativa");
+        }
+        if (tasaRechazo < 0 || tasaRechazo > 1) {
+            throw new IllegalArgumentException("La tasa de rechazo debe estar entre 0 y 1");
+        }
+        this.latenciaMs = latenciaMs;
+        this.variacionMs = variacionMs;
+        this.tasaRechazo = tasaRechazo;
+    }
+
+    @Override
+    public boolean autorizar(Pago pago) {
+        if (!esperarRespuesta()) {
+            pago.rechazar();
+            return false;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < tasaRechazo) {
+            pago.rechazar();
+            return false;
+        }
+        pago.aprobar(random.nextInt(1000000));
+        return true;
+    }
+
+    @Override
+    public boolean reembolsar(Pago pago, double monto) {
+        return esperarRespuesta() && monto >= 0 && monto <= pago.getMontoBase();
+    }
+
+    /**
+     * Simula la latencia del procesador
+     *
+     * @return false si el hilo se interrumpio mientras esperaba
+     */
+    private boolean esperarRespuesta() {
+        long espera = latenciaMs + (variacionMs > 0 ? ThreadLocalRandom.current().nextLong(variacionMs + 1) : 0);
+        if (espera > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getLatenciaMs() {
+        return latenciaMs;
+    }
+
+    public long getVariacionMs() {
+        return variacionMs;
+    }
+
+    public double getTasaRechazo() {
+        return tasaRechazo;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pasarela simulada (%d+%d ms, %.0f%% rechazo)", latenciaMs, variacionMs, tasaRechazo * 100);
+    }
+}
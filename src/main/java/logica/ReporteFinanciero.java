@@ -1,15 +1,17 @@
 /**
  * ReporteFinanciero - Genera reportes financieros del sistema
  * Incluye análisis de ingresos, comisiones y estadísticas de ventas
+ * El reporte general recorre las vistas de solo lectura de tickets y pagos.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package logica;
 
 import modelos.*;
 import excepciones.*;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ReporteFinanciero {
@@ -109,8 +111,8 @@ public class ReporteFinanciero {
         reporte.append("        REPORTE FINANCIERO GENERAL DEL SISTEMA              \n");
         reporte.append("============================================================\n\n");
         
-        ArrayList<Ticket> todosTickets = gestorPagos.obtenerTodosTickets();
-        ArrayList<Pago> todosPagos = gestorPagos.obtenerTodosPagos();
+        List<Ticket> todosTickets = gestorPagos.verTickets();
+        List<Pago> todosPagos = gestorPagos.verPagos();
         
         reporte.append(" RESUMEN DE TRANSACCIONES\n");
         reporte.append("============================================================\n");
@@ -191,12 +193,15 @@ public class ReporteFinanciero {
     public String generarTopEventosRentables(int limite) {
         ArrayList<Evento> eventos = gestorEventos.obtenerTodosEventos();
         
+        // Calcular los ingresos una sola vez por evento (no en cada comparacion)
+        Map<String, Double> ingresosPorEvento = new java.util.HashMap<>();
+        for (Evento evento : eventos) {
+            ingresosPorEvento.put(evento.getId(), gestorPagos.calcularIngresosEvento(evento.getId()));
+        }
+        
         // Ordenar por ingresos
-        eventos.sort((e1, e2) -> {
-            double ing1 = gestorPagos.calcularIngresosEvento(e1.getId());
-            double ing2 = gestorPagos.calcularIngresosEvento(e2.getId());
-            return Double.compare(ing2, ing1);
-        });
+        eventos.sort((e1, e2) -> Double.compare(
+            ingresosPorEvento.get(e2.getId()), ingresosPorEvento.get(e1.getId())));
         
         StringBuilder reporte = new StringBuilder();
         reporte.append("╔══════════════════════════════════════════════════════════╗\n");
@@ -207,7 +212,7 @@ public class ReporteFinanciero {
         for (Evento evento : eventos) {
             if (contador >= limite) break;
             
-            double ingresos = gestorPagos.calcularIngresosEvento(evento.getId());
+            double ingresos = ingresosPorEvento.get(evento.getId());
             if (ingresos > 0) {
                 contador++;
                 
@@ -216,10 +221,10 @@ public class ReporteFinanciero {
                 reporte.append(String.format("%s %d. %s\n", medalla, contador, evento.getNombre()));
                 reporte.append(String.format("      Tipo: %s\n", evento.getTipo().getDescripcion()));
                 reporte.append(String.format("      Ingresos Brutos: $%,.0f\n", ingresos));
-                reporte.append(String.format("      Tickets Vendidos: %d\n", 
-                    gestorPagos.obtenerTicketsDeEvento(evento.getId()).size()));
+                int ticketsVendidos = gestorPagos.contarTicketsDeEvento(evento.getId());
+                reporte.append(String.format("      Tickets Vendidos: %d\n", ticketsVendidos));
                 reporte.append(String.format("      Ingreso Promedio/Ticket: $%,.0f\n\n",
-                    ingresos / Math.max(1, gestorPagos.obtenerTicketsDeEvento(evento.getId()).size())));
+                    ingresos / Math.max(1, ticketsVendidos)));
             }
         }
         
@@ -0,0 +1,136 @@
+package logica;
+
+import modelos.Pago;
+import modelos.Ticket;
+import excepciones.EventPlannerException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResultadoCompraGrupal - Resultado de comprar varios tickets de un evento
+ * de una vez (GestorPagos.comprarTicketsGrupo).
+ *
+ * Los participantes que pudieron comprar tienen su ticket y su pago; los
+ * demas aparecen en los fallos con la excepcion que explica el motivo
+ * (ya inscrito, sin cupo, pago rechazado...). Los pagos del grupo comparten
+ * la autorizacion y la referencia de grupo; cada uno tiene su referencia.
+ * Si se cobro a alguien que al final no compro, ese monto se devolvio por
+ * la pasarela (getMontoDevuelto).
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class ResultadoCompraGrupal {
+
+    private final String eventoId;
+    private final List<Ticket> tickets;
+    private final List<Pago> pagos;
+    private final Map<String, EventPlannerException> fallos;
+    private double montoDevuelto;
+
+    /**
+     * Crea un resultado vacio
+     *
+     * @param eventoId Evento de la compra
+     */
+    ResultadoCompraGrupal(String eventoId) {
+        this.eventoId = eventoId;
+        this.tickets = new ArrayList<>();
+        this.pagos = new ArrayList<>();
+        this.fallos = new LinkedHashMap<>();
+    }
+
+    void agregarCompra(Ticket ticket, Pago pago) {
+        tickets.add(ticket);
+        pagos.add(pago);
+    }
+
+    void agregarFallo(String participanteId, EventPlannerException motivo) {
+        fallos.put(participanteId, motivo);
+    }
+
+    void agregarDevolucion(double monto) {
+        montoDevuelto += monto;
+    }
+
+    /**
+     * Pasa todas las compras a fallos (la compra conjunta no se confirmo)
+     *
+     * @param motivo Motivo comun
+     */
+    void fallarCompras(EventPlannerException motivo) {
+        for (Ticket ticket : tickets) {
+            fallos.put(ticket.getParticipanteId(), motivo);
+        }
+        tickets.clear();
+        pagos.clear();
+    }
+
+    public String getEventoId() {
+        return eventoId;
+    }
+
+    /**
+     * Tickets comprados, en el orden de los participantes pedidos
+     */
+    public List<Ticket> getTickets() {
+        return Collections.unmodifiableList(tickets);
+    }
+
+    /**
+     * Pagos de los tickets comprados, en el mismo orden
+     */
+    public List<Pago> getPagos() {
+        return Collections.unmodifiableList(pagos);
+    }
+
+    /**
+     * Participantes que no compraron, con el motivo
+     */
+    public Map<String, EventPlannerException> getFallos() {
+        return Collections.unmodifiableMap(fallos);
+    }
+
+    public int getCantidadComprada() {
+        return tickets.size();
+    }
+
+    public int getCantidadFallida() {
+        return fallos.size();
+    }
+
+    /**
+     * Indica si todos los participantes pedidos compraron
+     */
+    public boolean esCompleta() {
+        return fallos.isEmpty();
+    }
+
+    /**
+     * Total cobrado (con comisiones) por los tickets comprados
+     */
+    public double getMontoTotal() {
+        double total = 0;
+        for (Pago pago : pagos) {
+            total += pago.getMontoTotal();
+        }
+        return total;
+    }
+
+    /**
+     * Monto base devuelto por la pasarela (cobrado a participantes que al
+     * final no compraron)
+     */
+    public double getMontoDevuelto() {
+        return montoDevuelto;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Compra grupal: %d tickets, %d fallos, total $%,.0f",
+            tickets.size(), fallos.size(), getMontoTotal());
+    }
+}
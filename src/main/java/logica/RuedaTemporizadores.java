@@ -0,0 +1,176 @@
+package logica;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RuedaTemporizadores - Rueda de tiempo con hash (hashed timer wheel) para
+ * ejecutar tareas cuando vence su plazo, con costo O(1) por tarea.
+ *
+ * La rueda tiene una cantidad fija de ranuras (potencia de 2) y un hilo de
+ * fondo que avanza una ranura por tick. Cada tarea va a la ranura de su
+ * tick de vencimiento; si vence a mas de una vuelta, guarda las vueltas
+ * que le faltan. En cada tick el hilo solo recorre la ranura actual, asi
+ * que millones de tareas pendientes no encarecen el avance.
+ *
+ * programar() no bloquea: encola la tarea y el hilo la ubica en su ranura
+ * en el siguiente tick. Las tareas se ejecutan en el hilo de la rueda, de
+ * modo que deben ser cortas. La precision es de un tick.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public class RuedaTemporizadores {
+
+    /**
+     * Tarea programada; sus enlaces forman la lista de su ranura
+     */
+    private static final class Temporizador {
+        private final Runnable tarea;
+        private final long plazoNanos;
+        private long vueltas;
+        private Temporizador siguiente;
+
+        private Temporizador(Runnable tarea, long plazoNanos) {
+            this.tarea = tarea;
+            this.plazoNanos = plazoNanos;
+        }
+    }
+
+    private final String nombre;
+    private final long duracionTickNanos;
+    private final Temporizador[] ranuras;
+    private final int mascara;
+
+    /** Tareas programadas que el hilo todavia no ubico en su ranura */
+    private final ConcurrentLinkedQueue<Temporizador> nuevos;
+    private final AtomicLong pendientes;
+    private final AtomicBoolean iniciada;
+    private volatile boolean detenida;
+    private final long inicioNanos;
+    private long tick;
+
+    /**
+     * Crea una rueda; el hilo arranca con la primera tarea
+     *
+     * @param nombre Nombre del hilo
+     * @param duracionTick Duracion de cada tick
+     * @param unidad Unidad de la duracion
+     * @param cantidadRanuras Ranuras de la rueda (se redondea a potencia de 2)
+     */
+    public RuedaTemporizadores(String nombre, long duracionTick, TimeUnit unidad, int cantidadRanuras) {
+        if (duracionTick <= 0 || cantidadRanuras <= 0) {
+            throw new IllegalArgumentException("La duracion del tick y las ranuras deben ser positivas");
+        }
+        int tamano = Integer.highestOneBit(Math.min(cantidadRanuras, 1 << 30));
+        if (tamano < cantidadRanuras) {
+            tamano <<= 1;
+        }
+        this.nombre = nombre;
+        this.duracionTickNanos = unidad.toNanos(duracionTick);
+        this.ranuras = new Temporizador[tamano];
+        this.mascara = tamano - 1;
+        this.nuevos = new ConcurrentLinkedQueue<>();
+        this.pendientes = new AtomicLong();
+        this.iniciada = new AtomicBoolean(false);
+        this.inicioNanos = System.nanoTime();
+    }
+
+    /**
+     * Programa una tarea para cuando pase un tiempo
+     *
+     * @param tarea Tarea a ejecutar en el hilo de la rueda
+     * @param retraso Tiempo hasta el vencimiento
+     * @param unidad Unidad del retraso
+     */
+    public void programar(Runnable tarea, long retraso, TimeUnit unidad) {
+        if (detenida) {
+            throw new IllegalStateException("La rueda " + nombre + " esta detenida");
+        }
+        iniciar();
+        long plazo = System.nanoTime() - inicioNanos + Math.max(0, unidad.toNanos(retraso));
+        pendientes.incrementAndGet();
+        nuevos.add(new Temporizador(tarea, plazo));
+    }
+
+    /**
+     * Cantidad de tareas programadas que todavia no se ejecutaron
+     *
+     * @return Tareas pendientes
+     */
+    public long contarPendientes() {
+        return pendientes.get();
+    }
+
+    /**
+     * Detiene el hilo; las tareas pendientes ya no se ejecutan
+     */
+    public void detener() {
+        detenida = true;
+    }
+
+    private void iniciar() {
+        if (iniciada.compareAndSet(false, true)) {
+            Thread hilo = new Thread(this::avanzar, nombre);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+    }
+
+    /**
+     * Bucle del hilo: espera el fin de cada tick, ubica las tareas nuevas y
+     * ejecuta las vencidas de la ranura actual
+     */
+    private void avanzar() {
+        while (!detenida) {
+            long finTick = (tick + 1) * duracionTickNanos;
+            long espera;
+            while ((espera = finTick - (System.nanoTime() - inicioNanos)) > 0 && !detenida) {
+                LockSupport.parkNanos(espera);
+            }
+            ubicarNuevos();
+            vencerRanura((int) (tick & mascara));
+            tick++;
+        }
+    }
+
+    private void ubicarNuevos() {
+        Temporizador temporizador;
+        while ((temporizador = nuevos.poll()) != null) {
+            long tickVencimiento = Math.max(tick, temporizador.plazoNanos / duracionTickNanos);
+            temporizador.vueltas = (tickVencimiento - tick) / ranuras.length;
+            int posicion = (int) (tickVencimiento & mascara);
+            temporizador.siguiente = ranuras[posicion];
+            ranuras[posicion] = temporizador;
+        }
+    }
+
+    private void vencerRanura(int posicion) {
+        Temporizador anterior = null;
+        Temporizador actual = ranuras[posicion];
+        while (actual != null) {
+            Temporizador siguiente = actual.siguiente;
+            if (actual.vueltas > 0) {
+                actual.vueltas--;
+                anterior = actual;
+            } else {
+                if (anterior == null) {
+                    ranuras[posicion] = siguiente;
+                } else {
+                    anterior.siguiente = siguiente;
+                }
+                actual.siguiente = null;
+                pendientes.decrementAndGet();
+                try {
+                    actual.tarea.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[RuedaTemporizadores] Error en tarea de " + nombre + ": " + e.getMessage());
+                }
+            }
+            actual = siguiente;
+        }
+    }
+}
@@ -0,0 +1,704 @@
+/**
+ * ConjuntoBits - Conjunto de enteros no negativos comprimido al estilo
+ * "roaring bitmap". Guarda las claves de DiccionarioIds de los
+ * participantes de un evento.
+ *
+ * Cada entero se divide en 16 bits altos, que eligen un contenedor, y 16
+ * bits bajos, que se guardan dentro de el. Un contenedor con hasta 4096
+ * valores es un arreglo ordenado de char (2 bytes por valor); uno mas
+ * lleno es un mapa de 65536 bits (8 KB fijos). Buscar y agregar cuestan
+ * una busqueda binaria, y la interseccion, union y diferencia trabajan
+ * contenedor por contenedor, palabra por palabra en los mapas de bits.
+ *
+ * Se recorre en orden ascendente de clave. vistaSoloLectura() comparte
+ * los datos sin copiarlos y rechaza las modificaciones.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+package modelos;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public final class ConjuntoBits {
+
+    /** Valores a partir de los cuales un contenedor pasa a mapa de bits */
+    private static final int LIMITE_ARREGLO = 4096;
+
+    /** Palabras de 64 bits en un mapa de 65536 bits */
+    private static final int PALABRAS = 1024;
+
+    private final Datos datos;
+    private final boolean soloLectura;
+
+    /**
+     * Crea un conjunto vacio
+     */
+    public ConjuntoBits() {
+        this(new Datos(), false);
+    }
+
+    /**
+     * Crea una copia de otro conjunto (modificable)
+     *
+     * @param otro Conjunto a copiar
+     */
+    public ConjuntoBits(ConjuntoBits otro) {
+        this(otro.datos.copiar(), false);
+    }
+
+    private ConjuntoBits(Datos datos, boolean soloLectura) {
+        this.datos = datos;
+        this.soloLectura = soloLectura;
+    }
+
+    /**
+     * Vista que refleja este conjunto pero no permite modificarlo
+     *
+     * @return Vista de solo lectura
+     */
+    public ConjuntoBits vistaSoloLectura() {
+        return soloLectura ? this : new ConjuntoBits(datos, true);
+    }
+
+    // ============== CONSULTAS ==============
+
+    public int tamano() {
+        return datos.tamano;
+    }
+
+    public boolean estaVacio() {
+        return datos.tamano == 0;
+    }
+
+    /**
+     * Indica si el conjunto contiene un valor
+     *
+     * @param valor Valor a buscar
+     * @return true si esta en el conjunto
+     */
+    public boolean contiene(int valor) {
+        if (valor < 0) {
+            return false;
+        }
+        int posicion = datos.buscarContenedor(alto(valor));
+        return posicion >= 0 && datos.contenedores[posicion].contiene(bajo(valor));
+    }
+
+    /**
+     * Recorre los valores en orden ascendente
+     *
+     * @param accion Accion a ejecutar con cada valor
+     */
+    public void recorrer(IntConsumer accion) {
+        for (int i = 0; i < datos.cantidad; i++) {
+            datos.contenedores[i].recorrer(datos.altos[i] << 16, accion);
+        }
+    }
+
+    /**
+     * Copia de los valores
+     *
+     * @return Arreglo nuevo con los valores en orden ascendente
+     */
+    public int[] aArreglo() {
+        int[] resultado = new int[datos.tamano];
+        int[] posicion = {0};
+        recorrer(valor -> resultado[posicion[0]++] = valor);
+        return resultado;
+    }
+
+    // ============== MODIFICACIONES ==============
+
+    /**
+     * Agrega un valor
+     *
+     * @param valor Valor no negativo
+     * @return true si no estaba en el conjunto
+     */
+    public boolean agregar(int valor) {
+        verificarModificable();
+        if (valor < 0) {
+            throw new IllegalArgumentException("Valor negativo: " + valor);
+        }
+        char alto = alto(valor);
+        int posicion = datos.buscarContenedor(alto);
+        if (posicion < 0) {
+            posicion = -posicion - 1;
+            datos.insertarContenedor(posicion, alto, new ContenedorArreglo());
+        }
+        Contenedor contenedor = datos.contenedores[posicion];
+        int antes = contenedor.cardinalidad();
+        datos.contenedores[posicion] = contenedor.agregar(bajo(valor));
+        if (datos.contenedores[posicion].cardinalidad() == antes) {
+            return false;
+        }
+        datos.tamano++;
+        return true;
+    }
+
+    /**
+     * Elimina un valor
+     *
+     * @param valor Valor a eliminar
+     * @return true si estaba en el conjunto
+     */
+    public boolean eliminar(int valor) {
+        verificarModificable();
+        if (valor < 0) {
+            return false;
+        }
+        int posicion = datos.buscarContenedor(alto(valor));
+        if (posicion < 0) {
+            return false;
+        }
+        Contenedor contenedor = datos.contenedores[posicion];
+        int antes = contenedor.cardinalidad();
+        contenedor = contenedor.eliminar(bajo(valor));
+        if (contenedor.cardinalidad() == antes) {
+            return false;
+        }
+        datos.tamano--;
+        if (contenedor.cardinalidad() == 0) {
+            datos.quitarContenedor(posicion);
+        } else {
+            datos.contenedores[posicion] = contenedor;
+        }
+        return true;
+    }
+
+    // ============== ALGEBRA DE CONJUNTOS ==============
+
+    /**
+     * Valores que estan en ambos conjuntos
+     *
+     * @param otro Otro conjunto
+     * @return Conjunto nuevo
+     */
+    public ConjuntoBits interseccion(ConjuntoBits otro) {
+        Datos a = datos;
+        Datos b = otro.datos;
+        Datos resultado = new Datos();
+        int i = 0;
+        int j = 0;
+        while (i < a.cantidad && j < b.cantidad) {
+            if (a.altos[i] < b.altos[j]) {
+                i++;
+            } else if (a.altos[i] > b.altos[j]) {
+                j++;
+            } else {
+                Contenedor comun = a.contenedores[i].interseccion(b.contenedores[j]);
+                resultado.anexar(a.altos[i], comun);
+                i++;
+                j++;
+            }
+        }
+        return new ConjuntoBits(resultado, false);
+    }
+
+    /**
+     * Valores que estan en alguno de los dos conjuntos
+     *
+     * @param otro Otro conjunto
+     * @return Conjunto nuevo
+     */
+    public ConjuntoBits union(ConjuntoBits otro) {
+        Datos a = datos;
+        Datos b = otro.datos;
+        Datos resultado = new Datos();
+        int i = 0;
+        int j = 0;
+        while (i < a.cantidad || j < b.cantidad) {
+            if (j >= b.cantidad || (i < a.cantidad && a.altos[i] < b.altos[j])) {
+                resultado.anexar(a.altos[i], a.contenedores[i].copiar());
+                i++;
+            } else if (i >= a.cantidad || a.altos[i] > b.altos[j]) {
+                resultado.anexar(b.altos[j], b.contenedores[j].copiar());
+                j++;
+            } else {
+                resultado.anexar(a.altos[i], a.contenedores[i].union(b.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return new ConjuntoBits(resultado, false);
+    }
+
+    /**
+     * Valores de este conjunto que no estan en el otro
+     *
+     * @param otro Conjunto a restar
+     * @return Conjunto nuevo
+     */
+    public ConjuntoBits diferencia(ConjuntoBits otro) {
+        Datos a = datos;
+        Datos b = otro.datos;
+        Datos resultado = new Datos();
+        int j = 0;
+        for (int i = 0; i < a.cantidad; i++) {
+            while (j < b.cantidad && b.altos[j] < a.altos[i]) {
+                j++;
+            }
+            if (j < b.cantidad && b.altos[j] == a.altos[i]) {
+                resultado.anexar(a.altos[i], a.contenedores[i].diferencia(b.contenedores[j]));
+            } else {
+                resultado.anexar(a.altos[i], a.contenedores[i].copiar());
+            }
+        }
+        return new ConjuntoBits(resultado, false);
+    }
+
+    /**
+     * Cantidad de valores en comun, sin construir la interseccion
+     *
+     * @param otro Otro conjunto
+     * @return Tamaño de la interseccion
+     */
+    public int contarInterseccion(ConjuntoBits otro) {
+        Datos a = datos;
+        Datos b = otro.datos;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.cantidad && j < b.cantidad) {
+            if (a.altos[i] < b.altos[j]) {
+                i++;
+            } else if (a.altos[i] > b.altos[j]) {
+                j++;
+            } else {
+                total += a.contenedores[i].contarInterseccion(b.contenedores[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("[");
+        recorrer(valor -> {
+            if (texto.length() > 1) {
+                texto.append(", ");
+            }
+            texto.append(valor);
+        });
+        return texto.append("]").toString();
+    }
+
+    private void verificarModificable() {
+        if (soloLectura) {
+            throw new UnsupportedOperationException("Conjunto de solo lectura");
+        }
+    }
+
+    private static char alto(int valor) {
+        return (char) (valor >>> 16);
+    }
+
+    private static char bajo(int valor) {
+        return (char) valor;
+    }
+
+    // ============== DATOS ==============
+
+    /**
+     * Contenedores ordenados por sus 16 bits altos. Esta separado del
+     * conjunto para que la vista de solo lectura comparta el mismo estado.
+     */
+    private static final class Datos {
+        private char[] altos = new char[2];
+        private Contenedor[] contenedores = new Contenedor[2];
+        private int cantidad;
+        private int tamano;
+
+        private int buscarContenedor(char alto) {
+            return Arrays.binarySearch(altos, 0, cantidad, alto);
+        }
+
+        private void insertarContenedor(int posicion, char alto, Contenedor contenedor) {
+            if (cantidad == altos.length) {
+                altos = Arrays.copyOf(altos, cantidad * 2);
+                contenedores = Arrays.copyOf(contenedores, cantidad * 2);
+            }
+            System.arraycopy(altos, posicion, altos, posicion + 1, cantidad - posicion);
+            System.arraycopy(contenedores, posicion, contenedores, posicion + 1, cantidad - posicion);
+            altos[posicion] = alto;
+            contenedores[posicion] = contenedor;
+            cantidad++;
+        }
+
+        private void quitarContenedor(int posicion) {
+            System.arraycopy(altos, posicion + 1, altos, posicion, cantidad - posicion - 1);
+            System.arraycopy(contenedores, posicion + 1, contenedores, posicion, cantidad - posicion - 1);
+            cantidad--;
+            contenedores[cantidad] = null;
+        }
+
+        /** Agrega al final un contenedor con clave mayor a las existentes; ignora los vacios */
+        private void anexar(char alto, Contenedor contenedor) {
+            if (contenedor.cardinalidad() == 0) {
+                return;
+            }
+            insertarContenedor(cantidad, alto, contenedor);
+            tamano += contenedor.cardinalidad();
+        }
+
+        private Datos copiar() {
+            Datos copia = new Datos();
+            copia.altos = Arrays.copyOf(altos, Math.max(2, cantidad));
+            copia.contenedores = new Contenedor[copia.altos.length];
+            for (int i = 0; i < cantidad; i++) {
+                copia.contenedores[i] = contenedores[i].copiar();
+            }
+            copia.cantidad = cantidad;
+            copia.tamano = tamano;
+            return copia;
+        }
+    }
+
+    // ============== CONTENEDORES ==============
+
+    /**
+     * Valores de 16 bits con los mismos bits altos. Las operaciones que
+     * pueden cambiar la representacion devuelven el contenedor resultante.
+     */
+    private abstract static class Contenedor {
+        abstract int cardinalidad();
+
+        abstract boolean contiene(char valor);
+
+        abstract Contenedor agregar(char valor);
+
+        abstract Contenedor eliminar(char valor);
+
+        abstract void recorrer(int base, IntConsumer accion);
+
+        abstract Contenedor copiar();
+
+        abstract Contenedor interseccion(Contenedor otro);
+
+        abstract Contenedor union(Contenedor otro);
+
+        abstract Contenedor diferencia(Contenedor otro);
+
+        abstract int contarInterseccion(Contenedor otro);
+    }
+
+    /** Arreglo ordenado de hasta LIMITE_ARREGLO valores */
+    private static final class ContenedorArreglo extends Contenedor {
+        private char[] valores;
+        private int cantidad;
+
+        ContenedorArreglo() {
+            this(new char[4], 0);
+        }
+
+        ContenedorArreglo(char[] valores, int cantidad) {
+            this.valores = valores;
+            this.cantidad = cantidad;
+        }
+
+        @Override
+        int cardinalidad() {
+            return cantidad;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return Arrays.binarySearch(valores, 0, cantidad, valor) >= 0;
+        }
+
+        @Override
+        Contenedor agregar(char valor) {
+            int posicion = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (posicion >= 0) {
+                return this;
+            }
+            if (cantidad >= LIMITE_ARREGLO) {
+                return aBits().agregar(valor);
+            }
+            posicion = -posicion - 1;
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(LIMITE_ARREGLO, cantidad * 2));
+            }
+            System.arraycopy(valores, posicion, valores, posicion + 1, cantidad - posicion);
+            valores[posicion] = valor;
+            cantidad++;
+            return this;
+        }
+
+        @Override
+        Contenedor eliminar(char valor) {
+            int posicion = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (posicion >= 0) {
+                System.arraycopy(valores, posicion + 1, valores, posicion, cantidad - posicion - 1);
+                cantidad--;
+            }
+            return this;
+        }
+
+        @Override
+        void recorrer(int base, IntConsumer accion) {
+            for (int i = 0; i < cantidad; i++) {
+                accion.accept(base | valores[i]);
+            }
+        }
+
+        @Override
+        Contenedor copiar() {
+            return new ContenedorArreglo(Arrays.copyOf(valores, Math.max(1, cantidad)), cantidad);
+        }
+
+        @Override
+        Contenedor interseccion(Contenedor otro) {
+            char[] resultado = new char[cantidad];
+            int n = 0;
+            if (otro instanceof ContenedorBits) {
+                for (int i = 0; i < cantidad; i++) {
+                    if (otro.contiene(valores[i])) {
+                        resultado[n++] = valores[i];
+                    }
+                }
+            } else {
+                ContenedorArreglo b = (ContenedorArreglo) otro;
+                int i = 0;
+                int j = 0;
+                while (i < cantidad && j < b.cantidad) {
+                    if (valores[i] < b.valores[j]) {
+                        i++;
+                    } else if (valores[i] > b.valores[j]) {
+                        j++;
+                    } else {
+                        resultado[n++] = valores[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new ContenedorArreglo(resultado, n);
+        }
+
+        @Override
+        Contenedor union(Contenedor otro) {
+            if (otro instanceof ContenedorBits) {
+                return otro.union(this);
+            }
+            ContenedorArreglo b = (ContenedorArreglo) otro;
+            char[] resultado = new char[cantidad + b.cantidad];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cantidad || j < b.cantidad) {
+                if (j >= b.cantidad || (i < cantidad && valores[i] < b.valores[j])) {
+                    resultado[n++] = valores[i++];
+                } else if (i >= cantidad || valores[i] > b.valores[j]) {
+                    resultado[n++] = b.valores[j++];
+                } else {
+                    resultado[n++] = valores[i];
+                    i++;
+                    j++;
+                }
+            }
+            ContenedorArreglo union = new ContenedorArreglo(resultado, n);
+            return n > LIMITE_ARREGLO ? union.aBits() : union;
+        }
+
+        @Override
+        Contenedor diferencia(Contenedor otro) {
+            char[] resultado = new char[cantidad];
+            int n = 0;
+            if (otro instanceof ContenedorBits) {
+                for (int i = 0; i < cantidad; i++) {
+                    if (!otro.contiene(valores[i])) {
+                        resultado[n++] = valores[i];
+                    }
+                }
+            } else {
+                ContenedorArreglo b = (ContenedorArreglo) otro;
+                int j = 0;
+                for (int i = 0; i < cantidad; i++) {
+                    while (j < b.cantidad && b.valores[j] < valores[i]) {
+                        j++;
+                    }
+                    if (j >= b.cantidad || b.valores[j] != valores[i]) {
+                        resultado[n++] = valores[i];
+                    }
+                }
+            }
+            return new ContenedorArreglo(resultado, n);
+        }
+
+        @Override
+        int contarInterseccion(Contenedor otro) {
+            if (otro instanceof ContenedorBits) {
+                int total = 0;
+                for (int i = 0; i < cantidad; i++) {
+                    if (otro.contiene(valores[i])) {
+                        total++;
+                    }
+                }
+                return total;
+            }
+            return interseccion(otro).cardinalidad();
+        }
+
+        ContenedorBits aBits() {
+            long[] palabras = new long[PALABRAS];
+            for (int i = 0; i < cantidad; i++) {
+                palabras[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            return new ContenedorBits(palabras, cantidad);
+        }
+    }
+
+    /** Mapa de 65536 bits, para contenedores con mas de LIMITE_ARREGLO valores */
+    private static final class ContenedorBits extends Contenedor {
+        private final long[] palabras;
+        private int cantidad;
+
+        ContenedorBits(long[] palabras, int cantidad) {
+            this.palabras = palabras;
+            this.cantidad = cantidad;
+        }
+
+        @Override
+        int cardinalidad() {
+            return cantidad;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return (palabras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        Contenedor agregar(char valor) {
+            long antes = palabras[valor >>> 6];
+            long despues = antes | (1L << valor);
+            if (antes != despues) {
+                palabras[valor >>> 6] = despues;
+                cantidad++;
+            }
+            return this;
+        }
+
+        @Override
+        Contenedor eliminar(char valor) {
+            long antes = palabras[valor >>> 6];
+            long despues = antes & ~(1L << valor);
+            if (antes != despues) {
+                palabras[valor >>> 6] = despues;
+                cantidad--;
+            }
+            return cantidad <= LIMITE_ARREGLO ? aArreglo() : this;
+        }
+
+        @Override
+        void recorrer(int base, IntConsumer accion) {
+            for (int i = 0; i < PALABRAS; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    accion.accept(base | (i << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+        }
+
+        @Override
+        Contenedor copiar() {
+            return new ContenedorBits(palabras.clone(), cantidad);
+        }
+
+        @Override
+        Contenedor interseccion(Contenedor otro) {
+            if (otro instanceof ContenedorArreglo) {
+                return otro.interseccion(this);
+            }
+            long[] b = ((ContenedorBits) otro).palabras;
+            long[] resultado = new long[PALABRAS];
+            int n = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                resultado[i] = palabras[i] & b[i];
+                n += Long.bitCount(resultado[i]);
+            }
+            return compactar(resultado, n);
+        }
+
+        @Override
+        Contenedor union(Contenedor otro) {
+            long[] resultado = palabras.clone();
+            int n = cantidad;
+            if (otro instanceof ContenedorArreglo) {
+                ContenedorArreglo b = (ContenedorArreglo) otro;
+                for (int i = 0; i < b.cantidad; i++) {
+                    char valor = b.valores[i];
+                    long antes = resultado[valor >>> 6];
+                    resultado[valor >>> 6] = antes | (1L << valor);
+                    if (antes != resultado[valor >>> 6]) {
+                        n++;
+                    }
+                }
+            } else {
+                long[] b = ((ContenedorBits) otro).palabras;
+                n = 0;
+                for (int i = 0; i < PALABRAS; i++) {
+                    resultado[i] |= b[i];
+                    n += Long.bitCount(resultado[i]);
+                }
+            }
+            return new ContenedorBits(resultado, n);
+        }
+
+        @Override
+        Contenedor diferencia(Contenedor otro) {
+            long[] resultado = palabras.clone();
+            int n = cantidad;
+            if (otro instanceof ContenedorArreglo) {
+                ContenedorArreglo b = (ContenedorArreglo) otro;
+                for (int i = 0; i < b.cantidad; i++) {
+                    char valor = b.valores[i];
+                    long antes = resultado[valor >>> 6];
+                    resultado[valor >>> 6] = antes & ~(1L << valor);
+                    if (antes != resultado[valor >>> 6]) {
+                        n--;
+                    }
+                }
+            } else {
+                long[] b = ((ContenedorBits) otro).palabras;
+                n = 0;
+                for (int i = 0; i < PALABRAS; i++) {
+                    resultado[i] &= ~b[i];
+                    n += Long.bitCount(resultado[i]);
+                }
+            }
+            return compactar(resultado, n);
+        }
+
+        @Override
+        int contarInterseccion(Contenedor otro) {
+            if (otro instanceof ContenedorArreglo) {
+                return otro.contarInterseccion(this);
+            }
+            long[] b = ((ContenedorBits) otro).palabras;
+            int n = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                n += Long.bitCount(palabras[i] & b[i]);
+            }
+            return n;
+        }
+
+        private static Contenedor compactar(long[] palabras, int n) {
+            ContenedorBits bits = new ContenedorBits(palabras, n);
+            return n <= LIMITE_ARREGLO ? bits.aArreglo() : bits;
+        }
+
+        ContenedorArreglo aArreglo() {
+            char[] valores = new char[Math.max(1, cantidad)];
+            int[] n = {0};
+            recorrer(0, valor -> valores[n[0]++] = (char) valor);
+            return new ContenedorArreglo(valores, cantidad);
+        }
+    }
+}
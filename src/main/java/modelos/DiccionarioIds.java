@@ -0,0 +1,155 @@
+/**
+ * DiccionarioIds - Asigna a cada ID externo ("EVT...", "USR...") un entero
+ * denso (0, 1, 2...) valido durante la ejecucion.
+ *
+ * Las relaciones del modelo (inscripciones, eventos creados, evento y
+ * participante de un ticket o pago) guardan ese entero en lugar del texto:
+ * 4 bytes por relacion en vez de un String propio de ~60 bytes, y cada ID
+ * se guarda una sola vez. Los archivos siguen guardando el texto; los
+ * enteros se asignan al cargar y no se persisten.
+ *
+ * Es seguro para varios hilos: buscar una clave existente no bloquea.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+package modelos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class DiccionarioIds {
+
+    /** Clave que representa un ID nulo */
+    public static final int SIN_CLAVE = -1;
+
+    private static final ConcurrentHashMap<String, Integer> claves = new ConcurrentHashMap<>();
+
+    /** Texto de cada clave; se reemplaza por una copia mas grande al crecer */
+    private static volatile String[] ids = new String[1024];
+    private static int cantidad;
+
+    private DiccionarioIds() {
+    }
+
+    /**
+     * Obtiene la clave de un ID, asignando una nueva si no existe
+     *
+     * @param id ID externo
+     * @return Clave entera, o SIN_CLAVE si el ID es null
+     */
+    public static int clave(String id) {
+        if (id == null) {
+            return SIN_CLAVE;
+        }
+        Integer clave = claves.get(id);
+        if (clave != null) {
+            return clave;
+        }
+        synchronized (DiccionarioIds.class) {
+            clave = claves.get(id);
+            if (clave != null) {
+                return clave;
+            }
+            String[] actuales = ids;
+            if (cantidad == actuales.length) {
+                actuales = Arrays.copyOf(actuales, actuales.length * 2);
+            }
+            actuales[cantidad] = id;
+            ids = actuales;
+            int nueva = cantidad++;
+            claves.put(id, nueva);
+            return nueva;
+        }
+    }
+
+    /**
+     * Obtiene la clave de un ID sin asignarla
+     *
+     * @param id ID externo
+     * @return Clave entera, o SIN_CLAVE si el ID nunca se registro
+     */
+    public static int buscar(String id) {
+        if (id == null) {
+            return SIN_CLAVE;
+        }
+        Integer clave = claves.get(id);
+        return clave == null ? SIN_CLAVE : clave;
+    }
+
+    /**
+     * Obtiene el ID de una clave
+     *
+     * @param clave Clave entera
+     * @return ID externo, o null para SIN_CLAVE
+     */
+    public static String id(int clave) {
+        return clave == SIN_CLAVE ? null : ids[clave];
+    }
+
+    /**
+     * Convierte una lista de claves en la lista de sus IDs
+     *
+     * @param lista Claves
+     * @return Lista nueva con los IDs, en el mismo orden
+     */
+    public static ArrayList<String> ids(ListaEnteros lista) {
+        ArrayList<String> resultado = new ArrayList<>(lista.tamano());
+        for (int i = 0; i < lista.tamano(); i++) {
+            resultado.add(id(lista.obtener(i)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Convierte una lista de IDs en una lista de claves
+     *
+     * @param lista IDs externos
+     * @return Lista nueva con las claves, en el mismo orden
+     */
+    public static ListaEnteros claves(Iterable<String> lista) {
+        ListaEnteros resultado = new ListaEnteros();
+        for (String id : lista) {
+            resultado.agregar(clave(id));
+        }
+        return resultado;
+    }
+
+    /**
+     * Convierte un conjunto de claves en la lista de sus IDs
+     *
+     * @param conjunto Claves
+     * @return Lista nueva con los IDs, en orden ascendente de clave
+     */
+    public static ArrayList<String> ids(ConjuntoBits conjunto) {
+        ArrayList<String> resultado = new ArrayList<>(conjunto.tamano());
+        conjunto.recorrer(clave -> resultado.add(id(clave)));
+        return resultado;
+    }
+
+    /**
+     * Convierte una lista de IDs en un conjunto de claves
+     *
+     * @param lista IDs externos
+     * @return Conjunto nuevo con las claves
+     */
+    public static ConjuntoBits conjunto(Iterable<String> lista) {
+        ConjuntoBits resultado = new ConjuntoBits();
+        for (String id : lista) {
+            if (id != null) {
+                resultado.agregar(clave(id));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de IDs registrados
+     *
+     * @return Tamaño del diccionario
+     */
+    public static int tamano() {
+        return claves.size();
+    }
+}
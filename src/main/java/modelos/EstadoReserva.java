@@ -0,0 +1,36 @@
+/**
+ * EstadoReserva - Enum que define los estados de una reserva de cupo
+ * 
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+package modelos;
+
+public enum EstadoReserva {
+    ACTIVA("Activa", "Cupo apartado"),
+    CONFIRMANDO("Confirmando", "Pago en proceso"),
+    CONFIRMADA("Confirmada", "Ticket comprado"),
+    LIBERADA("Liberada", "Cupo devuelto"),
+    EXPIRADA("Expirada", "Tiempo agotado");
+    
+    private final String nombre;
+    private final String descripcion;
+    
+    EstadoReserva(String nombre, String descripcion) {
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    @Override
+    public String toString() {
+        return nombre + " - " + descripcion;
+    }
+}
@@ -1,22 +1,67 @@
 /**
  * Evento - Representa un evento del sistema Event Planner.
  * Gestiona registros, asistencia, capacidad y agenda.
+ * El organizador y los participantes se guardan como claves de DiccionarioIds;
+ * los participantes registrados y asistentes, en conjuntos ConjuntoBits.
+ * 
+ * Los cupos ocupados (registrados mas reservas en curso) se llevan en un
+ * contador atomico: reservarCupo() toma un cupo con compareAndSet sin
+ * bloquear, asi que nunca se supera la capacidad aunque muchos hilos
+ * compren a la vez, y cada evento tiene su propio contador. Los cambios a
+ * los conjuntos de participantes se sincronizan sobre el evento.
+ * 
+ * Ademas los conjuntos se protegen con un bloqueo interno que nunca se
+ * mantiene mientras se llama a otro codigo. Las consultas (y el codec que
+ * guarda el evento) solo toman ese bloqueo, no el monitor del evento:
+ * MotorCompras confirma en los repositorios sincronizado sobre el evento,
+ * y un repositorio que guarda el evento mientras tiene su propio bloqueo
+ * no debe esperar ese monitor, o los dos hilos se esperarian entre si.
+ * Las reservas con vencimiento de GestorReservas usan el mismo contador,
+ * asi que los cupos disponibles ya descuentan las reservas abiertas.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.1
+ * @version 1.9
  */
 package modelos;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Evento implements Serializable {
     
+    /** Mismo valor que el calculado por la JVM, para leer archivos antiguos */
+    private static final long serialVersionUID = -6881077677577502999L;
+    
+    /** Campos del formato serializado antiguo, con los IDs como texto */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("id", String.class),
+        new ObjectStreamField("nombre", String.class),
+        new ObjectStreamField("descripcion", String.class),
+        new ObjectStreamField("tipo", TipoEvento.class),
+        new ObjectStreamField("fechaInicio", LocalDateTime.class),
+        new ObjectStreamField("fechaFin", LocalDateTime.class),
+        new ObjectStreamField("ubicacion", String.class),
+        new ObjectStreamField("capacidadMaxima", int.class),
+        new ObjectStreamField("estado", EstadoEvento.class),
+        new ObjectStreamField("organizadorId", String.class),
+        new ObjectStreamField("participantesRegistrados", ArrayList.class),
+        new ObjectStreamField("participantesAsistentes", ArrayList.class),
+        new ObjectStreamField("agenda", ArrayList.class)
+    };
+    
+    // Los campos inmutables no son final solo para que readObject pueda asignarlos
+    
     /** ID único del evento (inmutable) */
-    private final String id;
+    private String id;
     
     /** Nombre del evento */
     private String nombre;
@@ -25,7 +70,7 @@ public class Evento implements Serializable {
     private String descripcion;
     
     /** Tipo de evento - determina capacidad sugerida (inmutable) */
-    private final TipoEvento tipo;
+    private TipoEvento tipo;
     
     /** Fecha de inicio del evento */
     private LocalDateTime fechaInicio;
@@ -37,22 +82,28 @@ public class Evento implements Serializable {
     private String ubicacion;
     
     /** Capacidad máxima de participantes (inmutable) */
-    private final int capacidadMaxima;
+    private int capacidadMaxima;
     
     /** Estado actual del evento (mutable) */
     private EstadoEvento estado;
     
-    /** ID del organizador responsable (inmutable) */
-    private final String organizadorId;
+    /** Clave del organizador responsable (inmutable) */
+    private int organizadorClave;
     
-    /** Lista de IDs de participantes registrados */
-    private final ArrayList<String> participantesRegistrados;
+    /** Claves de los participantes registrados */
+    private ConjuntoBits participantesRegistrados;
     
-    /** Lista de IDs de participantes que hicieron check-in */
-    private final ArrayList<String> participantesAsistentes;
+    /** Claves de los participantes que hicieron check-in */
+    private ConjuntoBits participantesAsistentes;
     
     /** Items de la agenda del evento */
-    private final ArrayList<String> agenda;
+    private ArrayList<String> agenda;
+    
+    /** Registrados mas reservas en curso; no se persiste */
+    private AtomicInteger cuposOcupados;
+
+    /** Protege los conjuntos de participantes; no se persiste */
+    private Object bloqueoConjuntos;
 
     /**
      * Constructor del Evento.
@@ -77,10 +128,52 @@ public class Evento implements Serializable {
         this.ubicacion = ubicacion;
         this.capacidadMaxima = capacidadMaxima;  // Usa el parámetro, no tipo.getCapacidadSugerida()
         this.estado = EstadoEvento.BORRADOR;
-        this.organizadorId = organizadorId.getId();
-        this.participantesRegistrados = new ArrayList<>();
-        this.participantesAsistentes = new ArrayList<>();
+        this.organizadorClave = DiccionarioIds.clave(organizadorId.getId());
+        this.participantesRegistrados = new ConjuntoBits();
+        this.participantesAsistentes = new ConjuntoBits();
         this.agenda = new ArrayList<>();
+        this.cuposOcupados = new AtomicInteger();
+        this.bloqueoConjuntos = new Object();
+    }
+
+    /**
+     * Constructor para reconstruir un evento existente (al cargar de archivo).
+     * No genera ID ni valida: respeta los valores guardados.
+     * 
+     * @param id ID original del evento
+     * @param nombre Nombre
+     * @param descripcion Descripción
+     * @param tipo Tipo de evento
+     * @param fechaInicio Fecha de inicio
+     * @param fechaFin Fecha de fin
+     * @param ubicacion Ubicación
+     * @param capacidadMaxima Capacidad máxima
+     * @param estado Estado guardado
+     * @param organizadorId ID del organizador
+     * @param participantesRegistrados IDs de participantes registrados
+     * @param participantesAsistentes IDs de participantes con check-in
+     * @param agenda Items de agenda
+     */
+    public Evento(String id, String nombre, String descripcion, TipoEvento tipo,
+                  LocalDateTime fechaInicio, LocalDateTime fechaFin, String ubicacion,
+                  int capacidadMaxima, EstadoEvento estado, String organizadorId,
+                  List<String> participantesRegistrados, List<String> participantesAsistentes,
+                  List<String> agenda) {
+        this.id = id;
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.tipo = tipo;
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.ubicacion = ubicacion;
+        this.capacidadMaxima = capacidadMaxima;
+        this.estado = estado;
+        this.organizadorClave = DiccionarioIds.clave(organizadorId);
+        this.participantesRegistrados = DiccionarioIds.conjunto(participantesRegistrados);
+        this.participantesAsistentes = DiccionarioIds.conjunto(participantesAsistentes);
+        this.agenda = new ArrayList<>(agenda);
+        this.cuposOcupados = new AtomicInteger(this.participantesRegistrados.tamano());
+        this.bloqueoConjuntos = new Object();
     }
 
     /**
@@ -90,25 +183,134 @@ public class Evento implements Serializable {
      * @param participanteId ID del participante a registrar
      * @return true si se registró exitosamente, false si falló alguna validación
      */
-    public boolean registrarParticipante(String participanteId) {
+    public synchronized boolean registrarParticipante(String participanteId) {
         if (participanteId == null || participanteId.trim().isEmpty()) {
             return false;
         }
-        
-        if (participantesRegistrados.contains(participanteId)) {
+
+        if (estado == EstadoEvento.CANCELADO || estado == EstadoEvento.FINALIZADO) {
             return false;
         }
-        
-        if (participantesRegistrados.size() >= capacidadMaxima) {
-            return false;
+
+        int clave = DiccionarioIds.clave(participanteId);
+        synchronized (bloqueoConjuntos) {
+            if (participantesRegistrados.contiene(clave) || !reservarCupo()) {
+                return false;
+            }
+            participantesRegistrados.agregar(clave);
+        }
+        return true;
+    }
+
+    /**
+     * Toma un cupo sin registrar a nadie todavia. Es atomico y no bloquea:
+     * si dos hilos piden el ultimo cupo, solo uno lo obtiene.
+     * El cupo se usa con confirmarReserva() o se devuelve con liberarCupo().
+     * 
+     * @return true si habia cupo
+     */
+    public boolean reservarCupo() {
+        while (true) {
+            int ocupados = cuposOcupados.get();
+            if (ocupados >= capacidadMaxima) {
+                return false;
+            }
+            if (cuposOcupados.compareAndSet(ocupados, ocupados + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Toma varios cupos de una vez, hasta los que queden libres.
+     * Es atomico como reservarCupo().
+     * 
+     * @param cantidad Cupos pedidos
+     * @return Cupos obtenidos (entre 0 y cantidad)
+     */
+    public int reservarCupos(int cantidad) {
+        if (cantidad <= 0) {
+            return 0;
         }
+        while (true) {
+            int ocupados = cuposOcupados.get();
+            int obtenidos = Math.min(cantidad, capacidadMaxima - ocupados);
+            if (obtenidos <= 0) {
+                return 0;
+            }
+            if (cuposOcupados.compareAndSet(ocupados, ocupados + obtenidos)) {
+                return obtenidos;
+            }
+        }
+    }
+
+    /**
+     * Devuelve un cupo reservado que no se va a usar.
+     */
+    public void liberarCupo() {
+        cuposOcupados.decrementAndGet();
+    }
+
+    /**
+     * Devuelve varios cupos reservados que no se van a usar.
+     * 
+     * @param cantidad Cupos a devolver
+     */
+    public void liberarCupos(int cantidad) {
+        if (cantidad > 0) {
+            cuposOcupados.addAndGet(-cantidad);
+        }
+    }
 
+    /**
+     * Registra a un participante usando un cupo ya reservado.
+     * Si devuelve false el cupo sigue reservado y el llamador debe liberarlo.
+     * 
+     * @param participanteId ID del participante
+     * @return true si se registro; false si ya estaba registrado o el
+     *         evento no admite inscripciones
+     */
+    public synchronized boolean confirmarReserva(String participanteId) {
+        if (participanteId == null || participanteId.trim().isEmpty()) {
+            return false;
+        }
         if (estado == EstadoEvento.CANCELADO || estado == EstadoEvento.FINALIZADO) {
             return false;
         }
+        int clave = DiccionarioIds.clave(participanteId);
+        synchronized (bloqueoConjuntos) {
+            return participantesRegistrados.agregar(clave);
+        }
+    }
 
-        participantesRegistrados.add(participanteId);
-        return true;
+    /**
+     * Deshace confirmarReserva: quita al participante pero deja el cupo
+     * reservado, para que el llamador lo libere.
+     * 
+     * @param participanteId ID del participante
+     * @return true si estaba registrado
+     */
+    public synchronized boolean deshacerReserva(String participanteId) {
+        int clave = DiccionarioIds.buscar(participanteId);
+        if (clave == DiccionarioIds.SIN_CLAVE) {
+            return false;
+        }
+        synchronized (bloqueoConjuntos) {
+            participantesAsistentes.eliminar(clave);
+            return participantesRegistrados.eliminar(clave);
+        }
+    }
+
+    /**
+     * Cupos reservados que todavia no son inscripciones
+     * (reservas abiertas y compras en proceso de pago)
+     * 
+     * @return Reservas en curso
+     */
+    public int getCuposReservados() {
+        synchronized (bloqueoConjuntos) {
+            return cuposOcupados.get() - participantesRegistrados.tamano();
+        }
     }
 
     /**
@@ -119,23 +321,95 @@ public class Evento implements Serializable {
      * @param participanteId ID del participante
      * @return true si hizo check-in exitosamente, false si falló
      */
-    public boolean realizarCheckIn(String participanteId) {
-        if (!participantesRegistrados.contains(participanteId)) {
+    public synchronized boolean realizarCheckIn(String participanteId) {
+        int clave = DiccionarioIds.buscar(participanteId);
+        if (clave == DiccionarioIds.SIN_CLAVE) {
             return false;
         }
 
-        if (participantesAsistentes.contains(participanteId)) {
+        if (estado != EstadoEvento.EN_CURSO && estado != EstadoEvento.PUBLICADO) {
             return false;
         }
 
-        if (estado != EstadoEvento.EN_CURSO && estado != EstadoEvento.PUBLICADO) {
-            return false;
+        synchronized (bloqueoConjuntos) {
+            if (!participantesRegistrados.contiene(clave)) {
+                return false;
+            }
+            // agregar devuelve false si ya hizo check-in
+            return participantesAsistentes.agregar(clave);
         }
+    }
 
-        participantesAsistentes.add(participanteId);
+    /**
+     * Cancela el registro de un participante (y su check-in, si lo hizo).
+     * 
+     * @param participanteId ID del participante
+     * @return true si estaba registrado
+     */
+    public synchronized boolean cancelarRegistro(String participanteId) {
+        int clave = DiccionarioIds.buscar(participanteId);
+        if (clave == DiccionarioIds.SIN_CLAVE) {
+            return false;
+        }
+        synchronized (bloqueoConjuntos) {
+            participantesAsistentes.eliminar(clave);
+            if (!participantesRegistrados.eliminar(clave)) {
+                return false;
+            }
+            cuposOcupados.decrementAndGet();
+        }
         return true;
     }
 
+    /**
+     * Indica si un participante esta registrado, sin copiar la lista.
+     * 
+     * @param participanteId ID del participante
+     * @return true si esta registrado
+     */
+    public boolean estaRegistrado(String participanteId) {
+        int clave = DiccionarioIds.buscar(participanteId);
+        synchronized (bloqueoConjuntos) {
+            return participantesRegistrados.contiene(clave);
+        }
+    }
+
+    /**
+     * Indica si un participante hizo check-in, sin copiar la lista.
+     * 
+     * @param participanteId ID del participante
+     * @return true si asistio
+     */
+    public boolean asistio(String participanteId) {
+        int clave = DiccionarioIds.buscar(participanteId);
+        synchronized (bloqueoConjuntos) {
+            return participantesAsistentes.contiene(clave);
+        }
+    }
+
+    public int contarRegistrados() {
+        synchronized (bloqueoConjuntos) {
+            return participantesRegistrados.tamano();
+        }
+    }
+
+    public int contarAsistentes() {
+        synchronized (bloqueoConjuntos) {
+            return participantesAsistentes.tamano();
+        }
+    }
+
+    /**
+     * Claves de los participantes registrados que no hicieron check-in.
+     * 
+     * @return Conjunto nuevo
+     */
+    public ConjuntoBits obtenerAusentes() {
+        synchronized (bloqueoConjuntos) {
+            return participantesRegistrados.diferencia(participantesAsistentes);
+        }
+    }
+
     /**
      * Agrega un ítem a la agenda del evento.
      * 
@@ -153,38 +427,42 @@ public class Evento implements Serializable {
      * @return Porcentaje de asistencia (0-100)
      */
     public double calcularPorcentajeAsistencia() {
-        if (participantesRegistrados.isEmpty()) {
-            return 0.0;
+        synchronized (bloqueoConjuntos) {
+            if (participantesRegistrados.estaVacio()) {
+                return 0.0;
+            }
+
+            return (double) participantesAsistentes.tamano() / participantesRegistrados.tamano() * 100;
         }
-        
-        return (double) participantesAsistentes.size() / participantesRegistrados.size() * 100;
     }
     
     /**
      * Verifica si el evento tiene cupo disponible.
+     * Los cupos reservados cuentan como ocupados.
      * 
      * @return true si hay espacio, false si está lleno
      */
     public boolean tieneCupoDisponible() {
-        return participantesRegistrados.size() < capacidadMaxima;
+        return cuposOcupados.get() < capacidadMaxima;
     }
 
     /**
      * Obtiene la cantidad de cupos disponibles.
+     * Los cupos reservados cuentan como ocupados.
      * 
      * @return Número de espacios libres
      */
     public int getCuposDisponibles() {
-        return capacidadMaxima - participantesRegistrados.size();
+        return Math.max(0, capacidadMaxima - cuposOcupados.get());
     }
 
     /**
-     * Genera un ID único para el evento usando timestamp.
+     * Genera un ID único para el evento, ordenado por fecha de creación.
      * 
-     * @return ID en formato "EVT" + timestamp
+     * @return ID en formato "EVT" + 19 digitos (ver GeneradorIds)
      */
     private String generarId() {
-        return "EVT" + System.currentTimeMillis();
+        return GeneradorIds.generar("EVT");
     }
     
     // ============== GETTERS Y SETTERS ==============
@@ -274,20 +552,47 @@ public class Evento implements Serializable {
     }
 
     public String getOrganizadorId() {
-        return organizadorId;
+        return DiccionarioIds.id(organizadorClave);
     }
 
     /**
      * Retorna copia de la lista para proteger encapsulación.
+     * Para contar o consultar usar contarRegistrados/estaRegistrado.
      * 
      * @return ArrayList con copia de los IDs de participantes registrados
      */
     public ArrayList<String> getParticipantesRegistrados() {
-        return new ArrayList<>(participantesRegistrados);
+        synchronized (bloqueoConjuntos) {
+            return DiccionarioIds.ids(participantesRegistrados);
+        }
     }
 
     public ArrayList<String> getParticipantesAsistentes() {
-        return new ArrayList<>(participantesAsistentes);
+        synchronized (bloqueoConjuntos) {
+            return DiccionarioIds.ids(participantesAsistentes);
+        }
+    }
+
+    /**
+     * Claves de los participantes registrados, para algebra de conjuntos.
+     * 
+     * @return Copia tomada bajo el bloqueo de los conjuntos
+     */
+    public ConjuntoBits getRegistrados() {
+        synchronized (bloqueoConjuntos) {
+            return new ConjuntoBits(participantesRegistrados);
+        }
+    }
+
+    /**
+     * Claves de los participantes con check-in, para algebra de conjuntos.
+     * 
+     * @return Copia tomada bajo el bloqueo de los conjuntos
+     */
+    public ConjuntoBits getAsistentes() {
+        synchronized (bloqueoConjuntos) {
+            return new ConjuntoBits(participantesAsistentes);
+        }
     }
 
     public ArrayList<String> getAgenda() {
@@ -350,9 +655,10 @@ public class Evento implements Serializable {
         resumen.append("                        ESTADÍSTICAS                       \n");
         resumen.append("====================================================================\n");
         resumen.append(" Capacidad: ").append(String.format("%-43s", capacidadMaxima + " personas")).append(" \n");
-        resumen.append(" Registrados: ").append(String.format("%-41s", participantesRegistrados.size() + " personas")).append(" \n");
-        resumen.append(" Asistentes: ").append(String.format("%-42s", participantesAsistentes.size() + " personas")).append(" \n");
+        resumen.append(" Registrados: ").append(String.format("%-41s", contarRegistrados() + " personas")).append(" \n");
+        resumen.append(" Asistentes: ").append(String.format("%-42s", contarAsistentes() + " personas")).append(" \n");
         resumen.append(" Cupos libres: ").append(String.format("%-40s", getCuposDisponibles() + " espacios")).append(" \n");
+        resumen.append(" Reservados: ").append(String.format("%-42s", getCuposReservados() + " espacios")).append(" \n");
         resumen.append(" % Asistencia: ").append(String.format("%-40s", String.format("%.1f%%", calcularPorcentajeAsistencia()))).append(" \n");
         resumen.append("====================================================================\n");
         
@@ -363,4 +669,46 @@ public class Evento implements Serializable {
     public String toString() {
         return generarResumen();
     }
+    
+    // ============== SERIALIZACION ANTIGUA ==============
+    
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = entrada.readFields();
+        id = (String) campos.get("id", null);
+        nombre = (String) campos.get("nombre", null);
+        descripcion = (String) campos.get("descripcion", null);
+        tipo = (TipoEvento) campos.get("tipo", null);
+        fechaInicio = (LocalDateTime) campos.get("fechaInicio", null);
+        fechaFin = (LocalDateTime) campos.get("fechaFin", null);
+        ubicacion = (String) campos.get("ubicacion", null);
+        capacidadMaxima = campos.get("capacidadMaxima", 0);
+        estado = (EstadoEvento) campos.get("estado", null);
+        organizadorClave = DiccionarioIds.clave((String) campos.get("organizadorId", null));
+        participantesRegistrados = DiccionarioIds.conjunto(
+                (ArrayList<String>) campos.get("participantesRegistrados", new ArrayList<String>()));
+        participantesAsistentes = DiccionarioIds.conjunto(
+                (ArrayList<String>) campos.get("participantesAsistentes", new ArrayList<String>()));
+        agenda = (ArrayList<String>) campos.get("agenda", new ArrayList<String>());
+        cuposOcupados = new AtomicInteger(participantesRegistrados.tamano());
+        bloqueoConjuntos = new Object();
+    }
+    
+    private void writeObject(ObjectOutputStream salida) throws IOException {
+        ObjectOutputStream.PutField campos = salida.putFields();
+        campos.put("id", id);
+        campos.put("nombre", nombre);
+        campos.put("descripcion", descripcion);
+        campos.put("tipo", tipo);
+        campos.put("fechaInicio", fechaInicio);
+        campos.put("fechaFin", fechaFin);
+        campos.put("ubicacion", ubicacion);
+        campos.put("capacidadMaxima", capacidadMaxima);
+        campos.put("estado", estado);
+        campos.put("organizadorId", getOrganizadorId());
+        campos.put("participantesRegistrados", getParticipantesRegistrados());
+        campos.put("participantesAsistentes", getParticipantesAsistentes());
+        campos.put("agenda", agenda);
+        salida.writeFields();
+    }
 }
\ No newline at end of file
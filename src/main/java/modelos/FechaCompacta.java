@@ -0,0 +1,57 @@
+/**
+ * FechaCompacta - Guarda un LocalDateTime como un long de milisegundos,
+ * sin los tres objetos (LocalDateTime, LocalDate, LocalTime) que ocupa
+ * cada fecha en el heap.
+ *
+ * Usa la misma codificacion que los archivos binarios (EscritorBinario):
+ * la fecha local se toma como UTC, asi que la conversion es exacta y no
+ * depende de la zona horaria ni de los cambios de horario. Se conservan
+ * los milisegundos; las fracciones menores se descartan, igual que al
+ * guardar en archivo.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+package modelos;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+public final class FechaCompacta {
+
+    /** Valor que representa una fecha null (igual a EscritorBinario.FECHA_NULA) */
+    public static final long NULA = Long.MIN_VALUE;
+
+    private FechaCompacta() {
+    }
+
+    /**
+     * Convierte una fecha a milisegundos
+     *
+     * @param fecha Fecha (puede ser null)
+     * @return Milisegundos, o NULA
+     */
+    public static long aMilis(LocalDateTime fecha) {
+        return fecha == null ? NULA : fecha.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Convierte milisegundos a fecha
+     *
+     * @param milis Milisegundos o NULA
+     * @return Fecha, o null para NULA
+     */
+    public static LocalDateTime aFecha(long milis) {
+        return milis == NULA ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(milis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Fecha actual en milisegundos, sin crear un LocalDateTime
+     *
+     * @return Milisegundos de la fecha local actual
+     */
+    public static long ahora() {
+        return aMilis(LocalDateTime.now());
+    }
+}
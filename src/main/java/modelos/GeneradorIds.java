@@ -0,0 +1,176 @@
+/**
+ * GeneradorIds - Genera los IDs de todas las entidades ("EVT...", "TKT"...)
+ * sin colisiones, ordenados por tiempo y sin bloqueos.
+ *
+ * Cada ID es el prefijo seguido de 19 digitos:
+ * [13 digitos: milisegundos][2 digitos: nodo][4 digitos: secuencia]
+ * El valor numerico cabe en un long y crece siempre: dentro del mismo
+ * milisegundo avanza la secuencia, y si se agotan las 10000 del
+ * milisegundo se toma el siguiente milisegundo antes de que llegue.
+ * Como los milisegundos van al principio con ancho fijo, el orden
+ * alfabetico de los IDs es el orden de creacion, tambien frente a los
+ * IDs antiguos ("EVT" + milisegundos) que quedan antes de los nuevos del
+ * mismo milisegundo.
+ *
+ * El nodo (-Deventplanner.nodo, 0 a 99) distingue procesos que generan
+ * IDs a la vez. El estado es un AtomicLong que se avanza con
+ * compareAndSet, asi que varios hilos generan IDs sin esperarse.
+ *
+ * valorDe y texto convierten un ID en su valor numerico y de vuelta, para
+ * guardar como long los codigos generados (por ejemplo la referencia de
+ * un Pago).
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+package modelos;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class GeneradorIds {
+
+    /** Secuencias por milisegundo */
+    private static final int SECUENCIAS = 10000;
+
+    /** Nodos posibles */
+    private static final int NODOS = 100;
+
+    /** Digitos de milisegundos al inicio del ID */
+    private static final int DIGITOS_MILIS = 13;
+
+    /** Digitos despues del prefijo */
+    public static final int DIGITOS = 19;
+
+    private static final int NODO = leerNodo();
+
+    /** Ultimo valor entregado: milisegundos * SECUENCIAS + secuencia */
+    private static final AtomicLong ultimo = new AtomicLong();
+
+    private GeneradorIds() {
+    }
+
+    /**
+     * Genera un ID nuevo
+     *
+     * @param prefijo Prefijo del tipo de entidad ("EVT", "TKT", ...)
+     * @return Prefijo seguido de 19 digitos
+     */
+    public static String generar(String prefijo) {
+        return formatear(prefijo, siguienteValor());
+    }
+
+    /**
+     * Genera el valor numerico de un ID nuevo
+     *
+     * @return Valor unico y creciente
+     */
+    public static long siguienteValor() {
+        long ahora = System.currentTimeMillis() * SECUENCIAS;
+        long anterior;
+        long siguiente;
+        do {
+            anterior = ultimo.get();
+            siguiente = ahora > anterior ? ahora : anterior + 1;
+        } while (!ultimo.compareAndSet(anterior, siguiente));
+        long milis = siguiente / SECUENCIAS;
+        long secuencia = siguiente % SECUENCIAS;
+        return (milis * NODOS + NODO) * SECUENCIAS + secuencia;
+    }
+
+    /**
+     * Valor numerico de un ID generado con un prefijo
+     *
+     * @param prefijo Prefijo esperado
+     * @param id ID a convertir (puede ser null)
+     * @return Valor, o -1 si el ID no tiene el formato de GeneradorIds
+     */
+    public static long valorDe(String prefijo, String id) {
+        if (id == null || id.length() != prefijo.length() + DIGITOS || !id.startsWith(prefijo)) {
+            return -1;
+        }
+        long valor = 0;
+        for (int i = prefijo.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || valor > (Long.MAX_VALUE - (c - '0')) / 10) {
+                return -1;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+
+    /**
+     * Texto de un ID a partir de su valor numerico
+     *
+     * @param prefijo Prefijo del tipo de entidad
+     * @param valor Valor obtenido con siguienteValor o valorDe
+     * @return Prefijo seguido de 19 digitos
+     */
+    public static String texto(String prefijo, long valor) {
+        return formatear(prefijo, valor);
+    }
+
+    /**
+     * ID mas chico posible para un instante: todos los IDs generados desde
+     * ese milisegundo son mayores o iguales, y los anteriores son menores
+     *
+     * @param prefijo Prefijo del tipo de entidad
+     * @param milis Instante en milisegundos
+     * @return Limite para buscar por rango de IDs
+     */
+    public static String limiteInferior(String prefijo, long milis) {
+        return prefijo + String.format("%0" + DIGITOS_MILIS + "d", milis);
+    }
+
+    /**
+     * Milisegundos en los que se genero un ID (nuevo o antiguo)
+     *
+     * @param id ID con prefijo
+     * @return Milisegundos, o -1 si el ID no tiene ese formato
+     */
+    public static long milisDe(String id) {
+        int inicio = 0;
+        while (inicio < id.length() && !Character.isDigit(id.charAt(inicio))) {
+            inicio++;
+        }
+        if (id.length() - inicio < DIGITOS_MILIS) {
+            return -1;
+        }
+        long milis = 0;
+        for (int i = inicio; i < inicio + DIGITOS_MILIS; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            milis = milis * 10 + (c - '0');
+        }
+        return milis;
+    }
+
+    /**
+     * Nodo de este proceso
+     *
+     * @return Nodo entre 0 y 99
+     */
+    public static int getNodo() {
+        return NODO;
+    }
+
+    private static String formatear(String prefijo, long valor) {
+        char[] texto = new char[prefijo.length() + DIGITOS];
+        prefijo.getChars(0, prefijo.length(), texto, 0);
+        for (int i = texto.length - 1; i >= prefijo.length(); i--) {
+            texto[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return new String(texto);
+    }
+
+    private static int leerNodo() {
+        int nodo = Integer.getInteger("eventplanner.nodo", 0);
+        if (nodo < 0 || nodo >= NODOS) {
+            throw new IllegalArgumentException("eventplanner.nodo debe estar entre 0 y " + (NODOS - 1) + ": " + nodo);
+        }
+        return nodo;
+    }
+}
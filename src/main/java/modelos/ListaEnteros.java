@@ -0,0 +1,127 @@
+/**
+ * ListaEnteros - Lista de enteros primitivos en un arreglo que crece,
+ * sin un Integer por elemento. Guarda las relaciones del modelo como
+ * claves de DiccionarioIds, en orden de insercion.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+package modelos;
+
+import java.util.Arrays;
+
+public class ListaEnteros {
+
+    private int[] valores;
+    private int tamano;
+
+    /**
+     * Crea una lista vacia
+     */
+    public ListaEnteros() {
+        this(4);
+    }
+
+    /**
+     * Crea una lista vacia con capacidad inicial
+     *
+     * @param capacidad Elementos que caben sin crecer
+     */
+    public ListaEnteros(int capacidad) {
+        this.valores = new int[Math.max(1, capacidad)];
+        this.tamano = 0;
+    }
+
+    /**
+     * Crea una copia de otra lista
+     *
+     * @param otra Lista a copiar
+     */
+    public ListaEnteros(ListaEnteros otra) {
+        this.valores = Arrays.copyOf(otra.valores, Math.max(1, otra.tamano));
+        this.tamano = otra.tamano;
+    }
+
+    /**
+     * Agrega un valor al final
+     *
+     * @param valor Valor a agregar
+     */
+    public void agregar(int valor) {
+        if (tamano == valores.length) {
+            valores = Arrays.copyOf(valores, valores.length * 2);
+        }
+        valores[tamano++] = valor;
+    }
+
+    /**
+     * Indica si la lista contiene un valor
+     *
+     * @param valor Valor a buscar
+     * @return true si esta en la lista
+     */
+    public boolean contiene(int valor) {
+        return indiceDe(valor) >= 0;
+    }
+
+    /**
+     * Posicion de la primera aparicion de un valor
+     *
+     * @param valor Valor a buscar
+     * @return Posicion o -1 si no esta
+     */
+    public int indiceDe(int valor) {
+        for (int i = 0; i < tamano; i++) {
+            if (valores[i] == valor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Elimina la primera aparicion de un valor, conservando el orden
+     *
+     * @param valor Valor a eliminar
+     * @return true si estaba en la lista
+     */
+    public boolean eliminar(int valor) {
+        int indice = indiceDe(valor);
+        if (indice < 0) {
+            return false;
+        }
+        System.arraycopy(valores, indice + 1, valores, indice, tamano - indice - 1);
+        tamano--;
+        return true;
+    }
+
+    /**
+     * Obtiene el valor de una posicion
+     *
+     * @param indice Posicion
+     * @return Valor guardado
+     */
+    public int obtener(int indice) {
+        if (indice < 0 || indice >= tamano) {
+            throw new IndexOutOfBoundsException("Indice " + indice + " fuera de rango (" + tamano + ")");
+        }
+        return valores[indice];
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    public boolean estaVacia() {
+        return tamano == 0;
+    }
+
+    /**
+     * Copia de los valores
+     *
+     * @return Arreglo nuevo con los valores en orden
+     */
+    public int[] aArreglo() {
+        return Arrays.copyOf(valores, tamano);
+    }
+}
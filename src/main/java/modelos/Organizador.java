@@ -2,16 +2,34 @@
  * Organizador - Usuario que crea y gestiona eventos.
  * Hereda de Persona e implementa comportamientos específicos para
  * la gestión de eventos corporativos y académicos.
+ * Los eventos creados se guardan como claves de DiccionarioIds.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package modelos;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 public class Organizador extends Persona {
     
+    /** Mismo valor que el calculado por la JVM, para leer archivos antiguos */
+    private static final long serialVersionUID = -4647890456201158501L;
+    
+    /** Campos del formato serializado antiguo, con los IDs como texto */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("organizacion", String.class),
+        new ObjectStreamField("departamento", String.class),
+        new ObjectStreamField("eventosCreados", ArrayList.class),
+        new ObjectStreamField("experienciaAnios", int.class)
+    };
+    
     // ATRIBUTOS
     /** Empresa u organización a la que pertenece el organizador */
     private String organizacion;
@@ -19,8 +37,8 @@ public class Organizador extends Persona {
     /** Departamento o área dentro de la organización */
     private String departamento;
     
-    /** Lista de IDs de eventos creados por este organizador */
-    private ArrayList<String> eventosCreados;
+    /** Claves de los eventos creados por este organizador */
+    private ListaEnteros eventosCreados;
     
     /** Años de experiencia como organizador de eventos */
     private int experienciaAnios;
@@ -40,7 +58,29 @@ public class Organizador extends Persona {
         super(nombre, email, telefono);
         this.organizacion = organizacion;
         this.departamento = departamento;
-        this.eventosCreados = new ArrayList<>();//Lista vacia
+        this.eventosCreados = new ListaEnteros();//Lista vacia
+        this.experienciaAnios = experienciaAnios;
+    }
+    
+    /**
+     * Constructor para reconstruir un organizador existente (al cargar de archivo).
+     * 
+     * @param id ID original
+     * @param nombre Nombre completo
+     * @param email Correo electrónico
+     * @param telefono Número de contacto
+     * @param fechaRegistro Fecha de registro original
+     * @param organizacion Empresa u organización
+     * @param departamento Area o departamento
+     * @param experienciaAnios Años de experiencia
+     * @param eventosCreados IDs de eventos creados
+     */
+    public Organizador(String id, String nombre, String email, String telefono, LocalDateTime fechaRegistro,
+                       String organizacion, String departamento, int experienciaAnios, List<String> eventosCreados) {
+        super(id, nombre, email, telefono, fechaRegistro);
+        this.organizacion = organizacion;
+        this.departamento = departamento;
+        this.eventosCreados = DiccionarioIds.claves(eventosCreados);
         this.experienciaAnios = experienciaAnios;
     }
     
@@ -71,7 +111,7 @@ public class Organizador extends Persona {
     @Override
     public String obtenerDescripcion() {
         return departamento + " | " + organizacion + 
-               " | " + eventosCreados.size() + " eventos creados";
+               " | " + eventosCreados.tamano() + " eventos creados";
     }
     
     
@@ -88,7 +128,7 @@ public class Organizador extends Persona {
         if (eventoId == null || eventoId.trim().isEmpty()) {
             return false;
         }
-        eventosCreados.add(eventoId);
+        eventosCreados.agregar(DiccionarioIds.clave(eventoId));
         return true;
     }
     
@@ -103,7 +143,7 @@ public class Organizador extends Persona {
         StringBuilder stats = new StringBuilder();
         stats.append("ESTADISTICAS DEL ORGANIZADOR\n");
         stats.append("════════════════════════════════\n");
-        stats.append("Eventos creados: ").append(eventosCreados.size()).append("\n");
+        stats.append("Eventos creados: ").append(eventosCreados.tamano()).append("\n");
         stats.append("Experiencia: ").append(experienciaAnios).append(" años\n");
         stats.append("Nivel: ").append(obtenerRol()).append("\n");
         stats.append("Organizacion: ").append(organizacion).append("\n");
@@ -136,11 +176,11 @@ public class Organizador extends Persona {
      * @return ArrayList con copia de los IDs de eventos creados
      */
     public ArrayList<String> getEventosCreados() {
-        return new ArrayList<>(eventosCreados);
+        return DiccionarioIds.ids(eventosCreados);
     }
 
     public void setEventosCreados(ArrayList<String> eventosCreados) {
-        this.eventosCreados = eventosCreados;
+        this.eventosCreados = DiccionarioIds.claves(eventosCreados);
     }
 
     public int getExperienciaAnios() {
@@ -169,9 +209,30 @@ public class Organizador extends Persona {
         sb.append("│ Organizacion: ").append(organizacion).append("\n");
         sb.append("│ Departamento: ").append(departamento).append("\n");
         sb.append("│ Experiencia: ").append(experienciaAnios).append(" años\n");
-        sb.append("│ Eventos creados: ").append(eventosCreados.size()).append("\n");
+        sb.append("│ Eventos creados: ").append(eventosCreados.tamano()).append("\n");
         sb.append("│ Nivel: ").append(obtenerRol()).append("\n");
         sb.append("└─────────────────────────────────────┘");
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    // ============== SERIALIZACION ANTIGUA ==============
+    
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = entrada.readFields();
+        organizacion = (String) campos.get("organizacion", null);
+        departamento = (String) campos.get("departamento", null);
+        eventosCreados = DiccionarioIds.claves(
+                (ArrayList<String>) campos.get("eventosCreados", new ArrayList<String>()));
+        experienciaAnios = campos.get("experienciaAnios", 0);
+    }
+    
+    private void writeObject(ObjectOutputStream salida) throws IOException {
+        ObjectOutputStream.PutField campos = salida.putFields();
+        campos.put("organizacion", organizacion);
+        campos.put("departamento", departamento);
+        campos.put("eventosCreados", getEventosCreados());
+        campos.put("experienciaAnios", experienciaAnios);
+        salida.writeFields();
+    }
+}
@@ -1,35 +1,84 @@
 /**
  * Pago - Representa una transacción de pago en el sistema
  * Incluye información del ticket, método de pago y comisiones
+ * El evento y el participante se guardan como claves de DiccionarioIds.
+ * 
+ * En memoria el pago es compacto: las fechas son milisegundos
+ * (FechaCompacta), la referencia generada se guarda como su valor numerico
+ * y la autorizacion de 6 digitos como int; solo los valores con otro
+ * formato (datos antiguos) se guardan como texto. Las comisiones y el
+ * total se calculan al pedirlos a partir del monto base y el metodo.
+ * Los getters devuelven los mismos valores que antes.
+ * La pasarela de pago (logica.PasarelaPago) lo aprueba o rechaza con
+ * aprobar() y rechazar(). En una compra grupal cada ticket tiene su pago,
+ * vinculado (vincularA) a una sola autorizacion: cada pago conserva su
+ * propia referencia y guarda la del cobro conjunto en referenciaGrupo.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.6
  */
 package modelos;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Pago implements Serializable {
     
+    /** Mismo valor que el calculado por la JVM, para leer archivos antiguos */
+    private static final long serialVersionUID = -8867605097567662132L;
+    
     private static final double COMISION_PLATAFORMA = 0.05; // 5% comisión del sistema
     
-    private final String id;
-    private final String ticketId;
-    private final String participanteId;
-    private final String eventoId;
-    private final double montoBase;
-    private final MetodoPago metodoPago;
-    private final double comisionMetodo;
-    private final double comisionPlataforma;
-    private final double montoTotal;
+    private static final String PREFIJO_REFERENCIA = "REF";
+    
+    /** Autorizacion ausente, o guardada como texto */
+    private static final int SIN_AUTORIZACION = -1;
+    
+    /** Campos del formato serializado antiguo, con los IDs como texto */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("id", String.class),
+        new ObjectStreamField("ticketId", String.class),
+        new ObjectStreamField("participanteId", String.class),
+        new ObjectStreamField("eventoId", String.class),
+        new ObjectStreamField("montoBase", double.class),
+        new ObjectStreamField("metodoPago", MetodoPago.class),
+        new ObjectStreamField("comisionMetodo", double.class),
+        new ObjectStreamField("comisionPlataforma", double.class),
+        new ObjectStreamField("montoTotal", double.class),
+        new ObjectStreamField("estado", EstadoPago.class),
+        new ObjectStreamField("fechaCreacion", LocalDateTime.class),
+        new ObjectStreamField("fechaAprobacion", LocalDateTime.class),
+        new ObjectStreamField("numeroReferencia", String.class),
+        new ObjectStreamField("numeroAutorizacion", String.class)
+    };
+    
+    // No son final solo para que readObject pueda asignarlos
+    private String id;
+    private String ticketId;
+    private int participanteClave;
+    private int eventoClave;
+    private double montoBase;
+    private MetodoPago metodoPago;
     private EstadoPago estado;
-    private final LocalDateTime fechaCreacion;
-    private LocalDateTime fechaAprobacion;
-    private String numeroReferencia;
-    private String numeroAutorizacion;
+    private long fechaCreacion;
+    private long fechaAprobacion;
+    
+    /** Valor numerico de la referencia, o -1 si se guarda como texto */
+    private long referencia;
+    private String referenciaTexto;
+    
+    /** Autorizacion de 6 digitos, o SIN_AUTORIZACION */
+    private int autorizacion;
+    private String autorizacionTexto;
+    
+    /** Referencia del cobro conjunto de una compra grupal, o -1 */
+    private long referenciaGrupo;
     
     /**
      * Constructor del Pago
@@ -38,16 +87,50 @@ public class Pago implements Serializable {
                 double montoBase, MetodoPago metodoPago) {
         this.id = generarId();
         this.ticketId = ticketId;
-        this.participanteId = participanteId;
-        this.eventoId = eventoId;
+        this.participanteClave = DiccionarioIds.clave(participanteId);
+        this.eventoClave = DiccionarioIds.clave(eventoId);
         this.montoBase = montoBase;
         this.metodoPago = metodoPago;
-        this.comisionMetodo = metodoPago.calcularComision(montoBase);
-        this.comisionPlataforma = montoBase * COMISION_PLATAFORMA;
-        this.montoTotal = montoBase + comisionMetodo;
         this.estado = EstadoPago.PENDIENTE;
-        this.fechaCreacion = LocalDateTime.now();
-        this.numeroReferencia = generarNumeroReferencia();
+        this.fechaCreacion = FechaCompacta.ahora();
+        this.fechaAprobacion = FechaCompacta.NULA;
+        this.referencia = GeneradorIds.siguienteValor();
+        this.autorizacion = SIN_AUTORIZACION;
+        this.referenciaGrupo = -1;
+    }
+    
+    /**
+     * Constructor para reconstruir un pago existente (al cargar de archivo).
+     * Las comisiones se recalculan a partir del monto base y el método.
+     */
+    public Pago(String id, String ticketId, String participanteId, String eventoId,
+                double montoBase, MetodoPago metodoPago, EstadoPago estado,
+                LocalDateTime fechaCreacion, LocalDateTime fechaAprobacion,
+                String numeroReferencia, String numeroAutorizacion) {
+        this(id, ticketId, participanteId, eventoId, montoBase, metodoPago, estado,
+             fechaCreacion, fechaAprobacion, numeroReferencia, numeroAutorizacion, null);
+    }
+    
+    /**
+     * Constructor para reconstruir un pago existente que puede ser parte
+     * de una compra grupal.
+     */
+    public Pago(String id, String ticketId, String participanteId, String eventoId,
+                double montoBase, MetodoPago metodoPago, EstadoPago estado,
+                LocalDateTime fechaCreacion, LocalDateTime fechaAprobacion,
+                String numeroReferencia, String numeroAutorizacion, String referenciaGrupo) {
+        this.id = id;
+        this.ticketId = ticketId;
+        this.participanteClave = DiccionarioIds.clave(participanteId);
+        this.eventoClave = DiccionarioIds.clave(eventoId);
+        this.montoBase = montoBase;
+        this.metodoPago = metodoPago;
+        this.estado = estado;
+        this.fechaCreacion = FechaCompacta.aMilis(fechaCreacion);
+        this.fechaAprobacion = FechaCompacta.aMilis(fechaAprobacion);
+        asignarReferencia(numeroReferencia);
+        asignarAutorizacion(numeroAutorizacion);
+        this.referenciaGrupo = GeneradorIds.valorDe(PREFIJO_REFERENCIA, referenciaGrupo);
     }
     
     /**
@@ -55,18 +138,48 @@ public class Pago implements Serializable {
      */
     public boolean procesarPago() {
         // Simulación: 95% de probabilidad de éxito
-        Random random = new Random();
-        boolean exito = random.nextDouble() < 0.95;
-        
-        if (exito) {
-            this.estado = EstadoPago.APROBADO;
-            this.fechaAprobacion = LocalDateTime.now();
-            this.numeroAutorizacion = generarNumeroAutorizacion();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < 0.95) {
+            aprobar(random.nextInt(1000000));
             return true;
-        } else {
-            this.estado = EstadoPago.RECHAZADO;
-            return false;
         }
+        rechazar();
+        return false;
+    }
+    
+    /**
+     * Marca el pago como aprobado por la pasarela
+     * 
+     * @param numeroAutorizacion Autorizacion de 6 digitos (0 a 999999)
+     */
+    public void aprobar(int numeroAutorizacion) {
+        this.estado = EstadoPago.APROBADO;
+        this.fechaAprobacion = FechaCompacta.ahora();
+        this.autorizacion = numeroAutorizacion;
+        this.autorizacionTexto = null;
+    }
+    
+    /**
+     * Marca el pago como rechazado por la pasarela
+     */
+    public void rechazar() {
+        this.estado = EstadoPago.RECHAZADO;
+    }
+    
+    /**
+     * Vincula este pago a una autorizacion conjunta (compra grupal): toma
+     * el estado, la aprobacion y la autorizacion del pago conjunto y guarda
+     * su referencia como referencia de grupo. La referencia propia no
+     * cambia, asi cada ticket del grupo se puede reembolsar por separado.
+     * 
+     * @param autorizado Pago conjunto ya procesado por la pasarela
+     */
+    public void vincularA(Pago autorizado) {
+        this.estado = autorizado.estado;
+        this.fechaAprobacion = autorizado.fechaAprobacion;
+        this.autorizacion = autorizado.autorizacion;
+        this.autorizacionTexto = autorizado.autorizacionTexto;
+        this.referenciaGrupo = autorizado.referencia;
     }
     
     /**
@@ -98,7 +211,7 @@ public class Pago implements Serializable {
         if (estado != EstadoPago.APROBADO) {
             return 0.0;
         }
-        return montoBase - comisionPlataforma;
+        return montoBase - getComisionPlataforma();
     }
     
     /**
@@ -108,20 +221,39 @@ public class Pago implements Serializable {
         if (estado != EstadoPago.APROBADO) {
             return 0.0;
         }
-        return comisionPlataforma;
+        return getComisionPlataforma();
     }
     
     private String generarId() {
-        return "PAY" + System.currentTimeMillis();
+        return GeneradorIds.generar("PAY");
     }
     
-    private String generarNumeroReferencia() {
-        return "REF" + System.currentTimeMillis();
+    /**
+     * Guarda la referencia como numero si tiene el formato de GeneradorIds
+     */
+    private void asignarReferencia(String numeroReferencia) {
+        this.referencia = GeneradorIds.valorDe(PREFIJO_REFERENCIA, numeroReferencia);
+        this.referenciaTexto = referencia < 0 ? numeroReferencia : null;
     }
     
-    private String generarNumeroAutorizacion() {
-        Random random = new Random();
-        return String.format("%06d", random.nextInt(1000000));
+    /**
+     * Guarda la autorizacion como int si son exactamente 6 digitos
+     */
+    private void asignarAutorizacion(String numeroAutorizacion) {
+        this.autorizacion = SIN_AUTORIZACION;
+        this.autorizacionTexto = numeroAutorizacion;
+        if (numeroAutorizacion != null && numeroAutorizacion.length() == 6) {
+            int valor = 0;
+            for (int i = 0; i < 6; i++) {
+                char c = numeroAutorizacion.charAt(i);
+                if (c < '0' || c > '9') {
+                    return;
+                }
+                valor = valor * 10 + (c - '0');
+            }
+            this.autorizacion = valor;
+            this.autorizacionTexto = null;
+        }
     }
     
     // GETTERS
@@ -134,11 +266,19 @@ public class Pago implements Serializable {
     }
     
     public String getParticipanteId() {
-        return participanteId;
+        return DiccionarioIds.id(participanteClave);
     }
     
     public String getEventoId() {
-        return eventoId;
+        return DiccionarioIds.id(eventoClave);
+    }
+    
+    public int getParticipanteClave() {
+        return participanteClave;
+    }
+    
+    public int getEventoClave() {
+        return eventoClave;
     }
     
     public double getMontoBase() {
@@ -150,15 +290,15 @@ public class Pago implements Serializable {
     }
     
     public double getComisionMetodo() {
-        return comisionMetodo;
+        return metodoPago.calcularComision(montoBase);
     }
     
     public double getComisionPlataforma() {
-        return comisionPlataforma;
+        return montoBase * COMISION_PLATAFORMA;
     }
     
     public double getMontoTotal() {
-        return montoTotal;
+        return montoBase + getComisionMetodo();
     }
     
     public EstadoPago getEstado() {
@@ -166,19 +306,77 @@ public class Pago implements Serializable {
     }
     
     public LocalDateTime getFechaCreacion() {
-        return fechaCreacion;
+        return FechaCompacta.aFecha(fechaCreacion);
     }
     
     public LocalDateTime getFechaAprobacion() {
-        return fechaAprobacion;
+        return FechaCompacta.aFecha(fechaAprobacion);
     }
     
     public String getNumeroReferencia() {
-        return numeroReferencia;
+        return referencia < 0 ? referenciaTexto : GeneradorIds.texto(PREFIJO_REFERENCIA, referencia);
+    }
+    
+    /**
+     * Referencia del cobro conjunto si el pago es parte de una compra grupal
+     * 
+     * @return Referencia del grupo, o null si se cobro solo
+     */
+    public String getReferenciaGrupo() {
+        return referenciaGrupo < 0 ? null : GeneradorIds.texto(PREFIJO_REFERENCIA, referenciaGrupo);
+    }
+    
+    public boolean esParteDeGrupo() {
+        return referenciaGrupo >= 0;
     }
     
     public String getNumeroAutorizacion() {
-        return numeroAutorizacion;
+        if (autorizacion == SIN_AUTORIZACION) {
+            return autorizacionTexto;
+        }
+        char[] digitos = new char[6];
+        int valor = autorizacion;
+        for (int i = 5; i >= 0; i--) {
+            digitos[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return new String(digitos);
+    }
+    
+    // SERIALIZACION ANTIGUA
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = entrada.readFields();
+        id = (String) campos.get("id", null);
+        ticketId = (String) campos.get("ticketId", null);
+        participanteClave = DiccionarioIds.clave((String) campos.get("participanteId", null));
+        eventoClave = DiccionarioIds.clave((String) campos.get("eventoId", null));
+        montoBase = campos.get("montoBase", 0.0);
+        metodoPago = (MetodoPago) campos.get("metodoPago", null);
+        estado = (EstadoPago) campos.get("estado", null);
+        fechaCreacion = FechaCompacta.aMilis((LocalDateTime) campos.get("fechaCreacion", null));
+        fechaAprobacion = FechaCompacta.aMilis((LocalDateTime) campos.get("fechaAprobacion", null));
+        asignarReferencia((String) campos.get("numeroReferencia", null));
+        asignarAutorizacion((String) campos.get("numeroAutorizacion", null));
+        referenciaGrupo = -1;
+    }
+    
+    private void writeObject(ObjectOutputStream salida) throws IOException {
+        ObjectOutputStream.PutField campos = salida.putFields();
+        campos.put("id", id);
+        campos.put("ticketId", ticketId);
+        campos.put("participanteId", getParticipanteId());
+        campos.put("eventoId", getEventoId());
+        campos.put("montoBase", montoBase);
+        campos.put("metodoPago", metodoPago);
+        campos.put("comisionMetodo", getComisionMetodo());
+        campos.put("comisionPlataforma", getComisionPlataforma());
+        campos.put("montoTotal", getMontoTotal());
+        campos.put("estado", estado);
+        campos.put("fechaCreacion", getFechaCreacion());
+        campos.put("fechaAprobacion", getFechaAprobacion());
+        campos.put("numeroReferencia", getNumeroReferencia());
+        campos.put("numeroAutorizacion", getNumeroAutorizacion());
+        salida.writeFields();
     }
     
     @Override
@@ -189,20 +387,20 @@ public class Pago implements Serializable {
         sb.append("║            COMPROBANTE DE PAGO               ║\n");
         sb.append("╠══════════════════════════════════════════════╣\n");
         sb.append("║ ID Transacción: ").append(id).append("\n");
-        sb.append("║ Referencia: ").append(numeroReferencia).append("\n");
-        if (numeroAutorizacion != null) {
-            sb.append("║ Autorización: ").append(numeroAutorizacion).append("\n");
+        sb.append("║ Referencia: ").append(getNumeroReferencia()).append("\n");
+        if (getNumeroAutorizacion() != null) {
+            sb.append("║ Autorización: ").append(getNumeroAutorizacion()).append("\n");
         }
         sb.append("║ Estado: ").append(estado.getNombre()).append("\n");
         sb.append("║ Método: ").append(metodoPago.getDescripcion()).append("\n");
         sb.append("╠══════════════════════════════════════════════╣\n");
         sb.append("║ Monto Base: $").append(String.format("%,. 0f", montoBase)).append("\n");
-        sb.append("║ Comisión Método: $").append(String.format("%,.0f", comisionMetodo)).append("\n");
-        sb.append("║ TOTAL A PAGAR: $").append(String.format("%,.0f", montoTotal)).append("\n");
+        sb.append("║ Comisión Método: $").append(String.format("%,.0f", getComisionMetodo())).append("\n");
+        sb.append("║ TOTAL A PAGAR: $").append(String.format("%,.0f", getMontoTotal())).append("\n");
         sb.append("╠══════════════════════════════════════════════╣\n");
-        sb.append("║ Fecha: ").append(fechaCreacion.format(formatter)).append("\n");
-        if (fechaAprobacion != null) {
-            sb.append("║ Aprobado: ").append(fechaAprobacion.format(formatter)).append("\n");
+        sb.append("║ Fecha: ").append(getFechaCreacion().format(formatter)).append("\n");
+        if (fechaAprobacion != FechaCompacta.NULA) {
+            sb.append("║ Aprobado: ").append(getFechaAprobacion().format(formatter)).append("\n");
         }
         sb.append("╚══════════════════════════════════════════════╝");
         return sb.toString();
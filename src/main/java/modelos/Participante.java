@@ -2,22 +2,42 @@
  * Participaante - Usuario que se registra en la plataforma y asiste a eventos.
  * Hereda de Persona e implementa comportamientos específicos para
  * la asistencia a eventos.
+ * Los eventos registrados se guardan como claves de DiccionarioIds.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package modelos;
 
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 public class Participante extends Persona{
     
+    /* Mismo valor que el calculado por la JVM, para leer archivos antiguos */
+    private static final long serialVersionUID = 7490524236543406350L;
+    
+    /** Campos del formato serializado antiguo, con los IDs como texto */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("empresa", String.class),
+        new ObjectStreamField("cargo", String.class),
+        new ObjectStreamField("intereses", String.class),
+        new ObjectStreamField("vip", boolean.class),
+        new ObjectStreamField("eventosRegistrados", ArrayList.class)
+    };
+    
     private String empresa;
     private String cargo;
     private String intereses;
     private boolean vip;
-    private final ArrayList<String>eventosRegistrados;
+    /* No es final solo para que readObject pueda asignarlo */
+    private ListaEnteros eventosRegistrados;
 
     
 
@@ -27,9 +47,22 @@ public Participante(String nombre, String email, String telefono, String empresa
     this.cargo = cargo;
     this.intereses = intereses;  //Vacio inicialmente
     this.vip = vip;  // No VIP por defecto
-    this.eventosRegistrados = new ArrayList<>(); //Lista vacia
+    this.eventosRegistrados = new ListaEnteros(); //Lista vacia
     } 
 
+    /**
+     * Constructor para reconstruir un participante existente (al cargar de archivo).
+     */
+    public Participante(String id, String nombre, String email, String telefono, LocalDateTime fechaRegistro,
+                        String empresa, String cargo, String intereses, boolean vip, List<String> eventosRegistrados) {
+        super(id, nombre, email, telefono, fechaRegistro);
+        this.empresa = empresa;
+        this.cargo = cargo;
+        this.intereses = intereses;
+        this.vip = vip;
+        this.eventosRegistrados = DiccionarioIds.claves(eventosRegistrados);
+    }
+
      // METODOS ABSTRACTOS IMPLEMENTAD
     /**
      * Obtiene el rol del organizador según su experiencia.
@@ -57,7 +90,7 @@ public Participante(String nombre, String email, String telefono, String empresa
     @Override
     public String obtenerDescripcion(){
         return cargo +" en "+ empresa+ 
-        "|Eventos Registrados: "+ eventosRegistrados.size();
+        "|Eventos Registrados: "+ eventosRegistrados.tamano();
     }
 
 
@@ -75,19 +108,20 @@ public Participante(String nombre, String email, String telefono, String empresa
         if(eventoID==null|| eventoID.trim().isEmpty()){
             return false;
         }
-        else
         
-        if(eventosRegistrados.contains(eventoID)){
+        int clave = DiccionarioIds.clave(eventoID);
+        if(eventosRegistrados.contiene(clave)){
             return false;
         }
-        eventosRegistrados.add(eventoID);
+        eventosRegistrados.agregar(clave);
         return true;
 
     }
     
     
     public boolean cancelarRegistro(String eventoId){
-        return eventosRegistrados.remove(eventoId);        
+        int clave = DiccionarioIds.buscar(eventoId);
+        return clave != DiccionarioIds.SIN_CLAVE && eventosRegistrados.eliminar(clave);        
     }
 
 /* 
@@ -105,7 +139,7 @@ public Participante(String nombre, String email, String telefono, String empresa
  */
 
     public String listarEventos(){
-        if(eventosRegistrados.isEmpty()){
+        if(eventosRegistrados.estaVacia()){
             return"No tienes eventos registrados";
         }
         
@@ -113,8 +147,8 @@ public Participante(String nombre, String email, String telefono, String empresa
         lista.append("MIS EVENTOS REGISTRADOS");
         lista.append("════════════════════════════\n");
 
-        for(int i=0; i<eventosRegistrados.size(); i++){
-            lista.append(i+1).append(". ").append(eventosRegistrados.get(i)).append("\n");
+        for(int i=0; i<eventosRegistrados.tamano(); i++){
+            lista.append(i+1).append(". ").append(DiccionarioIds.id(eventosRegistrados.obtener(i))).append("\n");
         }
         return lista.toString();
     }
@@ -154,7 +188,7 @@ public Participante(String nombre, String email, String telefono, String empresa
     }
 
     public ArrayList<String> getEventosRegistrados() {
-        return new ArrayList<>(eventosRegistrados);
+        return DiccionarioIds.ids(eventosRegistrados);
     }
 
     // METODO SOBREESCRITO
@@ -174,7 +208,7 @@ public Participante(String nombre, String email, String telefono, String empresa
         sb.append("│ Empresa: ").append(empresa).append("\n");
         sb.append("│ Cargo: ").append(cargo).append("\n");
         sb.append("│ Estado: ").append(vip ? "VIP " : "Regular").append("\n");
-        sb.append("│ Eventos registrados: ").append(eventosRegistrados.size()).append("\n");
+        sb.append("│ Eventos registrados: ").append(eventosRegistrados.tamano()).append("\n");
         if (!intereses.isEmpty()) {
             sb.append("│ Intereses: ").append(intereses).append("\n");
         }
@@ -182,4 +216,27 @@ public Participante(String nombre, String email, String telefono, String empresa
         
         return sb.toString();
     }
+
+    // ============== SERIALIZACION ANTIGUA ==============
+    
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = entrada.readFields();
+        empresa = (String) campos.get("empresa", null);
+        cargo = (String) campos.get("cargo", null);
+        intereses = (String) campos.get("intereses", null);
+        vip = campos.get("vip", false);
+        eventosRegistrados = DiccionarioIds.claves(
+                (ArrayList<String>) campos.get("eventosRegistrados", new ArrayList<String>()));
+    }
+    
+    private void writeObject(ObjectOutputStream salida) throws IOException {
+        ObjectOutputStream.PutField campos = salida.putFields();
+        campos.put("empresa", empresa);
+        campos.put("cargo", cargo);
+        campos.put("intereses", intereses);
+        campos.put("vip", vip);
+        campos.put("eventosRegistrados", getEventosRegistrados());
+        salida.writeFields();
+    }
 }
@@ -4,7 +4,7 @@
  * Define los atributos y comportamientos comunes a Organizadores y Participantes.
  * 
  * @author [Ayner Jose Castro Benavides]
- * @version 1.0
+ * @version 1.1
  */
 
 package modelos;
@@ -18,6 +18,9 @@ import java.util.Objects;
 /*Creacion de Clase Padre Abstracta */
 public abstract class Persona implements Serializable {
     
+   /* Mismo valor que el calculado por la JVM, para leer archivos antiguos */
+   private static final long serialVersionUID = -5873307475901717082L;
+    
    protected String id;
    protected String nombre;
    protected String email;
@@ -33,15 +36,24 @@ public abstract class Persona implements Serializable {
         this.telefono = telefono;
         this.fechaRegistro = LocalDateTime.now();  // Se asigna automáticamente
     }
+
+    /*Constructor para reconstruir una persona existente (al cargar de archivo) */
+    protected Persona(String id, String nombre, String email, String telefono, LocalDateTime fechaRegistro) {
+        this.id = id;
+        this.nombre = nombre;
+        this.email = email;
+        this.telefono = telefono;
+        this.fechaRegistro = fechaRegistro;
+    }
     
     
     /*Creacion de metodos abstractos aplicando Polimorfismo al mismo tiempo */
     public abstract String obtenerRol();
     public abstract String obtenerDescripcion();
         
-    /*Genera un codigo USR mas la hora actual en milisegundos*/
+    /*Genera un codigo USR unico y ordenado por fecha (ver GeneradorIds)*/
     private String generarId() {
-        return "USR" + System.currentTimeMillis();
+        return GeneradorIds.generar("USR");
     }
     
     
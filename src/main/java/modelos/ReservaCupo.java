@@ -0,0 +1,85 @@
+/**
+ * ReservaCupo - Cupo apartado para un participante mientras compra.
+ * La reserva ya cuenta como ocupada en el evento y vence sola al pasar su
+ * tiempo si no se confirma ni se libera.
+ * Vive solo en memoria: no se guarda en archivo, y al reiniciar la
+ * aplicacion las reservas abiertas desaparecen con sus cupos.
+ * El evento y el participante se guardan como claves de DiccionarioIds.
+ * 
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+package modelos;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ReservaCupo {
+    
+    private final String id;
+    private final int eventoClave;
+    private final int participanteClave;
+    private final long fechaCreacion;
+    private final long fechaVencimiento;
+    private final AtomicReference<EstadoReserva> estado;
+    
+    /**
+     * Constructor para una reserva nueva
+     *
+     * @param eventoId Evento reservado
+     * @param participanteId Participante que reserva
+     * @param duracionMs Tiempo de vida de la reserva en milisegundos
+     */
+    public ReservaCupo(String eventoId, String participanteId, long duracionMs) {
+        this.id = GeneradorIds.generar("RSV");
+        this.eventoClave = DiccionarioIds.clave(eventoId);
+        this.participanteClave = DiccionarioIds.clave(participanteId);
+        this.fechaCreacion = FechaCompacta.ahora();
+        this.fechaVencimiento = fechaCreacion + duracionMs;
+        this.estado = new AtomicReference<>(EstadoReserva.ACTIVA);
+    }
+    
+    /**
+     * Cambia de estado solo si la reserva sigue en el estado esperado.
+     * Asi el vencimiento y la confirmacion nunca se aplican los dos.
+     *
+     * @param esperado Estado actual esperado
+     * @param nuevo Estado nuevo
+     * @return true si se cambio
+     */
+    public boolean cambiarEstado(EstadoReserva esperado, EstadoReserva nuevo) {
+        return estado.compareAndSet(esperado, nuevo);
+    }
+    
+    public boolean estaActiva() {
+        return estado.get() == EstadoReserva.ACTIVA;
+    }
+    
+    /**
+     * Indica si ya paso el tiempo de vida
+     */
+    public boolean estaVencida() {
+        return FechaCompacta.ahora() >= fechaVencimiento;
+    }
+    
+    /**
+     * Milisegundos que le quedan a la reserva (0 si ya vencio)
+     */
+    public long getMilisRestantes() {
+        return Math.max(0, fechaVencimiento - FechaCompacta.ahora());
+    }
+    
+    // Getters
+    public String getId() { return id; }
+    public String getEventoId() { return DiccionarioIds.id(eventoClave); }
+    public String getParticipanteId() { return DiccionarioIds.id(participanteClave); }
+    public LocalDateTime getFechaCreacion() { return FechaCompacta.aFecha(fechaCreacion); }
+    public LocalDateTime getFechaVencimiento() { return FechaCompacta.aFecha(fechaVencimiento); }
+    public EstadoReserva getEstado() { return estado.get(); }
+    
+    @Override
+    public String toString() {
+        return String.format("Reserva %s - %s (vence %s)", id, estado.get().getNombre(),
+            getFechaVencimiento().toLocalTime().withNano(0));
+    }
+}
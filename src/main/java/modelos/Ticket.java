@@ -1,39 +1,77 @@
 /**
  * Ticket - Representa un ticket de entrada a un evento
  * Contiene información del tipo, precio, participante y evento
+ * El evento y el participante se guardan como claves de DiccionarioIds.
+ * Las fechas de compra y de uso se guardan como milisegundos
+ * (FechaCompacta) y se convierten a LocalDateTime al pedirlas.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.3
  */
 package modelos;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class Ticket implements Serializable {
     
-    private final String id;
-    private final String eventoId;
-    private final String participanteId;
-    private final TipoTicket tipo;
-    private final double precio;
-    private final LocalDateTime fechaCompra;
+    /** Mismo valor que el calculado por la JVM, para leer archivos antiguos */
+    private static final long serialVersionUID = -2688827511354808979L;
+    
+    /** Campos del formato serializado antiguo, con los IDs como texto */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("id", String.class),
+        new ObjectStreamField("eventoId", String.class),
+        new ObjectStreamField("participanteId", String.class),
+        new ObjectStreamField("tipo", TipoTicket.class),
+        new ObjectStreamField("precio", double.class),
+        new ObjectStreamField("fechaCompra", LocalDateTime.class),
+        new ObjectStreamField("usado", boolean.class),
+        new ObjectStreamField("fechaUso", LocalDateTime.class)
+    };
+    
+    // No son final solo para que readObject pueda asignarlos
+    private String id;
+    private int eventoClave;
+    private int participanteClave;
+    private TipoTicket tipo;
+    private double precio;
+    private long fechaCompra;
     private boolean usado;
-    private LocalDateTime fechaUso;
+    private long fechaUso;
     
     /**
      * Constructor para ticket
      */
     public Ticket(String eventoId, String participanteId, TipoTicket tipo, double precio) {
         this.id = generarId();
-        this.eventoId = eventoId;
-        this.participanteId = participanteId;
+        this.eventoClave = DiccionarioIds.clave(eventoId);
+        this.participanteClave = DiccionarioIds.clave(participanteId);
         this.tipo = tipo;
         this.precio = precio;
-        this.fechaCompra = LocalDateTime.now();
+        this.fechaCompra = FechaCompacta.ahora();
         this.usado = false;
-        this.fechaUso = null;
+        this.fechaUso = FechaCompacta.NULA;
+    }
+    
+    /**
+     * Constructor para reconstruir un ticket existente (al cargar de archivo)
+     */
+    public Ticket(String id, String eventoId, String participanteId, TipoTicket tipo,
+                  double precio, LocalDateTime fechaCompra, boolean usado, LocalDateTime fechaUso) {
+        this.id = id;
+        this.eventoClave = DiccionarioIds.clave(eventoId);
+        this.participanteClave = DiccionarioIds.clave(participanteId);
+        this.tipo = tipo;
+        this.precio = precio;
+        this.fechaCompra = FechaCompacta.aMilis(fechaCompra);
+        this.usado = usado;
+        this.fechaUso = FechaCompacta.aMilis(fechaUso);
     }
     
     /**
@@ -44,15 +82,15 @@ public class Ticket implements Serializable {
             return false;
         }
         this.usado = true;
-        this.fechaUso = LocalDateTime.now();
+        this.fechaUso = FechaCompacta.ahora();
         return true;
     }
     
     /**
-     * Genera ID único para el ticket
+     * Genera ID único para el ticket (ver GeneradorIds)
      */
     private String generarId() {
-        return "TKT" + System.currentTimeMillis();
+        return GeneradorIds.generar("TKT");
     }
     
     /**
@@ -68,11 +106,19 @@ public class Ticket implements Serializable {
     }
     
     public String getEventoId() {
-        return eventoId;
+        return DiccionarioIds.id(eventoClave);
     }
     
     public String getParticipanteId() {
-        return participanteId;
+        return DiccionarioIds.id(participanteClave);
+    }
+    
+    public int getEventoClave() {
+        return eventoClave;
+    }
+    
+    public int getParticipanteClave() {
+        return participanteClave;
     }
     
     public TipoTicket getTipo() {
@@ -84,7 +130,7 @@ public class Ticket implements Serializable {
     }
     
     public LocalDateTime getFechaCompra() {
-        return fechaCompra;
+        return FechaCompacta.aFecha(fechaCompra);
     }
     
     public boolean isUsado() {
@@ -92,7 +138,33 @@ public class Ticket implements Serializable {
     }
     
     public LocalDateTime getFechaUso() {
-        return fechaUso;
+        return FechaCompacta.aFecha(fechaUso);
+    }
+    
+    // SERIALIZACION ANTIGUA
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = entrada.readFields();
+        id = (String) campos.get("id", null);
+        eventoClave = DiccionarioIds.clave((String) campos.get("eventoId", null));
+        participanteClave = DiccionarioIds.clave((String) campos.get("participanteId", null));
+        tipo = (TipoTicket) campos.get("tipo", null);
+        precio = campos.get("precio", 0.0);
+        fechaCompra = FechaCompacta.aMilis((LocalDateTime) campos.get("fechaCompra", null));
+        usado = campos.get("usado", false);
+        fechaUso = FechaCompacta.aMilis((LocalDateTime) campos.get("fechaUso", null));
+    }
+    
+    private void writeObject(ObjectOutputStream salida) throws IOException {
+        ObjectOutputStream.PutField campos = salida.putFields();
+        campos.put("id", id);
+        campos.put("eventoId", getEventoId());
+        campos.put("participanteId", getParticipanteId());
+        campos.put("tipo", tipo);
+        campos.put("precio", precio);
+        campos.put("fechaCompra", getFechaCompra());
+        campos.put("usado", usado);
+        campos.put("fechaUso", getFechaUso());
+        salida.writeFields();
     }
     
     @Override
@@ -105,10 +177,10 @@ public class Ticket implements Serializable {
         sb.append("║ ID: ").append(id).append("\n");
         sb.append("║ Tipo: ").append(tipo.getDescripcion()).append("\n");
         sb.append("║ Precio: $").append(String.format("%,.0f", precio)).append("\n");
-        sb.append("║ Compra: ").append(fechaCompra.format(formatter)).append("\n");
+        sb.append("║ Compra: ").append(getFechaCompra().format(formatter)).append("\n");
         sb.append("║ Estado: ").append(usado ? "USADO ✓" : "VIGENTE").append("\n");
         if (usado) {
-            sb.append("║ Uso: ").append(fechaUso.format(formatter)).append("\n");
+            sb.append("║ Uso: ").append(getFechaUso().format(formatter)).append("\n");
         }
         sb.append("║ QR: ").append(generarCodigoQR()).append("\n");
         sb.append("╚════════════════════════════════════════╝");
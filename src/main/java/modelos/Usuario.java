@@ -10,7 +10,7 @@ import java.util.Objects;
  * Almacena credenciales y roles para control de acceso.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class Usuario implements Serializable {
     
@@ -73,12 +73,13 @@ public class Usuario implements Serializable {
     }
     
     /**
-     * Genera un ID único para el usuario
+     * Genera un ID único para el usuario.
+     * Usa "USU" para no compartir el prefijo "USR" de Persona.
      * 
-     * @return ID único basado en timestamp y nombre de usuario
+     * @return ID en formato "USU" + 19 digitos (ver GeneradorIds)
      */
     private String generarId() {
-        return "USR" + System.currentTimeMillis();
+        return GeneradorIds.generar("USU");
     }
     
     /**
@@ -199,6 +200,10 @@ public class Usuario implements Serializable {
         return ultimoAcceso;
     }
     
+    public void setUltimoAcceso(LocalDateTime ultimoAcceso) {
+        this.ultimoAcceso = ultimoAcceso;
+    }
+    
     public boolean isActivo() {
         return activo;
     }
@@ -0,0 +1,430 @@
+package persistencia;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * AlmacenFragmentado - Snapshot de un repositorio dividido en un archivo
+ * por clave (por ejemplo, uno por evento) mas un manifiesto.
+ *
+ * Para "datos/tickets.dat" los fragmentos quedan en "datos/tickets/" y el
+ * manifiesto en "datos/tickets/manifiesto.dat". Al iniciar solo se lee el
+ * manifiesto; cada fragmento se lee cuando se necesita y en el checkpoint
+ * solo se reescriben los fragmentos con cambios.
+ *
+ * Manifiesto:
+ * [int MAGIC][short VERSION][long secuencia][int n] y n veces
+ * [texto clave][texto archivo][int cantidad][byte r] y r veces [int m][m long huellas]
+ * Cada fragmento usa el formato de ArchivoBinario.
+ *
+ * Rutas: el repositorio registra claves de busqueda (el ID, el
+ * participante...) con agregarRuta(). Por cada fragmento el manifiesto
+ * guarda, ordenadas, las huellas de 64 bits de los valores de cada ruta, y
+ * fragmentosFriosCon() dice que fragmentos sin leer pueden tener un valor
+ * sin abrirlos: buscar un ID o un participante lee solo esos fragmentos.
+ * Una huella repetida solo hace leer un fragmento de mas. Cuesta 8 bytes
+ * por valor distinto en el manifiesto y en memoria. Un fragmento sin
+ * huellas (manifiesto de la version 1) se considera candidato para todo
+ * hasta que se lee por primera vez.
+ *
+ * Los fragmentos se escriben antes que el manifiesto, y el manifiesto guarda
+ * la secuencia del journal que cubren; si el proceso muere en medio, el
+ * journal se reproduce sobre los fragmentos nuevos sin efectos.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.2
+ * @param <T> Tipo de entidad
+ */
+public class AlmacenFragmentado<T> {
+
+    /** Firma del manifiesto: "EPM1" */
+    public static final int MAGIC = 0x45504D31;
+
+    /** Version actual del manifiesto (la 2 agrega las huellas de las rutas) */
+    public static final int VERSION = 2;
+
+    private final File directorio;
+    private final File manifiesto;
+    private final Function<T, String> extractorClave;
+    private final CodecEntidad<T> codec;
+
+    /** Fragmentos guardados: clave -> nombre del archivo */
+    private final LinkedHashMap<String, String> archivos;
+    private final LinkedHashMap<String, Integer> cantidades;
+    private final HashSet<String> cargados;
+    private final HashSet<String> sucios;
+    private long secuencia;
+
+    /** Archivos de fragmentos vaciados, que se borran cuando el manifiesto ya no los nombra */
+    private final HashSet<String> huerfanos;
+
+    /** Claves de busqueda registradas con agregarRuta() */
+    private final ArrayList<Function<T, ?>> rutas;
+
+    /** Huellas ordenadas de cada ruta por fragmento guardado (sin entrada = desconocidas) */
+    private final HashMap<String, long[][]> huellas;
+
+    /**
+     * Constructor
+     *
+     * @param nombreArchivo Archivo del snapshot sin fragmentar (define el directorio)
+     * @param extractorClave Funcion que obtiene la clave de fragmento de una entidad
+     * @param codec Codec de la entidad
+     */
+    public AlmacenFragmentado(String nombreArchivo, Function<T, String> extractorClave, CodecEntidad<T> codec) {
+        String base = nombreArchivo.endsWith(".dat")
+                ? nombreArchivo.substring(0, nombreArchivo.length() - 4) : nombreArchivo + ".fragmentos";
+        this.directorio = new File(base);
+        this.manifiesto = new File(directorio, "manifiesto.dat");
+        this.extractorClave = extractorClave;
+        this.codec = codec;
+        this.archivos = new LinkedHashMap<>();
+        this.cantidades = new LinkedHashMap<>();
+        this.cargados = new HashSet<>();
+        this.sucios = new HashSet<>();
+        this.secuencia = 0L;
+        this.huerfanos = new HashSet<>();
+        this.rutas = new ArrayList<>();
+        this.huellas = new HashMap<>();
+    }
+
+    /**
+     * Registra una clave de busqueda de las entidades.
+     * Debe llamarse antes de cargarManifiesto().
+     *
+     * @param extractor Funcion que obtiene el valor a buscar de una entidad
+     * @return Numero de ruta para fragmentosFriosCon()
+     */
+    public int agregarRuta(Function<T, ?> extractor) {
+        rutas.add(extractor);
+        return rutas.size() - 1;
+    }
+
+    /**
+     * Indica si ya existe el manifiesto (el repositorio ya esta fragmentado)
+     *
+     * @return true si hay manifiesto
+     */
+    public boolean existeManifiesto() {
+        return manifiesto.exists();
+    }
+
+    /**
+     * Lee el manifiesto. Los fragmentos quedan sin cargar.
+     *
+     * @throws IOException Si el manifiesto esta dañado
+     */
+    public void cargarManifiesto() throws IOException {
+        archivos.clear();
+        cantidades.clear();
+        cargados.clear();
+        huellas.clear();
+        try (FileChannel canal = FileChannel.open(manifiesto.toPath(), StandardOpenOption.READ)) {
+            LectorBinario entrada = new LectorBinario(canal);
+            if (entrada.leerInt() != MAGIC) {
+                throw new IOException("Formato de manifiesto desconocido: " + manifiesto);
+            }
+            int version = ((entrada.leerByte() & 0xFF) << 8) | (entrada.leerByte() & 0xFF);
+            if (version > VERSION) {
+                throw new IOException("Version de manifiesto no soportada: " + version);
+            }
+            secuencia = entrada.leerLong();
+            int cantidad = entrada.leerInt();
+            for (int i = 0; i < cantidad; i++) {
+                String clave = entrada.leerTexto();
+                archivos.put(clave, entrada.leerTexto());
+                cantidades.put(clave, entrada.leerInt());
+                if (version >= 2) {
+                    leerHuellas(entrada, clave);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene la clave de fragmento de una entidad
+     *
+     * @param entidad Entidad
+     * @return Clave del fragmento
+     */
+    public String clave(T entidad) {
+        return extractorClave.apply(entidad);
+    }
+
+    /**
+     * Indica si un fragmento esta guardado y todavia no se leyo
+     *
+     * @param clave Clave del fragmento
+     * @return true si hay que leerlo antes de usarlo
+     */
+    public boolean estaFrio(String clave) {
+        return archivos.containsKey(clave) && !cargados.contains(clave);
+    }
+
+    /**
+     * Claves de los fragmentos guardados que todavia no se leyeron
+     *
+     * @return Lista nueva de claves
+     */
+    public ArrayList<String> fragmentosFrios() {
+        ArrayList<String> frios = new ArrayList<>();
+        for (String clave : archivos.keySet()) {
+            if (!cargados.contains(clave)) {
+                frios.add(clave);
+            }
+        }
+        return frios;
+    }
+
+    /**
+     * Fragmentos guardados sin leer que pueden tener una entidad con un
+     * valor en una ruta
+     *
+     * @param ruta Numero devuelto por agregarRuta()
+     * @param valor Valor buscado
+     * @return Lista nueva de claves
+     */
+    public ArrayList<String> fragmentosFriosCon(int ruta, Object valor) {
+        long huella = huella(valor);
+        ArrayList<String> candidatos = new ArrayList<>();
+        for (String clave : archivos.keySet()) {
+            if (cargados.contains(clave)) {
+                continue;
+            }
+            long[][] delFragmento = huellas.get(clave);
+            if (delFragmento == null || Arrays.binarySearch(delFragmento[ruta], huella) >= 0) {
+                candidatos.add(clave);
+            }
+        }
+        return candidatos;
+    }
+
+    /**
+     * Lee las entidades de un fragmento y lo marca como cargado
+     *
+     * @param clave Clave del fragmento
+     * @return Entidades guardadas en el fragmento
+     * @throws IOException Si el fragmento no se puede leer
+     */
+    public ArrayList<T> leerFragmento(String clave) throws IOException {
+        ArrayList<T> entidades = new ArrayList<>();
+        String archivo = archivos.get(clave);
+        // Un fragmento listado que falta (borrado por una version anterior) se lee vacio
+        if (archivo != null && new File(directorio, archivo).exists()) {
+            try {
+                entidades = ArchivoBinario.cargar(new File(directorio, archivo), codec);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+            // Completa las huellas de un manifiesto anterior; se guardan en el proximo manifiesto
+            huellas.put(clave, calcularHuellas(entidades));
+        }
+        cargados.add(clave);
+        return entidades;
+    }
+
+    /**
+     * Marca un fragmento para reescribirlo en el proximo guardado
+     *
+     * @param clave Clave del fragmento
+     */
+    public void marcarSucio(String clave) {
+        sucios.add(clave);
+    }
+
+    /**
+     * Marca todos los fragmentos guardados para reescribirlos
+     */
+    public void marcarTodosSucios() {
+        sucios.addAll(archivos.keySet());
+    }
+
+    /**
+     * Cantidad de fragmentos con cambios sin guardar
+     *
+     * @return Fragmentos sucios
+     */
+    public int contarSucios() {
+        return sucios.size();
+    }
+
+    /**
+     * Cantidad de fragmentos guardados
+     *
+     * @return Fragmentos en el manifiesto
+     */
+    public int contarFragmentos() {
+        return archivos.size();
+    }
+
+    /**
+     * Ultima secuencia del journal incluida en los fragmentos
+     *
+     * @return Secuencia del manifiesto
+     */
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    /**
+     * Reescribe solo los fragmentos sucios y luego el manifiesto.
+     * Un fragmento que quedo vacio se borra despues de mover el manifiesto,
+     * para que ningun manifiesto en disco apunte a un archivo que ya no esta.
+     *
+     * @param entidadesDe Entidades actuales de cada clave
+     * @param nuevaSecuencia Ultima secuencia incluida
+     * @throws IOException Si hay error al escribir
+     */
+    public void guardar(Function<String, Collection<T>> entidadesDe, long nuevaSecuencia) throws IOException {
+        if (!directorio.exists()) {
+            directorio.mkdirs();
+        }
+        for (String clave : sucios) {
+            Collection<T> entidades = entidadesDe.apply(clave);
+            if (entidades.isEmpty()) {
+                String archivo = archivos.remove(clave);
+                cantidades.remove(clave);
+                huellas.remove(clave);
+                if (archivo != null) {
+                    huerfanos.add(archivo);
+                }
+                continue;
+            }
+            String archivo = archivos.computeIfAbsent(clave, this::nombreNuevo);
+            File destino = new File(directorio, archivo);
+            File temporal = new File(directorio, archivo + ".tmp");
+            ArchivoBinario.guardar(temporal, codec, entidades, nuevaSecuencia);
+            Files.move(temporal.toPath(), destino.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            cantidades.put(clave, entidades.size());
+            huellas.put(clave, calcularHuellas(entidades));
+            cargados.add(clave);
+        }
+        escribirManifiesto(nuevaSecuencia);
+        sucios.clear();
+        secuencia = nuevaSecuencia;
+        for (String archivo : new ArrayList<>(huerfanos)) {
+            Files.deleteIfExists(new File(directorio, archivo).toPath());
+            huerfanos.remove(archivo);
+        }
+    }
+
+    private void escribirManifiesto(long nuevaSecuencia) throws IOException {
+        File temporal = new File(directorio, "manifiesto.dat.tmp");
+        try (FileChannel canal = FileChannel.open(temporal.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             EscritorBinario salida = new EscritorBinario(canal)) {
+            salida.escribirInt(MAGIC);
+            salida.escribirByte(VERSION >> 8);
+            salida.escribirByte(VERSION);
+            salida.escribirLong(nuevaSecuencia);
+            salida.escribirInt(archivos.size());
+            for (Map.Entry<String, String> fragmento : archivos.entrySet()) {
+                salida.escribirTexto(fragmento.getKey());
+                salida.escribirTexto(fragmento.getValue());
+                salida.escribirInt(cantidades.getOrDefault(fragmento.getKey(), 0));
+                escribirHuellas(salida, huellas.get(fragmento.getKey()));
+            }
+        }
+        Files.move(temporal.toPath(), manifiesto.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void escribirHuellas(EscritorBinario salida, long[][] delFragmento) throws IOException {
+        if (delFragmento == null) {
+            salida.escribirByte(0);
+            return;
+        }
+        salida.escribirByte(delFragmento.length);
+        for (long[] deRuta : delFragmento) {
+            salida.escribirInt(deRuta.length);
+            for (long huella : deRuta) {
+                salida.escribirLong(huella);
+            }
+        }
+    }
+
+    /**
+     * Lee las huellas de un fragmento; si el manifiesto se guardo con otras
+     * rutas se descartan y el fragmento queda como candidato para todo
+     */
+    private void leerHuellas(LectorBinario entrada, String clave) throws IOException {
+        int cantidadRutas = entrada.leerByte() & 0xFF;
+        long[][] delFragmento = new long[cantidadRutas][];
+        for (int r = 0; r < cantidadRutas; r++) {
+            int cantidad = entrada.leerInt();
+            if (cantidad < 0) {
+                throw new IOException("Cantidad de huellas invalida en " + manifiesto + ": " + cantidad);
+            }
+            delFragmento[r] = new long[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                delFragmento[r][i] = entrada.leerLong();
+            }
+        }
+        if (cantidadRutas == rutas.size() && cantidadRutas > 0) {
+            huellas.put(clave, delFragmento);
+        }
+    }
+
+    /**
+     * Huellas ordenadas y sin repetir de cada ruta de un fragmento
+     */
+    private long[][] calcularHuellas(Collection<T> entidades) {
+        long[][] delFragmento = new long[rutas.size()][];
+        for (int r = 0; r < rutas.size(); r++) {
+            long[] valores = new long[entidades.size()];
+            int i = 0;
+            for (T entidad : entidades) {
+                valores[i++] = huella(rutas.get(r).apply(entidad));
+            }
+            Arrays.sort(valores);
+            int distintos = 0;
+            for (int j = 0; j < valores.length; j++) {
+                if (j == 0 || valores[j] != valores[distintos - 1]) {
+                    valores[distintos++] = valores[j];
+                }
+            }
+            delFragmento[r] = Arrays.copyOf(valores, distintos);
+        }
+        return delFragmento;
+    }
+
+    /**
+     * Huella de 64 bits (FNV-1a) del texto de un valor
+     */
+    private static long huella(Object valor) {
+        String texto = String.valueOf(valor);
+        long huella = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            huella ^= texto.charAt(i);
+            huella *= 0x100000001b3L;
+        }
+        return huella;
+    }
+
+    /**
+     * Nombre de archivo para una clave nueva: la clave con los caracteres
+     * no seguros reemplazados, y un sufijo si ese nombre ya esta en uso
+     */
+    private String nombreNuevo(String clave) {
+        String seguro = clave == null ? "sin-clave" : clave.replaceAll("[^A-Za-z0-9_-]", "_");
+        String nombre = seguro + ".dat";
+        int sufijo = 1;
+        while (archivos.containsValue(nombre) || huerfanos.contains(nombre) || nombre.equals("manifiesto.dat")) {
+            nombre = seguro + "-" + sufijo++ + ".dat";
+        }
+        return nombre;
+    }
+}
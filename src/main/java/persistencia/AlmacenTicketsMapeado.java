@@ -0,0 +1,556 @@
+package persistencia;
+
+import modelos.Ticket;
+import modelos.TipoTicket;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * AlmacenTicketsMapeado - Tickets guardados en un archivo mapeado en memoria
+ * con registros de ancho fijo, sin objetos Ticket en el heap.
+ *
+ * Cada ticket ocupa TAMANO_REGISTRO bytes. Los IDs de evento y participante
+ * se guardan como enteros de un DiccionarioClaves (archivo ruta + ".claves")
+ * y el ID del ticket como numero cuando tiene la forma "TKT" + digitos.
+ * Las lecturas (contar, sumar, verificar uso) leen los campos directamente
+ * del archivo; solo leer() construye un Ticket.
+ *
+ * Cabecera (32 bytes):
+ * [int MAGIC][int VERSION][int TAMANO_REGISTRO][int reservado][long cantidad][long secuencia]
+ *
+ * Registro (48 bytes):
+ * [long id][int evento][int participante][long fechaCompra][long fechaUso]
+ * [double precio][byte tipo][byte usado][6 bytes reservados]
+ *
+ * Un alta escribe primero el registro y despues incrementa la cantidad de la
+ * cabecera, asi que un registro a medio escribir queda fuera. Marcar un
+ * ticket como usado modifica solo su propio registro.
+ *
+ * En memoria solo se mantienen indices primitivos: ID -> posicion y las
+ * posiciones de cada evento y de cada participante.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class AlmacenTicketsMapeado implements Closeable {
+
+    /** Firma del formato: "EPT1" */
+    public static final int MAGIC = 0x45505431;
+
+    /** Version actual del formato */
+    public static final int VERSION = 1;
+
+    /** Bytes de la cabecera */
+    public static final int TAMANO_CABECERA = 32;
+
+    /** Bytes de cada registro */
+    public static final int TAMANO_REGISTRO = 48;
+
+    private static final int CAB_CANTIDAD = 16;
+    private static final int CAB_SECUENCIA = 24;
+
+    private static final int REG_ID = 0;
+    private static final int REG_EVENTO = 8;
+    private static final int REG_PARTICIPANTE = 12;
+    private static final int REG_COMPRA = 16;
+    private static final int REG_USO = 24;
+    private static final int REG_PRECIO = 32;
+    private static final int REG_TIPO = 40;
+    private static final int REG_USADO = 41;
+
+    /** Registros que caben en un mapeo de 2 GB */
+    private static final int MAXIMO_REGISTROS = (Integer.MAX_VALUE - TAMANO_CABECERA) / TAMANO_REGISTRO;
+
+    private static final TipoTicket[] TIPOS = TipoTicket.values();
+
+    private final File archivo;
+    private final FileChannel canal;
+    private final DiccionarioClaves claves;
+    private MappedByteBuffer mapa;
+    private int capacidad;
+    private int cantidad;
+
+    // ==================== INDICES EN MEMORIA ====================
+    private final TablaPosiciones porId;
+    private ListaPosiciones[] porEvento;
+    private ListaPosiciones[] porParticipante;
+
+    /**
+     * Abre (o crea) el almacen y reconstruye los indices leyendo los registros
+     *
+     * @param ruta Ruta del archivo de registros
+     * @throws IOException Si el archivo esta dañado o no se puede mapear
+     */
+    public AlmacenTicketsMapeado(String ruta) throws IOException {
+        this.archivo = new File(ruta);
+        File padre = archivo.getAbsoluteFile().getParentFile();
+        if (padre != null && !padre.exists()) {
+            padre.mkdirs();
+        }
+        boolean nuevo = !archivo.exists() || archivo.length() < TAMANO_CABECERA;
+        this.canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.claves = new DiccionarioClaves(ruta + ".claves");
+        this.porId = new TablaPosiciones();
+        this.porEvento = new ListaPosiciones[16];
+        this.porParticipante = new ListaPosiciones[16];
+
+        if (nuevo) {
+            mapear(1024);
+            mapa.putInt(0, MAGIC);
+            mapa.putInt(4, VERSION);
+            mapa.putInt(8, TAMANO_REGISTRO);
+            mapa.putLong(CAB_CANTIDAD, 0L);
+            mapa.putLong(CAB_SECUENCIA, 0L);
+            cantidad = 0;
+        } else {
+            mapear((int) Math.max(1024, (canal.size() - TAMANO_CABECERA) / TAMANO_REGISTRO));
+            if (mapa.getInt(0) != MAGIC) {
+                throw new IOException("Formato de archivo desconocido: " + archivo);
+            }
+            if (mapa.getInt(4) > VERSION || mapa.getInt(8) != TAMANO_REGISTRO) {
+                throw new IOException("Version de almacen no soportada: " + mapa.getInt(4));
+            }
+            cantidad = (int) Math.min(mapa.getLong(CAB_CANTIDAD), capacidad);
+            for (int i = 0; i < cantidad; i++) {
+                indexar(i);
+            }
+        }
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Agrega un ticket al final del almacen
+     *
+     * @param ticket Ticket a guardar
+     * @return Posicion del registro
+     * @throws IOException Si hay error al escribir o el ID ya existe
+     */
+    public synchronized int agregar(Ticket ticket) throws IOException {
+        long id = codificarId(ticket.getId());
+        if (porId.buscar(id) >= 0) {
+            throw new IOException("Ticket duplicado en el almacen: " + ticket.getId());
+        }
+        int evento = claves.obtenerOCrear(ticket.getEventoId());
+        int participante = claves.obtenerOCrear(ticket.getParticipanteId());
+        if (cantidad == capacidad) {
+            if (capacidad == MAXIMO_REGISTROS) {
+                throw new IOException("El almacen de tickets esta lleno");
+            }
+            mapear((int) Math.min(MAXIMO_REGISTROS, (long) capacidad * 2));
+        }
+
+        int base = posicion(cantidad);
+        mapa.putLong(base + REG_ID, id);
+        mapa.putInt(base + REG_EVENTO, evento);
+        mapa.putInt(base + REG_PARTICIPANTE, participante);
+        mapa.putLong(base + REG_COMPRA, aMilis(ticket.getFechaCompra()));
+        mapa.putLong(base + REG_USO, aMilis(ticket.getFechaUso()));
+        mapa.putDouble(base + REG_PRECIO, ticket.getPrecio());
+        mapa.put(base + REG_TIPO, (byte) (ticket.getTipo() == null ? -1 : ticket.getTipo().ordinal()));
+        mapa.put(base + REG_USADO, (byte) (ticket.isUsado() ? 1 : 0));
+
+        int indice = cantidad;
+        cantidad++;
+        mapa.putLong(CAB_CANTIDAD, cantidad);
+        indexar(indice);
+        return indice;
+    }
+
+    /**
+     * Marca un ticket como usado modificando solo su registro.
+     * El uso es definitivo: un ticket usado no vuelve a quedar vigente.
+     *
+     * @param indice Posicion del registro
+     * @param fechaUso Momento del uso
+     * @return true si estaba vigente y se marco
+     */
+    public synchronized boolean marcarComoUsado(int indice, LocalDateTime fechaUso) {
+        int base = posicion(verificar(indice));
+        if (mapa.get(base + REG_USADO) != 0) {
+            return false;
+        }
+        mapa.putLong(base + REG_USO, aMilis(fechaUso));
+        mapa.put(base + REG_USADO, (byte) 1);
+        return true;
+    }
+
+    /**
+     * Fuerza a disco solo el registro indicado
+     *
+     * @param indice Posicion del registro
+     */
+    public synchronized void sincronizarRegistro(int indice) {
+        mapa.force(posicion(verificar(indice)), TAMANO_REGISTRO);
+    }
+
+    /**
+     * Fuerza a disco todos los registros, la cabecera y el diccionario
+     *
+     * @throws IOException Si hay error al sincronizar
+     */
+    public synchronized void sincronizar() throws IOException {
+        claves.sincronizar();
+        mapa.force();
+    }
+
+    /**
+     * Elimina todos los registros (el diccionario de claves se conserva)
+     */
+    public synchronized void vaciar() {
+        cantidad = 0;
+        mapa.putLong(CAB_CANTIDAD, 0L);
+        porId.limpiar();
+        Arrays.fill(porEvento, null);
+        Arrays.fill(porParticipante, null);
+    }
+
+    /**
+     * Ultima secuencia del journal incluida en el almacen
+     *
+     * @return Secuencia guardada en la cabecera
+     */
+    public synchronized long getSecuencia() {
+        return mapa.getLong(CAB_SECUENCIA);
+    }
+
+    /**
+     * Guarda en la cabecera la ultima secuencia del journal incluida
+     *
+     * @param secuencia Secuencia a guardar
+     */
+    public synchronized void setSecuencia(long secuencia) {
+        mapa.putLong(CAB_SECUENCIA, secuencia);
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Cantidad de tickets guardados
+     *
+     * @return Numero de registros
+     */
+    public synchronized int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Busca la posicion de un ticket por su ID
+     *
+     * @param ticketId ID del ticket
+     * @return Posicion del registro o -1 si no existe
+     */
+    public synchronized int buscar(String ticketId) {
+        long id = codificarIdExistente(ticketId);
+        return id == Long.MIN_VALUE ? -1 : porId.buscar(id);
+    }
+
+    /**
+     * Construye el Ticket de un registro
+     *
+     * @param indice Posicion del registro
+     * @return Ticket con los datos del registro
+     */
+    public synchronized Ticket leer(int indice) {
+        int base = posicion(verificar(indice));
+        int tipo = mapa.get(base + REG_TIPO);
+        return new Ticket(
+                decodificarId(mapa.getLong(base + REG_ID)),
+                claves.texto(mapa.getInt(base + REG_EVENTO)),
+                claves.texto(mapa.getInt(base + REG_PARTICIPANTE)),
+                tipo < 0 ? null : TIPOS[tipo],
+                mapa.getDouble(base + REG_PRECIO),
+                deMilis(mapa.getLong(base + REG_COMPRA)),
+                mapa.get(base + REG_USADO) != 0,
+                deMilis(mapa.getLong(base + REG_USO)));
+    }
+
+    /**
+     * Indica si el ticket de un registro ya fue usado, sin construirlo
+     *
+     * @param indice Posicion del registro
+     * @return true si esta usado
+     */
+    public synchronized boolean isUsado(int indice) {
+        return mapa.get(posicion(verificar(indice)) + REG_USADO) != 0;
+    }
+
+    /**
+     * Precio del ticket de un registro, sin construirlo
+     *
+     * @param indice Posicion del registro
+     * @return Precio pagado
+     */
+    public synchronized double getPrecio(int indice) {
+        return mapa.getDouble(posicion(verificar(indice)) + REG_PRECIO);
+    }
+
+    /**
+     * Tipo del ticket de un registro, sin construirlo
+     *
+     * @param indice Posicion del registro
+     * @return Tipo de ticket
+     */
+    public synchronized TipoTicket getTipo(int indice) {
+        int tipo = mapa.get(posicion(verificar(indice)) + REG_TIPO);
+        return tipo < 0 ? null : TIPOS[tipo];
+    }
+
+    /**
+     * Posiciones de los tickets de un evento, en orden de alta
+     *
+     * @param eventoId ID del evento
+     * @return Arreglo nuevo con las posiciones (vacio si no hay)
+     */
+    public synchronized int[] posicionesDeEvento(String eventoId) {
+        return copiar(porEvento, claves.buscar(eventoId));
+    }
+
+    /**
+     * Posiciones de los tickets de un participante, en orden de alta
+     *
+     * @param participanteId ID del participante
+     * @return Arreglo nuevo con las posiciones (vacio si no hay)
+     */
+    public synchronized int[] posicionesDeParticipante(String participanteId) {
+        return copiar(porParticipante, claves.buscar(participanteId));
+    }
+
+    /**
+     * Cuenta los tickets de un evento
+     *
+     * @param eventoId ID del evento
+     * @return Cantidad de tickets
+     */
+    public synchronized int contarPorEvento(String eventoId) {
+        return contar(porEvento, claves.buscar(eventoId));
+    }
+
+    /**
+     * Cuenta los tickets de un participante
+     *
+     * @param participanteId ID del participante
+     * @return Cantidad de tickets
+     */
+    public synchronized int contarPorParticipante(String participanteId) {
+        return contar(porParticipante, claves.buscar(participanteId));
+    }
+
+    /**
+     * Cuenta los tickets ya usados de un evento leyendo solo el byte de uso
+     *
+     * @param eventoId ID del evento
+     * @return Cantidad de tickets usados
+     */
+    public synchronized int contarUsadosPorEvento(String eventoId) {
+        int clave = claves.buscar(eventoId);
+        if (clave < 0 || clave >= porEvento.length || porEvento[clave] == null) {
+            return 0;
+        }
+        ListaPosiciones lista = porEvento[clave];
+        int usados = 0;
+        for (int i = 0; i < lista.tamano; i++) {
+            if (mapa.get(posicion(lista.valores[i]) + REG_USADO) != 0) {
+                usados++;
+            }
+        }
+        return usados;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sincronizar();
+        claves.close();
+        canal.close();
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void mapear(int registros) throws IOException {
+        capacidad = registros;
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0,
+                TAMANO_CABECERA + (long) registros * TAMANO_REGISTRO);
+    }
+
+    private void indexar(int indice) {
+        int base = posicion(indice);
+        porId.poner(mapa.getLong(base + REG_ID), indice);
+        porEvento = agregarA(porEvento, mapa.getInt(base + REG_EVENTO), indice);
+        porParticipante = agregarA(porParticipante, mapa.getInt(base + REG_PARTICIPANTE), indice);
+    }
+
+    private int verificar(int indice) {
+        if (indice < 0 || indice >= cantidad) {
+            throw new IndexOutOfBoundsException("Registro inexistente: " + indice);
+        }
+        return indice;
+    }
+
+    private static int posicion(int indice) {
+        return TAMANO_CABECERA + indice * TAMANO_REGISTRO;
+    }
+
+    private static ListaPosiciones[] agregarA(ListaPosiciones[] listas, int clave, int indice) {
+        if (clave >= listas.length) {
+            listas = Arrays.copyOf(listas, Math.max(clave + 1, listas.length * 2));
+        }
+        if (listas[clave] == null) {
+            listas[clave] = new ListaPosiciones();
+        }
+        listas[clave].agregar(indice);
+        return listas;
+    }
+
+    private static int[] copiar(ListaPosiciones[] listas, int clave) {
+        if (clave < 0 || clave >= listas.length || listas[clave] == null) {
+            return new int[0];
+        }
+        return Arrays.copyOf(listas[clave].valores, listas[clave].tamano);
+    }
+
+    private static int contar(ListaPosiciones[] listas, int clave) {
+        if (clave < 0 || clave >= listas.length || listas[clave] == null) {
+            return 0;
+        }
+        return listas[clave].tamano;
+    }
+
+    /**
+     * "TKT" + digitos se guarda como el numero; cualquier otro ID se guarda
+     * como clave del diccionario en negativo
+     */
+    private long codificarId(String ticketId) throws IOException {
+        long numero = numeroDeId(ticketId);
+        return numero >= 0 ? numero : -1L - claves.obtenerOCrear(ticketId);
+    }
+
+    private long codificarIdExistente(String ticketId) {
+        if (ticketId == null) {
+            return Long.MIN_VALUE;
+        }
+        long numero = numeroDeId(ticketId);
+        if (numero >= 0) {
+            return numero;
+        }
+        int clave = claves.buscar(ticketId);
+        return clave < 0 ? Long.MIN_VALUE : -1L - clave;
+    }
+
+    private String decodificarId(long id) {
+        return id >= 0 ? "TKT" + id : claves.texto((int) (-1L - id));
+    }
+
+    private static long numeroDeId(String ticketId) {
+        int largo = ticketId.length();
+        if (!ticketId.startsWith("TKT") || largo < 4 || largo > 22
+                || (ticketId.charAt(3) == '0' && largo > 4)) {
+            return -1;
+        }
+        long numero = 0;
+        for (int i = 3; i < largo; i++) {
+            char c = ticketId.charAt(i);
+            if (c < '0' || c > '9' || numero > (Long.MAX_VALUE - (c - '0')) / 10) {
+                return -1;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+
+    private static long aMilis(LocalDateTime fecha) {
+        return fecha == null ? EscritorBinario.FECHA_NULA : fecha.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime deMilis(long milis) {
+        return milis == EscritorBinario.FECHA_NULA
+                ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(milis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Lista creciente de posiciones (enteros primitivos)
+     */
+    private static final class ListaPosiciones {
+        private int[] valores = new int[4];
+        private int tamano;
+
+        private void agregar(int valor) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = valor;
+        }
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto: ID numerico -> posicion
+     */
+    private static final class TablaPosiciones {
+        private long[] ids = new long[1024];
+        private int[] posiciones = new int[1024];
+        private boolean[] ocupados = new boolean[1024];
+        private int tamano;
+
+        private int buscar(long id) {
+            int mascara = ids.length - 1;
+            for (int i = mezclar(id) & mascara; ocupados[i]; i = (i + 1) & mascara) {
+                if (ids[i] == id) {
+                    return posiciones[i];
+                }
+            }
+            return -1;
+        }
+
+        private void poner(long id, int posicion) {
+            if ((tamano + 1) * 2 > ids.length) {
+                crecer();
+            }
+            int mascara = ids.length - 1;
+            int i = mezclar(id) & mascara;
+            while (ocupados[i]) {
+                if (ids[i] == id) {
+                    posiciones[i] = posicion;
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            ids[i] = id;
+            posiciones[i] = posicion;
+            ocupados[i] = true;
+            tamano++;
+        }
+
+        private void limpiar() {
+            Arrays.fill(ocupados, false);
+            tamano = 0;
+        }
+
+        private void crecer() {
+            long[] viejosIds = ids;
+            int[] viejasPosiciones = posiciones;
+            boolean[] viejosOcupados = ocupados;
+            ids = new long[viejosIds.length * 2];
+            posiciones = new int[viejosIds.length * 2];
+            ocupados = new boolean[viejosIds.length * 2];
+            tamano = 0;
+            for (int i = 0; i < viejosIds.length; i++) {
+                if (viejosOcupados[i]) {
+                    poner(viejosIds[i], viejasPosiciones[i]);
+                }
+            }
+        }
+
+        private static int mezclar(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
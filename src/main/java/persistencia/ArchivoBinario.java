@@ -0,0 +1,225 @@
+package persistencia;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * ArchivoBinario - Lectura y escritura de archivos de entidades en el
+ * formato binario propio.
+ *
+ * Formato del archivo:
+ * [int MAGIC][short VERSION][long secuencia][int cantidad][registro]...
+ * donde cada registro es el resultado del CodecEntidad correspondiente y
+ * secuencia es el ultimo cambio del journal incluido en el snapshot
+ * (la version 1 no tenia secuencia). La version 3 agrega la referencia de
+ * grupo al final de cada Pago.
+ *
+ * Los archivos antiguos escritos con ObjectOutputStream (empiezan con
+ * 0xACED) se siguen leyendo de forma transparente; el siguiente guardado
+ * los reescribe en el formato nuevo.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.2
+ */
+public final class ArchivoBinario {
+
+    /** Firma del formato: "EPB1" */
+    public static final int MAGIC = 0x45504231;
+
+    /** Version actual del formato de registros */
+    public static final int VERSION = 3;
+
+    /** Primeros bytes de un stream de serializacion de Java */
+    private static final short MAGIC_SERIALIZACION = (short) 0xACED;
+
+    private ArchivoBinario() {
+    }
+
+    /**
+     * Escribe una coleccion de entidades en un archivo
+     *
+     * @param <T> Tipo de entidad
+     * @param archivo Archivo destino (se sobrescribe)
+     * @param codec Codec de la entidad
+     * @param entidades Entidades a guardar
+     * @throws IOException Si hay error al escribir
+     */
+    public static <T> void guardar(File archivo, CodecEntidad<T> codec, Collection<T> entidades) throws IOException {
+        guardar(archivo, codec, entidades, 0L);
+    }
+
+    /**
+     * Escribe una coleccion de entidades en un archivo junto con la
+     * secuencia del ultimo cambio que incluye
+     *
+     * @param <T> Tipo de entidad
+     * @param archivo Archivo destino (se sobrescribe)
+     * @param codec Codec de la entidad
+     * @param entidades Entidades a guardar
+     * @param secuencia Secuencia del ultimo cambio incluido
+     * @throws IOException Si hay error al escribir
+     */
+    public static <T> void guardar(File archivo, CodecEntidad<T> codec, Collection<T> entidades,
+                                   long secuencia) throws IOException {
+        File padre = archivo.getAbsoluteFile().getParentFile();
+        if (padre != null && !padre.exists()) {
+            padre.mkdirs();
+        }
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             EscritorBinario salida = new EscritorBinario(canal)) {
+            salida.escribirInt(MAGIC);
+            salida.escribirByte(VERSION >> 8);
+            salida.escribirByte(VERSION);
+            salida.escribirLong(secuencia);
+            salida.escribirInt(entidades.size());
+            for (T entidad : entidades) {
+                codec.escribir(salida, entidad);
+            }
+        }
+    }
+
+    /**
+     * Lee todas las entidades de un archivo, en formato binario o legado
+     *
+     * @param <T> Tipo de entidad
+     * @param archivo Archivo origen
+     * @param codec Codec de la entidad
+     * @return Lista de entidades
+     * @throws IOException Si el archivo no existe o esta dañado
+     * @throws ClassNotFoundException Si el archivo legado referencia clases inexistentes
+     */
+    public static <T> ArrayList<T> cargar(File archivo, CodecEntidad<T> codec)
+            throws IOException, ClassNotFoundException {
+        if (esFormatoLegado(archivo)) {
+            return cargarLegado(archivo);
+        }
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            LectorBinario entrada = abrir(canal, archivo);
+            int cantidad = entrada.leerInt();
+            if (cantidad < 0) {
+                throw new IOException("Cantidad de registros invalida: " + cantidad);
+            }
+            ArrayList<T> entidades = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                entidades.add(codec.leer(entrada));
+            }
+            return entidades;
+        }
+    }
+
+    /**
+     * Lee solo la secuencia guardada en la cabecera del snapshot
+     *
+     * @param archivo Archivo a inspeccionar
+     * @return Secuencia del ultimo cambio incluido, 0 si no existe o es de un formato anterior
+     * @throws IOException Si la cabecera esta dañada
+     */
+    public static long leerSecuencia(File archivo) throws IOException {
+        if (!archivo.exists() || archivo.length() == 0 || esFormatoLegado(archivo)) {
+            return 0L;
+        }
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            return abrir(canal, archivo).getSecuencia();
+        }
+    }
+
+    /**
+     * Indica si el archivo fue escrito con ObjectOutputStream
+     *
+     * @param archivo Archivo a inspeccionar
+     * @return true si empieza con la firma de serializacion de Java
+     * @throws IOException Si el archivo no existe o no se puede leer
+     */
+    public static boolean esFormatoLegado(File archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(2);
+            while (cabecera.hasRemaining() && canal.read(cabecera) >= 0) {
+                // leer hasta completar la cabecera o llegar al final
+            }
+            return cabecera.position() == 2 && cabecera.getShort(0) == MAGIC_SERIALIZACION;
+        }
+    }
+
+    /**
+     * Codifica una sola entidad (para registros del journal).
+     * El registro lleva delante la version del formato.
+     *
+     * @param <T> Tipo de entidad
+     * @param codec Codec de la entidad
+     * @param entidad Entidad a codificar
+     * @return Bytes del registro
+     * @throws IOException Si hay error al codificar
+     */
+    public static <T> byte[] codificar(CodecEntidad<T> codec, T entidad) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (EscritorBinario salida = new EscritorBinario(Channels.newChannel(bytes))) {
+            salida.escribirByte(VERSION >> 8);
+            salida.escribirByte(VERSION);
+            codec.escribir(salida, entidad);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica una entidad escrita por codificar()
+     *
+     * @param <T> Tipo de entidad
+     * @param codec Codec de la entidad
+     * @param contenido Bytes del registro
+     * @return Entidad reconstruida
+     * @throws IOException Si los bytes estan incompletos
+     */
+    public static <T> T decodificar(CodecEntidad<T> codec, byte[] contenido) throws IOException {
+        LectorBinario entrada = new LectorBinario(Channels.newChannel(new ByteArrayInputStream(contenido)));
+        int version = ((entrada.leerByte() & 0xFF) << 8) | (entrada.leerByte() & 0xFF);
+        if (version > VERSION) {
+            throw new IOException("Version de registro no soportada: " + version);
+        }
+        entrada.setVersion(version);
+        return codec.leer(entrada);
+    }
+
+    /**
+     * Indica si un registro fue escrito con ObjectOutputStream
+     *
+     * @param contenido Bytes del registro
+     * @return true si empieza con la firma de serializacion de Java
+     */
+    public static boolean esFormatoLegado(byte[] contenido) {
+        return contenido.length >= 2
+                && (short) (((contenido[0] & 0xFF) << 8) | (contenido[1] & 0xFF)) == MAGIC_SERIALIZACION;
+    }
+
+    /**
+     * Lee y valida la cabecera, dejando el lector en el primer campo de datos
+     */
+    private static LectorBinario abrir(FileChannel canal, File archivo) throws IOException {
+        LectorBinario entrada = new LectorBinario(canal);
+        if (entrada.leerInt() != MAGIC) {
+            throw new IOException("Formato de archivo desconocido: " + archivo);
+        }
+        int version = ((entrada.leerByte() & 0xFF) << 8) | (entrada.leerByte() & 0xFF);
+        if (version > VERSION) {
+            throw new IOException("Version de archivo no soportada: " + version);
+        }
+        entrada.setVersion(version);
+        if (version >= 2) {
+            entrada.setSecuencia(entrada.leerLong());
+        }
+        return entrada;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArrayList<T> cargarLegado(File archivo) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream lectura = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(archivo)))) {
+            return (ArrayList<T>) lectura.readObject();
+        }
+    }
+}
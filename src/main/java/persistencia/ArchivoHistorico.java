@@ -0,0 +1,447 @@
+package persistencia;
+
+import modelos.Evento;
+import modelos.Pago;
+import modelos.Ticket;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ArchivoHistorico - Archivo frio, comprimido y de solo-anexar para los
+ * eventos finalizados o cancelados junto con sus tickets y pagos.
+ *
+ * Cada archivado agrega segmentos de hasta EVENTOS_POR_SEGMENTO eventos al
+ * final de datos/historico.dat:
+ * [int MAGIC][short VERSION][short version registros][long fecha][int n][UTF id de evento]...
+ * [int bytes eventos][int bytes tickets][int bytes pagos]
+ * [GZIP eventos][GZIP tickets][GZIP pagos]
+ * Cada bloque GZIP contiene [int n][registro]... con los codecs de CodecsModelo.
+ *
+ * La cabecera lleva los IDs sin comprimir: al abrir solo se leen las
+ * cabeceras para armar el indice evento -> segmento. Buscar un evento
+ * descomprime un solo segmento pequeño, y recorrer los pagos no
+ * descomprime eventos ni tickets.
+ *
+ * Un segmento cortado al final (escritura interrumpida) se descarta. Si
+ * un archivado falla a mitad, el archivo se recorta al largo que tenia
+ * antes; asi el siguiente no queda detras de bytes rotos.
+ * Cada segmento guarda la version de ArchivoBinario con que se escribieron
+ * sus registros; los segmentos de la version 1 no la tienen y usan la 2.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.2
+ */
+public class ArchivoHistorico {
+
+    /** Firma de cada segmento: "EPH1" */
+    public static final int MAGIC = 0x45504831;
+
+    /** Version actual del segmento (los registros usan la de ArchivoBinario) */
+    public static final int VERSION = 2;
+
+    /** Version de los registros en los segmentos de la version 1 */
+    private static final int VERSION_REGISTROS_V1 = 2;
+
+    /** Eventos por segmento: acota lo que se descomprime por consulta */
+    public static final int EVENTOS_POR_SEGMENTO = 64;
+
+    private static final String ARCHIVO = "datos/historico.dat";
+
+    private static final int BLOQUE_EVENTOS = 0;
+    private static final int BLOQUE_TICKETS = 1;
+    private static final int BLOQUE_PAGOS = 2;
+
+    /**
+     * Ubicacion de un segmento en el archivo
+     */
+    private static final class Segmento {
+        private final long[] inicioBloque = new long[3];
+        private final int[] largoBloque = new int[3];
+        private int versionRegistros = ArchivoBinario.VERSION;
+    }
+
+    private final File archivo;
+
+    /** Segmentos en orden de escritura */
+    private final ArrayList<Segmento> segmentos;
+
+    /** Evento archivado -> su segmento */
+    private final HashMap<String, Segmento> segmentoPorEvento;
+
+    /** Fin del ultimo segmento completo */
+    private long largoValido;
+
+    /** Ultimo bloque descomprimido (las consultas suelen repetir evento) */
+    private Segmento segmentoEnCache;
+    private int bloqueEnCache = -1;
+    private ArrayList<?> bloqueDescomprimido;
+
+    /**
+     * Abre el archivo historico por defecto
+     */
+    public ArchivoHistorico() {
+        this(ARCHIVO);
+    }
+
+    /**
+     * Abre (o crea) un archivo historico y lee el indice de sus cabeceras
+     *
+     * @param ruta Ruta del archivo
+     */
+    public ArchivoHistorico(String ruta) {
+        this.archivo = new File(ruta);
+        this.segmentos = new ArrayList<>();
+        this.segmentoPorEvento = new HashMap<>();
+        try {
+            leerIndice();
+            System.out.println("[ArchivoHistorico] " + segmentoPorEvento.size() + " eventos archivados en "
+                    + segmentos.size() + " segmentos");
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo historico " + ruta, e);
+        }
+    }
+
+    /**
+     * Agrega eventos con sus tickets y pagos y los fuerza a disco.
+     * Los eventos que ya estaban archivados no se repiten.
+     *
+     * @param eventos Eventos a archivar
+     * @param tickets Tickets de esos eventos
+     * @param pagos Pagos de esos eventos
+     * @throws IOException Si hay error al escribir
+     */
+    public synchronized void archivar(Collection<Evento> eventos, Collection<Ticket> tickets,
+                                      Collection<Pago> pagos) throws IOException {
+        ArrayList<Evento> nuevos = new ArrayList<>();
+        for (Evento evento : eventos) {
+            if (!segmentoPorEvento.containsKey(evento.getId())) {
+                nuevos.add(evento);
+            }
+        }
+        if (nuevos.isEmpty()) {
+            return;
+        }
+        HashMap<String, ArrayList<Ticket>> ticketsPorEvento = new HashMap<>();
+        for (Ticket ticket : tickets) {
+            ticketsPorEvento.computeIfAbsent(ticket.getEventoId(), clave -> new ArrayList<>()).add(ticket);
+        }
+        HashMap<String, ArrayList<Pago>> pagosPorEvento = new HashMap<>();
+        for (Pago pago : pagos) {
+            pagosPorEvento.computeIfAbsent(pago.getEventoId(), clave -> new ArrayList<>()).add(pago);
+        }
+
+        File padre = archivo.getAbsoluteFile().getParentFile();
+        if (padre != null && !padre.exists()) {
+            padre.mkdirs();
+        }
+        if (archivo.length() > largoValido) {
+            // Restos de un archivado que fallo y no se pudo recortar
+            recortar(largoValido);
+        }
+        long posicion = largoValido;
+        long bytesEscritos = 0;
+        int ticketsArchivados = 0;
+        int pagosArchivados = 0;
+        ArrayList<Segmento> escritos = new ArrayList<>();
+        try (FileOutputStream archivoSalida = new FileOutputStream(archivo, true)) {
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(archivoSalida));
+            for (int desde = 0; desde < nuevos.size(); desde += EVENTOS_POR_SEGMENTO) {
+                List<Evento> grupo = nuevos.subList(desde, Math.min(nuevos.size(), desde + EVENTOS_POR_SEGMENTO));
+                ArrayList<Ticket> ticketsGrupo = new ArrayList<>();
+                ArrayList<Pago> pagosGrupo = new ArrayList<>();
+                for (Evento evento : grupo) {
+                    ticketsGrupo.addAll(ticketsPorEvento.getOrDefault(evento.getId(), new ArrayList<>()));
+                    pagosGrupo.addAll(pagosPorEvento.getOrDefault(evento.getId(), new ArrayList<>()));
+                }
+                byte[][] bloques = {
+                    comprimir(CodecsModelo.EVENTO, grupo),
+                    comprimir(CodecsModelo.TICKET, ticketsGrupo),
+                    comprimir(CodecsModelo.PAGO, pagosGrupo)
+                };
+
+                salida.writeInt(MAGIC);
+                salida.writeShort(VERSION);
+                salida.writeShort(ArchivoBinario.VERSION);
+                salida.writeLong(System.currentTimeMillis());
+                salida.writeInt(grupo.size());
+                for (Evento evento : grupo) {
+                    salida.writeUTF(evento.getId());
+                }
+                for (byte[] bloque : bloques) {
+                    salida.writeInt(bloque.length);
+                }
+                Segmento segmento = new Segmento();
+                long inicio = posicion + salida.size();
+                for (int i = 0; i < bloques.length; i++) {
+                    segmento.inicioBloque[i] = inicio;
+                    segmento.largoBloque[i] = bloques[i].length;
+                    inicio += bloques[i].length;
+                    salida.write(bloques[i]);
+                }
+                escritos.add(segmento);
+                ticketsArchivados += ticketsGrupo.size();
+                pagosArchivados += pagosGrupo.size();
+            }
+            salida.flush();
+            bytesEscritos = salida.size();
+            archivoSalida.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            // No dejar segmentos a medias: al reiniciar se descartaria todo lo que venga detras
+            try {
+                recortar(posicion);
+            } catch (IOException recorte) {
+                e.addSuppressed(recorte);
+            }
+            throw e;
+        }
+        largoValido = posicion + bytesEscritos;
+        for (int i = 0; i < escritos.size(); i++) {
+            segmentos.add(escritos.get(i));
+            int hasta = Math.min(nuevos.size(), (i + 1) * EVENTOS_POR_SEGMENTO);
+            for (int j = i * EVENTOS_POR_SEGMENTO; j < hasta; j++) {
+                segmentoPorEvento.put(nuevos.get(j).getId(), escritos.get(i));
+            }
+        }
+        System.out.println("[ArchivoHistorico] " + nuevos.size() + " eventos, " + ticketsArchivados
+                + " tickets y " + pagosArchivados + " pagos archivados (" + bytesEscritos / 1024 + " KB)");
+    }
+
+    /**
+     * Indica si un evento esta archivado
+     *
+     * @param eventoId ID del evento
+     * @return true si el evento esta en el archivo
+     */
+    public synchronized boolean contiene(String eventoId) {
+        return segmentoPorEvento.containsKey(eventoId);
+    }
+
+    /**
+     * Cantidad de eventos archivados (sin descomprimir nada)
+     *
+     * @return Eventos en el archivo
+     */
+    public synchronized int contarEventos() {
+        return segmentoPorEvento.size();
+    }
+
+    /**
+     * Busca un evento archivado
+     *
+     * @param eventoId ID del evento
+     * @return Evento o null si no esta archivado
+     * @throws IOException Si hay error al leer el segmento
+     */
+    public synchronized Evento buscarEvento(String eventoId) throws IOException {
+        Segmento segmento = segmentoPorEvento.get(eventoId);
+        if (segmento == null) {
+            return null;
+        }
+        for (Evento evento : leerBloque(segmento, BLOQUE_EVENTOS, CodecsModelo.EVENTO)) {
+            if (evento.getId().equals(eventoId)) {
+                return evento;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tickets archivados de un evento
+     *
+     * @param eventoId ID del evento
+     * @return Lista de tickets (vacia si el evento no esta archivado)
+     * @throws IOException Si hay error al leer el segmento
+     */
+    public synchronized ArrayList<Ticket> buscarTicketsPorEvento(String eventoId) throws IOException {
+        ArrayList<Ticket> resultado = new ArrayList<>();
+        Segmento segmento = segmentoPorEvento.get(eventoId);
+        if (segmento != null) {
+            for (Ticket ticket : leerBloque(segmento, BLOQUE_TICKETS, CodecsModelo.TICKET)) {
+                if (ticket.getEventoId().equals(eventoId)) {
+                    resultado.add(ticket);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Pagos archivados de un evento
+     *
+     * @param eventoId ID del evento
+     * @return Lista de pagos (vacia si el evento no esta archivado)
+     * @throws IOException Si hay error al leer el segmento
+     */
+    public synchronized ArrayList<Pago> buscarPagosPorEvento(String eventoId) throws IOException {
+        ArrayList<Pago> resultado = new ArrayList<>();
+        Segmento segmento = segmentoPorEvento.get(eventoId);
+        if (segmento != null) {
+            for (Pago pago : leerBloque(segmento, BLOQUE_PAGOS, CodecsModelo.PAGO)) {
+                if (pago.getEventoId().equals(eventoId)) {
+                    resultado.add(pago);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Recorre todos los eventos archivados, un segmento a la vez
+     *
+     * @param accion Accion para cada evento
+     * @throws IOException Si hay error al leer
+     */
+    public synchronized void recorrerEventos(Consumer<Evento> accion) throws IOException {
+        recorrer(BLOQUE_EVENTOS, CodecsModelo.EVENTO, accion);
+    }
+
+    /**
+     * Recorre todos los tickets archivados, un segmento a la vez
+     *
+     * @param accion Accion para cada ticket
+     * @throws IOException Si hay error al leer
+     */
+    public synchronized void recorrerTickets(Consumer<Ticket> accion) throws IOException {
+        recorrer(BLOQUE_TICKETS, CodecsModelo.TICKET, accion);
+    }
+
+    /**
+     * Recorre todos los pagos archivados, un segmento a la vez
+     *
+     * @param accion Accion para cada pago
+     * @throws IOException Si hay error al leer
+     */
+    public synchronized void recorrerPagos(Consumer<Pago> accion) throws IOException {
+        recorrer(BLOQUE_PAGOS, CodecsModelo.PAGO, accion);
+    }
+
+    // ==================== FORMATO ====================
+
+    private <T> void recorrer(int bloque, CodecEntidad<T> codec, Consumer<T> accion) throws IOException {
+        if (segmentos.isEmpty()) {
+            return;
+        }
+        try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r")) {
+            for (Segmento segmento : segmentos) {
+                for (T entidad : descomprimir(entrada, segmento, bloque, codec)) {
+                    accion.accept(entidad);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ArrayList<T> leerBloque(Segmento segmento, int bloque, CodecEntidad<T> codec) throws IOException {
+        if (segmento != segmentoEnCache || bloque != bloqueEnCache) {
+            try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r")) {
+                bloqueDescomprimido = descomprimir(entrada, segmento, bloque, codec);
+            }
+            segmentoEnCache = segmento;
+            bloqueEnCache = bloque;
+        }
+        return (ArrayList<T>) bloqueDescomprimido;
+    }
+
+    private <T> ArrayList<T> descomprimir(RandomAccessFile entrada, Segmento segmento, int bloque,
+                                          CodecEntidad<T> codec) throws IOException {
+        byte[] bytes = new byte[segmento.largoBloque[bloque]];
+        entrada.seek(segmento.inicioBloque[bloque]);
+        entrada.readFully(bytes);
+        LectorBinario lector = new LectorBinario(Channels.newChannel(
+                new GZIPInputStream(new ByteArrayInputStream(bytes))));
+        lector.setVersion(segmento.versionRegistros);
+        int cantidad = lector.leerInt();
+        ArrayList<T> entidades = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            entidades.add(codec.leer(lector));
+        }
+        return entidades;
+    }
+
+    private <T> byte[] comprimir(CodecEntidad<T> codec, List<T> entidades) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            EscritorBinario salida = new EscritorBinario(Channels.newChannel(gzip));
+            salida.escribirInt(entidades.size());
+            for (T entidad : entidades) {
+                codec.escribir(salida, entidad);
+            }
+            salida.vaciar();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lee solo las cabeceras (salta los bloques comprimidos) y recorta
+     * un segmento incompleto al final
+     */
+    private void leerIndice() throws IOException {
+        if (!archivo.exists()) {
+            return;
+        }
+        long largo = archivo.length();
+        long posicionValida = 0;
+        try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r")) {
+            while (posicionValida < largo) {
+                entrada.seek(posicionValida);
+                ArrayList<String> ids = new ArrayList<>();
+                Segmento segmento = new Segmento();
+                long fin;
+                try {
+                    if (entrada.readInt() != MAGIC) {
+                        break;
+                    }
+                    int version = entrada.readShort();
+                    if (version > VERSION) {
+                        throw new IOException("Version de archivo historico no soportada");
+                    }
+                    segmento.versionRegistros = version >= 2 ? entrada.readShort() : VERSION_REGISTROS_V1;
+                    if (segmento.versionRegistros > ArchivoBinario.VERSION) {
+                        throw new IOException("Version de registros no soportada: " + segmento.versionRegistros);
+                    }
+                    entrada.readLong();
+                    int cantidad = entrada.readInt();
+                    for (int i = 0; i < cantidad; i++) {
+                        ids.add(entrada.readUTF());
+                    }
+                    for (int i = 0; i < 3; i++) {
+                        segmento.largoBloque[i] = entrada.readInt();
+                    }
+                    fin = entrada.getFilePointer();
+                    for (int i = 0; i < 3; i++) {
+                        segmento.inicioBloque[i] = fin;
+                        fin += segmento.largoBloque[i];
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                if (fin > largo) {
+                    break;
+                }
+                segmentos.add(segmento);
+                for (String id : ids) {
+                    segmentoPorEvento.put(id, segmento);
+                }
+                posicionValida = fin;
+            }
+        }
+        if (posicionValida < largo) {
+            System.err.println("[ArchivoHistorico] Segmento incompleto descartado al final de " + archivo);
+            recortar(posicionValida);
+        }
+        largoValido = posicionValida;
+    }
+
+    private void recortar(long largo) throws IOException {
+        try (RandomAccessFile recorte = new RandomAccessFile(archivo, "rw")) {
+            recorte.setLength(largo);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package persistencia;
+
+import java.io.IOException;
+
+/**
+ * CodecEntidad - Formato binario explicito de una entidad.
+ * Cada implementacion define el orden y tipo exacto de los campos,
+ * sin descriptores de clase como en la serializacion de Java.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ * @param <T> Tipo de entidad
+ */
+public interface CodecEntidad<T> {
+
+    /**
+     * Escribe los campos de la entidad
+     *
+     * @param salida Escritor destino
+     * @param entidad Entidad a escribir
+     * @throws IOException Si hay error al escribir
+     */
+    void escribir(EscritorBinario salida, T entidad) throws IOException;
+
+    /**
+     * Lee una entidad escrita por escribir()
+     *
+     * @param entrada Lector origen (getVersion() indica la version del formato)
+     * @return Entidad reconstruida
+     * @throws IOException Si el registro esta incompleto o dañado
+     */
+    T leer(LectorBinario entrada) throws IOException;
+}
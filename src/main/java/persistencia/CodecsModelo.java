@@ -0,0 +1,203 @@
+package persistencia;
+
+import modelos.*;
+import java.io.IOException;
+
+/**
+ * CodecsModelo - Formatos binarios de las entidades de modelos.
+ * El orden de los campos de cada codec es parte del formato del archivo:
+ * cualquier cambio debe subir ArchivoBinario.VERSION y seguir leyendo
+ * las versiones anteriores a traves de LectorBinario.getVersion().
+ *
+ * Los enums se guardan por ordinal, por lo que sus constantes solo
+ * pueden agregarse al final.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public final class CodecsModelo {
+
+    private CodecsModelo() {
+    }
+
+    /**
+     * Evento: id, nombre, descripcion, tipo, fechaInicio, fechaFin, ubicacion,
+     * capacidadMaxima, estado, organizadorId, registrados, asistentes, agenda
+     */
+    public static final CodecEntidad<Evento> EVENTO = new CodecEntidad<>() {
+        @Override
+        public void escribir(EscritorBinario salida, Evento evento) throws IOException {
+            salida.escribirTexto(evento.getId());
+            salida.escribirTexto(evento.getNombre());
+            salida.escribirTexto(evento.getDescripcion());
+            salida.escribirEnum(evento.getTipo());
+            salida.escribirFecha(evento.getFechaInicio());
+            salida.escribirFecha(evento.getFechaFin());
+            salida.escribirTexto(evento.getUbicacion());
+            salida.escribirInt(evento.getCapacidadMaxima());
+            salida.escribirEnum(evento.getEstado());
+            salida.escribirTexto(evento.getOrganizadorId());
+            salida.escribirTextos(evento.getParticipantesRegistrados());
+            salida.escribirTextos(evento.getParticipantesAsistentes());
+            salida.escribirTextos(evento.getAgenda());
+        }
+
+        @Override
+        public Evento leer(LectorBinario entrada) throws IOException {
+            return new Evento(
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerEnum(TipoEvento.values()),
+                    entrada.leerFecha(),
+                    entrada.leerFecha(),
+                    entrada.leerTexto(),
+                    entrada.leerInt(),
+                    entrada.leerEnum(EstadoEvento.values()),
+                    entrada.leerTexto(),
+                    entrada.leerTextos(),
+                    entrada.leerTextos(),
+                    entrada.leerTextos());
+        }
+    };
+
+    /**
+     * Ticket: id, eventoId, participanteId, tipo, precio, fechaCompra, usado, fechaUso
+     */
+    public static final CodecEntidad<Ticket> TICKET = new CodecEntidad<>() {
+        @Override
+        public void escribir(EscritorBinario salida, Ticket ticket) throws IOException {
+            salida.escribirTexto(ticket.getId());
+            salida.escribirTexto(ticket.getEventoId());
+            salida.escribirTexto(ticket.getParticipanteId());
+            salida.escribirEnum(ticket.getTipo());
+            salida.escribirDouble(ticket.getPrecio());
+            salida.escribirFecha(ticket.getFechaCompra());
+            salida.escribirBoolean(ticket.isUsado());
+            salida.escribirFecha(ticket.getFechaUso());
+        }
+
+        @Override
+        public Ticket leer(LectorBinario entrada) throws IOException {
+            return new Ticket(
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerEnum(TipoTicket.values()),
+                    entrada.leerDouble(),
+                    entrada.leerFecha(),
+                    entrada.leerBoolean(),
+                    entrada.leerFecha());
+        }
+    };
+
+    /**
+     * Pago: id, ticketId, participanteId, eventoId, montoBase, metodo, estado,
+     * fechaCreacion, fechaAprobacion, referencia, autorizacion y (desde la
+     * version 3) referenciaGrupo.
+     * Las comisiones y el total no se guardan: se derivan del monto y el metodo.
+     */
+    public static final CodecEntidad<Pago> PAGO = new CodecEntidad<>() {
+        @Override
+        public void escribir(EscritorBinario salida, Pago pago) throws IOException {
+            salida.escribirTexto(pago.getId());
+            salida.escribirTexto(pago.getTicketId());
+            salida.escribirTexto(pago.getParticipanteId());
+            salida.escribirTexto(pago.getEventoId());
+            salida.escribirDouble(pago.getMontoBase());
+            salida.escribirEnum(pago.getMetodoPago());
+            salida.escribirEnum(pago.getEstado());
+            salida.escribirFecha(pago.getFechaCreacion());
+            salida.escribirFecha(pago.getFechaAprobacion());
+            salida.escribirTexto(pago.getNumeroReferencia());
+            salida.escribirTexto(pago.getNumeroAutorizacion());
+            salida.escribirTexto(pago.getReferenciaGrupo());
+        }
+
+        @Override
+        public Pago leer(LectorBinario entrada) throws IOException {
+            return new Pago(
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerDouble(),
+                    entrada.leerEnum(MetodoPago.values()),
+                    entrada.leerEnum(EstadoPago.values()),
+                    entrada.leerFecha(),
+                    entrada.leerFecha(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.getVersion() >= 3 ? entrada.leerTexto() : null);
+        }
+    };
+
+    /**
+     * Participante: campos de Persona, empresa, cargo, intereses, vip, eventosRegistrados
+     */
+    public static final CodecEntidad<Participante> PARTICIPANTE = new CodecEntidad<>() {
+        @Override
+        public void escribir(EscritorBinario salida, Participante participante) throws IOException {
+            escribirPersona(salida, participante);
+            salida.escribirTexto(participante.getEmpresa());
+            salida.escribirTexto(participante.getCargo());
+            salida.escribirTexto(participante.getIntereses());
+            salida.escribirBoolean(participante.isVip());
+            salida.escribirTextos(participante.getEventosRegistrados());
+        }
+
+        @Override
+        public Participante leer(LectorBinario entrada) throws IOException {
+            return new Participante(
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerFecha(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerBoolean(),
+                    entrada.leerTextos());
+        }
+    };
+
+    /**
+     * Organizador: campos de Persona, organizacion, departamento, experiencia, eventosCreados
+     */
+    public static final CodecEntidad<Organizador> ORGANIZADOR = new CodecEntidad<>() {
+        @Override
+        public void escribir(EscritorBinario salida, Organizador organizador) throws IOException {
+            escribirPersona(salida, organizador);
+            salida.escribirTexto(organizador.getOrganizacion());
+            salida.escribirTexto(organizador.getDepartamento());
+            salida.escribirInt(organizador.getExperienciaAnios());
+            salida.escribirTextos(organizador.getEventosCreados());
+        }
+
+        @Override
+        public Organizador leer(LectorBinario entrada) throws IOException {
+            return new Organizador(
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerFecha(),
+                    entrada.leerTexto(),
+                    entrada.leerTexto(),
+                    entrada.leerInt(),
+                    entrada.leerTextos());
+        }
+    };
+
+    /**
+     * Campos comunes de Persona: id, nombre, email, telefono, fechaRegistro
+     */
+    private static void escribirPersona(EscritorBinario salida, Persona persona) throws IOException {
+        salida.escribirTexto(persona.getId());
+        salida.escribirTexto(persona.getNombre());
+        salida.escribirTexto(persona.getEmail());
+        salida.escribirTexto(persona.getTelefono());
+        salida.escribirFecha(persona.getFechaRegistro());
+    }
+}
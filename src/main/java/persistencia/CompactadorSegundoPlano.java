@@ -0,0 +1,52 @@
+package persistencia;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CompactadorSegundoPlano - Hilo de fondo que integra el segmento delta
+ * de un repositorio en su snapshot completo.
+ *
+ * Los checkpoints normales solo escriben las entidades modificadas; cuando
+ * el segmento delta crece demasiado el repositorio pide una compactacion,
+ * que se ejecuta aqui para que el hilo que hizo el cambio no pague la
+ * reescritura del archivo completo. Varias solicitudes para el mismo
+ * repositorio se agrupan en una sola compactacion.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public final class CompactadorSegundoPlano {
+
+    private static final Set<RepositorioBase<?>> pendientes = ConcurrentHashMap.newKeySet();
+
+    private static final ExecutorService ejecutor = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "eventplanner-compactador");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private CompactadorSegundoPlano() {
+    }
+
+    /**
+     * Programa la compactacion de un repositorio si no hay una pendiente
+     *
+     * @param repositorio Repositorio a compactar
+     */
+    static void programar(RepositorioBase<?> repositorio) {
+        if (pendientes.add(repositorio)) {
+            ejecutor.execute(() -> {
+                pendientes.remove(repositorio);
+                try {
+                    repositorio.checkpoint();
+                } catch (Exception e) {
+                    System.err.println("[Compactador] Error al compactar "
+                            + repositorio.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package persistencia;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * ContextoRepositorios - Registro unico de repositorios del proceso.
+ * Cada repositorio se crea (y su archivo se carga) una sola vez y todos los
+ * gestores y controladores comparten la misma instancia. Asi navegar por la
+ * interfaz no vuelve a leer los archivos ni genera copias en memoria que se
+ * pisen entre si.
+ *
+ * Al arrancar, iniciarCarga() lee todos los archivos en paralelo en hilos de
+ * fondo. Los getters esperan solo a su propio repositorio; si la carga no se
+ * inicio, lo crean en el momento. Los metodos ...Listos() exponen la carga
+ * como CompletableFuture para no bloquear el hilo de la interfaz.
+ *
+ * El ArchivoHistorico (eventos terminados y archivados) se abre igual que
+ * un repositorio; al abrirlo solo se leen las cabeceras de sus segmentos.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.2
+ */
+public final class ContextoRepositorios {
+
+    private static final String EVENTOS = "EventoRepositorio";
+    private static final String PARTICIPANTES = "ParticipanteRepositorio";
+    private static final String ORGANIZADORES = "OrganizadorRepositorio";
+    private static final String TICKETS = "TicketRepositorio";
+    private static final String PAGOS = "PagoRepositorio";
+    private static final String USUARIOS = "UsuarioRepositorio";
+    private static final String HISTORICO = "ArchivoHistorico";
+
+    /** Usa el archivo mapeado de tickets (-Deventplanner.tickets.mapeado=true) */
+    private static final boolean TICKETS_MAPEADOS = Boolean.getBoolean("eventplanner.tickets.mapeado");
+
+    private static ContextoRepositorios instancia;
+
+    /** Carga de cada repositorio, por nombre */
+    private final HashMap<String, CompletableFuture<?>> cargas;
+
+    /**
+     * Obtiene la instancia unica del contexto
+     *
+     * @return Contexto de repositorios
+     */
+    public static synchronized ContextoRepositorios getInstance() {
+        if (instancia == null) {
+            instancia = new ContextoRepositorios();
+        }
+        return instancia;
+    }
+
+    private ContextoRepositorios() {
+        this.cargas = new HashMap<>();
+    }
+
+    /**
+     * Inicia la carga en paralelo de todos los repositorios.
+     * Retorna de inmediato; llamarlo mas de una vez no repite la carga.
+     *
+     * @return Futuro que se completa cuando todos estan cargados
+     */
+    public CompletableFuture<Void> iniciarCarga() {
+        ExecutorService hilos = Executors.newFixedThreadPool(
+                Math.min(6, Math.max(2, Runtime.getRuntime().availableProcessors())), tarea -> {
+                    Thread hilo = new Thread(tarea, "eventplanner-carga");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        long inicio = System.nanoTime();
+
+        CompletableFuture<Void> todas = CompletableFuture.allOf(
+                cargar(EVENTOS, EventoRepositorio::new, hilos),
+                cargar(PARTICIPANTES, ParticipanteRepositorio::new, hilos),
+                cargar(ORGANIZADORES, OrganizadorRepositorio::new, hilos),
+                cargar(TICKETS, ContextoRepositorios::crearTickets, hilos),
+                cargar(PAGOS, PagoRepositorio::new, hilos),
+                cargar(USUARIOS, UsuarioRepositorio::new, hilos),
+                cargar(HISTORICO, ArchivoHistorico::new, hilos));
+
+        todas.whenComplete((resultado, error) -> {
+            hilos.shutdown();
+            System.out.println("[ContextoRepositorios] Carga completa en "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        });
+        return todas;
+    }
+
+    // ==================== FUTUROS DE CARGA ====================
+
+    public CompletableFuture<EventoRepositorio> eventosListos() {
+        return cargar(EVENTOS, EventoRepositorio::new, null);
+    }
+
+    public CompletableFuture<ParticipanteRepositorio> participantesListos() {
+        return cargar(PARTICIPANTES, ParticipanteRepositorio::new, null);
+    }
+
+    public CompletableFuture<OrganizadorRepositorio> organizadoresListos() {
+        return cargar(ORGANIZADORES, OrganizadorRepositorio::new, null);
+    }
+
+    public CompletableFuture<TicketRepositorio> ticketsListos() {
+        return cargar(TICKETS, ContextoRepositorios::crearTickets, null);
+    }
+
+    public CompletableFuture<PagoRepositorio> pagosListos() {
+        return cargar(PAGOS, PagoRepositorio::new, null);
+    }
+
+    public CompletableFuture<UsuarioRepositorio> usuariosListos() {
+        return cargar(USUARIOS, UsuarioRepositorio::new, null);
+    }
+
+    public CompletableFuture<ArchivoHistorico> historicoListo() {
+        return cargar(HISTORICO, ArchivoHistorico::new, null);
+    }
+
+    // ==================== REPOSITORIOS ====================
+
+    public EventoRepositorio getEventos() {
+        return eventosListos().join();
+    }
+
+    public ParticipanteRepositorio getParticipantes() {
+        return participantesListos().join();
+    }
+
+    public OrganizadorRepositorio getOrganizadores() {
+        return organizadoresListos().join();
+    }
+
+    public TicketRepositorio getTickets() {
+        return ticketsListos().join();
+    }
+
+    public PagoRepositorio getPagos() {
+        return pagosListos().join();
+    }
+
+    public UsuarioRepositorio getUsuarios() {
+        return usuariosListos().join();
+    }
+
+    public ArchivoHistorico getHistorico() {
+        return historicoListo().join();
+    }
+
+    /**
+     * Crea el repositorio de tickets con el almacenamiento configurado
+     */
+    private static TicketRepositorio crearTickets() {
+        return TICKETS_MAPEADOS ? new TicketRepositorioMapeado() : new TicketRepositorio();
+    }
+
+    /**
+     * Obtiene la carga de un repositorio, iniciandola si no existe.
+     * Sin ejecutor, el repositorio se crea en el hilo que lo pide.
+     */
+    @SuppressWarnings("unchecked")
+    private <R> CompletableFuture<R> cargar(String nombre, Supplier<R> fabrica, ExecutorService hilos) {
+        CompletableFuture<R> carga;
+        synchronized (this) {
+            carga = (CompletableFuture<R>) cargas.get(nombre);
+            if (carga != null) {
+                return carga;
+            }
+            carga = new CompletableFuture<>();
+            cargas.put(nombre, carga);
+        }
+
+        CompletableFuture<R> destino = carga;
+        Runnable tarea = () -> {
+            long inicio = System.nanoTime();
+            try {
+                R repositorio = fabrica.get();
+                System.out.println("[ContextoRepositorios] " + nombre + " cargado en "
+                        + (System.nanoTime() - inicio) / 1_000_000 + " ms ("
+                        + Thread.currentThread().getName() + ")");
+                destino.complete(repositorio);
+            } catch (RuntimeException e) {
+                System.err.println("[ContextoRepositorios] Error al cargar " + nombre + ": " + e.getMessage());
+                destino.completeExceptionally(e);
+            }
+        };
+        if (hilos == null) {
+            tarea.run();
+        } else {
+            hilos.execute(tarea);
+        }
+        return carga;
+    }
+}
@@ -0,0 +1,89 @@
+package persistencia;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+/**
+ * ConvertidorLegado - Conversion unica de los archivos serializados con
+ * ObjectOutputStream al formato binario de ArchivoBinario.
+ *
+ * Cada archivo antiguo se conserva como respaldo con extension ".legado".
+ * Los archivos que ya estan en formato binario o que no existen se omiten.
+ *
+ * Uso: java persistencia.ConvertidorLegado [directorioBase]
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public final class ConvertidorLegado {
+
+    private ConvertidorLegado() {
+    }
+
+    public static void main(String[] args) {
+        File base = new File(args.length > 0 ? args[0] : ".");
+        int convertidos = 0;
+        int errores = 0;
+
+        try {
+            convertidos += convertir(new File(base, "eventos.dat"), CodecsModelo.EVENTO) ? 1 : 0;
+            convertidos += convertir(new File(base, "participantes.dat"), CodecsModelo.PARTICIPANTE) ? 1 : 0;
+            convertidos += convertir(new File(base, "organizadores.dat"), CodecsModelo.ORGANIZADOR) ? 1 : 0;
+            convertidos += convertir(new File(base, "datos/tickets.dat"), CodecsModelo.TICKET) ? 1 : 0;
+            convertidos += convertir(new File(base, "datos/pagos.dat"), CodecsModelo.PAGO) ? 1 : 0;
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("[ConvertidorLegado] Error: " + e.getMessage());
+            errores++;
+        }
+
+        System.out.println("[ConvertidorLegado] Archivos convertidos: " + convertidos);
+        if (errores > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Convierte un archivo serializado al formato binario
+     *
+     * @param <T> Tipo de entidad
+     * @param archivo Archivo a convertir
+     * @param codec Codec de la entidad
+     * @return true si el archivo se convirtio
+     * @throws IOException Si hay error al leer o escribir
+     * @throws ClassNotFoundException Si el archivo referencia clases inexistentes
+     */
+    public static <T> boolean convertir(File archivo, CodecEntidad<T> codec)
+            throws IOException, ClassNotFoundException {
+        if (!archivo.exists() || archivo.length() == 0) {
+            System.out.println("[ConvertidorLegado] Omitido (no existe): " + archivo);
+            return false;
+        }
+        if (!ArchivoBinario.esFormatoLegado(archivo)) {
+            System.out.println("[ConvertidorLegado] Omitido (ya es binario): " + archivo);
+            return false;
+        }
+
+        ArrayList<T> entidades = ArchivoBinario.cargar(archivo, codec);
+        File temporal = new File(archivo.getPath() + ".tmp");
+        ArchivoBinario.guardar(temporal, codec, entidades);
+
+        // Verificar que el archivo nuevo se lee completo antes de reemplazar
+        if (ArchivoBinario.cargar(temporal, codec).size() != entidades.size()) {
+            Files.deleteIfExists(temporal.toPath());
+            throw new IOException("Verificacion fallida al convertir " + archivo);
+        }
+
+        long tamanoAnterior = archivo.length();
+        Files.copy(archivo.toPath(), new File(archivo.getPath() + ".legado").toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temporal.toPath(), archivo.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        System.out.println("[ConvertidorLegado] " + archivo + ": " + entidades.size() + " registros, "
+                + tamanoAnterior + " -> " + archivo.length() + " bytes");
+        return true;
+    }
+}
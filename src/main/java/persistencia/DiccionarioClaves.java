@@ -0,0 +1,163 @@
+package persistencia;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * DiccionarioClaves - Asigna a cada texto (ID de evento, de participante...)
+ * un entero denso y estable, para que los registros de ancho fijo guarden
+ * 4 bytes en lugar del texto completo.
+ *
+ * Las claves se guardan en un archivo de solo-anexar: cada clave nueva se
+ * escribe al final antes de usarse, y al abrir se leen en orden, de modo que
+ * el entero de cada texto no cambia entre ejecuciones.
+ *
+ * Formato: una secuencia de [short longitud][bytes UTF-8]. Una entrada
+ * cortada al final (escritura interrumpida) se descarta.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public class DiccionarioClaves implements Closeable {
+
+    private final File archivo;
+    private final ArrayList<String> textos;
+    private final HashMap<String, Integer> claves;
+    private FileOutputStream archivoSalida;
+    private DataOutputStream salida;
+
+    /**
+     * Abre (o crea) el diccionario guardado en un archivo
+     *
+     * @param ruta Ruta del archivo del diccionario
+     * @throws IOException Si hay error al leer el archivo
+     */
+    public DiccionarioClaves(String ruta) throws IOException {
+        this.archivo = new File(ruta);
+        this.textos = new ArrayList<>();
+        this.claves = new HashMap<>();
+        cargar();
+    }
+
+    /**
+     * Obtiene la clave de un texto, asignando una nueva si no existe
+     *
+     * @param texto Texto a codificar
+     * @return Clave entera del texto
+     * @throws IOException Si hay error al guardar la clave nueva
+     */
+    public synchronized int obtenerOCrear(String texto) throws IOException {
+        Integer clave = claves.get(texto);
+        if (clave != null) {
+            return clave;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Clave demasiado larga: " + bytes.length + " bytes");
+        }
+        abrirSalida();
+        salida.writeShort(bytes.length);
+        salida.write(bytes);
+        salida.flush();
+
+        int nueva = textos.size();
+        textos.add(texto);
+        claves.put(texto, nueva);
+        return nueva;
+    }
+
+    /**
+     * Obtiene la clave de un texto sin crearla
+     *
+     * @param texto Texto a buscar
+     * @return Clave entera o -1 si el texto no esta en el diccionario
+     */
+    public synchronized int buscar(String texto) {
+        Integer clave = claves.get(texto);
+        return clave == null ? -1 : clave;
+    }
+
+    /**
+     * Obtiene el texto de una clave
+     *
+     * @param clave Clave entera
+     * @return Texto original
+     */
+    public synchronized String texto(int clave) {
+        return textos.get(clave);
+    }
+
+    /**
+     * Cantidad de claves asignadas
+     *
+     * @return Tamaño del diccionario
+     */
+    public synchronized int tamano() {
+        return textos.size();
+    }
+
+    /**
+     * Fuerza a disco las claves escritas
+     *
+     * @throws IOException Si hay error al sincronizar
+     */
+    public synchronized void sincronizar() throws IOException {
+        if (salida != null) {
+            salida.flush();
+            archivoSalida.getFD().sync();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (salida != null) {
+            salida.close();
+            salida = null;
+            archivoSalida = null;
+        }
+    }
+
+    private void cargar() throws IOException {
+        if (!archivo.exists()) {
+            return;
+        }
+        long posicionValida = 0;
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(archivo)))) {
+            while (true) {
+                int longitud;
+                try {
+                    longitud = entrada.readUnsignedShort();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] bytes = new byte[longitud];
+                entrada.readFully(bytes);
+                String texto = new String(bytes, StandardCharsets.UTF_8);
+                claves.putIfAbsent(texto, textos.size());
+                textos.add(texto);
+                posicionValida += 2 + longitud;
+            }
+        } catch (EOFException e) {
+            // Entrada incompleta al final: se descarta
+        }
+        if (posicionValida < archivo.length()) {
+            try (RandomAccessFile recorte = new RandomAccessFile(archivo, "rw")) {
+                recorte.setLength(posicionValida);
+            }
+        }
+    }
+
+    private void abrirSalida() throws IOException {
+        if (salida == null) {
+            File padre = archivo.getAbsoluteFile().getParentFile();
+            if (padre != null && !padre.exists()) {
+                padre.mkdirs();
+            }
+            archivoSalida = new FileOutputStream(archivo, true);
+            salida = new DataOutputStream(new BufferedOutputStream(archivoSalida));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * EscritorBinario - Escritura de campos primitivos sobre un canal NIO.
+ * Acumula los bytes en un buffer y lo vacia al canal cuando se llena,
+ * de modo que cada campo no implica una llamada al sistema.
+ *
+ * Convenciones del formato:
+ * - Textos: [int longitud][bytes UTF-8], longitud -1 para null
+ * - Fechas: [long milisegundos desde epoch en UTC], FECHA_NULA para null
+ * - Listas de textos: [int cantidad][texto]...
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public class EscritorBinario implements Closeable {
+
+    /** Marca de fecha ausente */
+    public static final long FECHA_NULA = Long.MIN_VALUE;
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final WritableByteChannel canal;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor del escritor
+     *
+     * @param canal Canal destino
+     */
+    public EscritorBinario(WritableByteChannel canal) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+    }
+
+    public void escribirByte(int valor) throws IOException {
+        asegurar(1);
+        buffer.put((byte) valor);
+    }
+
+    public void escribirBoolean(boolean valor) throws IOException {
+        escribirByte(valor ? 1 : 0);
+    }
+
+    public void escribirInt(int valor) throws IOException {
+        asegurar(4);
+        buffer.putInt(valor);
+    }
+
+    public void escribirLong(long valor) throws IOException {
+        asegurar(8);
+        buffer.putLong(valor);
+    }
+
+    public void escribirDouble(double valor) throws IOException {
+        asegurar(8);
+        buffer.putDouble(valor);
+    }
+
+    /**
+     * Escribe un texto con prefijo de longitud
+     *
+     * @param texto Texto a escribir (puede ser null)
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirTexto(String texto) throws IOException {
+        if (texto == null) {
+            escribirInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escribirInt(bytes.length);
+        escribirBytes(bytes);
+    }
+
+    /**
+     * Escribe una fecha como milisegundos desde epoch (UTC)
+     *
+     * @param fecha Fecha a escribir (puede ser null)
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirFecha(LocalDateTime fecha) throws IOException {
+        escribirLong(fecha == null ? FECHA_NULA : fecha.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    /**
+     * Escribe una lista de textos con prefijo de cantidad
+     *
+     * @param textos Lista a escribir
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirTextos(List<String> textos) throws IOException {
+        escribirInt(textos.size());
+        for (String texto : textos) {
+            escribirTexto(texto);
+        }
+    }
+
+    /**
+     * Escribe un enum por su ordinal
+     *
+     * @param valor Constante del enum (puede ser null)
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirEnum(Enum<?> valor) throws IOException {
+        escribirByte(valor == null ? -1 : valor.ordinal());
+    }
+
+    public void escribirBytes(byte[] bytes) throws IOException {
+        int desde = 0;
+        while (desde < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                vaciar();
+            }
+            int cantidad = Math.min(buffer.remaining(), bytes.length - desde);
+            buffer.put(bytes, desde, cantidad);
+            desde += cantidad;
+        }
+    }
+
+    /**
+     * Envia al canal todo lo acumulado en el buffer
+     *
+     * @throws IOException Si hay error al escribir
+     */
+    public void vaciar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        vaciar();
+    }
+
+    private void asegurar(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            vaciar();
+        }
+    }
+}
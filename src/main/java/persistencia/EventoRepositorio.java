@@ -2,9 +2,9 @@
  * Clase EventoRepositorio
  * EventoRepositorio - Gestiona la persistencia de eventos en archivo.
  * Implementa operaciones CRUD (Create, Read, Update, Delete) para eventos.
- * Utiliza serializacion de objetos para guardar/cargar datos.
+ * Utiliza el formato binario de ArchivoBinario para guardar/cargar datos.
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  * @param
  */
 package persistencia;
@@ -25,12 +25,7 @@ public final class EventoRepositorio extends RepositorioBase<Evento>{
 
     public EventoRepositorio() {
         super("eventos.dat");
-        try {
-            cargarDesdeArchivo();
-        } catch (IOException | ClassNotFoundException e) {
-            // Si el archivo no existe o hay error, iniciar con lista vacía
-            datos = new ArrayList<>();
-        }
+        cargarDatos();
     }
     
         
@@ -40,8 +35,8 @@ public final class EventoRepositorio extends RepositorioBase<Evento>{
      * @throws IOException Si hay error al guardar en archivo
      */
     public void agregar(Evento evento)throws IOException{
-        datos.add(evento);
-        guardarEnArchivo();
+        agregarEnMemoria(evento);
+        persistirAgregado(evento);
     }
     
    /**
@@ -52,10 +47,9 @@ public final class EventoRepositorio extends RepositorioBase<Evento>{
      * @throws EventoNoEncontradoException Si no existe el evento
      */
     public Evento buscarPorId (String id)throws EventoNoEncontradoException{
-        for(Evento evento: datos){
-            if(evento.getId().equals(id)){
-                return evento;
-            }
+        Evento evento = buscarEnIndice(id);
+        if(evento != null){
+            return evento;
         }
         throw new EventoNoEncontradoException(id);
     }
@@ -67,7 +61,7 @@ public final class EventoRepositorio extends RepositorioBase<Evento>{
      * @return Lista de eventos con ese estado
      */
 
-    public ArrayList<Evento> buscarPorEstado(EstadoEvento estado){
+    public synchronized ArrayList<Evento> buscarPorEstado(EstadoEvento estado){
         ArrayList<Evento> resultados = new ArrayList<>();
         for(Evento evento: datos){
             if(evento.getEstado()== estado){
@@ -86,18 +80,11 @@ public final class EventoRepositorio extends RepositorioBase<Evento>{
      * @throws IOException Si hay error al guardar
      */
     public void actualizar(Evento evento)throws EventoNoEncontradoException,IOException{
-        var encontrado=false;
-        for(int i=0; i<datos.size(); i++){
-            if(datos.get(i).getId().equals(evento.getId())){
-                datos.set(i, evento);
-                encontrado=true;
-                guardarEnArchivo();
-                break;
-            }
-        }
+        var encontrado=reemplazarEnMemoria(evento);
         if(!encontrado){
             throw new EventoNoEncontradoException("No se pudo actualizar: evento con ID " + evento.getId() + " no encontrado.");
         }
+        persistirActualizado(evento);
     }
     
      /**
@@ -108,47 +95,43 @@ public final class EventoRepositorio extends RepositorioBase<Evento>{
      * @throws IOException 
      */
     public void eliminar(String id)throws EventoNoEncontradoException,IOException{
-        var eliminado=false;
-        for(int i=0; i<datos.size(); i++){
-            if(datos.get(i).getId().equals(id)){
-                datos.remove(i);
-                eliminado=true;
-                guardarEnArchivo();
-                break;
-            }   
-        }
-        if(!eliminado){
+        Evento removido = eliminarDeMemoria(id);
+        if(removido == null){
             throw new EventoNoEncontradoException(id);
         }
+        persistirEliminado(removido);
     }
 
      /**
-     * Guarda la lista de eventos en el archivo usando serialización.
+     * Guarda la lista de eventos en el archivo usando el formato binario.
      * 
      * @throws IOException Si hay error al escribir en el archivo
      */
-    
     @Override
     protected void guardarEnArchivo() throws IOException {
-        try (ObjectOutputStream escritura = new ObjectOutputStream(new FileOutputStream(nombreArchivo))) {
-            escritura.writeObject(datos);
-        }
+        guardarSnapshot();
+    }
+    
+    @Override
+    protected CodecEntidad<Evento> obtenerCodec() {
+        return CodecsModelo.EVENTO;
+    }
+    
+    @Override
+    protected String obtenerId(Evento evento) {
+        return evento.getId();
     }
     
 
     /**
-     * Carga la lista de eventos desde el archivo usando deserialización.
+     * Carga la lista de eventos desde el archivo (binario o serializado antiguo).
      * 
      * @throws IOException Si hay error al leer el archivo
-     * @throws ClassNotFoundException Si la clase serializada no existe
+     * @throws ClassNotFoundException Si el archivo antiguo referencia clases inexistentes
      */
-
     @Override
-    @SuppressWarnings("unchecked")
     protected void cargarDesdeArchivo()throws IOException,ClassNotFoundException{
-        try (ObjectInputStream lectura= new ObjectInputStream(new FileInputStream(nombreArchivo))){
-            datos = (ArrayList<Evento>) lectura.readObject();
-        }
+        cargarSnapshot();
     }
     
     
@@ -0,0 +1,147 @@
+package persistencia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * IndiceOrdenado - IDs de un repositorio ordenados alfabeticamente, para
+ * consultas por rango de ID.
+ *
+ * Los IDs de GeneradorIds crecen con el tiempo, asi que las altas normales
+ * solo se anexan al final. Si llega un ID fuera de orden (al cargar un
+ * fragmento, o un ID antiguo) el indice queda invalido y se reordena
+ * completo la proxima vez que se consulta.
+ *
+ * Tambien sirve para paginar por clave: siguientes() ubica el ID de
+ * continuacion con busqueda binaria y solo recorre la pagina pedida.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class IndiceOrdenado {
+
+    private String[] ids;
+    private int tamano;
+    private boolean valido;
+
+    /**
+     * Crea un indice vacio
+     */
+    public IndiceOrdenado() {
+        this.ids = new String[16];
+        this.tamano = 0;
+        this.valido = true;
+    }
+
+    /**
+     * Registra un ID nuevo
+     *
+     * @param id ID agregado al repositorio
+     */
+    public void agregar(String id) {
+        if (!valido) {
+            return;
+        }
+        if (tamano > 0 && id.compareTo(ids[tamano - 1]) <= 0) {
+            valido = false;
+            return;
+        }
+        if (tamano == ids.length) {
+            ids = Arrays.copyOf(ids, tamano * 2);
+        }
+        ids[tamano++] = id;
+    }
+
+    /**
+     * Retira un ID eliminado del repositorio
+     *
+     * @param id ID eliminado
+     */
+    public void eliminar(String id) {
+        if (!valido) {
+            return;
+        }
+        int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+        if (posicion >= 0) {
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+            ids[--tamano] = null;
+        }
+    }
+
+    /**
+     * Marca el indice para reordenarlo en la proxima consulta
+     */
+    public void invalidar() {
+        valido = false;
+    }
+
+    public boolean esValido() {
+        return valido;
+    }
+
+    /**
+     * Reordena el indice con todos los IDs actuales
+     *
+     * @param todos IDs del repositorio (sin repetidos)
+     */
+    public void reconstruir(Collection<String> todos) {
+        ids = todos.toArray(new String[Math.max(16, todos.size())]);
+        tamano = todos.size();
+        Arrays.sort(ids, 0, tamano);
+        valido = true;
+    }
+
+    /**
+     * IDs dentro de un rango
+     *
+     * @param desde Primer ID incluido (null = sin limite)
+     * @param hasta Primer ID excluido (null = sin limite)
+     * @return IDs en orden
+     */
+    public ArrayList<String> rango(String desde, String hasta) {
+        int inicio = desde == null ? 0 : posicion(desde);
+        int fin = hasta == null ? tamano : posicion(hasta);
+        ArrayList<String> resultado = new ArrayList<>(Math.max(0, fin - inicio));
+        for (int i = inicio; i < fin; i++) {
+            resultado.add(ids[i]);
+        }
+        return resultado;
+    }
+
+    /**
+     * IDs que siguen a uno dado, en orden ascendente o descendente
+     *
+     * @param despuesDe ID de continuacion, excluido (null = desde el extremo)
+     * @param limite Cantidad maxima de IDs
+     * @param descendente true para recorrer de mayor a menor
+     * @return IDs en el orden pedido
+     */
+    public ArrayList<String> siguientes(String despuesDe, int limite, boolean descendente) {
+        ArrayList<String> resultado = new ArrayList<>(Math.min(limite, tamano));
+        if (descendente) {
+            int fin = despuesDe == null ? tamano : posicion(despuesDe);
+            for (int i = fin - 1; i >= 0 && resultado.size() < limite; i--) {
+                resultado.add(ids[i]);
+            }
+        } else {
+            int inicio = 0;
+            if (despuesDe != null) {
+                int encontrado = Arrays.binarySearch(ids, 0, tamano, despuesDe);
+                inicio = encontrado >= 0 ? encontrado + 1 : -encontrado - 1;
+            }
+            for (int i = inicio; i < tamano && resultado.size() < limite; i++) {
+                resultado.add(ids[i]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Posicion del primer ID mayor o igual al dado
+     */
+    private int posicion(String id) {
+        int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+        return posicion >= 0 ? posicion : -posicion - 1;
+    }
+}
@@ -0,0 +1,151 @@
+package persistencia;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * IndiceSecundario - Indice multi-valor mantenido por un repositorio.
+ * Agrupa las entidades por una clave (evento, participante, estado...)
+ * para que las consultas cuesten proporcional al tamaño del resultado
+ * y no al total de registros.
+ *
+ * Recuerda la clave con la que se indexo cada entidad, de modo que si la
+ * entidad se modifica en memoria (por ejemplo un Pago que pasa a REEMBOLSADO)
+ * al reindexarla se retira del grupo anterior.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ * @param <K> Tipo de la clave del indice
+ * @param <T> Tipo de entidad indexada
+ */
+public class IndiceSecundario<K, T> {
+
+    private final Function<T, K> extractorClave;
+    private final Function<T, String> extractorId;
+    private final HashMap<K, LinkedHashMap<String, T>> grupos;
+    private final HashMap<String, K> clavePorId;
+
+    /**
+     * Constructor del indice
+     *
+     * @param extractorClave Funcion que obtiene la clave de una entidad
+     * @param extractorId Funcion que obtiene el ID unico de una entidad
+     */
+    public IndiceSecundario(Function<T, K> extractorClave, Function<T, String> extractorId) {
+        this.extractorClave = extractorClave;
+        this.extractorId = extractorId;
+        this.grupos = new HashMap<>();
+        this.clavePorId = new HashMap<>();
+    }
+
+    /**
+     * Agrega o reubica una entidad en el indice
+     *
+     * @param entidad Entidad a indexar
+     */
+    public void indexar(T entidad) {
+        String id = extractorId.apply(entidad);
+        K nuevaClave = extractorClave.apply(entidad);
+
+        if (clavePorId.containsKey(id)) {
+            K claveAnterior = clavePorId.get(id);
+            if (!Objects.equals(claveAnterior, nuevaClave)) {
+                retirarDeGrupo(claveAnterior, id);
+            }
+        }
+
+        clavePorId.put(id, nuevaClave);
+        grupos.computeIfAbsent(nuevaClave, k -> new LinkedHashMap<>()).put(id, entidad);
+    }
+
+    /**
+     * Retira una entidad del indice
+     *
+     * @param id ID de la entidad
+     */
+    public void desindexar(String id) {
+        if (clavePorId.containsKey(id)) {
+            retirarDeGrupo(clavePorId.remove(id), id);
+        }
+    }
+
+    /**
+     * Vacia el indice
+     */
+    public void limpiar() {
+        grupos.clear();
+        clavePorId.clear();
+    }
+
+    /**
+     * Obtiene las entidades con una clave
+     *
+     * @param clave Clave a buscar
+     * @return Lista nueva con las entidades del grupo (vacia si no hay)
+     */
+    public ArrayList<T> buscar(K clave) {
+        LinkedHashMap<String, T> grupo = grupos.get(clave);
+        return grupo == null ? new ArrayList<>() : new ArrayList<>(grupo.values());
+    }
+
+    /**
+     * Obtiene la primera entidad indexada con una clave
+     *
+     * @param clave Clave a buscar
+     * @return Entidad encontrada o null
+     */
+    public T buscarPrimero(K clave) {
+        LinkedHashMap<String, T> grupo = grupos.get(clave);
+        if (grupo == null || grupo.isEmpty()) {
+            return null;
+        }
+        return grupo.values().iterator().next();
+    }
+
+    /**
+     * Vista de solo lectura del grupo, sin copiar
+     *
+     * @param clave Clave a buscar
+     * @return Coleccion inmodificable con las entidades del grupo
+     */
+    public Collection<T> ver(K clave) {
+        LinkedHashMap<String, T> grupo = grupos.get(clave);
+        return grupo == null ? Collections.emptyList() : Collections.unmodifiableCollection(grupo.values());
+    }
+
+    /**
+     * Cuenta las entidades con una clave sin materializar la lista
+     *
+     * @param clave Clave a contar
+     * @return Cantidad de entidades
+     */
+    public int contar(K clave) {
+        LinkedHashMap<String, T> grupo = grupos.get(clave);
+        return grupo == null ? 0 : grupo.size();
+    }
+
+    /**
+     * Claves presentes en el indice
+     *
+     * @return Conjunto inmodificable de claves
+     */
+    public Set<K> claves() {
+        return Collections.unmodifiableSet(grupos.keySet());
+    }
+
+    private void retirarDeGrupo(K clave, String id) {
+        LinkedHashMap<String, T> grupo = grupos.get(clave);
+        if (grupo != null) {
+            grupo.remove(id);
+            if (grupo.isEmpty()) {
+                grupos.remove(clave);
+            }
+        }
+    }
+}
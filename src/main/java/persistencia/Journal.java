@@ -0,0 +1,343 @@
+package persistencia;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Journal - Registro de solo-anexar (write-ahead log) para los repositorios.
+ * Cada mutacion se escribe como un registro independiente al final del archivo,
+ * de modo que el costo de una escritura depende del tamaño del cambio y no
+ * del tamaño total del repositorio.
+ *
+ * Formato de cada registro:
+ * [int longitud][int crc32][long secuencia][byte operacion][UTF id][int n][n bytes]
+ * Un registro incompleto o con CRC invalido (escritura cortada) marca el final
+ * logico del journal y se descarta en la recuperacion.
+ *
+ * En escritura diferida los registros se encolan en memoria y se escriben
+ * en grupo (una sola escritura y un solo fsync por lote).
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.2
+ */
+public class Journal {
+
+    /**
+     * Tipo de operacion registrada en el journal
+     */
+    public enum Operacion {
+        AGREGAR,
+        ACTUALIZAR,
+        ELIMINAR,
+        /** Registro de RegistroTransacciones con cambios de varios repositorios */
+        TRANSACCION
+    }
+
+    /**
+     * Registro individual leido desde el journal
+     */
+    public static class Registro {
+        private final long secuencia;
+        private final Operacion operacion;
+        private final String id;
+        private final byte[] contenido;
+
+        public Registro(long secuencia, Operacion operacion, String id, byte[] contenido) {
+            this.secuencia = secuencia;
+            this.operacion = operacion;
+            this.id = id;
+            this.contenido = contenido;
+        }
+
+        public long getSecuencia() {
+            return secuencia;
+        }
+
+        public Operacion getOperacion() {
+            return operacion;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public byte[] getContenido() {
+            return contenido;
+        }
+    }
+
+    private final Path ruta;
+    private FileChannel canal;
+    private long secuencia;
+    private int registrosPendientes;
+    private final boolean sincronizar;
+
+    /** Registros ya codificados que esperan ser escritos en grupo */
+    private final ByteArrayOutputStream encolados;
+    private int registrosEncolados;
+
+    /**
+     * Constructor del journal
+     *
+     * @param ruta Ruta del archivo de log
+     * @param sincronizar true para forzar fsync despues de cada registro
+     */
+    public Journal(String ruta, boolean sincronizar) {
+        this.ruta = Paths.get(ruta);
+        this.sincronizar = sincronizar;
+        this.secuencia = 0;
+        this.registrosPendientes = 0;
+        this.encolados = new ByteArrayOutputStream();
+        this.registrosEncolados = 0;
+    }
+
+    /**
+     * Agrega un registro al final del journal.
+     * Si hay registros encolados se escriben junto con este.
+     *
+     * @param operacion Operacion realizada
+     * @param id ID de la entidad afectada
+     * @param contenido Entidad serializada
+     * @throws IOException Si hay error al escribir
+     */
+    public synchronized void agregar(Operacion operacion, String id, byte[] contenido) throws IOException {
+        encolar(operacion, id, contenido);
+        vaciarPendientes();
+    }
+
+    /**
+     * Encola un registro en memoria sin escribirlo todavia (escritura diferida).
+     * Los registros encolados se escriben juntos en vaciarPendientes().
+     *
+     * @param operacion Operacion realizada
+     * @param id ID de la entidad afectada
+     * @param contenido Entidad serializada
+     * @throws IOException Si hay error al codificar el registro
+     */
+    public synchronized void encolar(Operacion operacion, String id, byte[] contenido) throws IOException {
+        ByteArrayOutputStream cuerpo = new ByteArrayOutputStream(contenido.length + 64);
+        try (DataOutputStream salida = new DataOutputStream(cuerpo)) {
+            salida.writeLong(++secuencia);
+            salida.writeByte(operacion.ordinal());
+            salida.writeUTF(id);
+            salida.writeInt(contenido.length);
+            salida.write(contenido);
+        }
+        byte[] bytes = cuerpo.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        DataOutputStream lote = new DataOutputStream(encolados);
+        lote.writeInt(bytes.length);
+        lote.writeInt((int) crc.getValue());
+        lote.write(bytes);
+        registrosEncolados++;
+        registrosPendientes++;
+    }
+
+    /**
+     * Escribe todos los registros encolados con una sola escritura
+     * (y un solo fsync si esta activo). Si la escritura falla, los
+     * registros siguen encolados para el proximo intento.
+     *
+     * @return Cantidad de registros escritos
+     * @throws IOException Si hay error al escribir
+     */
+    public synchronized int vaciarPendientes() throws IOException {
+        if (registrosEncolados == 0) {
+            return 0;
+        }
+        FileChannel salida = abrirCanal();
+        long inicio = salida.size();
+        ByteBuffer buffer = ByteBuffer.wrap(encolados.toByteArray());
+        try {
+            while (buffer.hasRemaining()) {
+                salida.write(buffer);
+            }
+            if (sincronizar) {
+                salida.force(false);
+            }
+        } catch (IOException e) {
+            // No dejar un lote a medias: el reintento lo escribe completo
+            salida.truncate(inicio);
+            throw e;
+        }
+        int escritos = registrosEncolados;
+        encolados.reset();
+        registrosEncolados = 0;
+        return escritos;
+    }
+
+    /**
+     * Cantidad de registros encolados que aun no se escribieron
+     *
+     * @return Registros en memoria
+     */
+    public synchronized int getRegistrosEncolados() {
+        return registrosEncolados;
+    }
+
+    /**
+     * Lee todos los registros validos del journal.
+     * Si encuentra un registro cortado o corrupto, descarta el resto del archivo.
+     *
+     * @return Lista de registros en orden de escritura
+     * @throws IOException Si hay error al leer
+     */
+    public synchronized ArrayList<Registro> leerRegistros() throws IOException {
+        ArrayList<Registro> registros = new ArrayList<>();
+        File archivo = ruta.toFile();
+        if (!archivo.exists()) {
+            return registros;
+        }
+
+        long posicionValida = 0;
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(archivo)))) {
+            while (true) {
+                int longitud;
+                try {
+                    longitud = entrada.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int crcEsperado = entrada.readInt();
+                if (longitud < 0 || longitud > archivo.length()) {
+                    break;
+                }
+                byte[] bytes = new byte[longitud];
+                entrada.readFully(bytes);
+
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                if ((int) crc.getValue() != crcEsperado) {
+                    break;
+                }
+
+                registros.add(decodificar(bytes));
+                posicionValida += 8 + longitud;
+            }
+        } catch (EOFException e) {
+            // Registro incompleto al final: se descarta
+        }
+
+        if (posicionValida < archivo.length()) {
+            System.err.println("[Journal] Registro incompleto descartado en " + ruta);
+            try (FileChannel recorte = FileChannel.open(ruta, StandardOpenOption.WRITE)) {
+                recorte.truncate(posicionValida);
+            }
+        }
+
+        for (Registro registro : registros) {
+            secuencia = Math.max(secuencia, registro.getSecuencia());
+        }
+        registrosPendientes = registros.size();
+        return registros;
+    }
+
+    /**
+     * Vacia el journal despues de un checkpoint.
+     * Los registros encolados tambien se descartan: el snapshot ya los incluye.
+     *
+     * @throws IOException Si hay error al truncar
+     */
+    public synchronized void truncar() throws IOException {
+        abrirCanal().truncate(0);
+        if (sincronizar) {
+            canal.force(true);
+        }
+        encolados.reset();
+        registrosEncolados = 0;
+        registrosPendientes = 0;
+    }
+
+    /**
+     * Cierra el canal del archivo
+     */
+    public synchronized void cerrar() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("[Journal] Error al cerrar: " + e.getMessage());
+            }
+            canal = null;
+        }
+    }
+
+    /**
+     * Cantidad de registros escritos desde el ultimo checkpoint
+     *
+     * @return Numero de registros pendientes de compactar
+     */
+    public synchronized int getRegistrosPendientes() {
+        return registrosPendientes;
+    }
+
+    /**
+     * Reserva el siguiente numero de secuencia para un cambio que se
+     * escribe fuera de este journal (en una transaccion), de modo que
+     * quede ordenado respecto a los registros propios.
+     *
+     * @return Secuencia reservada
+     */
+    public synchronized long siguienteSecuencia() {
+        return ++secuencia;
+    }
+
+    /**
+     * Asegura que las proximas secuencias sean mayores que un valor ya usado
+     * (por ejemplo, la secuencia guardada en el snapshot)
+     *
+     * @param minimo Ultima secuencia conocida
+     */
+    public synchronized void ajustarSecuencia(long minimo) {
+        secuencia = Math.max(secuencia, minimo);
+    }
+
+    /**
+     * Cuenta un cambio escrito fuera de este journal para el umbral de checkpoint
+     */
+    public synchronized void contarRegistroExterno() {
+        registrosPendientes++;
+    }
+
+    /**
+     * Ultimo numero de secuencia asignado
+     *
+     * @return Secuencia actual
+     */
+    public synchronized long getSecuencia() {
+        return secuencia;
+    }
+
+    private FileChannel abrirCanal() throws IOException {
+        if (canal == null || !canal.isOpen()) {
+            File padre = ruta.toAbsolutePath().getParent().toFile();
+            if (!padre.exists()) {
+                padre.mkdirs();
+            }
+            canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return canal;
+    }
+
+    private Registro decodificar(byte[] bytes) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            long numero = entrada.readLong();
+            Operacion operacion = Operacion.values()[entrada.readByte()];
+            String id = entrada.readUTF();
+            byte[] contenido = new byte[entrada.readInt()];
+            entrada.readFully(contenido);
+            return new Registro(numero, operacion, id, contenido);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package persistencia;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+
+/**
+ * LectorBinario - Lectura de campos primitivos desde un canal NIO.
+ * Contraparte de EscritorBinario: rellena un buffer por bloques y
+ * decodifica los campos desde memoria.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class LectorBinario {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final ReadableByteChannel canal;
+    private final ByteBuffer buffer;
+    private int version;
+    private long secuencia;
+
+    /**
+     * Constructor del lector
+     *
+     * @param canal Canal origen
+     */
+    public LectorBinario(ReadableByteChannel canal) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+        this.buffer.flip();
+    }
+
+    /**
+     * Lector sobre un registro que ya esta en memoria (sin buffer propio)
+     *
+     * @param contenido Bytes del registro
+     */
+    LectorBinario(byte[] contenido) {
+        this.canal = Channels.newChannel(InputStream.nullInputStream());
+        this.buffer = ByteBuffer.wrap(contenido);
+    }
+
+    /**
+     * Version del formato que se esta leyendo, para que los codecs
+     * puedan interpretar registros escritos por versiones anteriores
+     *
+     * @return Version del archivo
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Secuencia del journal guardada en la cabecera del archivo
+     *
+     * @return Secuencia del ultimo cambio incluido (0 si no aplica)
+     */
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    void setSecuencia(long secuencia) {
+        this.secuencia = secuencia;
+    }
+
+    public int leerByte() throws IOException {
+        asegurar(1);
+        return buffer.get();
+    }
+
+    public boolean leerBoolean() throws IOException {
+        return leerByte() != 0;
+    }
+
+    public int leerInt() throws IOException {
+        asegurar(4);
+        return buffer.getInt();
+    }
+
+    public long leerLong() throws IOException {
+        asegurar(8);
+        return buffer.getLong();
+    }
+
+    public double leerDouble() throws IOException {
+        asegurar(8);
+        return buffer.getDouble();
+    }
+
+    /**
+     * Lee un texto con prefijo de longitud
+     *
+     * @return Texto leido o null
+     * @throws IOException Si el registro esta incompleto
+     */
+    public String leerTexto() throws IOException {
+        int longitud = leerInt();
+        if (longitud < 0) {
+            return null;
+        }
+        if (longitud <= buffer.capacity()) {
+            asegurar(longitud);
+            String texto = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    longitud, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + longitud);
+            return texto;
+        }
+        return new String(leerBytes(longitud), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee una fecha guardada como milisegundos desde epoch (UTC)
+     *
+     * @return Fecha leida o null
+     * @throws IOException Si el registro esta incompleto
+     */
+    public LocalDateTime leerFecha() throws IOException {
+        long milis = leerLong();
+        if (milis == EscritorBinario.FECHA_NULA) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(milis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Lee una lista de textos con prefijo de cantidad
+     *
+     * @return Lista leida
+     * @throws IOException Si el registro esta incompleto
+     */
+    public ArrayList<String> leerTextos() throws IOException {
+        int cantidad = leerInt();
+        if (cantidad < 0) {
+            throw new IOException("Cantidad de elementos invalida: " + cantidad);
+        }
+        ArrayList<String> textos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            textos.add(leerTexto());
+        }
+        return textos;
+    }
+
+    /**
+     * Lee un enum guardado por su ordinal
+     *
+     * @param <E> Tipo del enum
+     * @param valores Constantes del enum (Tipo.values())
+     * @return Constante leida o null
+     * @throws IOException Si el ordinal no existe
+     */
+    public <E extends Enum<E>> E leerEnum(E[] valores) throws IOException {
+        int ordinal = leerByte();
+        if (ordinal < 0) {
+            return null;
+        }
+        if (ordinal >= valores.length) {
+            throw new IOException("Valor de enum desconocido: " + ordinal);
+        }
+        return valores[ordinal];
+    }
+
+    public byte[] leerBytes(int cantidad) throws IOException {
+        byte[] bytes = new byte[cantidad];
+        int desde = 0;
+        while (desde < cantidad) {
+            if (!buffer.hasRemaining()) {
+                rellenar(1);
+            }
+            int n = Math.min(buffer.remaining(), cantidad - desde);
+            buffer.get(bytes, desde, n);
+            desde += n;
+        }
+        return bytes;
+    }
+
+    private void asegurar(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            rellenar(bytes);
+        }
+    }
+
+    private void rellenar(int minimo) throws IOException {
+        buffer.compact();
+        while (buffer.position() < minimo) {
+            if (canal.read(buffer) < 0) {
+                buffer.flip();
+                throw new EOFException("Fin de archivo inesperado");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -1,10 +1,10 @@
 /**
  * OrganizadorRepositorio - Gestiona la persistencia de organizadores en archivo.
  * Implementa operaciones CRUD (Create, Read, Update, Delete) para organizadores.
- * Utiliza serialización de objetos para guardar/cargar datos.
+ * Utiliza el formato binario de ArchivoBinario para guardar/cargar datos.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package persistencia;
 
@@ -20,12 +20,7 @@ public class OrganizadorRepositorio extends RepositorioBase<Organizador> {
      */
     public OrganizadorRepositorio() {
         super("organizadores.dat");
-        try {
-            cargarDesdeArchivo();
-        } catch (IOException | ClassNotFoundException e) {
-            // Si el archivo no existe o hay error, iniciar con lista vacía
-            datos = new ArrayList<>();
-        }
+        cargarDatos();
     }
     // 
     // OPERACIONES CRUD
@@ -37,8 +32,8 @@ public class OrganizadorRepositorio extends RepositorioBase<Organizador> {
      * @throws IOException Si hay error al guardar en archivo
      */
     public void agregar(Organizador organizador) throws IOException {
-        datos.add(organizador);
-        guardarEnArchivo();
+        agregarEnMemoria(organizador);
+        persistirAgregado(organizador);
     }
     
     /**
@@ -49,10 +44,9 @@ public class OrganizadorRepositorio extends RepositorioBase<Organizador> {
      * @throws OrganizadorNoEncontradoException Si no existe el organizador
      */
     public Organizador buscarPorId(String id) throws OrganizadorNoEncontradoException {
-        for (Organizador organizador : datos) {
-            if (organizador.getId().equals(id)) {
-                return organizador;
-            }
+        Organizador organizador = buscarEnIndice(id);
+        if (organizador != null) {
+            return organizador;
         }
         throw new OrganizadorNoEncontradoException(id);
     }
@@ -64,7 +58,7 @@ public class OrganizadorRepositorio extends RepositorioBase<Organizador> {
      * @param email Email del organizador a buscar
      * @return Organizador encontrado o null si no existe
      */
-    public Organizador buscarPorEmail(String email) {
+    public synchronized Organizador buscarPorEmail(String email) {
         for (Organizador organizador : datos) {
             if (organizador.getEmail().equalsIgnoreCase(email)) {
                 return organizador;
@@ -80,18 +74,11 @@ public class OrganizadorRepositorio extends RepositorioBase<Organizador> {
      * @throws IOException Si hay error al guardar
      */
     public void actualizar(Organizador organizador) throws OrganizadorNoEncontradoException, IOException {
-        var encontrado = false;
-        for (int i = 0; i < datos.size(); i++) {
-            if (datos.get(i).getId().equals(organizador.getId())) {
-                datos.set(i, organizador);
-                encontrado = true;
-                guardarEnArchivo();
-                break;
-            }
-        }
+        var encontrado = reemplazarEnMemoria(organizador);
         if (!encontrado) {
             throw new OrganizadorNoEncontradoException(organizador.getId());
         }
+        persistirActualizado(organizador);
     }
     
     /**
@@ -102,47 +89,43 @@ public class OrganizadorRepositorio extends RepositorioBase<Organizador> {
      * @throws IOException Si hay error al guardar
      */
     public void eliminar(String id) throws OrganizadorNoEncontradoException, IOException {
-        var eliminado = false;
-        for (int i = 0; i < datos.size(); i++) {
-            if (datos.get(i).getId().equals(id)) {
-                datos.remove(i);
-                eliminado = true;
-                guardarEnArchivo();
-                break;
-            }
-        }
-        if (!eliminado) {
+        Organizador removido = eliminarDeMemoria(id);
+        if (removido == null) {
             throw new OrganizadorNoEncontradoException(id);
         }
+        persistirEliminado(removido);
     }
     
     
    //METODOS ABSTRACTOS
     /**
-     * Guarda la lista de organizadores en el archivo usando serialización.
+     * Guarda la lista de organizadores en el archivo usando el formato binario.
      * 
      * @throws IOException Si hay error al escribir en el archivo
      */
     @Override
     protected void guardarEnArchivo() throws IOException {
-        try (ObjectOutputStream escritura = new ObjectOutputStream(
-                new FileOutputStream(nombreArchivo))) {
-            escritura.writeObject(datos);
-        }
+        guardarSnapshot();
+    }
+    
+    @Override
+    protected CodecEntidad<Organizador> obtenerCodec() {
+        return CodecsModelo.ORGANIZADOR;
+    }
+    
+    @Override
+    protected String obtenerId(Organizador organizador) {
+        return organizador.getId();
     }
     
     /**
-     * Carga la lista de organizadores desde el archivo usando deserialización.
+     * Carga la lista de organizadores desde el archivo (binario o serializado antiguo).
      * 
      * @throws IOException Si hay error al leer el archivo
-     * @throws ClassNotFoundException Si la clase serializada no existe
+     * @throws ClassNotFoundException Si el archivo antiguo referencia clases inexistentes
      */
     @Override
-    @SuppressWarnings("unchecked")
-    protected void cargarDesdeArchivo() throws IOException, ClassNotFoundException {
-        try (ObjectInputStream lectura = new ObjectInputStream(
-                new FileInputStream(nombreArchivo))) {
-            datos = (ArrayList<Organizador>) lectura.readObject();
-        }
+    protected void cargarDesdeArchivo()throws IOException,ClassNotFoundException{
+        cargarSnapshot();
     }
 }
\ No newline at end of file
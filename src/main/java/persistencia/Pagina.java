@@ -0,0 +1,69 @@
+package persistencia;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pagina - Un tramo de resultados de una consulta paginada.
+ *
+ * La paginacion es por clave (keyset): la continuacion es el ID del ultimo
+ * elemento entregado y la pagina siguiente empieza justo despues de ese ID.
+ * A diferencia de un desplazamiento, no hay que recorrer las paginas
+ * anteriores, y las altas o bajas entre una pagina y otra no repiten ni
+ * saltan elementos.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ * @param <T> Tipo de entidad
+ */
+public final class Pagina<T> {
+
+    private final List<T> elementos;
+    private final String continuacion;
+
+    /**
+     * Crea una pagina
+     *
+     * @param elementos Elementos de la pagina, en orden
+     * @param continuacion Token para pedir la pagina siguiente, o null si es la ultima
+     */
+    public Pagina(List<T> elementos, String continuacion) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.continuacion = continuacion;
+    }
+
+    /**
+     * Pagina sin elementos ni continuacion
+     *
+     * @param <T> Tipo de entidad
+     * @return Pagina vacia
+     */
+    public static <T> Pagina<T> vacia() {
+        return new Pagina<>(Collections.emptyList(), null);
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * Token para pedir la pagina siguiente
+     *
+     * @return ID del ultimo elemento, o null si no hay mas paginas
+     */
+    public String getContinuacion() {
+        return continuacion;
+    }
+
+    public boolean hayMas() {
+        return continuacion != null;
+    }
+
+    public int tamano() {
+        return elementos.size();
+    }
+
+    public boolean estaVacia() {
+        return elementos.isEmpty();
+    }
+}
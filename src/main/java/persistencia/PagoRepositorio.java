@@ -6,19 +6,43 @@ import java.io.*;
 import java.util.ArrayList;
 
 /**
- * Repositorio para gestionar la persistencia de pagos
+ * Repositorio para gestionar la persistencia de pagos.
+ * Mantiene indices secundarios por evento, participante, ticket y estado
+ * para que las consultas no recorran todos los pagos.
+ * Con -Deventplanner.fragmentos=true se guarda un archivo por evento
+ * que se carga al consultarlo.
+ * Los pagos de un participante tambien se pueden pedir por paginas.
+ * Las consultas por indice se sincronizan sobre el repositorio, igual que
+ * buscarEnIndice, porque los indices no son concurrentes. Las consultas por
+ * participante, ticket o estado solo cargan los fragmentos que tienen pagos
+ * con ese valor.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.6
  */
 public class PagoRepositorio extends RepositorioBase<Pago> {
     
+    // ==================== INDICES SECUNDARIOS ====================
+    private final IndiceSecundario<String, Pago> indicePorEvento = registrarIndice(Pago::getEventoId);
+    private final IndiceSecundario<String, Pago> indicePorParticipante = registrarIndice(Pago::getParticipanteId);
+    private final IndiceSecundario<String, Pago> indicePorTicket = registrarIndice(Pago::getTicketId);
+    private final IndiceSecundario<EstadoPago, Pago> indicePorEstado = registrarIndice(Pago::getEstado);
+    private int rutaParticipante = -1;
+    private int rutaTicket = -1;
+    private int rutaEstado = -1;
+    
     /**
      * Constructor
      */
     public PagoRepositorio() {
         super("datos/pagos.dat");
-        cargarDesdeArchivo();
+        if (FRAGMENTAR) {
+            fragmentarPor(Pago::getEventoId);
+            rutaParticipante = rutearPor(Pago::getParticipanteId);
+            rutaTicket = rutearPor(Pago::getTicketId);
+            rutaEstado = rutearPor(Pago::getEstado);
+        }
+        cargarDatos();
     }
     
     /**
@@ -28,8 +52,8 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * @throws IOException Si hay error al guardar
      */
     public void agregar(Pago pago) throws IOException {
-        datos.add(pago);
-        guardarEnArchivo();
+        agregarEnMemoria(pago);
+        persistirAgregado(pago);
         System.out.println("[PagoRepo]  Pago guardado: " + pago.getId());
     }
     
@@ -41,10 +65,9 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * @throws Exception Si no se encuentra
      */
     public Pago buscarPorId(String id) throws Exception {
-        for (Pago pago : datos) {
-            if (pago.getId().equals(id)) {
-                return pago;
-            }
+        Pago pago = buscarEnIndice(id);
+        if (pago != null) {
+            return pago;
         }
         throw new Exception("Pago no encontrado: " + id);
     }
@@ -56,29 +79,57 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * @return Pago asociado al ticket
      * @throws Exception Si no se encuentra
      */
-    public Pago buscarPorTicket(String ticketId) throws Exception {
-        for (Pago pago : datos) {
-            if (pago.getTicketId().equals(ticketId)) {
-                return pago;
-            }
+    public synchronized Pago buscarPorTicket(String ticketId) throws Exception {
+        cargarFragmentosCon(rutaTicket, ticketId);
+        Pago pago = indicePorTicket.buscarPrimero(ticketId);
+        if (pago != null) {
+            return pago;
         }
         throw new Exception("Pago no encontrado para ticket: " + ticketId);
     }
     
+    /**
+     * Busca el pago de un ticket cuyo evento se conoce
+     * (solo carga el fragmento de ese evento)
+     * 
+     * @param eventoId ID del evento del ticket
+     * @param ticketId ID del ticket
+     * @return Pago asociado al ticket
+     * @throws Exception Si no se encuentra
+     */
+    public synchronized Pago buscarPorTicket(String eventoId, String ticketId) throws Exception {
+        cargarFragmento(eventoId);
+        Pago pago = indicePorTicket.buscarPrimero(ticketId);
+        if (pago != null) {
+            return pago;
+        }
+        return buscarPorTicket(ticketId);
+    }
+    
     /**
      * Busca pagos por participante
      * 
      * @param participanteId ID del participante
      * @return Lista de pagos del participante
      */
-    public ArrayList<Pago> buscarPorParticipante(String participanteId) {
-        ArrayList<Pago> resultado = new ArrayList<>();
-        for (Pago pago : datos) {
-            if (pago.getParticipanteId().equals(participanteId)) {
-                resultado.add(pago);
-            }
-        }
-        return resultado;
+    public synchronized ArrayList<Pago> buscarPorParticipante(String participanteId) {
+        cargarFragmentosCon(rutaParticipante, participanteId);
+        return indicePorParticipante.buscar(participanteId);
+    }
+    
+    /**
+     * Pagina de los pagos de un participante, ordenados por ID
+     * 
+     * @param participanteId ID del participante
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de pagos
+     * @param descendente true para empezar por los mas nuevos
+     * @return Pagina de pagos
+     */
+    public synchronized Pagina<Pago> buscarPaginaPorParticipante(String participanteId, String continuacion,
+            int tamano, boolean descendente) {
+        cargarFragmentosCon(rutaParticipante, participanteId);
+        return paginarIndice(indicePorParticipante, participanteId, continuacion, tamano, descendente);
     }
     
     /**
@@ -87,14 +138,9 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * @param eventoId ID del evento
      * @return Lista de pagos del evento
      */
-    public ArrayList<Pago> buscarPorEvento(String eventoId) {
-        ArrayList<Pago> resultado = new ArrayList<>();
-        for (Pago pago : datos) {
-            if (pago.getEventoId().equals(eventoId)) {
-                resultado.add(pago);
-            }
-        }
-        return resultado;
+    public synchronized ArrayList<Pago> buscarPorEvento(String eventoId) {
+        cargarFragmento(eventoId);
+        return indicePorEvento.buscar(eventoId);
     }
     
     /**
@@ -103,14 +149,31 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * @param estado Estado del pago
      * @return Lista de pagos con ese estado
      */
-    public ArrayList<Pago> buscarPorEstado(EstadoPago estado) {
-        ArrayList<Pago> resultado = new ArrayList<>();
-        for (Pago pago : datos) {
-            if (pago.getEstado() == estado) {
-                resultado.add(pago);
-            }
-        }
-        return resultado;
+    public synchronized ArrayList<Pago> buscarPorEstado(EstadoPago estado) {
+        cargarFragmentosCon(rutaEstado, estado);
+        return indicePorEstado.buscar(estado);
+    }
+    
+    /**
+     * Cuenta los pagos de un evento sin construir la lista
+     * 
+     * @param eventoId ID del evento
+     * @return Cantidad de pagos del evento
+     */
+    public synchronized int contarPorEvento(String eventoId) {
+        cargarFragmento(eventoId);
+        return indicePorEvento.contar(eventoId);
+    }
+    
+    /**
+     * Cuenta los pagos con un estado sin construir la lista
+     * 
+     * @param estado Estado del pago
+     * @return Cantidad de pagos con ese estado
+     */
+    public synchronized int contarPorEstado(EstadoPago estado) {
+        cargarFragmentosCon(rutaEstado, estado);
+        return indicePorEstado.contar(estado);
     }
     
     /**
@@ -120,21 +183,13 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * @throws Exception Si no se encuentra el pago
      */
     public void actualizar(Pago pagoActualizado) throws Exception {
-        boolean encontrado = false;
-        
-        for (int i = 0; i < datos.size(); i++) {
-            if (datos.get(i).getId().equals(pagoActualizado.getId())) {
-                datos.set(i, pagoActualizado);
-                encontrado = true;
-                break;
-            }
-        }
+        boolean encontrado = reemplazarEnMemoria(pagoActualizado);
         
         if (!encontrado) {
             throw new Exception("Pago no encontrado para actualizar: " + pagoActualizado.getId());
         }
         
-        guardarEnArchivo();
+        persistirActualizado(pagoActualizado);
         System.out.println("[PagoRepo] Pago actualizado: " + pagoActualizado.getId());
     }
     
@@ -145,21 +200,13 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * @throws Exception Si no se encuentra
      */
     public void eliminar(String id) throws Exception {
-        Pago pagoAEliminar = null;
-        
-        for (Pago pago : datos) {
-            if (pago.getId().equals(id)) {
-                pagoAEliminar = pago;
-                break;
-            }
-        }
+        Pago pagoAEliminar = eliminarDeMemoria(id);
         
         if (pagoAEliminar == null) {
             throw new Exception("Pago no encontrado: " + id);
         }
         
-        datos.remove(pagoAEliminar);
-        guardarEnArchivo();
+        persistirEliminado(pagoAEliminar);
         System.out.println("[PagoRepo]  Pago eliminado: " + id);
     }
     
@@ -167,23 +214,31 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
      * Guarda todos los pagos en archivo
      */
     @Override
-    protected void guardarEnArchivo() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(nombreArchivo))) {
-            oos.writeObject(datos);
-            System.out.println("[PagoRepo]  " + datos.size() + " pagos guardados");
+    protected void guardarEnArchivo() throws IOException {
+        try {
+            guardarSnapshot();
         } catch (IOException e) {
             System.err.println("[PagoRepo]  Error al guardar: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
+        System.out.println("[PagoRepo]  " + datos.size() + " pagos guardados");
+    }
+    
+    @Override
+    protected CodecEntidad<Pago> obtenerCodec() {
+        return CodecsModelo.PAGO;
+    }
+    
+    @Override
+    protected String obtenerId(Pago pago) {
+        return pago.getId();
     }
     
     /**
      * Carga los pagos desde archivo
      */
     @Override
-    @SuppressWarnings("unchecked")
-    protected void cargarDesdeArchivo() {
+    protected void cargarDesdeArchivo() throws IOException, ClassNotFoundException {
         File archivo = new File(nombreArchivo);
         
         if (!archivo.exists()) {
@@ -192,16 +247,14 @@ public class PagoRepositorio extends RepositorioBase<Pago> {
             return;
         }
         
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(archivo))) {
-            datos = (ArrayList<Pago>) ois.readObject();
-            System.out.println("[PagoRepo] " + datos.size() + " pagos cargados");
-        } catch (EOFException e) {
+        if (archivo.length() == 0) {
             System.out.println("[PagoRepo]  Archivo vacío, inicializando...");
             datos = new ArrayList<>();
-        } catch (Exception e) {
-            System.err.println("[PagoRepo] Error al cargar: " + e.getMessage());
-            datos = new ArrayList<>();
+            return;
         }
+
+        // Un archivo dañado detiene la carga (RepositorioBase): iniciar vacio lo pisaria
+        cargarSnapshot();
+        System.out.println("[PagoRepo] " + datos.size() + " pagos cargados");
     }
 }
\ No newline at end of file
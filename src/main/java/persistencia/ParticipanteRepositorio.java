@@ -1,10 +1,10 @@
 /**
  * ParticipanteRepositorio - Gestiona la persistencia de participantes en archivos.
  * Implementa operaciones CRUD (Create, Read, Update, Delete) para participantes.
- * Utiliza serialización de objetos para guardar/cargar datos.
+ * Utiliza el formato binario de ArchivoBinario para guardar/cargar datos.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package persistencia;
 
@@ -20,12 +20,7 @@ public class ParticipanteRepositorio extends RepositorioBase<Participante> {
      */
     public ParticipanteRepositorio(){
         super("participantes.dat");
-        try {
-            cargarDesdeArchivo();
-        } catch (IOException | ClassNotFoundException e) {
-         // Si el archivo no existe o hay error, iniciar con lista vacía
-            datos = new ArrayList<>();
-        }
+        cargarDatos();
     }
     
 
@@ -38,8 +33,8 @@ public class ParticipanteRepositorio extends RepositorioBase<Participante> {
      * @throws IOException Si hay error al guardar en archivo
      */
     public void agregar(Participante participante) throws IOException {
-        datos.add(participante);
-        guardarEnArchivo();
+        agregarEnMemoria(participante);
+        persistirAgregado(participante);
     }
      
     /**
@@ -50,10 +45,9 @@ public class ParticipanteRepositorio extends RepositorioBase<Participante> {
      * @throws ParticipanteNoEncontradoException Si no existe el organizador
      */
     public Participante buscarPorId(String id) throws ParticipanteNoEncontradoException {
-        for (Participante participante : datos) {
-            if(participante.getId().equals(id)){
-                return participante;
-            }
+        Participante participante = buscarEnIndice(id);
+        if(participante != null){
+            return participante;
         }
         throw new ParticipanteNoEncontradoException(id);
     }
@@ -64,7 +58,7 @@ public class ParticipanteRepositorio extends RepositorioBase<Participante> {
      * @param email Email del participante a buscar
      * @return Participante encontrado o null si no existe
      */
-    public Participante buscarPorEmail(String email){
+    public synchronized Participante buscarPorEmail(String email){
        for (Participante participante : datos) {
         if(participante.getEmail().equalsIgnoreCase(email)){
             return participante;
@@ -80,12 +74,9 @@ public class ParticipanteRepositorio extends RepositorioBase<Participante> {
      * @throws IOException Si hay error al guardar
      */
     public void actualizar(Participante participante) throws DatosInvalidosException, IOException {
-        for (int i = 0; i < datos.size(); i++) {
-            if (datos.get(i).getId().equals(participante.getId())) {
-                datos.set(i, participante);
-                guardarEnArchivo();
-                return;
-            }
+        if (reemplazarEnMemoria(participante)) {
+            persistirActualizado(participante);
+            return;
         }
         throw new DatosInvalidosException(participante.getId(), "Participante no encontrado para actualizar");
     }
@@ -98,40 +89,43 @@ public class ParticipanteRepositorio extends RepositorioBase<Participante> {
      * @throws IOException Si hay error al guardar
      */
     public void eliminar(String id) throws DatosInvalidosException, IOException {
-        for (int i = 0; i < datos.size(); i++) {
-            if (datos.get(i).getId().equals(id)) {
-                datos.remove(i);
-                guardarEnArchivo();
-                return;
-            }
+        Participante removido = eliminarDeMemoria(id);
+        if (removido != null) {
+            persistirEliminado(removido);
+            return;
         }
         throw new DatosInvalidosException(id, "Participante no encontrado para eliminar");
     }
     
      //METODOS ABSTRACTOS
     /**
-     * Guarda la lista de participantes en el archivo usando serialización.
+     * Guarda la lista de participantes en el archivo usando el formato binario.
      * 
      * @throws IOException Si hay error al escribir en el archivo
      */
     @Override
     protected void guardarEnArchivo() throws IOException {
-        try (ObjectOutputStream escritura = new ObjectOutputStream(new FileOutputStream(nombreArchivo))) {
-            escritura.writeObject(datos);
-        }
+        guardarSnapshot();
+    }
+    
+    @Override
+    protected CodecEntidad<Participante> obtenerCodec() {
+        return CodecsModelo.PARTICIPANTE;
+    }
+    
+    @Override
+    protected String obtenerId(Participante participante) {
+        return participante.getId();
     }
     
     /**
-     * Carga la lista de participantes desde el archivo usando deserialización.
+     * Carga la lista de participantes desde el archivo (binario o serializado antiguo).
      * 
      * @throws IOException Si hay error al leer el archivo
-     * @throws ClassNotFoundException Si la clase serializada no existe
+     * @throws ClassNotFoundException Si el archivo antiguo referencia clases inexistentes
      */
     @Override
-    @SuppressWarnings("unchecked")
     protected void cargarDesdeArchivo()throws IOException,ClassNotFoundException{
-        try (ObjectInputStream lectura= new ObjectInputStream(new FileInputStream(nombreArchivo))){
-            datos = (ArrayList<Participante>) lectura.readObject();
-        }
+        cargarSnapshot();
     }
 }
\ No newline at end of file
@@ -0,0 +1,315 @@
+package persistencia;
+
+import modelos.Ticket;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * RegistroIdempotencia - Resultados recientes de solicitudes con clave de
+ * idempotencia, para que un reintento devuelva el resultado original en
+ * O(1) sin repetir la operacion.
+ *
+ * Es acotado: guarda como maximo una cantidad de claves y cada una vence
+ * al pasar su duracion. Las entradas se mantienen en orden de llegada, asi
+ * que las vencidas y las que sobran siempre estan al principio y se
+ * descartan sin recorrer el resto.
+ *
+ * Se guarda en un archivo de solo-anexar junto a pagos.dat: cada resultado
+ * nuevo se escribe al final, y al abrir se leen en orden y se descartan los
+ * vencidos. Cuando el archivo acumula el doble de entradas que el maximo se
+ * reescribe solo con las vigentes. Formato: una secuencia de
+ * [int longitud][int crc32][texto clave][texto huella][long creada][byte tipo][resultado],
+ * con el CRC de lo que sigue a la cabecera, igual que el Journal. Al abrir,
+ * la primera entrada cortada o con CRC invalido marca el final del archivo:
+ * se conservan las anteriores y se recorta el resto.
+ *
+ * Los resultados pueden ser un Ticket (guardado con CodecsModelo.TICKET)
+ * o un Boolean.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.1
+ */
+public class RegistroIdempotencia implements Closeable {
+
+    private static final byte TIPO_TICKET = 1;
+    private static final byte TIPO_BOOLEAN = 2;
+
+    /**
+     * Resultado guardado para una clave
+     */
+    public static final class Entrada {
+        private final String clave;
+        private final String huella;
+        private final long creada;
+        private final Object resultado;
+
+        private Entrada(String clave, String huella, long creada, Object resultado) {
+            this.clave = clave;
+            this.huella = huella;
+            this.creada = creada;
+            this.resultado = resultado;
+        }
+
+        public String getClave() {
+            return clave;
+        }
+
+        /**
+         * Descripcion de la solicitud original (operacion y parametros)
+         */
+        public String getHuella() {
+            return huella;
+        }
+
+        public long getCreada() {
+            return creada;
+        }
+
+        /**
+         * Ticket o Boolean devuelto por la solicitud original
+         */
+        public Object getResultado() {
+            return resultado;
+        }
+    }
+
+    private final File archivo;
+    private final int maximo;
+    private final long duracionMs;
+    private final LinkedHashMap<String, Entrada> entradas;
+    private DataOutputStream salida;
+    private int registrosEnArchivo;
+
+    /** Buffer reutilizado para armar cada entrada antes de escribirla */
+    private final BufferRegistro registro;
+    private final EscritorBinario codificador;
+    private final CRC32 crc;
+
+    /**
+     * Buffer que calcula el CRC sin copiar su contenido
+     */
+    private static final class BufferRegistro extends ByteArrayOutputStream {
+        BufferRegistro(int tamano) {
+            super(tamano);
+        }
+
+        int crc(CRC32 crc) {
+            crc.reset();
+            crc.update(buf, 0, count);
+            return (int) crc.getValue();
+        }
+    }
+
+    /**
+     * Abre (o crea) el registro guardado en un archivo
+     *
+     * @param ruta Ruta del archivo (null = solo en memoria)
+     * @param maximo Cantidad maxima de claves
+     * @param duracionMs Tiempo que se recuerda cada clave
+     * @throws IOException Si hay error al leer el archivo
+     */
+    public RegistroIdempotencia(String ruta, int maximo, long duracionMs) throws IOException {
+        if (maximo <= 0 || duracionMs <= 0) {
+            throw new IllegalArgumentException("El maximo y la duracion deben ser positivos");
+        }
+        this.archivo = ruta == null ? null : new File(ruta);
+        this.maximo = maximo;
+        this.duracionMs = duracionMs;
+        this.entradas = new LinkedHashMap<>();
+        this.registro = new BufferRegistro(256);
+        this.codificador = new EscritorBinario(Channels.newChannel(registro));
+        this.crc = new CRC32();
+        cargar();
+    }
+
+    /**
+     * Busca el resultado vigente de una clave
+     *
+     * @param clave Clave de idempotencia
+     * @return Entrada, o null si no existe o ya vencio
+     */
+    public synchronized Entrada buscar(String clave) {
+        descartarVencidas(System.currentTimeMillis());
+        return entradas.get(clave);
+    }
+
+    /**
+     * Guarda el resultado de una clave y lo escribe al final del archivo
+     *
+     * @param clave Clave de idempotencia
+     * @param huella Descripcion de la solicitud
+     * @param resultado Ticket o Boolean
+     * @throws IOException Si hay error al escribir (la entrada queda en memoria)
+     */
+    public synchronized void guardar(String clave, String huella, Object resultado) throws IOException {
+        long ahora = System.currentTimeMillis();
+        Entrada entrada = new Entrada(clave, huella, ahora, resultado);
+        entradas.remove(clave);
+        entradas.put(clave, entrada);
+        descartarVencidas(ahora);
+        if (archivo == null) {
+            return;
+        }
+        if (registrosEnArchivo >= 2 * maximo) {
+            reescribir();
+        } else {
+            abrirSalida();
+            escribir(salida, entrada);
+            salida.flush();
+            registrosEnArchivo++;
+        }
+    }
+
+    /**
+     * Cantidad de claves vigentes
+     *
+     * @return Tamaño del registro
+     */
+    public synchronized int tamano() {
+        descartarVencidas(System.currentTimeMillis());
+        return entradas.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (salida != null) {
+            salida.close();
+            salida = null;
+        }
+    }
+
+    /**
+     * Quita las entradas del principio que vencieron o exceden el maximo
+     */
+    private void descartarVencidas(long ahora) {
+        Iterator<Entrada> iterador = entradas.values().iterator();
+        while (iterador.hasNext()) {
+            Entrada primera = iterador.next();
+            if (entradas.size() <= maximo && ahora - primera.creada < duracionMs) {
+                break;
+            }
+            iterador.remove();
+        }
+    }
+
+    private void cargar() throws IOException {
+        if (archivo == null || !archivo.exists()) {
+            return;
+        }
+        long posicionValida = 0;
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(archivo)))) {
+            while (true) {
+                int longitud;
+                try {
+                    longitud = entrada.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int crcEsperado = entrada.readInt();
+                if (longitud < 0 || longitud > archivo.length()) {
+                    break;
+                }
+                byte[] bytes = new byte[longitud];
+                entrada.readFully(bytes);
+                crc.reset();
+                crc.update(bytes);
+                if ((int) crc.getValue() != crcEsperado) {
+                    break;
+                }
+                Entrada leida;
+                try {
+                    leida = leer(new LectorBinario(bytes));
+                } catch (IOException e) {
+                    break;
+                }
+                entradas.remove(leida.clave);
+                entradas.put(leida.clave, leida);
+                registrosEnArchivo++;
+                posicionValida += 8 + longitud;
+            }
+        } catch (EOFException e) {
+            // Entrada incompleta al final: se descarta
+        }
+        if (posicionValida < archivo.length()) {
+            System.err.println("[RegistroIdempotencia] Entrada incompleta o dañada en " + archivo.getName()
+                    + ": se conservan las " + registrosEnArchivo + " anteriores y se descarta el resto");
+            try (RandomAccessFile recorte = new RandomAccessFile(archivo, "rw")) {
+                recorte.setLength(posicionValida);
+            }
+        }
+        descartarVencidas(System.currentTimeMillis());
+        if (registrosEnArchivo > entradas.size()) {
+            reescribir();
+        }
+        System.out.println("[RegistroIdempotencia] " + entradas.size() + " claves vigentes en " + archivo.getName());
+    }
+
+    /**
+     * Reescribe el archivo solo con las entradas vigentes
+     */
+    private void reescribir() throws IOException {
+        close();
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try (DataOutputStream nueva = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporal)))) {
+            for (Entrada entrada : entradas.values()) {
+                escribir(nueva, entrada);
+            }
+        }
+        Files.move(temporal.toPath(), archivo.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        registrosEnArchivo = entradas.size();
+    }
+
+    private void escribir(DataOutputStream destino, Entrada entrada) throws IOException {
+        registro.reset();
+        codificador.escribirTexto(entrada.clave);
+        codificador.escribirTexto(entrada.huella);
+        codificador.escribirLong(entrada.creada);
+        if (entrada.resultado instanceof Ticket) {
+            codificador.escribirByte(TIPO_TICKET);
+            CodecsModelo.TICKET.escribir(codificador, (Ticket) entrada.resultado);
+        } else if (entrada.resultado instanceof Boolean) {
+            codificador.escribirByte(TIPO_BOOLEAN);
+            codificador.escribirBoolean((Boolean) entrada.resultado);
+        } else {
+            throw new IOException("Resultado no soportado: " + entrada.resultado);
+        }
+        codificador.vaciar();
+        destino.writeInt(registro.size());
+        destino.writeInt(registro.crc(crc));
+        registro.writeTo(destino);
+    }
+
+    private static Entrada leer(LectorBinario entrada) throws IOException {
+        String clave = entrada.leerTexto();
+        String huella = entrada.leerTexto();
+        long creada = entrada.leerLong();
+        int tipo = entrada.leerByte();
+        Object resultado;
+        if (tipo == TIPO_TICKET) {
+            resultado = CodecsModelo.TICKET.leer(entrada);
+        } else if (tipo == TIPO_BOOLEAN) {
+            resultado = entrada.leerBoolean();
+        } else {
+            throw new IOException("Tipo de resultado desconocido: " + tipo);
+        }
+        return new Entrada(clave, huella, creada, resultado);
+    }
+
+    private void abrirSalida() throws IOException {
+        if (salida == null) {
+            File padre = archivo.getAbsoluteFile().getParentFile();
+            if (padre != null && !padre.exists()) {
+                padre.mkdirs();
+            }
+            salida = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archivo, true)));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package persistencia;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * RegistroTransacciones - Log compartido donde se confirman las unidades
+ * de trabajo que modifican varios repositorios a la vez.
+ *
+ * Cada transaccion es un unico registro del journal (con CRC), de modo que
+ * al recuperar se aplican todos sus cambios o ninguno. Cada cambio lleva la
+ * secuencia que le asigno el journal de su repositorio, para ordenarlo
+ * respecto a los cambios propios del repositorio y descartar los que ya
+ * estan incluidos en su snapshot.
+ *
+ * El log se vacia cuando todos los repositorios con cambios en el han hecho
+ * checkpoint posterior a esos cambios.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public final class RegistroTransacciones {
+
+    /** Archivo del log de transacciones */
+    private static final String RUTA = "datos/transacciones.log";
+
+    /** fsync al confirmar cada transaccion (por defecto activo) */
+    private static final boolean SINCRONIZAR =
+            Boolean.parseBoolean(System.getProperty("eventplanner.transacciones.fsync", "true"));
+
+    private static RegistroTransacciones instancia;
+
+    /**
+     * Cambio individual dentro de una transaccion
+     */
+    static final class Entrada {
+        private final String repositorio;
+        private final Journal.Operacion operacion;
+        private final long secuencia;
+        private final String id;
+        private final byte[] contenido;
+
+        Entrada(String repositorio, Journal.Operacion operacion, long secuencia, String id, byte[] contenido) {
+            this.repositorio = repositorio;
+            this.operacion = operacion;
+            this.secuencia = secuencia;
+            this.id = id;
+            this.contenido = contenido;
+        }
+    }
+
+    private final Journal log;
+
+    /** Cambios recuperados al iniciar, pendientes de aplicar por cada repositorio */
+    private final HashMap<String, ArrayList<Journal.Registro>> recuperados;
+
+    /** Mayor secuencia escrita en el log por repositorio, aun no cubierta por su snapshot */
+    private final HashMap<String, Long> pendientesPorRepositorio;
+
+    /**
+     * Obtiene la instancia unica del registro.
+     * La primera llamada lee el log existente.
+     *
+     * @return Registro de transacciones
+     */
+    public static synchronized RegistroTransacciones getInstance() {
+        if (instancia == null) {
+            instancia = new RegistroTransacciones();
+        }
+        return instancia;
+    }
+
+    private RegistroTransacciones() {
+        this.log = new Journal(RUTA, SINCRONIZAR);
+        this.recuperados = new HashMap<>();
+        this.pendientesPorRepositorio = new HashMap<>();
+        recuperar();
+    }
+
+    /**
+     * Escribe una transaccion completa como un solo registro
+     *
+     * @param entradas Cambios de la transaccion
+     * @throws IOException Si hay error al escribir
+     */
+    synchronized void confirmar(List<Entrada> entradas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeInt(entradas.size());
+            for (Entrada entrada : entradas) {
+                salida.writeUTF(entrada.repositorio);
+                salida.writeByte(entrada.operacion.ordinal());
+                salida.writeLong(entrada.secuencia);
+                salida.writeUTF(entrada.id);
+                salida.writeInt(entrada.contenido.length);
+                salida.write(entrada.contenido);
+            }
+        }
+        log.agregar(Journal.Operacion.TRANSACCION, "TX-" + (log.getSecuencia() + 1), bytes.toByteArray());
+
+        for (Entrada entrada : entradas) {
+            pendientesPorRepositorio.merge(entrada.repositorio, entrada.secuencia, Math::max);
+        }
+    }
+
+    /**
+     * Entrega (una sola vez) los cambios recuperados de un repositorio
+     *
+     * @param repositorio Nombre del archivo del repositorio
+     * @return Cambios en orden de escritura, vacio si no hay
+     */
+    synchronized ArrayList<Journal.Registro> entradasDe(String repositorio) {
+        ArrayList<Journal.Registro> entradas = recuperados.remove(repositorio);
+        return entradas == null ? new ArrayList<>() : entradas;
+    }
+
+    /**
+     * Avisa que un repositorio guardo su snapshot hasta cierta secuencia.
+     * Si ya ningun repositorio depende del log, se vacia.
+     *
+     * @param repositorio Nombre del archivo del repositorio
+     * @param secuencia Secuencia incluida en el snapshot
+     * @throws IOException Si hay error al truncar el log
+     */
+    synchronized void snapshotGuardado(String repositorio, long secuencia) throws IOException {
+        Long pendiente = pendientesPorRepositorio.get(repositorio);
+        if (pendiente != null && pendiente <= secuencia) {
+            pendientesPorRepositorio.remove(repositorio);
+        }
+        if (pendientesPorRepositorio.isEmpty() && log.getRegistrosPendientes() > 0) {
+            log.truncar();
+            recuperados.clear();
+        }
+    }
+
+    private void recuperar() {
+        try {
+            for (Journal.Registro registro : log.leerRegistros()) {
+                try (DataInputStream entrada = new DataInputStream(
+                        new ByteArrayInputStream(registro.getContenido()))) {
+                    int cantidad = entrada.readInt();
+                    for (int i = 0; i < cantidad; i++) {
+                        String repositorio = entrada.readUTF();
+                        Journal.Operacion operacion = Journal.Operacion.values()[entrada.readByte()];
+                        long secuencia = entrada.readLong();
+                        String id = entrada.readUTF();
+                        byte[] contenido = new byte[entrada.readInt()];
+                        entrada.readFully(contenido);
+
+                        recuperados.computeIfAbsent(repositorio, r -> new ArrayList<>())
+                                .add(new Journal.Registro(secuencia, operacion, id, contenido));
+                        pendientesPorRepositorio.merge(repositorio, secuencia, Math::max);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[RegistroTransacciones] Error al leer el log: " + e.getMessage());
+        }
+    }
+}
@@ -2,83 +2,1198 @@
  * Clase base abstracta para todos los repositorios del sistema.
  * Proporciona funcionalidad comun para persistencia de datos en archivos.
  * Utiliza generics para funcionar con cualquier tipo de entidad.
- * 
+ *
+ * En modo journal (por defecto) cada mutacion se anexa a un log
+ * (nombreArchivo + ".log") en lugar de reescribir el archivo completo.
+ * Periodicamente se hace un checkpoint que compacta el log en el snapshot.
+ * Al iniciar se recupera el snapshot y se reproduce el log encima.
+ *
+ * Junto a la lista se mantiene un indice hash por ID, de modo que
+ * buscar, actualizar y reemplazar por ID cuestan O(1). Eliminar por ID
+ * cuesta O(n): la lista conserva el orden de llegada, asi que se desplaza
+ * y se corrigen las posiciones posteriores (y el IndiceOrdenado, si esta
+ * armado); para borrar muchas se usa eliminarVarios, que hace una sola
+ * pasada. Los repositorios pueden registrar indices secundarios que se
+ * mantienen en las mismas operaciones.
+ *
+ * Los snapshots y los registros del journal usan el formato binario
+ * de ArchivoBinario con el codec de cada entidad.
+ *
+ * Con escritura diferida (-Deventplanner.escrituraDiferida=true) las
+ * mutaciones solo se encolan en memoria y VaciadorDiferido las escribe
+ * en grupo cada cierto intervalo o al completar un lote. flush() fuerza
+ * la escritura; al cerrar la aplicacion se vacia automaticamente.
+ *
+ * Los cambios confirmados por una UnidadDeTrabajo se escriben en el
+ * RegistroTransacciones compartido. Cada cambio (propio o de una
+ * transaccion) lleva una secuencia del journal del repositorio, y el
+ * snapshot guarda la ultima secuencia que incluye, de modo que al
+ * recuperar se aplican en orden solo los posteriores al snapshot.
+ *
+ * Cada entidad modificada desde el ultimo snapshot completo queda marcada
+ * con la version (secuencia) de su ultimo cambio. Los checkpoints solo
+ * escriben esas entidades en un SegmentoDelta (nombreArchivo + ".delta"),
+ * de modo que el costo depende de lo que cambio y no del tamaño del
+ * repositorio. Cuando el delta supera una fraccion de las entidades,
+ * CompactadorSegundoPlano lo integra al snapshot completo.
+ *
+ * Un repositorio puede fragmentar su snapshot por una clave (fragmentarPor):
+ * entonces se guarda un archivo por clave mas un manifiesto
+ * (AlmacenFragmentado), al iniciar solo se lee el manifiesto, cada fragmento
+ * se carga la primera vez que se usa y el checkpoint reescribe solo los
+ * fragmentos con cambios. Un ID que no esta en memoria se busca solo en los
+ * fragmentos que lo pueden tener segun las huellas del manifiesto, y los
+ * repositorios pueden rutear otras claves igual (rutearPor).
+ *
+ * Un IndiceOrdenado mantiene los IDs en orden para buscarPorRangoId. Como
+ * los IDs de GeneradorIds empiezan con la fecha de creacion, un rango de
+ * IDs es un rango de fechas (buscarCreadosEntre). El mismo indice sirve
+ * para paginar por clave (buscarPagina): cada pagina cuesta una busqueda
+ * binaria mas el tamaño de la pagina, sin importar cuantas hay antes.
+ *
+ * Para leer sin copiar la lista en cada consulta (forEach, stream, cursor,
+ * contar) se usa una instantanea inmutable: se arma en la primera lectura
+ * despues de un cambio y se comparte entre todas las lecturas hasta el
+ * siguiente cambio. Las escrituras no copian nada; solo descartan la
+ * instantanea, y quien la este recorriendo sigue viendo la anterior.
+ *
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.17
  * @param <T> Tipo de entidad que maneja el repositorio
  */
 package persistencia;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import modelos.GeneradorIds;
 
 
 public abstract class RepositorioBase<T> {
+
+    /** Activa el modo journal (-Deventplanner.journal=false para desactivarlo) */
+    private static final boolean MODO_JOURNAL =
+            Boolean.parseBoolean(System.getProperty("eventplanner.journal", "true"));
+
+    /** Cantidad de registros en el log que dispara un checkpoint automatico */
+    private static final int UMBRAL_CHECKPOINT =
+            Integer.getInteger("eventplanner.journal.checkpoint", 1000);
+
+    /** Fuerza fsync despues de cada registro del log */
+    private static final boolean SINCRONIZAR_JOURNAL =
+            Boolean.parseBoolean(System.getProperty("eventplanner.journal.fsync", "false"));
+
+    /** Activa la escritura diferida con vaciado en segundo plano */
+    private static final boolean ESCRITURA_DIFERIDA =
+            Boolean.parseBoolean(System.getProperty("eventplanner.escrituraDiferida", "false"));
+
+    /** Tiempo maximo (ms) que un cambio puede esperar en memoria */
+    private static final long INTERVALO_VACIADO =
+            Long.getLong("eventplanner.escrituraDiferida.intervalo", 200L);
+
+    /** Cambios encolados que disparan un vaciado inmediato */
+    private static final int TAMANO_LOTE =
+            Integer.getInteger("eventplanner.escrituraDiferida.lote", 256);
+
+    /** Fraccion de entidades modificadas que dispara la compactacion del delta */
+    private static final double FRACCION_DELTA =
+            Double.parseDouble(System.getProperty("eventplanner.delta.fraccion", "0.1"));
+
+    /** Entidades modificadas que se toleran en el delta aunque el repositorio sea pequeño */
+    private static final int MINIMO_DELTA =
+            Integer.getInteger("eventplanner.delta.minimo", 256);
+
+    /** Fragmenta por evento los repositorios que lo soportan (-Deventplanner.fragmentos=true) */
+    protected static final boolean FRAGMENTAR =
+            Boolean.parseBoolean(System.getProperty("eventplanner.fragmentos", "false"));
+
     protected String nombreArchivo;
     protected ArrayList<T> datos;
-    
+    private final Journal journal;
+
+    /** Indice por ID: posicion de cada entidad dentro de datos */
+    private final HashMap<String, Integer> posiciones;
+
+    /** IDs en orden, para consultas por rango */
+    private final IndiceOrdenado ordenIds;
+
+    /** Copia inmutable de datos para las lecturas; null despues de cada cambio */
+    private volatile List<T> instantanea;
+
+    /** Indices secundarios registrados por el repositorio concreto */
+    private final ArrayList<IndiceSecundario<?, T>> indicesSecundarios;
+
+    /** Sin journal y en modo diferido: hay cambios sin guardar en el snapshot */
+    private boolean sucio;
+
+    /** Version del ultimo cambio de cada entidad modificada (o eliminada) desde el snapshot completo */
+    private final HashMap<String, Long> versiones;
+
+    /** Secuencia de cambios cuando no hay journal */
+    private long secuenciaLocal;
+
+    /** Snapshot fragmentado (null si el repositorio usa un solo archivo) */
+    private AlmacenFragmentado<T> fragmentos;
+    private IndiceSecundario<String, T> indiceFragmentos;
+    private int rutaIds;
+
      /**
      * Constructor del repositorio base.
      * Inicializa el nombre del archivo y la lista de datos vacía.
-     * 
+     *
      * @param nombreArchivo Nombre del archivo de persistencia
      */
     public RepositorioBase(String nombreArchivo){
         this.nombreArchivo= nombreArchivo;
         this.datos =new ArrayList<>();
-        
+        this.posiciones = new HashMap<>();
+        this.ordenIds = new IndiceOrdenado();
+        this.indicesSecundarios = new ArrayList<>();
+        this.versiones = new HashMap<>();
+        this.journal = MODO_JOURNAL ? new Journal(nombreArchivo + ".log", SINCRONIZAR_JOURNAL) : null;
+        if (ESCRITURA_DIFERIDA) {
+            VaciadorDiferido.registrar(this, INTERVALO_VACIADO);
+        }
     }
-   
+
      /**
      * Guarda los datos en el archivo.
      * Cada repositorio específico implementa cómo serializar sus datos.
-     * 
+     *
      * @throws IOException Si hay error al escribir en el archivo
      */
     protected abstract void guardarEnArchivo()throws IOException;
       /**
      * Carga los datos desde el archivo.
      * Cada repositorio específico implementa cómo deserializar sus datos.
-     * 
+     *
      * @throws IOException Si hay error al leer el archivo
      * @throws ClassNotFoundException Si la clase serializada no existe
      */
     protected abstract void cargarDesdeArchivo()throws IOException, ClassNotFoundException;
-    
+
+    /**
+     * Obtiene el identificador unico de una entidad.
+     * Se usa como clave en el journal.
+     *
+     * @param entidad Entidad del repositorio
+     * @return ID de la entidad
+     */
+    protected abstract String obtenerId(T entidad);
+
+    /**
+     * Obtiene el formato binario de la entidad.
+     * Se usa para el snapshot y para los registros del journal.
+     *
+     * @return Codec de la entidad
+     */
+    protected abstract CodecEntidad<T> obtenerCodec();
+
+    /**
+     * Carga el snapshot y reproduce el journal encima.
+     * Si el snapshot no existe (o esta vacio), inicia con lista vacía. Si
+     * esta dañado, o no se puede leer el delta o el journal, lanza
+     * UncheckedIOException: seguir con datos parciales dejaria que el
+     * siguiente checkpoint pisara el snapshot y vaciara el journal.
+     */
+    protected void cargarDatos() {
+        boolean migrar = false;
+        if (fragmentos != null && fragmentos.existeManifiesto()) {
+            try {
+                fragmentos.cargarManifiesto();
+                System.out.println("[" + getClass().getSimpleName() + "] "
+                        + fragmentos.contarFragmentos() + " fragmentos en el manifiesto");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Manifiesto dañado en " + nombreArchivo, e);
+            }
+            datos = new ArrayList<>();
+        } else {
+            File snapshot = new File(nombreArchivo);
+            try {
+                cargarDesdeArchivo();
+            } catch (IOException | ClassNotFoundException e) {
+                if (snapshot.exists() && snapshot.length() > 0) {
+                    throw errorDeCarga("Snapshot dañado en " + nombreArchivo, e);
+                }
+                datos = new ArrayList<>();
+            }
+            migrar = fragmentos != null && snapshot.exists();
+        }
+        reconstruirIndices();
+        reproducirCambios();
+        if (migrar) {
+            migrarAFragmentos();
+        }
+    }
+
+    // ==================== FRAGMENTOS ====================
+
+    /**
+     * Guarda el snapshot en un archivo por clave en lugar de uno solo.
+     * Debe llamarse en el constructor, antes de cargarDatos(). Si existe el
+     * archivo sin fragmentar, se reparte en fragmentos al cargarlo.
+     *
+     * @param extractorClave Funcion que obtiene la clave de fragmento
+     */
+    protected void fragmentarPor(Function<T, String> extractorClave) {
+        fragmentos = new AlmacenFragmentado<>(nombreArchivo, extractorClave, obtenerCodec());
+        indiceFragmentos = registrarIndice(extractorClave);
+        rutaIds = fragmentos.agregarRuta(this::obtenerId);
+    }
+
+    /**
+     * Registra otra clave de busqueda (por ejemplo el participante) para
+     * cargar solo los fragmentos que tienen entidades con un valor.
+     * Debe llamarse despues de fragmentarPor() y antes de cargarDatos().
+     *
+     * @param extractor Funcion que obtiene el valor de la entidad
+     * @return Ruta para cargarFragmentosCon() (-1 si no esta fragmentado)
+     */
+    protected int rutearPor(Function<T, ?> extractor) {
+        return fragmentos == null ? -1 : fragmentos.agregarRuta(extractor);
+    }
+
+    /**
+     * Asegura que esten en memoria los fragmentos que pueden tener
+     * entidades con ese valor en una ruta
+     *
+     * @param ruta Ruta devuelta por rutearPor()
+     * @param valor Valor buscado
+     */
+    protected synchronized void cargarFragmentosCon(int ruta, Object valor) {
+        if (fragmentos == null) {
+            return;
+        }
+        for (String clave : fragmentos.fragmentosFriosCon(ruta, valor)) {
+            cargarFragmento(clave);
+        }
+    }
+
+    /**
+     * Asegura que el fragmento de una clave este en memoria
+     *
+     * @param clave Clave del fragmento
+     */
+    protected synchronized void cargarFragmento(String clave) {
+        if (fragmentos == null || !fragmentos.estaFrio(clave)) {
+            return;
+        }
+        try {
+            ArrayList<T> entidades = fragmentos.leerFragmento(clave);
+            for (T entidad : entidades) {
+                if (!posiciones.containsKey(obtenerId(entidad))) {
+                    indexarNueva(entidad);
+                }
+            }
+        } catch (IOException e) {
+            // No seguir sin el fragmento: el siguiente guardado lo pisaria
+            throw new UncheckedIOException("No se pudo leer el fragmento " + clave + " de " + nombreArchivo, e);
+        }
+    }
+
+    /**
+     * Asegura que todos los fragmentos esten en memoria
+     * (para consultas que no se limitan a una clave)
+     */
+    protected synchronized void cargarTodosLosFragmentos() {
+        if (fragmentos == null) {
+            return;
+        }
+        ArrayList<String> frios = fragmentos.fragmentosFrios();
+        if (frios.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        for (String clave : frios) {
+            cargarFragmento(clave);
+        }
+        System.out.println("[" + getClass().getSimpleName() + "] " + frios.size()
+                + " fragmentos cargados en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Reparte el snapshot de un solo archivo en fragmentos y lo deja como respaldo
+     */
+    private synchronized void migrarAFragmentos() {
+        for (T entidad : datos) {
+            fragmentos.marcarSucio(fragmentos.clave(entidad));
+        }
+        try {
+            checkpoint();
+            File anterior = new File(nombreArchivo);
+            Files.move(anterior.toPath(), new File(nombreArchivo + ".legado").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("[" + getClass().getSimpleName() + "] " + datos.size() + " registros repartidos en "
+                    + fragmentos.contarFragmentos() + " fragmentos");
+        } catch (IOException e) {
+            System.err.println("[" + getClass().getSimpleName() + "] Error al fragmentar: " + e.getMessage());
+        }
+    }
+
+    // ==================== INDICE POR ID ====================
+
+    /**
+     * Reconstruye el indice por ID a partir de la lista de datos.
+     * Si hay IDs repetidos se conserva la primera aparicion.
+     */
+    protected synchronized void reconstruirIndices() {
+        posiciones.clear();
+        ordenIds.invalidar();
+        instantanea = null;
+        for (IndiceSecundario<?, T> indice : indicesSecundarios) {
+            indice.limpiar();
+        }
+        for (int i = 0; i < datos.size(); i++) {
+            T entidad = datos.get(i);
+            posiciones.putIfAbsent(obtenerId(entidad), i);
+            for (IndiceSecundario<?, T> indice : indicesSecundarios) {
+                indice.indexar(entidad);
+            }
+        }
+    }
+
+    /**
+     * Registra un indice secundario que se mantiene en cada alta,
+     * actualizacion, eliminacion y carga.
+     * Debe llamarse antes de cargarDatos().
+     *
+     * @param <K> Tipo de la clave
+     * @param extractorClave Funcion que obtiene la clave de la entidad
+     * @return Indice registrado
+     */
+    protected <K> IndiceSecundario<K, T> registrarIndice(Function<T, K> extractorClave) {
+        IndiceSecundario<K, T> indice = new IndiceSecundario<>(extractorClave, this::obtenerId);
+        indicesSecundarios.add(indice);
+        return indice;
+    }
+
+    /**
+     * Busca una entidad por ID en tiempo constante
+     *
+     * @param id ID de la entidad
+     * @return Entidad encontrada o null si no existe
+     */
+    protected synchronized T buscarEnIndice(String id) {
+        Integer posicion = posiciones.get(id);
+        if (posicion == null && fragmentos != null) {
+            cargarFragmentosCon(rutaIds, id);
+            posicion = posiciones.get(id);
+        }
+        return posicion == null ? null : datos.get(posicion);
+    }
+
+    /**
+     * Verifica si existe una entidad con ese ID
+     *
+     * @param id ID a verificar
+     * @return true si existe
+     */
+    public synchronized boolean existe(String id) {
+        return buscarEnIndice(id) != null;
+    }
+
+    /**
+     * Busca las entidades cuyo ID esta en un rango, en orden de ID
+     *
+     * @param desde Primer ID incluido (null = desde el principio)
+     * @param hasta Primer ID excluido (null = hasta el final)
+     * @return Lista nueva con las entidades del rango
+     */
+    public synchronized ArrayList<T> buscarPorRangoId(String desde, String hasta) {
+        cargarTodosLosFragmentos();
+        if (!ordenIds.esValido()) {
+            ordenIds.reconstruir(posiciones.keySet());
+        }
+        ArrayList<T> resultado = new ArrayList<>();
+        for (String id : ordenIds.rango(desde, hasta)) {
+            resultado.add(datos.get(posiciones.get(id)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca las entidades creadas en un periodo, a partir de la fecha
+     * que GeneradorIds pone al inicio del ID
+     *
+     * @param prefijo Prefijo de los IDs del repositorio ("TKT", "PAY"...)
+     * @param desde Inicio del periodo, incluido
+     * @param hasta Fin del periodo, excluido
+     * @return Lista nueva con las entidades, en orden de creacion
+     */
+    public ArrayList<T> buscarCreadosEntre(String prefijo, LocalDateTime desde, LocalDateTime hasta) {
+        return buscarPorRangoId(GeneradorIds.limiteInferior(prefijo, aMilis(desde)),
+                GeneradorIds.limiteInferior(prefijo, aMilis(hasta)));
+    }
+
+    /**
+     * Obtiene una pagina de entidades ordenadas por ID (orden de creacion)
+     *
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de entidades
+     * @param descendente true para empezar por las mas nuevas
+     * @return Pagina con las entidades y el token de la siguiente
+     */
+    public synchronized Pagina<T> buscarPagina(String continuacion, int tamano, boolean descendente) {
+        validarTamanoPagina(tamano);
+        cargarTodosLosFragmentos();
+        if (!ordenIds.esValido()) {
+            ordenIds.reconstruir(posiciones.keySet());
+        }
+        ArrayList<String> ids = ordenIds.siguientes(continuacion, tamano + 1, descendente);
+        boolean hayMas = ids.size() > tamano;
+        ArrayList<T> elementos = new ArrayList<>(Math.min(tamano, ids.size()));
+        for (int i = 0; i < ids.size() && i < tamano; i++) {
+            elementos.add(datos.get(posiciones.get(ids.get(i))));
+        }
+        return new Pagina<>(elementos, hayMas ? ids.get(tamano - 1) : null);
+    }
+
+    /**
+     * Arma una pagina por clave a partir de un grupo de candidatos (por
+     * ejemplo el grupo de un indice secundario). Recorre el grupo una vez,
+     * asi que el costo es proporcional al grupo y no al repositorio.
+     *
+     * @param candidatos Entidades entre las que se pagina
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de entidades
+     * @param descendente true para empezar por las mas nuevas
+     * @return Pagina ordenada por ID
+     */
+    protected Pagina<T> paginar(Iterable<T> candidatos, String continuacion, int tamano, boolean descendente) {
+        validarTamanoPagina(tamano);
+        Comparator<T> orden = Comparator.comparing(this::obtenerId);
+        if (descendente) {
+            orden = orden.reversed();
+        }
+        ArrayList<T> siguientes = new ArrayList<>();
+        for (T entidad : candidatos) {
+            String id = obtenerId(entidad);
+            if (continuacion == null
+                    || (descendente ? id.compareTo(continuacion) < 0 : id.compareTo(continuacion) > 0)) {
+                siguientes.add(entidad);
+            }
+        }
+        siguientes.sort(orden);
+        if (siguientes.size() <= tamano) {
+            return new Pagina<>(siguientes, null);
+        }
+        ArrayList<T> elementos = new ArrayList<>(siguientes.subList(0, tamano));
+        return new Pagina<>(elementos, obtenerId(elementos.get(tamano - 1)));
+    }
+
+    /**
+     * Pagina de las entidades con una clave de un indice secundario
+     *
+     * @param indice Indice registrado por el repositorio
+     * @param clave Clave del grupo
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de entidades
+     * @param descendente true para empezar por las mas nuevas
+     * @return Pagina ordenada por ID
+     */
+    protected synchronized <K> Pagina<T> paginarIndice(IndiceSecundario<K, T> indice, K clave,
+            String continuacion, int tamano, boolean descendente) {
+        return paginar(indice.ver(clave), continuacion, tamano, descendente);
+    }
+
+    private static void validarTamanoPagina(int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de pagina debe ser positivo: " + tamano);
+        }
+    }
+
+    private static long aMilis(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Agrega una entidad a la lista y al indice
+     *
+     * @param entidad Entidad a agregar
+     */
+    protected synchronized void agregarEnMemoria(T entidad) {
+        if (fragmentos != null) {
+            String clave = fragmentos.clave(entidad);
+            cargarFragmento(clave);
+            fragmentos.marcarSucio(clave);
+        }
+        indexarNueva(entidad);
+    }
+
+    private void indexarNueva(T entidad) {
+        datos.add(entidad);
+        instantanea = null;
+        if (posiciones.putIfAbsent(obtenerId(entidad), datos.size() - 1) == null) {
+            ordenIds.agregar(obtenerId(entidad));
+        }
+        for (IndiceSecundario<?, T> indice : indicesSecundarios) {
+            indice.indexar(entidad);
+        }
+    }
+
+    /**
+     * Reemplaza la entidad con el mismo ID en tiempo constante
+     *
+     * @param entidad Entidad con los datos actualizados
+     * @return true si existia y fue reemplazada
+     */
+    protected synchronized boolean reemplazarEnMemoria(T entidad) {
+        if (fragmentos != null) {
+            cargarFragmento(fragmentos.clave(entidad));
+        }
+        Integer posicion = posiciones.get(obtenerId(entidad));
+        if (posicion == null) {
+            return false;
+        }
+        if (fragmentos != null) {
+            fragmentos.marcarSucio(fragmentos.clave(datos.get(posicion)));
+            fragmentos.marcarSucio(fragmentos.clave(entidad));
+        }
+        datos.set(posicion, entidad);
+        instantanea = null;
+        for (IndiceSecundario<?, T> indice : indicesSecundarios) {
+            indice.indexar(entidad);
+        }
+        return true;
+    }
+
+    /**
+     * Elimina la entidad con ese ID de la lista y del indice.
+     * Las posiciones posteriores se desplazan una casilla, de modo que la
+     * lista conserva el orden de llegada.
+     *
+     * @param id ID de la entidad a eliminar
+     * @return Entidad eliminada o null si no existia
+     */
+    protected synchronized T eliminarDeMemoria(String id) {
+        if (buscarEnIndice(id) == null) {
+            return null;
+        }
+        Integer posicion = posiciones.remove(id);
+        ordenIds.eliminar(id);
+        T removido = datos.remove((int) posicion);
+        instantanea = null;
+        if (fragmentos != null) {
+            fragmentos.marcarSucio(fragmentos.clave(removido));
+        }
+        for (int i = posicion; i < datos.size(); i++) {
+            posiciones.put(obtenerId(datos.get(i)), i);
+        }
+        for (IndiceSecundario<?, T> indice : indicesSecundarios) {
+            indice.desindexar(id);
+        }
+        return removido;
+    }
+
+    /**
+     * Indica si el repositorio puede eliminar entidades. Se consulta antes
+     * de registrar una eliminacion, para no dejar en el journal o en una
+     * transaccion un cambio que no se puede aplicar.
+     *
+     * @return true si eliminarDeMemoria esta soportado
+     */
+    public boolean permiteEliminar() {
+        return true;
+    }
+
+    /**
+     * Elimina varias entidades en una sola pasada y guarda un checkpoint.
+     * Las entidades de fragmentos sin cargar se ignoran: el llamador las
+     * obtiene antes con una consulta.
+     *
+     * @param ids IDs a eliminar
+     * @return Entidades eliminadas
+     * @throws IOException Si hay error al guardar el checkpoint
+     */
+    public synchronized ArrayList<T> eliminarVarios(Collection<String> ids) throws IOException {
+        HashSet<String> pendientes = new HashSet<>(ids);
+        ArrayList<T> removidos = new ArrayList<>();
+        datos.removeIf(entidad -> {
+            if (pendientes.contains(obtenerId(entidad))) {
+                removidos.add(entidad);
+                return true;
+            }
+            return false;
+        });
+        if (removidos.isEmpty()) {
+            return removidos;
+        }
+        if (fragmentos != null) {
+            for (T removido : removidos) {
+                fragmentos.marcarSucio(fragmentos.clave(removido));
+            }
+        }
+        reconstruirIndices();
+        checkpoint();
+        return removidos;
+    }
+
+    /**
+     * Registra en el log el alta de una entidad
+     *
+     * @param entidad Entidad agregada
+     * @throws IOException Si hay error al escribir
+     */
+    protected void persistirAgregado(T entidad) throws IOException {
+        persistirCambio(Journal.Operacion.AGREGAR, entidad);
+    }
+
+    /**
+     * Registra en el log la modificacion de una entidad
+     *
+     * @param entidad Entidad con los datos actualizados
+     * @throws IOException Si hay error al escribir
+     */
+    protected void persistirActualizado(T entidad) throws IOException {
+        persistirCambio(Journal.Operacion.ACTUALIZAR, entidad);
+    }
+
+    /**
+     * Registra en el log la eliminacion de una entidad.
+     * Se guarda la ultima imagen de la entidad junto con el ID.
+     *
+     * @param entidad Entidad eliminada
+     * @throws IOException Si hay error al escribir
+     */
+    protected void persistirEliminado(T entidad) throws IOException {
+        persistirCambio(Journal.Operacion.ELIMINAR, entidad);
+    }
+
+    /**
+     * Compacta el journal y el delta: escribe el snapshot completo y vacía
+     * ambos. Si el proceso muere entre los pasos, el log y el delta se
+     * reproducen de nuevo sobre el snapshot sin efectos (las operaciones
+     * son idempotentes y las anteriores al snapshot se descartan).
+     *
+     * @throws IOException Si hay error al escribir el snapshot
+     */
+    public synchronized void checkpoint() throws IOException {
+        guardarEnArchivo();
+        Files.deleteIfExists(archivoDelta().toPath());
+        versiones.clear();
+        sucio = false;
+        if (journal != null) {
+            journal.truncar();
+        }
+        RegistroTransacciones.getInstance().snapshotGuardado(nombreArchivo, ultimaSecuencia());
+    }
+
+    /**
+     * Escribe los cambios que estan en memoria (escritura diferida).
+     * Con journal escribe en grupo los registros encolados; sin journal
+     * reescribe el snapshot una sola vez por todos los cambios acumulados.
+     * En modo inmediato no hace nada.
+     *
+     * @throws IOException Si hay error al escribir
+     */
+    public void flush() throws IOException {
+        if (journal != null) {
+            journal.vaciarPendientes();
+            return;
+        }
+        synchronized (this) {
+            if (sucio) {
+                guardarDelta();
+                sucio = false;
+            }
+        }
+    }
+
+    /**
+     * Cantidad de entidades modificadas desde el ultimo snapshot completo
+     *
+     * @return Entidades que se escriben en el segmento delta
+     */
+    public synchronized int contarModificados() {
+        return versiones.size();
+    }
+
+    private synchronized void persistirCambio(Journal.Operacion operacion, T entidad) throws IOException {
+        if (journal == null) {
+            versiones.put(obtenerId(entidad), ++secuenciaLocal);
+            if (ESCRITURA_DIFERIDA) {
+                sucio = true;
+            } else {
+                guardarDelta();
+            }
+            return;
+        }
+        if (ESCRITURA_DIFERIDA) {
+            journal.encolar(operacion, obtenerId(entidad), serializarEntidad(entidad));
+            if (journal.getRegistrosEncolados() >= TAMANO_LOTE) {
+                VaciadorDiferido.solicitarVaciado();
+            }
+        } else {
+            journal.agregar(operacion, obtenerId(entidad), serializarEntidad(entidad));
+        }
+        versiones.put(obtenerId(entidad), journal.getSecuencia());
+        if (journal.getRegistrosPendientes() >= UMBRAL_CHECKPOINT) {
+            guardarDelta();
+        }
+    }
+
+    /**
+     * Checkpoint incremental: escribe en el segmento delta solo las entidades
+     * modificadas desde el snapshot completo y vacía el journal. Si el delta
+     * crece demasiado, programa la compactacion en segundo plano.
+     * El llamador debe tener tomado el monitor del repositorio.
+     *
+     * @throws IOException Si hay error al escribir el delta
+     */
+    private void guardarDelta() throws IOException {
+        if (escribeEnSitio() || fragmentos != null) {
+            // El almacen ya tiene cada cambio en su lugar (o solo se reescriben
+            // los fragmentos tocados): no hace falta un delta aparte
+            checkpoint();
+            return;
+        }
+        int limite = limiteDelta();
+        if (versiones.size() > 2 * limite) {
+            // La compactacion en segundo plano no alcanzo: hacerla aqui
+            checkpoint();
+            return;
+        }
+        long secuencia = ultimaSecuencia();
+        ArrayList<Journal.Registro> registros = new ArrayList<>(versiones.size());
+        for (Map.Entry<String, Long> version : versiones.entrySet()) {
+            T entidad = buscarEnIndice(version.getKey());
+            registros.add(entidad == null
+                    ? new Journal.Registro(version.getValue(), Journal.Operacion.ELIMINAR, version.getKey(), new byte[0])
+                    : new Journal.Registro(version.getValue(), Journal.Operacion.ACTUALIZAR, version.getKey(),
+                            serializarEntidad(entidad)));
+        }
+        File temporal = new File(nombreArchivo + ".delta.tmp");
+        SegmentoDelta.guardar(temporal, registros, secuencia);
+        Files.move(temporal.toPath(), archivoDelta().toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (journal != null) {
+            journal.truncar();
+        }
+        RegistroTransacciones.getInstance().snapshotGuardado(nombreArchivo, secuencia);
+        if (versiones.size() > limite) {
+            CompactadorSegundoPlano.programar(this);
+        }
+    }
+
+    /**
+     * Entidades modificadas a partir de las cuales se compacta el delta.
+     * Sin journal el delta se reescribe en cada cambio, asi que se mantiene
+     * cerca de la raiz del tamaño del repositorio (equilibra el costo de
+     * reescribir el delta con el de las compactaciones).
+     */
+    private int limiteDelta() {
+        int proporcional = journal == null
+                ? (int) Math.sqrt(2.0 * datos.size())
+                : (int) (datos.size() * FRACCION_DELTA);
+        return Math.max(MINIMO_DELTA, proporcional);
+    }
+
+    /**
+     * Aplica sobre el snapshot el segmento delta, el journal y las
+     * transacciones, intercalados por secuencia
+     */
+    private void reproducirCambios() {
+        try {
+            long secuenciaSnapshot = leerSecuenciaSnapshot();
+            long secuenciaDelta = Math.max(secuenciaSnapshot, SegmentoDelta.leerSecuencia(archivoDelta()));
+            secuenciaLocal = secuenciaDelta;
+
+            ArrayList<Journal.Registro> todos = SegmentoDelta.cargar(archivoDelta());
+            if (journal != null) {
+                journal.ajustarSecuencia(secuenciaDelta);
+                todos.addAll(journal.leerRegistros());
+            }
+            ArrayList<Journal.Registro> transacciones = RegistroTransacciones.getInstance().entradasDe(nombreArchivo);
+            todos.addAll(transacciones);
+            todos.sort(Comparator.comparingLong(Journal.Registro::getSecuencia));
+
+            int aplicados = 0;
+            for (Journal.Registro registro : todos) {
+                if (journal != null) {
+                    journal.ajustarSecuencia(registro.getSecuencia());
+                } else {
+                    secuenciaLocal = Math.max(secuenciaLocal, registro.getSecuencia());
+                }
+                if (registro.getSecuencia() > secuenciaSnapshot) {
+                    aplicarEnMemoria(registro.getOperacion(), registro.getId(),
+                            registro.getOperacion() == Journal.Operacion.ELIMINAR
+                                    ? null : deserializarEntidad(registro.getContenido()));
+                    versiones.put(registro.getId(), registro.getSecuencia());
+                    aplicados++;
+                }
+            }
+            if (journal != null) {
+                for (int i = 0; i < transacciones.size(); i++) {
+                    journal.contarRegistroExterno();
+                }
+            }
+            RegistroTransacciones.getInstance().snapshotGuardado(nombreArchivo, secuenciaDelta);
+
+            if (aplicados > 0) {
+                System.out.println("[" + getClass().getSimpleName() + "] "
+                        + aplicados + " cambios recuperados del delta y el journal");
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw errorDeCarga("No se pudo leer el delta o el journal de " + nombreArchivo, e);
+        }
+    }
+
+    /**
+     * Error que detiene la carga sin tocar los archivos
+     */
+    private UncheckedIOException errorDeCarga(String mensaje, Exception causa) {
+        System.err.println("[" + getClass().getSimpleName() + "] " + mensaje + ": " + causa.getMessage());
+        return new UncheckedIOException(mensaje,
+                causa instanceof IOException ? (IOException) causa : new IOException(causa));
+    }
+
+    /**
+     * Indica si el repositorio guarda cada cambio directamente en su archivo
+     * (por ejemplo un archivo mapeado en memoria). En ese caso el checkpoint
+     * no escribe segmento delta: solo sincroniza el archivo con
+     * guardarEnArchivo() y vacía el journal.
+     *
+     * @return true si el snapshot se actualiza en su lugar
+     */
+    protected boolean escribeEnSitio() {
+        return false;
+    }
+
+    /**
+     * Lee la secuencia del ultimo cambio incluido en el snapshot
+     *
+     * @return Secuencia guardada, 0 si no hay snapshot
+     * @throws IOException Si la cabecera esta dañada
+     */
+    protected long leerSecuenciaSnapshot() throws IOException {
+        if (fragmentos != null && fragmentos.existeManifiesto()) {
+            return fragmentos.getSecuencia();
+        }
+        return ArchivoBinario.leerSecuencia(new File(nombreArchivo));
+    }
+
+    /**
+     * Ultima secuencia asignada a un cambio de este repositorio
+     *
+     * @return Secuencia actual
+     */
+    protected long ultimaSecuencia() {
+        return journal == null ? secuenciaLocal : journal.getSecuencia();
+    }
+
+    /**
+     * Archivo del segmento delta
+     *
+     * @return Archivo con las entidades modificadas desde el snapshot completo
+     */
+    protected File archivoDelta() {
+        return new File(nombreArchivo + ".delta");
+    }
+
+    /**
+     * Aplica un cambio en memoria como upsert o eliminacion idempotente
+     */
+    private void aplicarEnMemoria(Journal.Operacion operacion, String id, T entidad) {
+        if (operacion == Journal.Operacion.ELIMINAR) {
+            eliminarDeMemoria(id);
+            return;
+        }
+        if (!reemplazarEnMemoria(entidad)) {
+            agregarEnMemoria(entidad);
+        }
+    }
+
+    // ==================== UNIDAD DE TRABAJO ====================
+
+    /**
+     * Reserva la secuencia de un cambio que se confirma en una transaccion
+     * (del journal, o la local si no hay journal).
+     * El llamador debe tener tomado el monitor del repositorio.
+     */
+    long reservarSecuencia() {
+        return journal == null ? ++secuenciaLocal : journal.siguienteSecuencia();
+    }
+
+    /**
+     * Aplica en memoria un cambio ya confirmado por una transaccion.
+     * El llamador debe tener tomado el monitor del repositorio.
+     *
+     * @param operacion Operacion confirmada
+     * @param entidad Entidad afectada
+     * @param secuencia Secuencia reservada para el cambio
+     */
+    void aplicarConfirmado(Journal.Operacion operacion, T entidad, long secuencia) {
+        aplicarEnMemoria(operacion, obtenerId(entidad), entidad);
+        versiones.put(obtenerId(entidad), secuencia);
+        if (journal == null) {
+            return;
+        }
+        journal.contarRegistroExterno();
+        if (journal.getRegistrosPendientes() >= UMBRAL_CHECKPOINT) {
+            guardarConfirmado();
+        }
+    }
+
+    /**
+     * Sin journal, los cambios de una transaccion quedan en el
+     * RegistroTransacciones hasta que el delta los incluye: se guardan con
+     * una sola escritura del delta (o se marcan para la escritura diferida)
+     * y el delta libera el registro. Con journal no hace nada.
+     */
+    void guardarTrasTransaccion() {
+        if (journal != null) {
+            return;
+        }
+        if (ESCRITURA_DIFERIDA) {
+            sucio = true;
+        } else {
+            guardarConfirmado();
+        }
+    }
+
+    /**
+     * Guarda el delta despues de una transaccion ya escrita. Si falla, la
+     * transaccion sigue confirmada (el registro la conserva): se avisa y se
+     * reintenta en el proximo guardado.
+     */
+    private void guardarConfirmado() {
+        try {
+            guardarDelta();
+        } catch (IOException e) {
+            sucio = true;
+            System.err.println("[" + getClass().getSimpleName() + "] Error al guardar el delta tras una transaccion"
+                    + " (se conserva en el registro de transacciones): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serializa una entidad individual para el journal
+     *
+     * @param entidad Entidad a serializar
+     * @return Bytes de la entidad
+     * @throws IOException Si hay error al codificar
+     */
+    protected byte[] serializarEntidad(T entidad) throws IOException {
+        return ArchivoBinario.codificar(obtenerCodec(), entidad);
+    }
+
+    /**
+     * Reconstruye una entidad a partir de un registro del journal.
+     * Acepta tambien registros escritos con la serializacion de Java.
+     *
+     * @param contenido Bytes de la entidad
+     * @return Entidad deserializada
+     * @throws IOException Si los bytes estan dañados
+     * @throws ClassNotFoundException Si la clase serializada no existe
+     */
+    @SuppressWarnings("unchecked")
+    protected T deserializarEntidad(byte[] contenido) throws IOException, ClassNotFoundException {
+        if (!ArchivoBinario.esFormatoLegado(contenido)) {
+            return ArchivoBinario.decodificar(obtenerCodec(), contenido);
+        }
+        try (ObjectInputStream lectura = new ObjectInputStream(new ByteArrayInputStream(contenido))) {
+            return (T) lectura.readObject();
+        }
+    }
+
+    /**
+     * Escribe el snapshot completo en formato binario sobre el archivo
+     * temporal y lo reemplaza de forma atomica
+     *
+     * @throws IOException Si hay error al escribir
+     */
+    protected void guardarSnapshot() throws IOException {
+        if (fragmentos != null) {
+            fragmentos.guardar(indiceFragmentos::ver, ultimaSecuencia());
+            return;
+        }
+        ArchivoBinario.guardar(archivoTemporal(), obtenerCodec(), datos, ultimaSecuencia());
+        confirmarArchivoTemporal();
+    }
+
+    /**
+     * Lee el snapshot (binario o legado) en la lista de datos
+     *
+     * @throws IOException Si el archivo no existe o esta dañado
+     * @throws ClassNotFoundException Si un archivo legado referencia clases inexistentes
+     */
+    protected void cargarSnapshot() throws IOException, ClassNotFoundException {
+        datos = ArchivoBinario.cargar(new File(nombreArchivo), obtenerCodec());
+    }
+
+    /**
+     * Archivo temporal donde se escribe el snapshot antes de reemplazar el original
+     *
+     * @return Archivo temporal del snapshot
+     */
+    protected File archivoTemporal() {
+        return new File(nombreArchivo + ".tmp");
+    }
+
+    /**
+     * Reemplaza el snapshot con el archivo temporal de forma atomica,
+     * para que un fallo a mitad de escritura no deje el archivo corrupto.
+     *
+     * @throws IOException Si no se puede mover el archivo
+     */
+    protected void confirmarArchivoTemporal() throws IOException {
+        Files.move(archivoTemporal().toPath(), new File(nombreArchivo).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
      /**
      * Obtiene todos los elementos del repositorio.
      * Retorna una copia para proteger la encapsulación.
-     * 
+     *
      * @return ArrayList con copia de todos los elementos
      */
-    public ArrayList<T> obtenerTodos(){
+    public synchronized ArrayList<T> obtenerTodos(){
+        cargarTodosLosFragmentos();
         return new ArrayList<>(datos);
     }
-    
+
+    // ==================== LECTURA SIN COPIA ====================
+
+    /**
+     * Vista inmutable de todas las entidades. Se comparte entre lecturas
+     * hasta el proximo cambio, asi que obtenerla no copia la lista salvo
+     * la primera vez despues de una escritura. La vista no cambia aunque
+     * el repositorio cambie despues (las entidades si son las mismas).
+     *
+     * @return Lista de solo lectura
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> instantanea() {
+        List<T> vista = instantanea;
+        if (vista != null) {
+            return vista;
+        }
+        synchronized (this) {
+            cargarTodosLosFragmentos();
+            if (instantanea == null) {
+                instantanea = Collections.unmodifiableList(Arrays.asList((T[]) datos.toArray()));
+            }
+            return instantanea;
+        }
+    }
+
+    /**
+     * Recorre todas las entidades sin copiar la lista
+     *
+     * @param accion Accion para cada entidad
+     */
+    public void forEach(Consumer<? super T> accion) {
+        instantanea().forEach(accion);
+    }
+
+    /**
+     * Stream sobre la instantanea actual
+     *
+     * @return Stream de las entidades
+     */
+    public Stream<T> stream() {
+        return instantanea().stream();
+    }
+
+    /**
+     * Cursor que entrega solo las entidades que cumplen una condicion,
+     * evaluandola a medida que se avanza
+     *
+     * @param filtro Condicion
+     * @return Iterador sobre la instantanea actual
+     */
+    public Iterator<T> cursor(Predicate<? super T> filtro) {
+        Iterator<T> base = instantanea().iterator();
+        return new Iterator<T>() {
+            private T siguiente;
+
+            @Override
+            public boolean hasNext() {
+                while (siguiente == null && base.hasNext()) {
+                    T candidato = base.next();
+                    if (filtro.test(candidato)) {
+                        siguiente = candidato;
+                    }
+                }
+                return siguiente != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T resultado = siguiente;
+                siguiente = null;
+                return resultado;
+            }
+        };
+    }
+
+    /**
+     * Cuenta las entidades que cumplen una condicion, sin copiar la lista
+     *
+     * @param condicion Condicion
+     * @return Cantidad de entidades
+     */
+    public int contar(Predicate<? super T> condicion) {
+        int total = 0;
+        for (T entidad : instantanea()) {
+            if (condicion.test(entidad)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
     /**
      * Cuenta la cantidad de registros en el repositorio.
-     * 
+     *
      * @return Numero de elementos almacenados
      */
-    public int contarRegistros(){
+    public synchronized int contarRegistros(){
+        cargarTodosLosFragmentos();
         return datos.size();
     }
-    
+
      /**
      * Limpia todos los datos del repositorio en memoria.
      * No afecta el archivo hasta que se llame a guardarEnArchivo().
      */
-    public void limpiar (){
+    public synchronized void limpiar (){
+        cargarTodosLosFragmentos();
+        if (fragmentos != null) {
+            fragmentos.marcarTodosSucios();
+        }
         datos.clear();
+        reconstruirIndices();
     }
-    
+
     /**
  * Limpia todos los registros del repositorio
  */
-public void limpiarTodosLosDatos() {
-    datos.clear();
+public synchronized void limpiarTodosLosDatos() {
+    limpiar();
     try {
-        guardarEnArchivo();
+        checkpoint();
     } catch (IOException e) {
         System.err.println("Error al limpiar repositorio: " + e.getMessage());
     }
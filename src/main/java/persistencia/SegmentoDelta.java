@@ -0,0 +1,124 @@
+package persistencia;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * SegmentoDelta - Archivo con la ultima imagen de las entidades que
+ * cambiaron desde el ultimo snapshot completo.
+ *
+ * En lugar de reescribir todo el repositorio en cada checkpoint, solo se
+ * escriben las entidades modificadas (o eliminadas). Al cargar se aplica
+ * el snapshot base, luego el segmento delta y luego el journal.
+ *
+ * Formato del archivo:
+ * [int MAGIC][short VERSION][long secuencia][int cantidad][registro]...
+ * registro = [byte operacion][long version][texto id][int n][n bytes]
+ * donde version es la secuencia del ultimo cambio de esa entidad.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public final class SegmentoDelta {
+
+    /** Firma del formato: "EPD1" */
+    public static final int MAGIC = 0x45504431;
+
+    /** Version actual del formato */
+    public static final int VERSION = 1;
+
+    private SegmentoDelta() {
+    }
+
+    /**
+     * Escribe el segmento completo en un archivo
+     *
+     * @param archivo Archivo destino (se sobrescribe)
+     * @param registros Ultima imagen de cada entidad modificada
+     * @param secuencia Ultima secuencia incluida en el segmento
+     * @throws IOException Si hay error al escribir
+     */
+    public static void guardar(File archivo, Collection<Journal.Registro> registros, long secuencia)
+            throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             EscritorBinario salida = new EscritorBinario(canal)) {
+            salida.escribirInt(MAGIC);
+            salida.escribirByte(VERSION >> 8);
+            salida.escribirByte(VERSION);
+            salida.escribirLong(secuencia);
+            salida.escribirInt(registros.size());
+            for (Journal.Registro registro : registros) {
+                salida.escribirByte(registro.getOperacion().ordinal());
+                salida.escribirLong(registro.getSecuencia());
+                salida.escribirTexto(registro.getId());
+                salida.escribirInt(registro.getContenido().length);
+                salida.escribirBytes(registro.getContenido());
+            }
+        }
+    }
+
+    /**
+     * Lee los registros del segmento
+     *
+     * @param archivo Archivo del segmento
+     * @return Registros en el orden guardado (vacio si el archivo no existe)
+     * @throws IOException Si el archivo esta dañado
+     */
+    public static ArrayList<Journal.Registro> cargar(File archivo) throws IOException {
+        ArrayList<Journal.Registro> registros = new ArrayList<>();
+        if (!archivo.exists()) {
+            return registros;
+        }
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            LectorBinario entrada = new LectorBinario(canal);
+            if (entrada.leerInt() != MAGIC) {
+                throw new IOException("Formato de segmento desconocido: " + archivo);
+            }
+            int version = ((entrada.leerByte() & 0xFF) << 8) | (entrada.leerByte() & 0xFF);
+            if (version > VERSION) {
+                throw new IOException("Version de segmento no soportada: " + version);
+            }
+            entrada.leerLong();
+            int cantidad = entrada.leerInt();
+            if (cantidad < 0) {
+                throw new IOException("Cantidad de registros invalida: " + cantidad);
+            }
+            Journal.Operacion[] operaciones = Journal.Operacion.values();
+            for (int i = 0; i < cantidad; i++) {
+                Journal.Operacion operacion = operaciones[entrada.leerByte()];
+                long secuencia = entrada.leerLong();
+                String id = entrada.leerTexto();
+                byte[] contenido = entrada.leerBytes(entrada.leerInt());
+                registros.add(new Journal.Registro(secuencia, operacion, id, contenido));
+            }
+        }
+        return registros;
+    }
+
+    /**
+     * Lee solo la secuencia guardada en la cabecera
+     *
+     * @param archivo Archivo del segmento
+     * @return Ultima secuencia incluida, 0 si no existe
+     * @throws IOException Si la cabecera esta dañada
+     */
+    public static long leerSecuencia(File archivo) throws IOException {
+        if (!archivo.exists()) {
+            return 0L;
+        }
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            LectorBinario entrada = new LectorBinario(canal);
+            if (entrada.leerInt() != MAGIC) {
+                throw new IOException("Formato de segmento desconocido: " + archivo);
+            }
+            entrada.leerByte();
+            entrada.leerByte();
+            return entrada.leerLong();
+        }
+    }
+}
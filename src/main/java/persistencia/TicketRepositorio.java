@@ -5,27 +5,55 @@ import java.io.*;
 import java.util.ArrayList;
 
 /**
- * Repositorio para gestionar la persistencia de tickets
+ * Repositorio para gestionar la persistencia de tickets.
+ * Mantiene indices por evento y por participante, y permite contar
+ * los tickets de un evento sin construir la lista.
+ * TicketRepositorioMapeado ofrece el mismo repositorio sobre un archivo
+ * mapeado en memoria. Con -Deventplanner.fragmentos=true se guarda un
+ * archivo por evento que se carga al consultarlo.
+ * Los tickets de un participante tambien se pueden pedir por paginas.
+ * Las consultas por indice se sincronizan sobre el repositorio, igual que
+ * buscarEnIndice, porque los indices no son concurrentes. Las consultas por
+ * participante solo cargan los fragmentos donde ese participante tiene tickets.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.7
  */
 public class TicketRepositorio extends RepositorioBase<Ticket> {
     
+    // ==================== INDICES SECUNDARIOS ====================
+    private final IndiceSecundario<String, Ticket> indicePorEvento = registrarIndice(Ticket::getEventoId);
+    private final IndiceSecundario<String, Ticket> indicePorParticipante = registrarIndice(Ticket::getParticipanteId);
+    private int rutaParticipante = -1;
+    
     /**
      * Constructor
      */
     public TicketRepositorio() {
         super("datos/tickets.dat");
-        cargarDesdeArchivo();
+        if (FRAGMENTAR) {
+            fragmentarPor(Ticket::getEventoId);
+            rutaParticipante = rutearPor(Ticket::getParticipanteId);
+        }
+        cargarDatos();
+    }
+    
+    /**
+     * Constructor para otros formatos de almacenamiento.
+     * La subclase llama a cargarDatos() cuando esta lista.
+     *
+     * @param nombreArchivo Archivo de persistencia
+     */
+    protected TicketRepositorio(String nombreArchivo) {
+        super(nombreArchivo);
     }
     
     /**
      * Agrega un ticket y guarda en archivo
      */
     public void agregar(Ticket ticket) throws IOException {
-        datos.add(ticket);
-        guardarEnArchivo();
+        agregarEnMemoria(ticket);
+        persistirAgregado(ticket);
         System.out.println("[TicketRepo]  Ticket guardado: " + ticket.getId());
     }
     
@@ -33,61 +61,104 @@ public class TicketRepositorio extends RepositorioBase<Ticket> {
      * Busca un ticket por ID
      */
     public Ticket buscarPorId(String id) throws Exception {
-        for (Ticket ticket : datos) {
-            if (ticket.getId().equals(id)) {
-                return ticket;
-            }
+        Ticket ticket = buscarEnIndice(id);
+        if (ticket != null) {
+            return ticket;
         }
         throw new Exception("Ticket no encontrado: " + id);
     }
     
     /**
-     * Busca tickets por participante
+     * Marca un ticket como usado (check-in) y registra el cambio
+     *
+     * @param ticketId ID del ticket
+     * @return true si estaba vigente, false si ya estaba usado
      */
-    public ArrayList<Ticket> buscarPorParticipante(String participanteId) {
-        ArrayList<Ticket> resultado = new ArrayList<>();
-        for (Ticket ticket : datos) {
-            if (ticket.getParticipanteId().equals(participanteId)) {
-                resultado.add(ticket);
-            }
+    public synchronized boolean marcarComoUsado(String ticketId) throws Exception {
+        Ticket ticket = buscarPorId(ticketId);
+        if (!ticket.marcarComoUsado()) {
+            return false;
         }
-        return resultado;
+        persistirActualizado(ticket);
+        return true;
+    }
+    
+    /**
+     * Busca tickets por participante
+     */
+    public synchronized ArrayList<Ticket> buscarPorParticipante(String participanteId) {
+        cargarFragmentosCon(rutaParticipante, participanteId);
+        return indicePorParticipante.buscar(participanteId);
+    }
+    
+    /**
+     * Pagina de los tickets de un participante, ordenados por ID
+     *
+     * @param participanteId ID del participante
+     * @param continuacion Token de la pagina anterior (null = primera pagina)
+     * @param tamano Cantidad maxima de tickets
+     * @param descendente true para empezar por los mas nuevos
+     * @return Pagina de tickets
+     */
+    public synchronized Pagina<Ticket> buscarPaginaPorParticipante(String participanteId, String continuacion,
+            int tamano, boolean descendente) {
+        cargarFragmentosCon(rutaParticipante, participanteId);
+        return paginarIndice(indicePorParticipante, participanteId, continuacion, tamano, descendente);
     }
     
     /**
      * Busca tickets por evento
      */
-    public ArrayList<Ticket> buscarPorEvento(String eventoId) {
-        ArrayList<Ticket> resultado = new ArrayList<>();
-        for (Ticket ticket : datos) {
-            if (ticket.getEventoId().equals(eventoId)) {
-                resultado.add(ticket);
-            }
-        }
-        return resultado;
+    public synchronized ArrayList<Ticket> buscarPorEvento(String eventoId) {
+        cargarFragmento(eventoId);
+        return indicePorEvento.buscar(eventoId);
+    }
+    
+    /**
+     * Cuenta los tickets vendidos de un evento sin construir la lista
+     */
+    public synchronized int contarPorEvento(String eventoId) {
+        cargarFragmento(eventoId);
+        return indicePorEvento.contar(eventoId);
+    }
+    
+    /**
+     * Cuenta los tickets de un participante sin construir la lista
+     */
+    public synchronized int contarPorParticipante(String participanteId) {
+        cargarFragmentosCon(rutaParticipante, participanteId);
+        return indicePorParticipante.contar(participanteId);
     }
     
     /**
      * Guarda todos los tickets en archivo
      */
     @Override
-    protected void guardarEnArchivo() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(nombreArchivo))) {
-            oos.writeObject(datos);
-            System.out.println("[TicketRepo] " + datos.size() + " tickets guardados");
+    protected void guardarEnArchivo() throws IOException {
+        try {
+            guardarSnapshot();
         } catch (IOException e) {
             System.err.println("[TicketRepo] Error al guardar: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
+        System.out.println("[TicketRepo] " + datos.size() + " tickets guardados");
+    }
+    
+    @Override
+    protected CodecEntidad<Ticket> obtenerCodec() {
+        return CodecsModelo.TICKET;
+    }
+    
+    @Override
+    protected String obtenerId(Ticket ticket) {
+        return ticket.getId();
     }
     
     /**
      * Carga los tickets desde archivo
      */
     @Override
-    @SuppressWarnings("unchecked")
-    protected void cargarDesdeArchivo() {
+    protected void cargarDesdeArchivo() throws IOException, ClassNotFoundException {
         File archivo = new File(nombreArchivo);
         
         if (!archivo.exists()) {
@@ -96,16 +167,14 @@ public class TicketRepositorio extends RepositorioBase<Ticket> {
             return;
         }
         
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(archivo))) {
-            datos = (ArrayList<Ticket>) ois.readObject();
-            System.out.println("[TicketRepo] " + datos.size() + " tickets cargados");
-        } catch (EOFException e) {
+        if (archivo.length() == 0) {
             System.out.println("[TicketRepo]  Archivo vacío, inicializando...");
             datos = new ArrayList<>();
-        } catch (Exception e) {
-            System.err.println("[TicketRepo] Error al cargar: " + e.getMessage());
-            datos = new ArrayList<>();
+            return;
         }
+
+        // Un archivo dañado detiene la carga (RepositorioBase): iniciar vacio lo pisaria
+        cargarSnapshot();
+        System.out.println("[TicketRepo] " + datos.size() + " tickets cargados");
     }
 }
\ No newline at end of file
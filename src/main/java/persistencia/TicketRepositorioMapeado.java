@@ -0,0 +1,290 @@
+package persistencia;
+
+import modelos.Ticket;
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio de tickets sobre un AlmacenTicketsMapeado (datos/tickets.map).
+ * Los tickets no se cargan al heap: las consultas leen los registros del
+ * archivo mapeado y solo construyen Ticket al devolverlos. Se activa con
+ * -Deventplanner.tickets.mapeado=true.
+ *
+ * Las altas se siguen registrando en el journal (y pueden confirmarse en
+ * una UnidadDeTrabajo); el checkpoint solo sincroniza el archivo y guarda
+ * en su cabecera la secuencia incluida. marcarComoUsado() modifica en su
+ * lugar el registro del ticket, sin journal: el uso es definitivo y al
+ * reproducir el journal nunca se revierte.
+ *
+ * La primera vez, si existe datos/tickets.dat, sus tickets se copian al almacen.
+ *
+ * La instantanea no se guarda en memoria: se lee del almacen en cada
+ * llamada, y forEach recorre los registros sin armar la lista.
+ *
+ * Las paginas siguen el orden del almacen (orden de alta, que coincide
+ * con el de los IDs generados): la continuacion se ubica con el indice
+ * hash del almacen y solo se leen los registros de la pagina.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.4
+ */
+public class TicketRepositorioMapeado extends TicketRepositorio {
+
+    private static final String ARCHIVO_MAPEADO = "datos/tickets.map";
+    private static final String ARCHIVO_ANTERIOR = "datos/tickets.dat";
+
+    /** Fuerza a disco el registro modificado por marcarComoUsado */
+    private static final boolean SINCRONIZAR =
+            Boolean.parseBoolean(System.getProperty("eventplanner.journal.fsync", "false"));
+
+    private AlmacenTicketsMapeado almacen;
+
+    /**
+     * Constructor
+     */
+    public TicketRepositorioMapeado() {
+        super(ARCHIVO_MAPEADO);
+        cargarDatos();
+    }
+
+    @Override
+    public void agregar(Ticket ticket) throws IOException {
+        synchronized (this) {
+            almacen.agregar(ticket);
+            persistirAgregado(ticket);
+        }
+        System.out.println("[TicketRepo]  Ticket guardado: " + ticket.getId());
+    }
+
+    @Override
+    public synchronized boolean marcarComoUsado(String ticketId) throws Exception {
+        int indice = almacen.buscar(ticketId);
+        if (indice < 0) {
+            throw new Exception("Ticket no encontrado: " + ticketId);
+        }
+        if (!almacen.marcarComoUsado(indice, LocalDateTime.now())) {
+            return false;
+        }
+        if (SINCRONIZAR) {
+            almacen.sincronizarRegistro(indice);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized ArrayList<Ticket> buscarPorParticipante(String participanteId) {
+        return leerTodos(almacen.posicionesDeParticipante(participanteId));
+    }
+
+    @Override
+    public synchronized Pagina<Ticket> buscarPaginaPorParticipante(String participanteId, String continuacion,
+            int tamano, boolean descendente) {
+        return paginar(leerTodos(almacen.posicionesDeParticipante(participanteId)), continuacion, tamano, descendente);
+    }
+
+    @Override
+    public synchronized ArrayList<Ticket> buscarPorEvento(String eventoId) {
+        return leerTodos(almacen.posicionesDeEvento(eventoId));
+    }
+
+    @Override
+    public int contarPorEvento(String eventoId) {
+        return almacen.contarPorEvento(eventoId);
+    }
+
+    @Override
+    public int contarPorParticipante(String participanteId) {
+        return almacen.contarPorParticipante(participanteId);
+    }
+
+    /**
+     * Cuenta los tickets ya usados de un evento sin construirlos
+     */
+    public int contarUsadosPorEvento(String eventoId) {
+        return almacen.contarUsadosPorEvento(eventoId);
+    }
+
+    @Override
+    public synchronized ArrayList<Ticket> obtenerTodos() {
+        int cantidad = almacen.cantidad();
+        ArrayList<Ticket> tickets = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            tickets.add(almacen.leer(i));
+        }
+        return tickets;
+    }
+
+    @Override
+    public List<Ticket> instantanea() {
+        return Collections.unmodifiableList(obtenerTodos());
+    }
+
+    @Override
+    public synchronized void forEach(Consumer<? super Ticket> accion) {
+        int cantidad = almacen.cantidad();
+        for (int i = 0; i < cantidad; i++) {
+            accion.accept(almacen.leer(i));
+        }
+    }
+
+    @Override
+    public synchronized Pagina<Ticket> buscarPagina(String continuacion, int tamano, boolean descendente) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de pagina debe ser positivo: " + tamano);
+        }
+        int cantidad = almacen.cantidad();
+        int posicion = continuacion == null ? -1 : almacen.buscar(continuacion);
+        if (continuacion != null && posicion < 0) {
+            throw new IllegalArgumentException("Continuacion desconocida: " + continuacion);
+        }
+        int inicio = descendente ? (continuacion == null ? cantidad - 1 : posicion - 1) : posicion + 1;
+        int paso = descendente ? -1 : 1;
+        ArrayList<Ticket> elementos = new ArrayList<>(tamano);
+        int i = inicio;
+        for (; i >= 0 && i < cantidad && elementos.size() < tamano; i += paso) {
+            elementos.add(almacen.leer(i));
+        }
+        boolean hayMas = i >= 0 && i < cantidad;
+        return new Pagina<>(elementos, hayMas ? elementos.get(elementos.size() - 1).getId() : null);
+    }
+
+    @Override
+    public synchronized ArrayList<Ticket> buscarPorRangoId(String desde, String hasta) {
+        // El almacen guarda los tickets en orden de alta, no de ID: se recorre completo
+        ArrayList<Ticket> resultado = new ArrayList<>();
+        for (Ticket ticket : obtenerTodos()) {
+            if ((desde == null || ticket.getId().compareTo(desde) >= 0)
+                    && (hasta == null || ticket.getId().compareTo(hasta) < 0)) {
+                resultado.add(ticket);
+            }
+        }
+        resultado.sort(Comparator.comparing(Ticket::getId));
+        return resultado;
+    }
+
+    @Override
+    public synchronized int contarRegistros() {
+        return almacen.cantidad();
+    }
+
+    @Override
+    public synchronized boolean existe(String id) {
+        return almacen.buscar(id) >= 0;
+    }
+
+    @Override
+    public synchronized void limpiar() {
+        almacen.vaciar();
+    }
+
+    @Override
+    public synchronized void limpiarTodosLosDatos() {
+        almacen.vaciar();
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.err.println("Error al limpiar repositorio: " + e.getMessage());
+        }
+    }
+
+    // ==================== ALMACEN ====================
+
+    @Override
+    protected synchronized Ticket buscarEnIndice(String id) {
+        int indice = almacen.buscar(id);
+        return indice < 0 ? null : almacen.leer(indice);
+    }
+
+    @Override
+    protected synchronized void agregarEnMemoria(Ticket ticket) {
+        try {
+            almacen.agregar(ticket);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Los campos de un ticket no cambian salvo el uso, que solo avanza
+     */
+    @Override
+    protected synchronized boolean reemplazarEnMemoria(Ticket ticket) {
+        int indice = almacen.buscar(ticket.getId());
+        if (indice < 0) {
+            return false;
+        }
+        if (ticket.isUsado()) {
+            almacen.marcarComoUsado(indice, ticket.getFechaUso());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean permiteEliminar() {
+        return false;
+    }
+
+    @Override
+    protected synchronized Ticket eliminarDeMemoria(String id) {
+        throw new UnsupportedOperationException("El almacen mapeado no elimina tickets: " + id);
+    }
+
+    @Override
+    protected boolean escribeEnSitio() {
+        return true;
+    }
+
+    @Override
+    protected long leerSecuenciaSnapshot() {
+        return almacen.getSecuencia();
+    }
+
+    /**
+     * Sincroniza los registros y despues la secuencia incluida,
+     * para que la cabecera nunca cubra registros que no llegaron a disco
+     */
+    @Override
+    protected void guardarEnArchivo() throws IOException {
+        almacen.sincronizar();
+        almacen.setSecuencia(ultimaSecuencia());
+        almacen.sincronizar();
+        System.out.println("[TicketRepo] " + almacen.cantidad() + " tickets sincronizados");
+    }
+
+    /**
+     * Abre el almacen y, si esta vacio, copia los tickets de datos/tickets.dat
+     */
+    @Override
+    protected void cargarDesdeArchivo() {
+        try {
+            almacen = new AlmacenTicketsMapeado(nombreArchivo);
+            if (almacen.cantidad() == 0 && new File(ARCHIVO_ANTERIOR).exists()) {
+                ArrayList<Ticket> anteriores = new TicketRepositorio().obtenerTodos();
+                for (Ticket ticket : anteriores) {
+                    if (almacen.buscar(ticket.getId()) < 0) {
+                        almacen.agregar(ticket);
+                    }
+                }
+                almacen.sincronizar();
+                System.out.println("[TicketRepo] " + anteriores.size() + " tickets copiados de " + ARCHIVO_ANTERIOR);
+            }
+            System.out.println("[TicketRepo] " + almacen.cantidad() + " tickets en archivo mapeado");
+        } catch (IOException e) {
+            System.err.println("[TicketRepo] Error al abrir archivo mapeado: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ArrayList<Ticket> leerTodos(int[] posiciones) {
+        ArrayList<Ticket> tickets = new ArrayList<>(posiciones.length);
+        for (int posicion : posiciones) {
+            tickets.add(almacen.leer(posicion));
+        }
+        return tickets;
+    }
+}
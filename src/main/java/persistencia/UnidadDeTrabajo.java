@@ -0,0 +1,183 @@
+package persistencia;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * UnidadDeTrabajo - Agrupa cambios sobre varios repositorios y los
+ * confirma de forma atomica.
+ *
+ * Los cambios se acumulan con agregar/actualizar/eliminar y no tocan los
+ * repositorios hasta confirmar(). Al confirmar se escribe un unico registro
+ * en el RegistroTransacciones (una sola escritura durable) y luego se
+ * aplican en memoria. Si el proceso muere antes de escribir el registro no
+ * queda ningun cambio; si muere despues, la recuperacion los aplica todos.
+ * Es igual sin journal por repositorio (-Deventplanner.journal=false): el
+ * registro se escribe igual, con la secuencia local de cada repositorio, y
+ * se libera cuando cada uno guarda su delta.
+ *
+ * Ejemplo:
+ * <pre>
+ * UnidadDeTrabajo unidad = new UnidadDeTrabajo();
+ * unidad.agregar(ticketRepo, ticket);
+ * unidad.agregar(pagoRepo, pago);
+ * unidad.actualizar(eventoRepo, evento);
+ * unidad.confirmar();
+ * </pre>
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.2
+ */
+public class UnidadDeTrabajo {
+
+    /**
+     * Cambio pendiente sobre un repositorio
+     */
+    private static final class Cambio<T> {
+        private final RepositorioBase<T> repositorio;
+        private final Journal.Operacion operacion;
+        private final T entidad;
+        private long secuencia;
+
+        private Cambio(RepositorioBase<T> repositorio, Journal.Operacion operacion, T entidad) {
+            this.repositorio = repositorio;
+            this.operacion = operacion;
+            this.entidad = entidad;
+        }
+
+        private RegistroTransacciones.Entrada aEntrada() throws IOException {
+            secuencia = repositorio.reservarSecuencia();
+            return new RegistroTransacciones.Entrada(repositorio.nombreArchivo, operacion,
+                    secuencia, repositorio.obtenerId(entidad), repositorio.serializarEntidad(entidad));
+        }
+
+        private void aplicar() {
+            repositorio.aplicarConfirmado(operacion, entidad, secuencia);
+        }
+    }
+
+    private final ArrayList<Cambio<?>> cambios;
+    private boolean confirmada;
+
+    /**
+     * Constructor de una unidad de trabajo vacia
+     */
+    public UnidadDeTrabajo() {
+        this.cambios = new ArrayList<>();
+        this.confirmada = false;
+    }
+
+    /**
+     * Registra el alta de una entidad
+     *
+     * @param <T> Tipo de entidad
+     * @param repositorio Repositorio destino
+     * @param entidad Entidad nueva
+     * @return Esta unidad de trabajo
+     */
+    public <T> UnidadDeTrabajo agregar(RepositorioBase<T> repositorio, T entidad) {
+        return registrar(new Cambio<>(repositorio, Journal.Operacion.AGREGAR, entidad));
+    }
+
+    /**
+     * Registra la modificacion de una entidad
+     *
+     * @param <T> Tipo de entidad
+     * @param repositorio Repositorio destino
+     * @param entidad Entidad con los datos actualizados
+     * @return Esta unidad de trabajo
+     */
+    public <T> UnidadDeTrabajo actualizar(RepositorioBase<T> repositorio, T entidad) {
+        return registrar(new Cambio<>(repositorio, Journal.Operacion.ACTUALIZAR, entidad));
+    }
+
+    /**
+     * Registra la eliminacion de una entidad
+     *
+     * @param <T> Tipo de entidad
+     * @param repositorio Repositorio destino
+     * @param entidad Entidad a eliminar
+     * @return Esta unidad de trabajo
+     * @throws UnsupportedOperationException Si el repositorio no elimina entidades
+     */
+    public <T> UnidadDeTrabajo eliminar(RepositorioBase<T> repositorio, T entidad) {
+        return registrar(new Cambio<>(repositorio, Journal.Operacion.ELIMINAR, entidad));
+    }
+
+    /**
+     * Cantidad de cambios registrados
+     *
+     * @return Numero de cambios pendientes de confirmar
+     */
+    public int contarCambios() {
+        return cambios.size();
+    }
+
+    /**
+     * Confirma todos los cambios con un solo registro durable.
+     * Mientras confirma bloquea los repositorios involucrados, siempre en el
+     * mismo orden para evitar interbloqueos.
+     *
+     * @throws IOException Si no se pudo escribir el registro (no se aplica nada)
+     */
+    public void confirmar() throws IOException {
+        if (confirmada) {
+            throw new IllegalStateException("La unidad de trabajo ya fue confirmada");
+        }
+        ArrayList<RepositorioBase<?>> repositorios = new ArrayList<>();
+        for (Cambio<?> cambio : cambios) {
+            if (!repositorios.contains(cambio.repositorio)) {
+                repositorios.add(cambio.repositorio);
+            }
+        }
+        repositorios.sort(Comparator.comparing(repositorio -> repositorio.nombreArchivo));
+
+        confirmarBloqueando(repositorios, 0);
+        confirmada = true;
+    }
+
+    private UnidadDeTrabajo registrar(Cambio<?> cambio) {
+        if (confirmada) {
+            throw new IllegalStateException("La unidad de trabajo ya fue confirmada");
+        }
+        // Rechazar antes de escribir nada: el registro se reproduciria en cada inicio
+        if (cambio.operacion == Journal.Operacion.ELIMINAR && !cambio.repositorio.permiteEliminar()) {
+            throw new UnsupportedOperationException(
+                    "El repositorio " + cambio.repositorio.nombreArchivo + " no admite eliminar");
+        }
+        cambios.add(cambio);
+        return this;
+    }
+
+    private void confirmarBloqueando(List<RepositorioBase<?>> repositorios, int indice) throws IOException {
+        if (indice == repositorios.size()) {
+            escribirYAplicar(repositorios);
+            return;
+        }
+        synchronized (repositorios.get(indice)) {
+            confirmarBloqueando(repositorios, indice + 1);
+        }
+    }
+
+    private void escribirYAplicar(List<RepositorioBase<?>> repositorios) throws IOException {
+        if (cambios.isEmpty()) {
+            return;
+        }
+        ArrayList<RegistroTransacciones.Entrada> entradas = new ArrayList<>(cambios.size());
+        for (Cambio<?> cambio : cambios) {
+            entradas.add(cambio.aEntrada());
+        }
+        RegistroTransacciones.getInstance().confirmar(entradas);
+
+        for (Cambio<?> cambio : cambios) {
+            cambio.aplicar();
+        }
+
+        // Sin journal el delta absorbe los cambios y libera el registro
+        for (RepositorioBase<?> repositorio : repositorios) {
+            repositorio.guardarTrasTransaccion();
+        }
+    }
+}
@@ -3,42 +3,85 @@ package persistencia;
 import modelos.Usuario;
 import modelos.RolUsuario;
 import modelos.EstadoUsuario;
-import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Repositorio para gestionar la persistencia de usuarios.
  * Guarda y carga usuarios desde archivo JSON.
+ *
+ * La carga es por streaming (JsonReader, un usuario a la vez) y las
+ * busquedas por ID, nombre de usuario y email usan indices hash (sin
+ * distinguir mayusculas). El JSON compacto solo se reescribe cuando algo
+ * cambio; los accesos (login) se anexan a un log aparte que se integra
+ * al JSON en la siguiente escritura.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 2.0
  */
 public class UsuarioRepositorio {
     
     private static final String ARCHIVO_USUARIOS = "datos/usuarios.json";
-    private ArrayList<Usuario> usuarios;
-    private Gson gson;
+    private static final String ARCHIVO_ACCESOS = "datos/usuarios_accesos.log";
+    
+    /** Cantidad de accesos en el log que fuerza a integrarlos al JSON al cargar */
+    private static final int MAX_ACCESOS_LOG = 1000;
+    
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    
+    private final ArrayList<Usuario> usuarios;
+    
+    // ==================== INDICES ====================
+    private final HashMap<String, Usuario> porId;
+    private final HashMap<String, Usuario> porNombreUsuario;
+    private final HashMap<String, Usuario> porEmail;
+    
+    /** Claves con las que se indexo cada usuario (para reindexar si cambian) */
+    private final HashMap<String, String[]> clavesPorId;
+    
+    /** Hay cambios que aun no estan en el JSON */
+    private boolean modificado;
+    
+    /** Accesos anexados al log desde la ultima escritura del JSON */
+    private int accesosEnLog;
     
     /**
      * Constructor del repositorio de usuarios
      */
     public UsuarioRepositorio() {
         this.usuarios = new ArrayList<>();
-        this.gson = new GsonBuilder()
-            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-            .setPrettyPrinting()
-            .create();
+        this.porId = new HashMap<>();
+        this.porNombreUsuario = new HashMap<>();
+        this.porEmail = new HashMap<>();
+        this.clavesPorId = new HashMap<>();
+        this.modificado = false;
+        this.accesosEnLog = 0;
         
         crearDirectorioSiNoExiste();
         cargarDesdeArchivo();
+        cargarAccesos();
         
         // Crear usuario admin por defecto si no existe
         if (usuarios.isEmpty()) {
             crearUsuarioAdminPorDefecto();
         }
+        
+        // Migraciones o log de accesos muy largo: dejar el JSON al dia
+        if (modificado || accesosEnLog > MAX_ACCESOS_LOG) {
+            guardarEnArchivo();
+        }
     }
     
     /**
@@ -64,8 +107,8 @@ public class UsuarioRepositorio {
             RolUsuario.ADMINISTRADOR
         );
         
-        usuarios.add(admin);
-        guardarEnArchivo();
+        agregarEnMemoria(admin);
+        modificado = true;
         
         System.out.println("[UsuarioRepo] Usuario administrador creado");
         System.out.println("Usuario: admin | Contraseña: admin123");
@@ -86,7 +129,8 @@ public class UsuarioRepositorio {
             throw new IOException("El email ya está registrado");
         }
         
-        usuarios.add(usuario);
+        agregarEnMemoria(usuario);
+        modificado = true;
         guardarEnArchivo();
         
         System.out.println("[UsuarioRepo] Usuario agregado: " + usuario.getNombreUsuario());
@@ -99,12 +143,7 @@ public class UsuarioRepositorio {
      * @return Usuario encontrado o null
      */
     public Usuario buscarPorNombreUsuario(String nombreUsuario) {
-        for (Usuario usuario : usuarios) {
-            if (usuario.getNombreUsuario().equalsIgnoreCase(nombreUsuario)) {
-                return usuario;
-            }
-        }
-        return null;
+        return nombreUsuario == null ? null : porNombreUsuario.get(normalizar(nombreUsuario));
     }
     
     /**
@@ -114,12 +153,7 @@ public class UsuarioRepositorio {
      * @return Usuario encontrado o null
      */
     public Usuario buscarPorEmail(String email) {
-        for (Usuario usuario : usuarios) {
-            if (usuario.getEmail().equalsIgnoreCase(email)) {
-                return usuario;
-            }
-        }
-        return null;
+        return email == null ? null : porEmail.get(normalizar(email));
     }
     
     /**
@@ -129,12 +163,7 @@ public class UsuarioRepositorio {
      * @return Usuario encontrado o null
      */
     public Usuario buscarPorId(String id) {
-        for (Usuario usuario : usuarios) {
-            if (usuario.getId().equals(id)) {
-                return usuario;
-            }
-        }
-        return null;
+        return porId.get(id);
     }
     
     /**
@@ -162,14 +191,31 @@ public class UsuarioRepositorio {
             return null;
         }
         
-        // Registrar acceso
-        usuario.registrarAcceso();
-        guardarEnArchivo();
+        registrarAcceso(usuario);
         
         System.out.println("[UsuarioRepo] Login exitoso: " + nombreUsuario);
         return usuario;
     }
     
+    /**
+     * Registra el acceso de un usuario sin reescribir el JSON:
+     * la fecha se anexa al log de accesos
+     * 
+     * @param usuario Usuario que inicio sesion
+     */
+    public void registrarAcceso(Usuario usuario) {
+        usuario.registrarAcceso();
+        String linea = usuario.getId() + "|" + usuario.getUltimoAcceso().format(FORMATO_FECHA) + "\n";
+        try {
+            Files.write(new File(ARCHIVO_ACCESOS).toPath(), linea.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            accesosEnLog++;
+        } catch (IOException e) {
+            System.err.println("[UsuarioRepo] Error al registrar acceso: " + e.getMessage());
+            modificado = true;
+        }
+    }
+    
     /**
      * Verifica si existe un nombre de usuario
      * 
@@ -253,14 +299,17 @@ public class UsuarioRepositorio {
      * @param usuario Usuario a actualizar
      */
     public void actualizar(Usuario usuario) {
-        for (int i = 0; i < usuarios.size(); i++) {
-            if (usuarios.get(i).getId().equals(usuario.getId())) {
-                usuarios.set(i, usuario);
-                guardarEnArchivo();
-                System.out.println("[UsuarioRepo] Usuario actualizado: " + usuario.getNombreUsuario());
-                return;
-            }
+        Usuario existente = porId.get(usuario.getId());
+        if (existente == null) {
+            return;
         }
+        if (existente != usuario) {
+            usuarios.set(usuarios.indexOf(existente), usuario);
+        }
+        indexar(usuario);
+        modificado = true;
+        guardarEnArchivo();
+        System.out.println("[UsuarioRepo] Usuario actualizado: " + usuario.getNombreUsuario());
     }
     
     /**
@@ -316,85 +365,209 @@ public class UsuarioRepositorio {
         actualizar(usuario);
     }
     
+    // ==================== INDICES ====================
+    
+    private static String normalizar(String clave) {
+        return clave.toLowerCase(Locale.ROOT);
+    }
+    
+    private void agregarEnMemoria(Usuario usuario) {
+        usuarios.add(usuario);
+        indexar(usuario);
+    }
+    
+    /**
+     * Indexa (o reindexa) un usuario por ID, nombre de usuario y email.
+     * Si se repite una clave se conserva el primero, como la busqueda lineal anterior.
+     */
+    private void indexar(Usuario usuario) {
+        String[] anteriores = clavesPorId.get(usuario.getId());
+        if (anteriores != null) {
+            porNombreUsuario.remove(anteriores[0], usuario);
+            porEmail.remove(anteriores[1], usuario);
+        }
+        String nombre = usuario.getNombreUsuario() == null ? null : normalizar(usuario.getNombreUsuario());
+        String email = usuario.getEmail() == null ? null : normalizar(usuario.getEmail());
+        porId.put(usuario.getId(), usuario);
+        if (nombre != null) {
+            porNombreUsuario.putIfAbsent(nombre, usuario);
+        }
+        if (email != null) {
+            porEmail.putIfAbsent(email, usuario);
+        }
+        clavesPorId.put(usuario.getId(), new String[] {nombre, email});
+    }
+    
+    // ==================== ARCHIVOS ====================
+    
     /**
-     * Guarda los usuarios en archivo JSON
+     * Guarda los usuarios en archivo JSON compacto, si hubo cambios.
+     * Se escribe en un temporal que luego reemplaza al original, y el log
+     * de accesos se vacia porque el JSON ya incluye esas fechas.
      */
     private void guardarEnArchivo() {
-        try (FileWriter writer = new FileWriter(ARCHIVO_USUARIOS)) {
-            gson.toJson(usuarios, writer);
+        File destino = new File(ARCHIVO_USUARIOS);
+        File temporal = new File(ARCHIVO_USUARIOS + ".tmp");
+        try {
+            try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(temporal), StandardCharsets.UTF_8)))) {
+                writer.beginArray();
+                for (Usuario usuario : usuarios) {
+                    escribirUsuario(writer, usuario);
+                }
+                writer.endArray();
+            }
+            Files.move(temporal.toPath(), destino.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(new File(ARCHIVO_ACCESOS).toPath());
+            modificado = false;
+            accesosEnLog = 0;
             System.out.println("[UsuarioRepo] Usuarios guardados en archivo");
         } catch (IOException e) {
             System.err.println("[UsuarioRepo] Error al guardar: " + e.getMessage());
         }
     }
     
-/**
- * Carga los usuarios desde archivo JSON
- */
-private void cargarDesdeArchivo() {
-    File archivo = new File(ARCHIVO_USUARIOS);
-    
-    if (!archivo.exists()) {
-        System.out.println("[UsuarioRepo] Archivo no existe, se creará uno nuevo");
-        return;
-    }
-    
-    try (FileReader reader = new FileReader(archivo)) {
-        Usuario[] usuariosArray = gson.fromJson(reader, Usuario[].class);
+    /**
+     * Carga los usuarios desde archivo JSON, un usuario a la vez
+     */
+    private void cargarDesdeArchivo() {
+        File archivo = new File(ARCHIVO_USUARIOS);
         
-        if (usuariosArray != null) {
-            usuarios.clear();
-            for (Usuario usuario : usuariosArray) {
+        if (!archivo.exists()) {
+            System.out.println("[UsuarioRepo] Archivo no existe, se creará uno nuevo");
+            return;
+        }
+        
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(
+                new FileInputStream(archivo), StandardCharsets.UTF_8)))) {
+            if (reader.peek() == JsonToken.NULL) {
+                return;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Usuario usuario = leerUsuario(reader);
                 //  MIGRACIÓN: Si el usuario no tiene estado, asignarlo
                 if (usuario.getEstado() == null) {
-                    if (usuario.getRol() == RolUsuario.ADMINISTRADOR) {
-                        usuario.setEstado(EstadoUsuario.ACTIVO);
-                    } else {
-                        usuario.setEstado(EstadoUsuario.ACTIVO); // Los existentes se activan automáticamente
-                    }
+                    usuario.setEstado(EstadoUsuario.ACTIVO); // Los existentes se activan automáticamente
+                    modificado = true;
                     System.out.println("[UsuarioRepo]  Migrado usuario: " + usuario.getNombreUsuario() + " -> " + usuario.getEstado());
                 }
-                usuarios.add(usuario);
+                agregarEnMemoria(usuario);
             }
-            
-            // Guardar con el nuevo formato
-            guardarEnArchivo();
+            reader.endArray();
             
             System.out.println("[UsuarioRepo] " + usuarios.size() + " usuarios cargados");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[UsuarioRepo] Error al cargar: " + e.getMessage());
         }
-    } catch (IOException e) {
-        System.err.println("[UsuarioRepo] Error al cargar: " + e.getMessage());
     }
-}
     
     /**
-     * Obtiene la cantidad de usuarios registrados
-     * 
-     * @return Cantidad de usuarios
+     * Aplica las fechas de acceso anexadas despues de la ultima escritura del JSON
      */
-    public int contarUsuarios() {
-        return usuarios.size();
+    private void cargarAccesos() {
+        File archivo = new File(ARCHIVO_ACCESOS);
+        if (!archivo.exists()) {
+            return;
+        }
+        try {
+            List<String> lineas = Files.readAllLines(archivo.toPath(), StandardCharsets.UTF_8);
+            for (String linea : lineas) {
+                int separador = linea.indexOf('|');
+                if (separador < 0) {
+                    continue; // linea cortada al final
+                }
+                Usuario usuario = porId.get(linea.substring(0, separador));
+                if (usuario != null) {
+                    try {
+                        usuario.setUltimoAcceso(LocalDateTime.parse(linea.substring(separador + 1), FORMATO_FECHA));
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                }
+                accesosEnLog++;
+            }
+        } catch (IOException e) {
+            System.err.println("[UsuarioRepo] Error al leer accesos: " + e.getMessage());
+        }
     }
     
-    // ==================== ADAPTADOR PARA LocalDateTime ====================
+    private static void escribirUsuario(JsonWriter writer, Usuario usuario) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(usuario.getId());
+        writer.name("nombreCompleto").value(usuario.getNombreCompleto());
+        writer.name("email").value(usuario.getEmail());
+        writer.name("nombreUsuario").value(usuario.getNombreUsuario());
+        writer.name("contrasena").value(usuario.getContrasena());
+        writer.name("rol").value(usuario.getRol() == null ? null : usuario.getRol().name());
+        writer.name("estado").value(usuario.getEstado() == null ? null : usuario.getEstado().name());
+        writer.name("fechaCreacion").value(formatear(usuario.getFechaCreacion()));
+        writer.name("ultimoAcceso").value(formatear(usuario.getUltimoAcceso()));
+        writer.name("activo").value(usuario.isActivo());
+        writer.endObject();
+    }
     
-    /**
-     * Adaptador personalizado para serializar/deserializar LocalDateTime con Gson
-     */
-    private static class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
-        
-        private final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static Usuario leerUsuario(JsonReader reader) throws IOException {
+        String id = null;
+        String nombreCompleto = null;
+        String email = null;
+        String nombreUsuario = null;
+        String contrasena = null;
+        RolUsuario rol = null;
+        EstadoUsuario estado = null;
+        LocalDateTime fechaCreacion = null;
+        LocalDateTime ultimoAcceso = null;
+        boolean activo = false;
         
-        @Override
-        public JsonElement serialize(LocalDateTime src, java.lang.reflect.Type typeOfSrc, 
-                                    JsonSerializationContext context) {
-            return new JsonPrimitive(src.format(formatter));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String campo = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (campo) {
+                case "id" -> id = reader.nextString();
+                case "nombreCompleto" -> nombreCompleto = reader.nextString();
+                case "email" -> email = reader.nextString();
+                case "nombreUsuario" -> nombreUsuario = reader.nextString();
+                case "contrasena" -> contrasena = reader.nextString();
+                case "rol" -> rol = leerEnum(RolUsuario.class, reader.nextString());
+                case "estado" -> estado = leerEnum(EstadoUsuario.class, reader.nextString());
+                case "fechaCreacion" -> fechaCreacion = LocalDateTime.parse(reader.nextString(), FORMATO_FECHA);
+                case "ultimoAcceso" -> ultimoAcceso = LocalDateTime.parse(reader.nextString(), FORMATO_FECHA);
+                case "activo" -> activo = reader.nextBoolean();
+                default -> reader.skipValue();
+            }
         }
+        reader.endObject();
         
-        @Override
-        public LocalDateTime deserialize(JsonElement json, java.lang.reflect.Type typeOfT, 
-                                        JsonDeserializationContext context) throws JsonParseException {
-            return LocalDateTime.parse(json.getAsString(), formatter);
+        return new Usuario(id, nombreCompleto, email, nombreUsuario, contrasena,
+                rol, estado, fechaCreacion, ultimoAcceso, activo);
+    }
+    
+    /**
+     * Como Gson, un nombre de enum desconocido se lee como null
+     */
+    private static <E extends Enum<E>> E leerEnum(Class<E> tipo, String nombre) {
+        try {
+            return Enum.valueOf(tipo, nombre);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
-}
\ No newline at end of file
+    
+    private static String formatear(LocalDateTime fecha) {
+        return fecha == null ? null : fecha.format(FORMATO_FECHA);
+    }
+    
+    /**
+     * Obtiene la cantidad de usuarios registrados
+     * 
+     * @return Cantidad de usuarios
+     */
+    public int contarUsuarios() {
+        return usuarios.size();
+    }
+}
@@ -0,0 +1,76 @@
+package persistencia;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * VaciadorDiferido - Hilo de fondo de la escritura diferida (write-behind).
+ * Los repositorios en modo diferido solo encolan sus cambios; este hilo
+ * los escribe cada cierto intervalo o en cuanto un repositorio acumula
+ * un lote completo. Todos los cambios acumulados en la ventana se escriben
+ * juntos (group commit).
+ *
+ * Un shutdown hook vacia todos los repositorios al cerrar la aplicacion.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+public final class VaciadorDiferido {
+
+    private static final CopyOnWriteArrayList<RepositorioBase<?>> repositorios = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean iniciado = new AtomicBoolean(false);
+    private static final AtomicBoolean vaciadoSolicitado = new AtomicBoolean(false);
+    private static ScheduledExecutorService programador;
+
+    private VaciadorDiferido() {
+    }
+
+    /**
+     * Registra un repositorio para el vaciado periodico.
+     * El primer registro arranca el hilo y el shutdown hook.
+     *
+     * @param repositorio Repositorio en modo diferido
+     * @param intervaloMs Intervalo maximo entre vaciados
+     */
+    static void registrar(RepositorioBase<?> repositorio, long intervaloMs) {
+        repositorios.addIfAbsent(repositorio);
+        if (iniciado.compareAndSet(false, true)) {
+            programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "eventplanner-vaciador");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            programador.scheduleWithFixedDelay(VaciadorDiferido::vaciarTodo,
+                    intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(VaciadorDiferido::vaciarTodo, "eventplanner-cierre"));
+        }
+    }
+
+    /**
+     * Pide un vaciado inmediato (un repositorio alcanzo el tamaño de lote).
+     * Varias solicitudes seguidas se agrupan en un solo vaciado.
+     */
+    static void solicitarVaciado() {
+        if (programador != null && vaciadoSolicitado.compareAndSet(false, true)) {
+            programador.execute(VaciadorDiferido::vaciarTodo);
+        }
+    }
+
+    /**
+     * Escribe los cambios pendientes de todos los repositorios registrados
+     */
+    public static void vaciarTodo() {
+        vaciadoSolicitado.set(false);
+        for (RepositorioBase<?> repositorio : repositorios) {
+            try {
+                repositorio.flush();
+            } catch (Exception e) {
+                System.err.println("[VaciadorDiferido] Error al vaciar "
+                        + repositorio.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -11,6 +11,9 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.stage.Stage;
 import presentacion.controllers.LoginController;
+import logica.GestorArchivo;
+import persistencia.ContextoRepositorios;
+import persistencia.VaciadorDiferido;
 import java.net.URL;
 
 /**
@@ -22,6 +25,17 @@ import java.net.URL;
  */
 public class Main extends Application {
     
+    /**
+     * Inicia la carga de los archivos en segundo plano antes de mostrar
+     * el login; cada pantalla espera solo a los repositorios que usa.
+     * Al terminar, los eventos terminados antiguos pasan al archivo historico.
+     */
+    @Override
+    public void init() {
+        ContextoRepositorios.getInstance().iniciarCarga()
+                .thenRun(() -> GestorArchivo.getInstance().archivarEnSegundoPlano());
+    }
+    
     @Override
     public void start(Stage primaryStage) {
         try {
@@ -128,6 +142,15 @@ public class Main extends Application {
         }
     }
     
+    /**
+     * Al cerrar la ventana se escriben los cambios que queden en memoria
+     * (escritura diferida)
+     */
+    @Override
+    public void stop() {
+        VaciadorDiferido.vaciarTodo();
+    }
+    
     public static void main(String[] args) {
         System.out.println("\n EVENT PLANNER");
         System.out.println(" Universidad Popular del Cesar");
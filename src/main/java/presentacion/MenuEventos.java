@@ -1,7 +1,7 @@
 /**
  * MenuReportes - Gestionar el menú de eventos
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package presentacion;
 
@@ -226,7 +226,7 @@ public class MenuEventos {
                         System.out.println("   Tipo: " + evento.getTipo().getDescripcion() +"| Estado: " + evento.getEstado().getDescripcion());
                         System.out.println("   Fecha: " + evento.getFechaInicio().format(FORMATO_FECHA));
                         System.out.println("   Ubicación: " + evento.getUbicacion());
-                        System.out.println("   Registrados: " + evento.getParticipantesRegistrados().size() + "/" + evento.getCapacidadMaxima());
+                        System.out.println("   Registrados: " + evento.contarRegistrados() + "/" + evento.getCapacidadMaxima());
                         System.out.println("   ─".repeat(40));
                     }
                 }
@@ -367,7 +367,7 @@ public class MenuEventos {
                                         System.out.println((i + 1) + ". " + evento.getNombre() +" [" + evento.getTipo().getDescripcion() + "]");
                                         System.out.println("   ID: " + evento.getId());
                                         System.out.println("   Fecha: " + evento.getFechaInicio().format(FORMATO_FECHA));
-                                        System.out.println("   Registrados: " + evento.getParticipantesRegistrados().size());
+                                        System.out.println("   Registrados: " + evento.contarRegistrados());
                                         System.out.println();
                                     }
                                 }
@@ -499,11 +499,11 @@ public class MenuEventos {
                                                     System.out.println("Fecha Fin: " + evento.getFechaFin().format(FORMATO_FECHA));
                                                     System.out.println("Ubicación: " + evento.getUbicacion());
                                                     System.out.println("Capacidad: " + evento.getCapacidadMaxima() + " personas");
-                                                    System.out.println("Registrados: " + evento.getParticipantesRegistrados().size());
-                                                    System.out.println("Asistentes: " + evento.getParticipantesAsistentes().size());
+                                                    System.out.println("Registrados: " + evento.contarRegistrados());
+                                                    System.out.println("Asistentes: " + evento.contarAsistentes());
                                                     System.out.println("Cupos Disponibles: " + evento.getCuposDisponibles());
                                                     
-                                                    if (evento.getParticipantesAsistentes().isEmpty()) {
+                                                    if (evento.contarAsistentes() == 0) {
                                                     } else {
                                                         System.out.println("Porcentaje Asistencia: " +String.format("%.2f%%", evento.calcularPorcentajeAsistencia()));
                                                     }
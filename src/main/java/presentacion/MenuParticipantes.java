@@ -1,7 +1,7 @@
 /**
  * MenuParticipantes - Gestionar el menú de participantes y organizadores
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package presentacion;
 
@@ -424,7 +424,7 @@ public class MenuParticipantes {
                                         System.out.println("   Ubicación: " + evento.getUbicacion());
                                         
                                         // Verificar si hizo check-in
-                                        boolean hizoCheckIn = evento.getParticipantesAsistentes().contains(participante.getId());
+                                        boolean hizoCheckIn = evento.asistio(participante.getId());
                                         if (hizoCheckIn) {
                                             System.out.println("   Check-in realizado");
                                         } else {
@@ -470,7 +470,7 @@ public class MenuParticipantes {
                                     }
                                     
                                     // Verificar si ya hizo check-in
-                                    if (evento.getParticipantesAsistentes().contains(participante.getId())) {
+                                    if (evento.asistio(participante.getId())) {
                                         MenuPrincipalConsola.mostrarAdvertencia("Ya realizó check-in en este evento.");
                                         return;
                                     }
@@ -862,7 +862,7 @@ public class MenuParticipantes {
                                                                     Evento evento = eventos.get(i);
                                                                     System.out.println((i + 1) + ". " + evento.getNombre());
                                                                     System.out.println("   Tipo: " + evento.getTipo().getDescripcion() + "|Estado: " + evento.getEstado().getDescripcion());
-                                                                    System.out.println("   Registrados: " + evento.getParticipantesRegistrados().size());
+                                                                    System.out.println("   Registrados: " + evento.contarRegistrados());
                                                                     System.out.println();
                                                                 }
                                                                 
@@ -25,7 +25,7 @@ public class MenuPrincipalConsola {
      */
     public MenuPrincipalConsola() {
         this.scanner = new Scanner(System.in);
-        this.gestor = new GestorEventos();
+        this.gestor = GestorEventos.getInstance();
         
         // Inicializar submenús
         this.menuEventos = new MenuEventos(gestor, scanner);
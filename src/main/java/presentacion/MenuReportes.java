@@ -1,7 +1,7 @@
 /**
  * MenuReportes - Gestiona el menu de reportes y dashboard
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 package presentacion;
 
@@ -208,8 +208,8 @@ public class MenuReportes {
                             System.out.println("Tipo: " + eventoExitoso.getTipo().getDescripcion());
                             System.out.println("Asistencia: " + String.format("%.2f%%", 
                                 eventoExitoso.calcularPorcentajeAsistencia()));
-                            System.out.println("Registrados: " + eventoExitoso.getParticipantesRegistrados().size());
-                            System.out.println("Asistentes: " + eventoExitoso.getParticipantesAsistentes().size());
+                            System.out.println("Registrados: " + eventoExitoso.contarRegistrados());
+                            System.out.println("Asistentes: " + eventoExitoso.contarAsistentes());
                         }
                         } catch (EventPlannerException e) {
                             throw new EventPlannerException("Error al generar estadísticas generales: " + e.getMessage(), e);
@@ -230,7 +230,7 @@ public class MenuReportes {
                                 var eventosConAsistencia = new java.util.ArrayList<Evento>();
                                 
                                 for (Evento e : eventos) {
-                                    if (!e.getParticipantesAsistentes().isEmpty()) {
+                                    if (e.contarAsistentes() > 0) {
                                         eventosConAsistencia.add(e);
                                     }
                                 }
@@ -258,6 +258,7 @@ public class MenuReportes {
                                 limpiarPantalla();
                                 var comparacion = generarReportes.compararEventos(id1, id2);
                                 System.out.println(comparacion);
+                                System.out.println(generarReportes.generarReporteAsistenciaCruzada(java.util.List.of(id1, id2)));
                                 
                             } catch (EventPlannerException e) {
                                 MenuPrincipalConsola.mostrarError(e.getMessage());
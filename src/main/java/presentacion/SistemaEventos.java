@@ -9,6 +9,8 @@
 package presentacion;
 
 import java.io.IOException;
+import logica.GestorArchivo;
+import persistencia.ContextoRepositorios;
  
 public class SistemaEventos {
       
@@ -18,7 +20,10 @@ public class SistemaEventos {
      */
     public static void main(String[] args) {
         
-        // Mostrar pantalla de carga
+        // Cargar los archivos en paralelo mientras se muestra la pantalla de carga
+        // y despues archivar los eventos terminados antiguos
+        ContextoRepositorios.getInstance().iniciarCarga()
+                .thenRun(() -> GestorArchivo.getInstance().archivarEnSegundoPlano());
         mostrarPantallaCarga();
         
         try {
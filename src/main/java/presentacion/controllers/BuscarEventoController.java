@@ -24,7 +24,7 @@ import java.util.ArrayList;
  * Controlador para buscar eventos por diferentes criterios
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class BuscarEventoController {
     
@@ -95,7 +95,7 @@ public class BuscarEventoController {
         
         colCapacidad.setCellValueFactory(cellData -> 
             new SimpleStringProperty(String.format("%d/%d",
-                cellData.getValue().getParticipantesRegistrados().size(),
+                cellData.getValue().contarRegistrados(),
                 cellData.getValue().getCapacidadMaxima())));
         
         // Botón para ver detalle
@@ -256,11 +256,11 @@ public class BuscarEventoController {
             evento.getFechaInicio().format(formatter),
             evento.getFechaFin().format(formatter),
             evento.getUbicacion(),
-            evento.getParticipantesRegistrados().size(),
+            evento.contarRegistrados(),
             evento.getCapacidadMaxima(),
             evento.getEstado().getDescripcion(),
-            evento.getParticipantesRegistrados().size(),
-            evento.getParticipantesAsistentes().size()
+            evento.contarRegistrados(),
+            evento.contarAsistentes()
         );
         
         alert.setContentText(contenido);
@@ -42,7 +42,7 @@ import java.util.ArrayList;
  * </ul>
  * 
  * @author  Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  * @since 2025-01-11
  */
 public class BuscarParticipanteController {
@@ -319,8 +319,7 @@ public class BuscarParticipanteController {
                 ? participanteActual.getId() 
                 : "";
             
-            boolean asistio = evento.getParticipantesAsistentes()
-                .contains(participanteId);
+            boolean asistio = evento.asistio(participanteId);
             
             return new javafx.beans.property.SimpleStringProperty(
                 asistio ? "✓ Sí" : "No");
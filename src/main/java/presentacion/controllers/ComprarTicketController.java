@@ -1,5 +1,6 @@
 package presentacion.controllers;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -12,13 +13,14 @@ import modelos.*;
 import presentacion.NavigationHelper;
 import excepciones.*;
 import java.util.ArrayList;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controlador para la compra de tickets.
  * Gestiona la selección de evento, tipo de ticket, método de pago y procesamiento.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class ComprarTicketController {
     
@@ -57,6 +59,9 @@ public class ComprarTicketController {
     private Evento eventoSeleccionado;
     private Participante participanteSeleccionado;
     
+    /** Evita una segunda compra mientras el pago anterior sigue en curso */
+    private boolean compraEnCurso;
+    
     // ==================== INICIALIZACIÓN ====================
     
     @FXML
@@ -281,21 +286,30 @@ public class ComprarTicketController {
     // ==================== ACCIONES ====================
     
     /**
-     * Procesa la compra del ticket
+     * Procesa la compra del ticket.
+     * El pago se autoriza fuera del hilo de la interfaz; el resultado se
+     * muestra de vuelta en el hilo de JavaFX.
      */
     @FXML
     private void procesarCompra() {
-        if (!validarCampos()) {
+        if (compraEnCurso || !validarCampos()) {
             return;
         }
         
-        try {
-            Ticket ticket = gestorPagos.comprarTicket(
-                eventoSeleccionado.getId(),
-                participanteSeleccionado.getId(),
-                cboTipoTicket.getValue(),
-                cboMetodoPago.getValue()
-            );
+        compraEnCurso = true;
+        gestorPagos.comprarTicketAsync(
+            eventoSeleccionado.getId(),
+            participanteSeleccionado.getId(),
+            cboTipoTicket.getValue(),
+            cboMetodoPago.getValue()
+        ).whenComplete((ticket, error) -> Platform.runLater(() -> {
+            compraEnCurso = false;
+            if (error != null) {
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                mostrarError("Error en la compra", causa.getMessage());
+                return;
+            }
             
             mostrarExito("¡Compra Exitosa!", 
                 "Tu ticket ha sido procesado correctamente.\n\n" +
@@ -304,10 +318,7 @@ public class ComprarTicketController {
                 "Revisa 'Mis Tickets' para más detalles.");
             
             limpiarFormulario();
-            
-        } catch (EventPlannerException e) {
-            mostrarError("Error en la compra", e.getMessage());
-        }
+        }));
     }
     
     /**
@@ -19,7 +19,7 @@ import excepciones.EventPlannerException;
  * Muestra estadísticas y métricas principales del sistema.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class DashboardController {
     
@@ -93,7 +93,7 @@ public class DashboardController {
             lblEventoPopularInfo.setText(
                 String.format("📍 %s\n👥 %d participantes\n📅 %s",
                     masPopular.getUbicacion(),
-                    masPopular.getParticipantesRegistrados().size(),
+                    masPopular.contarRegistrados(),
                     masPopular.getFechaInicio().format(
                         java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"))
                 )
@@ -110,7 +110,7 @@ public class DashboardController {
             lblEventoRentableInfo.setText(
                 String.format("📍 %s\n🎫 %d tickets vendidos\n📅 %s",
                     masRentable.getUbicacion(),
-                    masRentable.getParticipantesRegistrados().size(),
+                    masRentable.contarRegistrados(),
                     masRentable.getFechaInicio().format(
                         java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"))
                 )
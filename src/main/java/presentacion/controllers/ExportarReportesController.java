@@ -19,7 +19,7 @@ import java.util.*;
  * Permite generar y descargar reportes en diferentes formatos (TXT, CSV, PDF).
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class ExportarReportesController {
     
@@ -296,7 +296,7 @@ public class ExportarReportesController {
                     reporte.append(String.format("  Tipo: %s | Capacidad: %d | Inscritos: %d\n", 
                         evento.getTipo().getDescripcion(), 
                         evento.getCapacidadMaxima(),
-                        evento.getParticipantesRegistrados().size()));
+                        evento.contarRegistrados()));
                     reporte.append(String.format("  Ubicacion: %s\n", evento.getUbicacion()));
                     reporte.append(String.format("  Fecha: %s\n\n", 
                         evento.getFechaInicio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
@@ -323,7 +323,7 @@ public class ExportarReportesController {
                 evento.getTipo().getDescripcion(),
                 evento.getEstado().getDescripcion(),
                 evento.getCapacidadMaxima(),
-                evento.getParticipantesRegistrados().size(),
+                evento.contarRegistrados(),
                 evento.getUbicacion(),
                 evento.getFechaInicio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
                 evento.getFechaFin().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))
@@ -347,8 +347,8 @@ public class ExportarReportesController {
         ArrayList<Evento> eventos = gestorEventos.obtenerTodosEventos();
         
         for (Evento evento : eventos) {
-            int inscritos = evento.getParticipantesRegistrados().size();
-            int asistentes = evento.getParticipantesAsistentes().size();
+            int inscritos = evento.contarRegistrados();
+            int asistentes = evento.contarAsistentes();
             
             if (inscritos > 0) {
                 double porcentaje = ((double) asistentes / inscritos) * 100;
@@ -373,8 +373,8 @@ public class ExportarReportesController {
         ArrayList<Evento> eventos = gestorEventos.obtenerTodosEventos();
         
         for (Evento evento : eventos) {
-            int inscritos = evento.getParticipantesRegistrados().size();
-            int asistentes = evento.getParticipantesAsistentes().size();
+            int inscritos = evento.contarRegistrados();
+            int asistentes = evento.contarAsistentes();
             double porcentaje = inscritos > 0 ? ((double) asistentes / inscritos) * 100 : 0;
             
             csv.append(String.format("\"%s\",\"%s\",\"%s\",%d,%d,%.1f%%\n",
@@ -440,7 +440,7 @@ public class ExportarReportesController {
             double ingresos = gestorPagos.calcularIngresosEvento(evento.getId());
             if (ingresos > 0) {
                 double comision = gestorPagos.calcularGananciasPlataformaEvento(evento.getId());
-                int tickets = gestorPagos.obtenerTicketsDeEvento(evento.getId()).size();
+                int tickets = gestorPagos.contarTicketsDeEvento(evento.getId());
                 
                 csv.append(String.format("\"%s\",%.2f,%.2f,%.2f,%d\n",
                     evento.getNombre(),
@@ -63,7 +63,7 @@ public class FormularioEventoController {
      */
     @FXML
     private void initialize() {
-        gestor = new GestorEventos();
+        gestor = GestorEventos.getInstance();
         
         // Cargar tipos de evento en el ComboBox
         cboTipoEvento.getItems().addAll(TipoEvento.values());
@@ -21,7 +21,7 @@ import java.util.ArrayList;
  * Controlador para inscribir participantes a eventos
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class InscripcionEventoController {
     
@@ -109,7 +109,7 @@ public class InscripcionEventoController {
             String item = String.format("%s - %s (%d/%d cupos)",
                 evento.getTipo().getIcono(),
                 evento.getNombre(),
-                evento.getParticipantesRegistrados().size(),
+                evento.contarRegistrados(),
                 evento.getCapacidadMaxima()
             );
             nombresEventos.add(item);
@@ -24,7 +24,7 @@ import java.util.ArrayList;
  * Controlador para listar todos los eventos del sistema
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class ListaEventosController {
     
@@ -88,7 +88,7 @@ public class ListaEventosController {
         
         colCapacidad.setCellValueFactory(cellData -> 
             new SimpleStringProperty(String.format("%d/%d",
-                cellData.getValue().getParticipantesRegistrados().size(),
+                cellData.getValue().contarRegistrados(),
                 cellData.getValue().getCapacidadMaxima())));
         
         colEstado.setCellValueFactory(cellData -> 
@@ -237,12 +237,12 @@ public class ListaEventosController {
             evento.getFechaInicio().format(formatter),
             evento.getFechaFin().format(formatter),
             evento.getUbicacion(),
-            evento.getParticipantesRegistrados().size(),
+            evento.contarRegistrados(),
             evento.getCapacidadMaxima(),
             evento.getEstado().getDescripcion(),
             evento.getOrganizadorId(),
-            evento.getParticipantesRegistrados().size(),
-            evento.getParticipantesAsistentes().size(),
+            evento.contarRegistrados(),
+            evento.contarAsistentes(),
             evento.calcularPorcentajeAsistencia()
         );
         
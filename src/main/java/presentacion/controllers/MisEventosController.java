@@ -21,7 +21,7 @@ import java.util.ArrayList;
  * Controlador para mostrar los eventos de un participante
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class MisEventosController {
     
@@ -89,7 +89,7 @@ public class MisEventosController {
         colAsistio.setCellValueFactory(cellData -> {
             Evento evento = cellData.getValue();
             boolean asistio = participanteSeleccionado != null && 
-                            evento.getParticipantesAsistentes().contains(participanteSeleccionado.getId());
+                            evento.asistio(participanteSeleccionado.getId());
             String texto = asistio ? "SÍ" : "NO";
             return new javafx.beans.property.SimpleStringProperty(texto);
         });
@@ -291,7 +291,7 @@ public class ReporteFinancieroController {
             int posicion = 1;
             for (EventoIngresos ei : ranking) {
                 double porcentaje = (ei.ingresos / totalIngresos) * 100;
-                int tickets = gestorPagos.obtenerTicketsDeEvento(ei.evento.getId()).size();
+                int tickets = gestorPagos.contarTicketsDeEvento(ei.evento.getId());
                 
                 String medalla = "";
                 if (posicion == 1) medalla = "🥇";
@@ -16,7 +16,7 @@ import java.util.ArrayList;
  * Permite filtrar y seleccionar eventos de la lista.
  * 
  * @author Ayner Jose Castro Benavides
- * @version 1.0
+ * @version 1.1
  */
 public class SeleccionarEventoController {
     
@@ -156,7 +156,7 @@ public class SeleccionarEventoController {
             "📍 %s | 📅 %s | 👥 %d/%d participantes | 📊 %.1f%% asistencia",
             evento.getUbicacion(),
             evento.getFechaInicio().format(formatter),
-            evento.getParticipantesRegistrados().size(),
+            evento.contarRegistrados(),
             evento.getCapacidadMaxima(),
             evento.calcularPorcentajeAsistencia()
         );
@@ -0,0 +1,156 @@
+package logica;
+
+import modelos.EstadoEvento;
+import modelos.Evento;
+import modelos.MetodoPago;
+import modelos.Organizador;
+import modelos.Participante;
+import modelos.TipoEvento;
+import modelos.TipoTicket;
+import excepciones.EventPlannerException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de concurrencia del MotorCompras: muchos hilos comprando tickets
+ * del mismo evento a la vez, con compras individuales y grupales mezcladas.
+ *
+ * Los mismos hilos compran tambien en un segundo evento, y con
+ * -Deventplanner.journal.checkpoint bajo (lo pone el pom) los checkpoints
+ * de los repositorios ocurren en medio de las compras: asi un hilo guarda
+ * un evento mientras otro tiene su monitor, que es donde aparecio el
+ * bloqueo mutuo entre los eventos y los repositorios.
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+class MotorComprasConcurrenciaTest {
+
+    private static final int HILOS = 32;
+    private static final int PARTICIPANTES = 800;
+    private static final int CAPACIDAD = 300;
+    private static final int TAMANO_GRUPO = 5;
+    private static final long ESPERA_SEGUNDOS = 120;
+
+    private static GestorEventos gestorEventos;
+    private static GestorPagos gestorPagos;
+    private static Organizador organizador;
+    private static List<String> participantes;
+
+    @BeforeAll
+    static void prepararDatos() throws EventPlannerException {
+        gestorEventos = GestorEventos.getInstance();
+        gestorEventos.limpiarTodosLosDatos();
+        gestorPagos = GestorPagos.getInstance();
+        MotorCompras.getInstance().setPasarela(new PasarelaSimulada(0, 0, 0));
+        organizador = gestorEventos.registrarOrganizador("Org Prueba", "org@prueba.com", "3001234567",
+            "Org", "Dep", 3);
+        participantes = new ArrayList<>(PARTICIPANTES);
+        for (int i = 0; i < PARTICIPANTES; i++) {
+            participantes.add(gestorEventos.registrarParticipante("Persona " + nombre(i), "p" + i + "@prueba.com",
+                "300" + (1000000 + i), "Empresa", "Cargo", "Intereses", i % 10 == 0).getId());
+        }
+    }
+
+    @Test
+    void comprasSimultaneasNoSuperanLaCapacidad() throws Exception {
+        Evento evento = crearEventoPublicado("Evento concurrido", CAPACIDAD);
+        Evento vecino = crearEventoPublicado("Evento vecino", PARTICIPANTES);
+        AtomicInteger compras = new AtomicInteger();
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            hilos.submit(() -> {
+                for (int i = hilo * TAMANO_GRUPO; i < PARTICIPANTES; i += HILOS * TAMANO_GRUPO) {
+                    comprar(evento, hilo, i, compras);
+                    comprar(vecino, hilo + 1, i, new AtomicInteger());
+                }
+            });
+        }
+        hilos.shutdown();
+        boolean terminado = hilos.awaitTermination(ESPERA_SEGUNDOS, TimeUnit.SECONDS);
+        if (!terminado) {
+            hilos.shutdownNow();
+        }
+
+        assertTrue(terminado, "Las compras no terminaron en " + ESPERA_SEGUNDOS + " s (posible bloqueo mutuo)");
+        int registrados = evento.contarRegistrados();
+        assertTrue(registrados <= evento.getCapacidadMaxima(),
+            "Registrados " + registrados + " superan la capacidad " + evento.getCapacidadMaxima());
+        assertEquals(CAPACIDAD, registrados, "La demanda supera la capacidad: todos los cupos deben venderse");
+        assertEquals(registrados, compras.get());
+        assertEquals(registrados, gestorPagos.contarTicketsDeEvento(evento.getId()));
+        assertEquals(registrados, gestorPagos.obtenerPagosDeEvento(evento.getId()).size());
+        assertEquals(evento.getCapacidadMaxima() - registrados, evento.getCuposDisponibles());
+
+        int conEvento = 0;
+        for (String id : participantes) {
+            Participante participante = gestorEventos.buscarParticipante(id);
+            if (participante.getEventosRegistrados().contains(evento.getId())) {
+                assertTrue(evento.estaRegistrado(id), "El participante " + id + " tiene el evento pero no esta inscrito");
+                conEvento++;
+            }
+        }
+        assertEquals(registrados, conEvento);
+        assertEquals(PARTICIPANTES, vecino.contarRegistrados());
+        assertEquals(PARTICIPANTES, gestorPagos.contarTicketsDeEvento(vecino.getId()));
+    }
+
+    /**
+     * Los hilos pares compran uno por uno y los impares en grupo, para que
+     * los dos caminos compitan por los mismos cupos
+     */
+    private static void comprar(Evento evento, int hilo, int desde, AtomicInteger compras) {
+        List<String> grupo = participantes.subList(desde, Math.min(desde + TAMANO_GRUPO, PARTICIPANTES));
+        if (hilo % 2 == 1) {
+            try {
+                ResultadoCompraGrupal resultado = gestorPagos.comprarTicketsGrupo(evento.getId(), grupo,
+                    TipoTicket.values()[1], MetodoPago.values()[0]);
+                compras.addAndGet(resultado.getTickets().size());
+            } catch (EventPlannerException e) {
+                // Sin cupos o evento cerrado: no compra nadie del grupo
+            }
+            return;
+        }
+        for (String id : grupo) {
+            try {
+                gestorPagos.comprarTicket(evento.getId(), id, TipoTicket.values()[1], MetodoPago.values()[0]);
+                compras.incrementAndGet();
+            } catch (EventPlannerException e) {
+                // Sin cupos: se espera cuando la demanda supera la capacidad
+            }
+        }
+    }
+
+    private static Evento crearEventoPublicado(String nombre, int capacidad) throws EventPlannerException, IOException {
+        Evento evento = gestorEventos.crearEvento(nombre, "Descripcion del evento de prueba", TipoEvento.values()[0],
+            LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(6), "Auditorio Central", capacidad, organizador);
+        evento.setEstado(EstadoEvento.PUBLICADO);
+        gestorEventos.actualizarEvento(evento);
+        return evento;
+    }
+
+    /**
+     * Nombre solo con letras (los nombres de persona no admiten digitos)
+     */
+    private static String nombre(int i) {
+        StringBuilder nombre = new StringBuilder();
+        do {
+            nombre.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return nombre.toString();
+    }
+}
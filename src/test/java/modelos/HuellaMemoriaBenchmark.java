@@ -0,0 +1,151 @@
+/**
+ * HuellaMemoriaBenchmark - Mide los bytes de heap por registro de Ticket y
+ * Pago, comparando la forma compacta actual con la forma anterior (fechas
+ * LocalDateTime, referencia y autorizacion como texto y comisiones
+ * guardadas).
+ *
+ * La forma anterior se reproduce con TicketAnterior y PagoAnterior, que
+ * tienen los mismos campos que tenian Ticket y Pago. Cada medicion crea los
+ * registros, los mantiene vivos en un arreglo y compara el heap usado
+ * despues de varias recolecciones. Cada registro tiene su propio ID; el
+ * ticketId de un Pago se comparte con el Ticket, como en los repositorios.
+ * "Sin ID" descuenta el String del ID, que es igual en las dos formas.
+ *
+ * No es una prueba de JUnit (Surefire no la ejecuta). Uso:
+ * java -XX:+UseSerialGC -cp target/classes:target/test-classes modelos.HuellaMemoriaBenchmark [registros]
+ *
+ * @author Ayner Jose Castro Benavides
+ * @version 1.0
+ */
+package modelos;
+
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+public class HuellaMemoriaBenchmark {
+
+    private static final int REGISTROS_POR_DEFECTO = 200_000;
+    private static final String EVENTO = "EVT1700000000000000001";
+    private static final String PARTICIPANTE = "USR1700000000000000001";
+
+    /**
+     * Campos de Ticket antes de la forma compacta
+     */
+    @SuppressWarnings("unused")
+    private static final class TicketAnterior {
+        private final String id;
+        private final int eventoClave;
+        private final int participanteClave;
+        private final TipoTicket tipo;
+        private final double precio;
+        private final LocalDateTime fechaCompra;
+        private final boolean usado;
+        private final LocalDateTime fechaUso;
+
+        TicketAnterior(String id, String eventoId, String participanteId, TipoTicket tipo, double precio) {
+            this.id = id;
+            this.eventoClave = DiccionarioIds.clave(eventoId);
+            this.participanteClave = DiccionarioIds.clave(participanteId);
+            this.tipo = tipo;
+            this.precio = precio;
+            this.fechaCompra = LocalDateTime.now();
+            this.usado = false;
+            this.fechaUso = null;
+        }
+    }
+
+    /**
+     * Campos de Pago antes de la forma compacta
+     */
+    @SuppressWarnings("unused")
+    private static final class PagoAnterior {
+        private final String id;
+        private final String ticketId;
+        private final int participanteClave;
+        private final int eventoClave;
+        private final double montoBase;
+        private final MetodoPago metodoPago;
+        private final double comisionMetodo;
+        private final double comisionPlataforma;
+        private final double montoTotal;
+        private final EstadoPago estado;
+        private final LocalDateTime fechaCreacion;
+        private final LocalDateTime fechaAprobacion;
+        private final String numeroReferencia;
+        private final String numeroAutorizacion;
+
+        PagoAnterior(String id, String ticketId, String participanteId, String eventoId,
+                     double montoBase, MetodoPago metodoPago, int autorizacion) {
+            this.id = id;
+            this.ticketId = ticketId;
+            this.participanteClave = DiccionarioIds.clave(participanteId);
+            this.eventoClave = DiccionarioIds.clave(eventoId);
+            this.montoBase = montoBase;
+            this.metodoPago = metodoPago;
+            this.comisionMetodo = montoBase * metodoPago.getComision();
+            this.comisionPlataforma = montoBase * 0.05;
+            this.montoTotal = montoBase + comisionMetodo + comisionPlataforma;
+            this.estado = EstadoPago.APROBADO;
+            this.fechaCreacion = LocalDateTime.now();
+            this.fechaAprobacion = LocalDateTime.now();
+            this.numeroReferencia = GeneradorIds.generar("REF");
+            this.numeroAutorizacion = String.format("%06d", autorizacion);
+        }
+    }
+
+    public static void main(String[] args) {
+        int registros = args.length > 0 ? Integer.parseInt(args[0]) : REGISTROS_POR_DEFECTO;
+        String[] tickets = new String[registros];
+        for (int i = 0; i < registros; i++) {
+            tickets[i] = GeneradorIds.generar("TKT");
+        }
+        double bytesId = medir(registros, i -> GeneradorIds.generar("TKT"));
+
+        System.out.println("Bytes por registro (" + registros + " registros)");
+        System.out.println(String.format("%-8s %10s %10s %16s", "", "anterior", "compacto", "sin ID"));
+        double ticketAnterior = medir(registros, i -> new TicketAnterior(GeneradorIds.generar("TKT"), EVENTO,
+                PARTICIPANTE, TipoTicket.values()[i % TipoTicket.values().length], 50_000));
+        double ticketCompacto = medir(registros, i -> new Ticket(EVENTO, PARTICIPANTE,
+                TipoTicket.values()[i % TipoTicket.values().length], 50_000));
+        imprimir("Ticket", ticketAnterior, ticketCompacto, bytesId);
+
+        MetodoPago metodo = MetodoPago.values()[0];
+        double pagoAnterior = medir(registros, i -> new PagoAnterior(GeneradorIds.generar("PAY"), tickets[i],
+                PARTICIPANTE, EVENTO, 50_000, metodo, 100_000 + i % 900_000));
+        double pagoCompacto = medir(registros, i -> {
+            Pago pago = new Pago(tickets[i], PARTICIPANTE, EVENTO, 50_000, metodo);
+            pago.aprobar(100_000 + i % 900_000);
+            return pago;
+        });
+        imprimir("Pago", pagoAnterior, pagoCompacto, bytesId);
+    }
+
+    private static void imprimir(String nombre, double anterior, double compacto, double bytesId) {
+        System.out.println(String.format("%-8s %10.1f %10.1f %7.1f -> %.1f", nombre, anterior, compacto,
+                anterior - bytesId, compacto - bytesId));
+    }
+
+    /**
+     * Heap retenido por registro al crear la cantidad pedida
+     */
+    private static double medir(int registros, IntFunction<Object> crear) {
+        Object[] vivos = new Object[registros];
+        long antes = usado();
+        for (int i = 0; i < registros; i++) {
+            vivos[i] = crear.apply(i);
+        }
+        long despues = usado();
+        if (vivos[registros - 1] == null) {
+            throw new IllegalStateException();
+        }
+        return (double) (despues - antes) / registros;
+    }
+
+    private static long usado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}